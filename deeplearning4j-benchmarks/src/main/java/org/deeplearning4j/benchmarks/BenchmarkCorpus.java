@@ -0,0 +1,65 @@
+/*
+ *
+ *  * Copyright 2016 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+package org.deeplearning4j.benchmarks;
+
+import java.io.*;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Synthetic text corpora for the NLP benchmarks
+ */
+public class BenchmarkCorpus {
+
+    private BenchmarkCorpus() {
+    }
+
+    /**
+     * Generates a text file with (approximately) Zipf distributed words: word i has frequency proportional to 1/i
+     */
+    public static File zipf(long bytes, int vocabSize, long seed) throws IOException {
+        double[] cumulative = new double[vocabSize];
+        double sum = 0;
+        for (int i = 0; i < vocabSize; i++) {
+            sum += 1.0 / (i + 1);
+            cumulative[i] = sum;
+        }
+
+        File file = File.createTempFile("dl4jBenchmarkCorpus", ".txt");
+        file.deleteOnExit();
+        Random random = new Random(seed);
+        long written = 0;
+        try (Writer writer = new BufferedWriter(new FileWriter(file), 1 << 20)) {
+            StringBuilder line = new StringBuilder();
+            while (written < bytes) {
+                line.setLength(0);
+                int length = 10 + random.nextInt(30);
+                for (int i = 0; i < length; i++) {
+                    int idx = Arrays.binarySearch(cumulative, random.nextDouble() * sum);
+                    if (idx < 0) idx = -idx - 1;
+                    line.append('w').append(Math.min(idx, vocabSize - 1)).append(' ');
+                }
+                line.append('\n');
+                writer.write(line.toString());
+                written += line.length();
+            }
+        }
+        return file;
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ *
+ *  * Copyright 2016 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+package org.deeplearning4j.benchmarks;
+
+import org.deeplearning4j.nn.api.OptimizationAlgorithm;
+import org.deeplearning4j.nn.conf.ComputationGraphConfiguration;
+import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
+import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
+import org.deeplearning4j.nn.conf.Updater;
+import org.deeplearning4j.nn.conf.graph.MergeVertex;
+import org.deeplearning4j.nn.conf.layers.*;
+import org.deeplearning4j.nn.conf.layers.setup.ConvolutionLayerSetup;
+import org.deeplearning4j.nn.graph.ComputationGraph;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.deeplearning4j.nn.weights.WeightInit;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.lossfunctions.LossFunctions;
+
+import java.util.Random;
+
+/**
+ * Network configurations and random data used by the benchmarks. All networks use a fixed seed, so that
+ * results are comparable between runs and releases.
+ */
+public class BenchmarkNetworks {
+
+    public static final long SEED = 12345;
+
+    /** Network types for {@link MultiLayerNetworkBenchmark} */
+    public enum NetworkType {DENSE, CONV, GRAVES_LSTM, GRU}
+
+    private BenchmarkNetworks() {
+    }
+
+    /** Dense network: nIn -> hidden -> hidden -> nOut (softmax) */
+    public static MultiLayerNetwork dense(int nIn, int hidden, int nOut, Updater updater) {
+        MultiLayerConfiguration conf = new NeuralNetConfiguration.Builder()
+                .seed(SEED)
+                .optimizationAlgo(OptimizationAlgorithm.STOCHASTIC_GRADIENT_DESCENT).iterations(1)
+                .learningRate(0.01).updater(updater).momentum(0.9)
+                .activation("relu").weightInit(WeightInit.XAVIER)
+                .list()
+                .layer(0, new DenseLayer.Builder().nIn(nIn).nOut(hidden).build())
+                .layer(1, new DenseLayer.Builder().nIn(hidden).nOut(hidden).build())
+                .layer(2, new OutputLayer.Builder(LossFunctions.LossFunction.MCXENT).activation("softmax")
+                        .nIn(hidden).nOut(nOut).build())
+                .backprop(true).pretrain(false)
+                .build();
+        return init(conf);
+    }
+
+    /**
+     * LeNet style convolutional network on height x width x channels input (flattened, as for MNIST):
+     * conv -> max pool -> conv -> max pool -> dense -> output
+     */
+    public static MultiLayerNetwork conv(int height, int width, int channels, int nOut, ConvolutionLayer.AlgoMode algoMode) {
+        MultiLayerConfiguration.Builder builder = new NeuralNetConfiguration.Builder()
+                .seed(SEED)
+                .optimizationAlgo(OptimizationAlgorithm.STOCHASTIC_GRADIENT_DESCENT).iterations(1)
+                .learningRate(0.01).updater(Updater.NESTEROVS).momentum(0.9)
+                .weightInit(WeightInit.XAVIER)
+                .list()
+                .layer(0, new ConvolutionLayer.Builder(5, 5).nIn(channels).nOut(20).stride(1, 1)
+                        .activation("identity").algoMode(algoMode).build())
+                .layer(1, new SubsamplingLayer.Builder(SubsamplingLayer.PoolingType.MAX, new int[]{2, 2}, new int[]{2, 2}).build())
+                .layer(2, new ConvolutionLayer.Builder(5, 5).nOut(50).stride(1, 1)
+                        .activation("identity").algoMode(algoMode).build())
+                .layer(3, new SubsamplingLayer.Builder(SubsamplingLayer.PoolingType.MAX, new int[]{2, 2}, new int[]{2, 2}).build())
+                .layer(4, new DenseLayer.Builder().activation("relu").nOut(500).build())
+                .layer(5, new OutputLayer.Builder(LossFunctions.LossFunction.MCXENT).activation("softmax").nOut(nOut).build())
+                .backprop(true).pretrain(false);
+        new ConvolutionLayerSetup(builder, height, width, channels);
+        return init(builder.build());
+    }
+
+    /** Recurrent network: GravesLSTM or GRU layer (hidden units) -> RnnOutputLayer (softmax) */
+    public static MultiLayerNetwork recurrent(NetworkType type, int nIn, int hidden, int nOut) {
+        Layer recurrentLayer;
+        if (type == NetworkType.GRU) {
+            recurrentLayer = new GRU.Builder().nIn(nIn).nOut(hidden).activation("tanh").build();
+        } else if (type == NetworkType.GRAVES_LSTM) {
+            recurrentLayer = new GravesLSTM.Builder().nIn(nIn).nOut(hidden).activation("tanh").build();
+        } else {
+            throw new IllegalArgumentException("Not a recurrent network type: " + type);
+        }
+        MultiLayerConfiguration conf = new NeuralNetConfiguration.Builder()
+                .seed(SEED)
+                .optimizationAlgo(OptimizationAlgorithm.STOCHASTIC_GRADIENT_DESCENT).iterations(1)
+                .learningRate(0.01).updater(Updater.RMSPROP)
+                .weightInit(WeightInit.XAVIER)
+                .list()
+                .layer(0, recurrentLayer)
+                .layer(1, new RnnOutputLayer.Builder(LossFunctions.LossFunction.MCXENT).activation("softmax")
+                        .nIn(hidden).nOut(nOut).build())
+                .backprop(true).pretrain(false)
+                .build();
+        return init(conf);
+    }
+
+    /** Computation graph with two dense branches merged before the output layer */
+    public static ComputationGraph graph(int nIn, int hidden, int nOut) {
+        ComputationGraphConfiguration conf = new NeuralNetConfiguration.Builder()
+                .seed(SEED)
+                .optimizationAlgo(OptimizationAlgorithm.STOCHASTIC_GRADIENT_DESCENT).iterations(1)
+                .learningRate(0.01).updater(Updater.NESTEROVS).momentum(0.9)
+                .activation("relu").weightInit(WeightInit.XAVIER)
+                .graphBuilder()
+                .addInputs("in")
+                .addLayer("d0", new DenseLayer.Builder().nIn(nIn).nOut(hidden).build(), "in")
+                .addLayer("d1a", new DenseLayer.Builder().nIn(hidden).nOut(hidden).build(), "d0")
+                .addLayer("d1b", new DenseLayer.Builder().nIn(hidden).nOut(hidden).build(), "d0")
+                .addVertex("merge", new MergeVertex(), "d1a", "d1b")
+                .addLayer("out", new OutputLayer.Builder(LossFunctions.LossFunction.MCXENT).activation("softmax")
+                        .nIn(2 * hidden).nOut(nOut).build(), "merge")
+                .setOutputs("out")
+                .backprop(true).pretrain(false)
+                .build();
+        ComputationGraph graph = new ComputationGraph(conf);
+        graph.init();
+        return graph;
+    }
+
+    /** Random features (uniform [0,1)) and one-hot labels, for a feed forward network */
+    public static DataSet randomData(int miniBatch, int nIn, int nOut) {
+        return new DataSet(Nd4j.rand(miniBatch, nIn), oneHot(new int[]{miniBatch, nOut}));
+    }
+
+    /** Random features and one-hot labels for a recurrent network: shapes [miniBatch, size, seqLength] */
+    public static DataSet randomTimeSeriesData(int miniBatch, int nIn, int nOut, int seqLength) {
+        return new DataSet(Nd4j.rand(new int[]{miniBatch, nIn, seqLength}), oneHot(new int[]{miniBatch, nOut, seqLength}));
+    }
+
+    /** Random one-hot array: one random entry along dimension 1 is 1 for each example (and time step) */
+    public static INDArray oneHot(int[] shape) {
+        Random r = new Random(SEED);
+        INDArray out = Nd4j.zeros(shape);
+        int timeSteps = (shape.length == 3 ? shape[2] : 1);
+        for (int i = 0; i < shape[0]; i++) {
+            for (int t = 0; t < timeSteps; t++) {
+                int idx = r.nextInt(shape[1]);
+                if (shape.length == 3) out.putScalar(new int[]{i, idx, t}, 1.0);
+                else out.putScalar(i, idx, 1.0);
+            }
+        }
+        return out;
+    }
+
+    private static MultiLayerNetwork init(MultiLayerConfiguration conf) {
+        MultiLayerNetwork net = new MultiLayerNetwork(conf);
+        net.init();
+        return net;
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ *
+ *  * Copyright 2016 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+package org.deeplearning4j.benchmarks;
+
+import org.deeplearning4j.models.glove.AbstractCoOccurrences;
+import org.deeplearning4j.models.sequencevectors.iterators.AbstractSequenceIterator;
+import org.deeplearning4j.models.sequencevectors.transformers.impl.SentenceTransformer;
+import org.deeplearning4j.models.word2vec.VocabWord;
+import org.deeplearning4j.models.word2vec.wordstore.VocabConstructor;
+import org.deeplearning4j.models.word2vec.wordstore.inmemory.AbstractCache;
+import org.deeplearning4j.text.sentenceiterator.BasicLineIterator;
+import org.deeplearning4j.text.tokenization.tokenizerfactory.DefaultTokenizerFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GloVe co-occurrence counting (AbstractCoOccurrences.fit()) over a text corpus, one sentence per line.<br>
+ * By default a synthetic corpus with Zipf distributed words is generated. To benchmark on a real multi-GB corpus,
+ * pass its path: -p corpusPath=/path/to/corpus.txt, and use maxMemory (in GB) to compare in-memory counting against
+ * counting with spills to disk. Single shot: one fit() per iteration.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+@State(Scope.Benchmark)
+public class CoOccurrenceBenchmark {
+
+    /** Path to the corpus file. If empty, a synthetic corpus of syntheticMegabytes is generated */
+    @Param({""})
+    public String corpusPath;
+
+    @Param({"256"})
+    public int syntheticMegabytes;
+
+    /** Memory limit for the co-occurrence map, in GB: 0 for the JVM limit */
+    @Param({"0", "2"})
+    public int maxMemory;
+
+    @Param({"15"})
+    public int windowSize;
+
+    private File corpus;
+    private boolean generated;
+    private AbstractCache<VocabWord> vocabCache;
+    private AbstractSequenceIterator<VocabWord> sequenceIterator;
+
+    @Setup
+    public void setup() throws IOException {
+        if (corpusPath.isEmpty()) {
+            corpus = BenchmarkCorpus.zipf(syntheticMegabytes * 1024L * 1024L, 100000, 12345);
+            generated = true;
+        } else {
+            corpus = new File(corpusPath);
+        }
+
+        SentenceTransformer transformer = new SentenceTransformer.Builder()
+                .iterator(new BasicLineIterator(corpus))
+                .tokenizerFactory(new DefaultTokenizerFactory())
+                .build();
+        sequenceIterator = new AbstractSequenceIterator.Builder<VocabWord>(transformer).build();
+
+        vocabCache = new AbstractCache.Builder<VocabWord>().build();
+        VocabConstructor<VocabWord> constructor = new VocabConstructor.Builder<VocabWord>()
+                .addSource(sequenceIterator, 5)
+                .setTargetVocabCache(vocabCache)
+                .build();
+        constructor.buildJointVocabulary(false, true);
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (generated) corpus.delete();
+    }
+
+    @Benchmark
+    public AbstractCoOccurrences<VocabWord> fit() {
+        AbstractCoOccurrences<VocabWord> coOccurrences = new AbstractCoOccurrences.Builder<VocabWord>()
+                .iterate(sequenceIterator)
+                .vocabCache(vocabCache)
+                .symmetric(false)
+                .windowSize(windowSize)
+                .maxMemory(maxMemory)
+                .build();
+        coOccurrences.fit();
+        return coOccurrences;
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ *
+ *  * Copyright 2016 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+package org.deeplearning4j.benchmarks;
+
+import org.deeplearning4j.nn.graph.ComputationGraph;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.dataset.DataSet;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ComputationGraph fit and output, for a graph with two dense branches and a merge vertex.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ComputationGraphBenchmark {
+
+    @Param({"32"})
+    public int miniBatch;
+
+    @Param({"256"})
+    public int hidden;
+
+    private ComputationGraph graph;
+    private DataSet data;
+
+    @Setup
+    public void setup() {
+        graph = BenchmarkNetworks.graph(784, hidden, 10);
+        data = BenchmarkNetworks.randomData(miniBatch, 784, 10);
+    }
+
+    @Benchmark
+    public ComputationGraph fit() {
+        graph.fit(data);
+        return graph;
+    }
+
+    @Benchmark
+    public INDArray[] output() {
+        return graph.output(false, data.getFeatureMatrix());
+    }
+}
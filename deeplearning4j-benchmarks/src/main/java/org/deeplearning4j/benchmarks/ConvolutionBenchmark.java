@@ -0,0 +1,74 @@
+/*
+ *
+ *  * Copyright 2016 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+package org.deeplearning4j.benchmarks;
+
+import org.deeplearning4j.nn.conf.layers.ConvolutionLayer;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.dataset.DataSet;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Convolutional network (conv/max pooling) fit and output, for each convolution algorithm
+ * ({@link ConvolutionLayer.AlgoMode}) and for common input sizes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConvolutionBenchmark {
+
+    @Param({"IM2COL", "DIRECT"})
+    public ConvolutionLayer.AlgoMode algoMode;
+
+    /** Input size, as height x width x channels */
+    @Param({"28x28x1", "32x32x3", "64x64x3"})
+    public String inputSize;
+
+    @Param({"32"})
+    public int miniBatch;
+
+    private MultiLayerNetwork net;
+    private DataSet data;
+
+    @Setup
+    public void setup() {
+        String[] split = inputSize.split("x");
+        int height = Integer.parseInt(split[0]);
+        int width = Integer.parseInt(split[1]);
+        int channels = Integer.parseInt(split[2]);
+        net = BenchmarkNetworks.conv(height, width, channels, 10, algoMode);
+        data = BenchmarkNetworks.randomData(miniBatch, height * width * channels, 10);
+    }
+
+    @Benchmark
+    public MultiLayerNetwork fit() {
+        net.fit(data);
+        return net;
+    }
+
+    @Benchmark
+    public INDArray output() {
+        return net.output(data.getFeatureMatrix(), false);
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ *
+ *  * Copyright 2016 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+package org.deeplearning4j.benchmarks;
+
+import org.deeplearning4j.eval.Evaluation;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Evaluation.eval on a minibatch of (softmax) predictions and one-hot labels.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EvaluationBenchmark {
+
+    @Param({"10", "1000"})
+    public int numClasses;
+
+    @Param({"1000"})
+    public int miniBatch;
+
+    private INDArray labels;
+    private INDArray predictions;
+
+    @Setup
+    public void setup() {
+        labels = BenchmarkNetworks.oneHot(new int[]{miniBatch, numClasses});
+        predictions = Nd4j.rand(miniBatch, numClasses);
+        predictions.diviColumnVector(predictions.sum(1));
+    }
+
+    @Benchmark
+    public Evaluation eval() {
+        Evaluation evaluation = new Evaluation(numClasses);
+        evaluation.eval(labels, predictions);
+        return evaluation;
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ *
+ *  * Copyright 2016 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+package org.deeplearning4j.benchmarks;
+
+import org.deeplearning4j.nn.conf.Updater;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Allocation per inference call of a dense network: MultiLayerNetwork.output(INDArray, false) versus
+ * outputWithWorkspace(INDArray), for small (latency bound) minibatches.<br>
+ * Run with the GC profiler ({@code -prof gc}, or via {@link #main(String[])}): gc.alloc.rate.norm is the heap
+ * allocated per call. With native backends the array data itself is off heap, but each array allocated also
+ * allocates its heap objects (array, buffer and shape information), so the heap figure tracks the number of
+ * arrays allocated per call.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InferenceAllocationBenchmark {
+
+    @Param({"1", "32"})
+    public int miniBatch;
+
+    private MultiLayerNetwork net;
+    private INDArray input;
+
+    @Setup
+    public void setup() {
+        net = BenchmarkNetworks.dense(784, 512, 10, Updater.NESTEROVS);
+        input = BenchmarkNetworks.randomData(miniBatch, 784, 10).getFeatureMatrix();
+    }
+
+    @Benchmark
+    public INDArray output() {
+        return net.output(input, false);
+    }
+
+    @Benchmark
+    public INDArray outputWithWorkspace() {
+        return net.outputWithWorkspace(input);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(InferenceAllocationBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
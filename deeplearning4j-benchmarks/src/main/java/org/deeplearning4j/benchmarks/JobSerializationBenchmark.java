@@ -0,0 +1,118 @@
+/*
+ *
+ *  * Copyright 2016 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+package org.deeplearning4j.benchmarks;
+
+import org.deeplearning4j.nn.conf.Updater;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.deeplearning4j.scaleout.job.Job;
+import org.deeplearning4j.scaleout.job.JobSerializer;
+import org.deeplearning4j.util.SerializationUtils;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization of state tracker updates (a Job holding a parameter vector) with Java serialization (JAVA), the raw
+ * binary format of JobSerializer (RAW), and the binary format delta encoded against the previous parameters, exact
+ * (DELTA) or thresholded (DELTA_THRESHOLD).<br>
+ * SPARSE updates change 10% of the parameters, FITTED updates are the parameters of a dense network after one fit,
+ * in which nearly every parameter changes: exact delta encoding falls back to the dense format for those.<br>
+ * The serialized size of each format is printed during setup.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+@State(Scope.Benchmark)
+public class JobSerializationBenchmark {
+
+    public enum Format {JAVA, RAW, DELTA, DELTA_THRESHOLD}
+
+    public enum Update {SPARSE, FITTED}
+
+    /** Threshold for DELTA_THRESHOLD: changes smaller than this are not sent */
+    public static final float THRESHOLD = 1e-3f;
+
+    @Param({"JAVA", "RAW", "DELTA", "DELTA_THRESHOLD"})
+    public Format format;
+
+    @Param({"SPARSE", "FITTED"})
+    public Update update;
+
+    /** Number of parameters: 2M approximately matches a 784-1024-10 dense network */
+    @Param({"100000", "2000000"})
+    public int numParams;
+
+    private Job job;
+    private JobSerializer serializer;
+    private byte[] serialized;
+
+    @Setup
+    public void setup() throws IOException {
+        INDArray reference;
+        INDArray params;
+        if (update == Update.FITTED) {
+            //784-h-h-10 network with approximately numParams parameters
+            int hidden = (int) ((Math.sqrt(796.0 * 796.0 + 4.0 * numParams) - 796.0) / 2.0);
+            MultiLayerNetwork net = BenchmarkNetworks.dense(784, hidden, 10, Updater.NESTEROVS);
+            reference = net.params().dup();
+            net.fit(BenchmarkNetworks.randomData(32, 784, 10));
+            params = net.params().dup();
+        } else {
+            reference = Nd4j.rand(1, numParams);
+            params = reference.dup();
+            Random r = new Random(12345);
+            for (int i = 0; i < numParams / 10; i++) {
+                int idx = r.nextInt(numParams);
+                params.putScalar(idx, params.getFloat(idx) + 0.01f);
+            }
+        }
+        job = new Job(null, "worker");
+        job.setResult(params);
+
+        if (format == Format.DELTA) serializer = new JobSerializer(reference);
+        else if (format == Format.DELTA_THRESHOLD) serializer = new JobSerializer(reference, THRESHOLD);
+        else serializer = new JobSerializer();
+        serialized = serialize();
+        System.out.println(String.format("%s, %s, %d params: %d bytes (%.2f bytes/param)", format, update,
+                params.length(), serialized.length, serialized.length / (double) params.length()));
+    }
+
+    private byte[] serialize() throws IOException {
+        if (format == Format.JAVA) return SerializationUtils.toByteArray(job);
+        return serializer.toBytes(job);
+    }
+
+    @Benchmark
+    public byte[] serializeJob() throws IOException {
+        return serialize();
+    }
+
+    @Benchmark
+    public Job deserializeJob() throws IOException {
+        if (format == Format.JAVA) return SerializationUtils.readObject(new ByteArrayInputStream(serialized));
+        return serializer.fromBytes(serialized);
+    }
+}
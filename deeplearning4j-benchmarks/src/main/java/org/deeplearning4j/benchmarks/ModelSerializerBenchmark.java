@@ -0,0 +1,90 @@
+/*
+ *
+ *  * Copyright 2016 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+package org.deeplearning4j.benchmarks;
+
+import org.deeplearning4j.nn.conf.Updater;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.deeplearning4j.util.ModelSerializer;
+import org.nd4j.linalg.dataset.DataSet;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ModelSerializer write and restore, in the default format (writeModel) and the raw format (writeModelRaw), for a
+ * dense network with Adam updater state (updater state is 2x the size of the parameters).<br>
+ * Run with the GC profiler (-prof gc) to compare heap allocation per operation (gc.alloc.rate.norm) between the
+ * formats: the default format copies the model several times on the heap, the raw format only uses fixed size buffers.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+@State(Scope.Benchmark)
+public class ModelSerializerBenchmark {
+
+    public enum Format {DEFAULT, RAW}
+
+    @Param({"DEFAULT", "RAW"})
+    public Format format;
+
+    /** Hidden layer size: 1024 gives approximately 2M parameters, 4096 approximately 20M */
+    @Param({"1024", "4096"})
+    public int hidden;
+
+    private MultiLayerNetwork net;
+    private File writeFile;
+    private File restoreFile;
+
+    @Setup
+    public void setup() throws IOException {
+        net = BenchmarkNetworks.dense(784, hidden, 10, Updater.ADAM);
+        DataSet data = BenchmarkNetworks.randomData(32, 784, 10);
+        net.fit(data);  //Initialize the updater state
+
+        writeFile = File.createTempFile("dl4jBenchmarkWrite", ".zip");
+        restoreFile = File.createTempFile("dl4jBenchmarkRestore", ".zip");
+        write(restoreFile);
+    }
+
+    @TearDown
+    public void tearDown() {
+        writeFile.delete();
+        restoreFile.delete();
+    }
+
+    private void write(File file) throws IOException {
+        if (format == Format.RAW) ModelSerializer.writeModelRaw(net, file, true);
+        else ModelSerializer.writeModel(net, file, true);
+    }
+
+    @Benchmark
+    public File writeModel() throws IOException {
+        write(writeFile);
+        return writeFile;
+    }
+
+    @Benchmark
+    public MultiLayerNetwork restoreModel() throws IOException {
+        return ModelSerializer.restoreMultiLayerNetwork(restoreFile);
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ *
+ *  * Copyright 2016 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+package org.deeplearning4j.benchmarks;
+
+import org.deeplearning4j.nn.conf.Updater;
+import org.deeplearning4j.nn.conf.layers.ConvolutionLayer;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.dataset.DataSet;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MultiLayerNetwork fit and output, for dense, convolutional and recurrent networks.
+ * One fit call is a single minibatch (one parameter update).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MultiLayerNetworkBenchmark {
+
+    @Param({"DENSE", "CONV", "GRAVES_LSTM", "GRU"})
+    public BenchmarkNetworks.NetworkType networkType;
+
+    @Param({"32"})
+    public int miniBatch;
+
+    private MultiLayerNetwork net;
+    private DataSet data;
+
+    @Setup
+    public void setup() {
+        switch (networkType) {
+            case DENSE:
+                net = BenchmarkNetworks.dense(784, 512, 10, Updater.NESTEROVS);
+                data = BenchmarkNetworks.randomData(miniBatch, 784, 10);
+                break;
+            case CONV:
+                net = BenchmarkNetworks.conv(28, 28, 1, 10, ConvolutionLayer.AlgoMode.IM2COL);
+                data = BenchmarkNetworks.randomData(miniBatch, 784, 10);
+                break;
+            default:
+                net = BenchmarkNetworks.recurrent(networkType, 64, 128, 10);
+                data = BenchmarkNetworks.randomTimeSeriesData(miniBatch, 64, 10, 50);
+        }
+    }
+
+    @Benchmark
+    public MultiLayerNetwork fit() {
+        net.fit(data);
+        return net;
+    }
+
+    @Benchmark
+    public INDArray output() {
+        return net.output(data.getFeatureMatrix(), false);
+    }
+
+    @Benchmark
+    public INDArray outputWithWorkspace() {
+        return net.outputWithWorkspace(data.getFeatureMatrix());
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ *
+ *  * Copyright 2016 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+package org.deeplearning4j.benchmarks;
+
+import org.deeplearning4j.models.paragraphvectors.ParagraphVectors;
+import org.deeplearning4j.text.documentiterator.LabelsSource;
+import org.deeplearning4j.text.sentenceiterator.BasicLineIterator;
+import org.deeplearning4j.text.tokenization.tokenizerfactory.DefaultTokenizerFactory;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Documents per second inferred by ParagraphVectors: one inferVector() call per document, versus inferVectorBatch()
+ * with the given number of worker threads. The model is trained once during setup, on a synthetic Zipf corpus.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+@State(Scope.Benchmark)
+public class ParagraphVectorsInferenceBenchmark {
+
+    private static final int NUM_DOCUMENTS = 1000;
+
+    @Param({"100"})
+    public int layerSize;
+
+    @Param({"10"})
+    public int iterations;
+
+    @Param({"1", "4", "8"})
+    public int workers;
+
+    private ParagraphVectors vectors;
+    private List<String> documents;
+
+    @Setup
+    public void setup() throws IOException {
+        File corpus = BenchmarkCorpus.zipf(4 * 1024 * 1024, 30000, 12345);
+
+        vectors = new ParagraphVectors.Builder()
+                .iterate(new BasicLineIterator(corpus))
+                .labelsSource(new LabelsSource("DOC_"))
+                .tokenizerFactory(new DefaultTokenizerFactory())
+                .minWordFrequency(5)
+                .layerSize(layerSize)
+                .epochs(1)
+                .sampling(0)
+                .build();
+        vectors.fit();
+
+        documents = new ArrayList<>(NUM_DOCUMENTS);
+        try (BufferedReader reader = new BufferedReader(new FileReader(corpus))) {
+            String line;
+            while ((line = reader.readLine()) != null && documents.size() < NUM_DOCUMENTS)
+                documents.add(line);
+        }
+        corpus.delete();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_DOCUMENTS)
+    public List<INDArray> inferVector() {
+        List<INDArray> result = new ArrayList<>(NUM_DOCUMENTS);
+        for (String document : documents)
+            result.add(vectors.inferVector(document, 0.025, 0.001, iterations));
+        return result;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_DOCUMENTS)
+    public INDArray inferVectorBatch() {
+        return vectors.inferVectorBatch(documents, 0.025, 0.001, iterations, workers);
+    }
+}
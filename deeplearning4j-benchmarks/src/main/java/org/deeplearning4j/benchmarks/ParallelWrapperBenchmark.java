@@ -0,0 +1,81 @@
+/*
+ *
+ *  * Copyright 2016 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+package org.deeplearning4j.benchmarks;
+
+import org.deeplearning4j.datasets.iterator.impl.ListDataSetIterator;
+import org.deeplearning4j.nn.conf.Updater;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.deeplearning4j.parallelism.ParallelWrapper;
+import org.nd4j.linalg.dataset.DataSet;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ParallelWrapper scaling: one epoch of a fixed number of minibatches, for 1 to N worker threads.
+ * The averaging frequency is a parameter, as averaging cost limits scaling for small networks.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParallelWrapperBenchmark {
+
+    @Param({"1", "2", "4"})
+    public int workers;
+
+    @Param({"1", "5"})
+    public int averagingFrequency;
+
+    @Param({"64"})
+    public int numMinibatches;
+
+    private ParallelWrapper wrapper;
+    private ListDataSetIterator iterator;
+
+    @Setup
+    public void setup() {
+        MultiLayerNetwork net = BenchmarkNetworks.dense(784, 512, 10, Updater.NESTEROVS);
+        List<DataSet> minibatches = new ArrayList<>();
+        for (int i = 0; i < numMinibatches; i++)
+            minibatches.add(BenchmarkNetworks.randomData(32, 784, 10));
+        //Each element is a complete minibatch
+        iterator = new ListDataSetIterator(minibatches, 1);
+        wrapper = new ParallelWrapper.Builder(net)
+                .workers(workers)
+                .averagingFrequency(averagingFrequency)
+                .build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        wrapper.shutdown();
+    }
+
+    @Benchmark
+    public ParallelWrapper fitEpoch() {
+        iterator.reset();
+        wrapper.fit(iterator);
+        return wrapper;
+    }
+}
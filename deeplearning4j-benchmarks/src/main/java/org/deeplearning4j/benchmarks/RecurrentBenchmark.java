@@ -0,0 +1,71 @@
+/*
+ *
+ *  * Copyright 2016 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+package org.deeplearning4j.benchmarks;
+
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.dataset.DataSet;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GravesLSTM and GRU fit and output over a range of layer sizes and sequence lengths: the per time step cost
+ * of the gate computations dominates for small layers and long sequences.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RecurrentBenchmark {
+
+    @Param({"GRAVES_LSTM", "GRU"})
+    public BenchmarkNetworks.NetworkType networkType;
+
+    @Param({"32", "256"})
+    public int hidden;
+
+    @Param({"10", "100"})
+    public int seqLength;
+
+    @Param({"32"})
+    public int miniBatch;
+
+    private MultiLayerNetwork net;
+    private DataSet data;
+
+    @Setup
+    public void setup() {
+        net = BenchmarkNetworks.recurrent(networkType, 32, hidden, 10);
+        data = BenchmarkNetworks.randomTimeSeriesData(miniBatch, 32, 10, seqLength);
+    }
+
+    @Benchmark
+    public MultiLayerNetwork fit() {
+        net.fit(data);
+        return net;
+    }
+
+    @Benchmark
+    public INDArray output() {
+        return net.output(data.getFeatureMatrix(), false);
+    }
+}
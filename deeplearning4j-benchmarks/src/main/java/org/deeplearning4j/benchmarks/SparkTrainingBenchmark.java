@@ -0,0 +1,104 @@
+/*
+ *
+ *  * Copyright 2016 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+package org.deeplearning4j.benchmarks;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.spark.SparkConf;
+import org.apache.spark.api.java.JavaRDD;
+import org.apache.spark.api.java.JavaSparkContext;
+import org.deeplearning4j.nn.conf.Updater;
+import org.deeplearning4j.spark.impl.multilayer.SparkDl4jMultiLayer;
+import org.nd4j.linalg.dataset.DataSet;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Spark training (local mode) with parameter averaging, time per averaging round: fitDataSet with a random split and
+ * repartition of the data every round (RANDOM_SPLIT), versus training on minibatches exported once per partition
+ * (PARTITION_LOCAL). The one-off export time is printed during setup.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@OperationsPerInvocation(SparkTrainingBenchmark.ROUNDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+@State(Scope.Benchmark)
+public class SparkTrainingBenchmark {
+
+    public static final int ROUNDS = 10;
+    public static final int NUM_PARTITIONS = 4;
+
+    public enum SplitMode {RANDOM_SPLIT, PARTITION_LOCAL}
+
+    @Param({"RANDOM_SPLIT", "PARTITION_LOCAL"})
+    public SplitMode mode;
+
+    @Param({"20000"})
+    public int numExamples;
+
+    private JavaSparkContext sc;
+    private SparkDl4jMultiLayer sparkNet;
+    private JavaRDD<DataSet> data;
+    private JavaRDD<String> slices;
+    private File exportDir;
+
+    @Setup
+    public void setup() throws IOException {
+        SparkConf conf = new SparkConf().setMaster("local[" + NUM_PARTITIONS + "]").setAppName("SparkTrainingBenchmark")
+                .set("spark.ui.enabled", "false");
+        sc = new JavaSparkContext(conf);
+        sparkNet = new SparkDl4jMultiLayer(sc, BenchmarkNetworks.dense(784, 256, 10, Updater.NESTEROVS));
+
+        //One example per DataSet, as produced by record reader based pipelines
+        List<DataSet> examples = new ArrayList<>();
+        for (int i = 0; i < numExamples; i++)
+            examples.add(BenchmarkNetworks.randomData(1, 784, 10));
+        data = sc.parallelize(examples, NUM_PARTITIONS);
+        data.cache();
+        data.count();
+
+        if (mode == SplitMode.PARTITION_LOCAL) {
+            exportDir = Files.createTempDirectory("dl4jSparkBenchmark").toFile();
+            long start = System.currentTimeMillis();
+            slices = sparkNet.exportMinibatches(data, exportDir.getAbsolutePath(), 32, ROUNDS, NUM_PARTITIONS);
+            System.out.println(String.format("Exported %d examples in %d ms", numExamples, System.currentTimeMillis() - start));
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        sc.stop();
+        if (exportDir != null)
+            FileUtils.deleteDirectory(exportDir);
+    }
+
+    @Benchmark
+    public SparkDl4jMultiLayer fit() {
+        if (mode == SplitMode.PARTITION_LOCAL) sparkNet.fitExported(slices, ROUNDS);
+        else sparkNet.fitDataSet(data, numExamples / ROUNDS, numExamples, NUM_PARTITIONS);
+        return sparkNet;
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ *
+ *  * Copyright 2016 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+package org.deeplearning4j.benchmarks;
+
+import org.deeplearning4j.models.sequencevectors.sequence.Sequence;
+import org.deeplearning4j.models.word2vec.VocabWord;
+import org.deeplearning4j.models.word2vec.wordstore.VocabLookup;
+import org.deeplearning4j.models.word2vec.wordstore.inmemory.AbstractCache;
+import org.deeplearning4j.text.tokenization.tokenizer.Tokenizer;
+import org.deeplearning4j.text.tokenization.tokenizer.preprocessor.CommonCharPreprocessor;
+import org.deeplearning4j.text.tokenization.tokenizer.preprocessor.CommonPreprocessor;
+import org.deeplearning4j.text.tokenization.tokenizerfactory.BufferedTokenizerFactory;
+import org.deeplearning4j.text.tokenization.tokenizerfactory.DefaultTokenizerFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sentences per second converted into Sequence<VocabWord>: DefaultTokenizerFactory with CommonPreprocessor, the way
+ * SentenceTransformer does it (String per token, regex pre processing, new VocabWord per token), versus
+ * BufferedTokenizerFactory with CommonCharPreprocessor, resolving tokens against the vocabulary via VocabLookup.
+ * Run with -prof gc to compare allocation rates.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+@State(Scope.Benchmark)
+public class TokenizerBenchmark {
+
+    private static final int VOCAB_SIZE = 30000;
+
+    private List<String> sentences;
+    private DefaultTokenizerFactory defaultFactory;
+    private BufferedTokenizerFactory bufferedFactory;
+    private VocabLookup<VocabWord> lookup;
+    private int next;
+
+    @Setup
+    public void setup() throws IOException {
+        File corpus = BenchmarkCorpus.zipf(8 * 1024 * 1024, VOCAB_SIZE, 12345);
+        sentences = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new FileReader(corpus))) {
+            String line;
+            // capitalization and punctuation, so pre processors have something to do
+            while ((line = reader.readLine()) != null)
+                sentences.add("The " + line.trim() + ", W1.");
+        }
+        corpus.delete();
+
+        AbstractCache<VocabWord> cache = new AbstractCache.Builder<VocabWord>().build();
+        for (int i = 0; i < VOCAB_SIZE; i++) {
+            VocabWord word = new VocabWord(1.0, "w" + i);
+            word.setIndex(i);
+            cache.addToken(word);
+        }
+        lookup = new VocabLookup<>(cache);
+
+        defaultFactory = new DefaultTokenizerFactory();
+        defaultFactory.setTokenPreProcessor(new CommonPreprocessor());
+        bufferedFactory = new BufferedTokenizerFactory();
+        bufferedFactory.setTokenPreProcessor(new CommonCharPreprocessor());
+    }
+
+    @Benchmark
+    public Sequence<VocabWord> defaultTokenizer() {
+        String sentence = nextSentence();
+        Sequence<VocabWord> sequence = new Sequence<>();
+        Tokenizer tokenizer = defaultFactory.create(sentence);
+        for (String token : tokenizer.getTokens()) {
+            if (token == null || token.isEmpty() || token.trim().isEmpty()) continue;
+            sequence.addElement(new VocabWord(1.0, token));
+        }
+        return sequence;
+    }
+
+    @Benchmark
+    public Sequence<VocabWord> bufferedTokenizer() {
+        return bufferedFactory.toSequence(nextSentence(), lookup);
+    }
+
+    @Benchmark
+    public int[] bufferedTokenizerIndexes() {
+        return bufferedFactory.toIndexes(nextSentence(), lookup);
+    }
+
+    private String nextSentence() {
+        String sentence = sentences.get(next++);
+        if (next == sentences.size()) next = 0;
+        return sentence;
+    }
+}
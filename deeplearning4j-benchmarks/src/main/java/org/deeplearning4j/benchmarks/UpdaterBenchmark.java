@@ -0,0 +1,84 @@
+/*
+ *
+ *  * Copyright 2016 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+package org.deeplearning4j.benchmarks;
+
+import org.deeplearning4j.nn.api.Updater;
+import org.deeplearning4j.nn.gradient.DefaultGradient;
+import org.deeplearning4j.nn.gradient.Gradient;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.dataset.DataSet;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Updater cost (MultiLayerUpdater, and hence each updater in org.deeplearning4j.nn.updater) for a dense network:
+ * one call applies the updater to the gradient of all layers. The gradient is restored (copied from a fixed gradient)
+ * before each call, so that repeated updates don't drive the gradient values towards zero or infinity.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UpdaterBenchmark {
+
+    @Param({"SGD", "ADAM", "ADADELTA", "NESTEROVS", "ADAGRAD", "RMSPROP", "NONE"})
+    public org.deeplearning4j.nn.conf.Updater updaterType;
+
+    @Param({"512"})
+    public int hidden;
+
+    private MultiLayerNetwork net;
+    private Updater updater;
+    private Map<String, INDArray> originalGradient;
+    private Gradient gradient;
+    private int iteration;
+    private static final int MINI_BATCH = 32;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        net = BenchmarkNetworks.dense(784, hidden, 10, updaterType);
+        DataSet data = BenchmarkNetworks.randomData(MINI_BATCH, 784, 10);
+        net.setInput(data.getFeatureMatrix());
+        net.setLabels(data.getLabels());
+        net.computeGradientAndScore();
+        originalGradient = new LinkedHashMap<>();
+        for (Map.Entry<String, INDArray> entry : net.gradient().gradientForVariable().entrySet())
+            originalGradient.put(entry.getKey(), entry.getValue().dup());
+        updater = net.getUpdater();
+    }
+
+    @Setup(Level.Invocation)
+    public void resetGradient() {
+        gradient = new DefaultGradient();
+        for (Map.Entry<String, INDArray> entry : originalGradient.entrySet())
+            gradient.gradientForVariable().put(entry.getKey(), entry.getValue().dup());
+    }
+
+    @Benchmark
+    public Gradient update() {
+        updater.update(net, gradient, iteration++, MINI_BATCH);
+        return gradient;
+    }
+}
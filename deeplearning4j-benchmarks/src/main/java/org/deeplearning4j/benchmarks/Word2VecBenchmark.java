@@ -0,0 +1,120 @@
+/*
+ *
+ *  * Copyright 2016 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+package org.deeplearning4j.benchmarks;
+
+import org.deeplearning4j.models.embeddings.learning.ElementsLearningAlgorithm;
+import org.deeplearning4j.models.embeddings.learning.impl.elements.BatchedSkipGram;
+import org.deeplearning4j.models.embeddings.learning.impl.elements.HogwildSkipGram;
+import org.deeplearning4j.models.embeddings.learning.impl.elements.SkipGram;
+import org.deeplearning4j.models.embeddings.loader.VectorsConfiguration;
+import org.deeplearning4j.models.sequencevectors.SequenceVectors;
+import org.deeplearning4j.models.sequencevectors.iterators.AbstractSequenceIterator;
+import org.deeplearning4j.models.sequencevectors.transformers.impl.SentenceTransformer;
+import org.deeplearning4j.models.word2vec.VocabWord;
+import org.deeplearning4j.text.sentenceiterator.BasicLineIterator;
+import org.deeplearning4j.text.tokenization.tokenizerfactory.DefaultTokenizerFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Word2vec (SequenceVectors) training throughput for the SkipGram implementations: SkipGram (INDArray views and
+ * level 1 BLAS per pair), HogwildSkipGram (raw buffers, no per-sample allocation) and BatchedSkipGram (level 3 BLAS
+ * over each window, negative sampling only). Note that SkipGram and HogwildSkipGram always train hierarchic softmax
+ * in addition to negative sampling, so BatchedSkipGram does less work per pair.<br>
+ * Each invocation is a single epoch over a synthetic Zipf corpus, including vocabulary construction. Training
+ * throughput excluding vocabulary construction is printed as words/sec/thread after each iteration.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+@State(Scope.Benchmark)
+public class Word2VecBenchmark {
+
+    public enum Algorithm {SKIPGRAM, HOGWILD, BATCHED}
+
+    @Param({"SKIPGRAM", "HOGWILD", "BATCHED"})
+    public Algorithm algorithm;
+
+    @Param({"50", "100", "300"})
+    public int layerSize;
+
+    @Param({"5"})
+    public int negative;
+
+    @Param({"64"})
+    public int corpusMegabytes;
+
+    private File corpus;
+    private SequenceVectors<VocabWord> vectors;
+
+    @Setup
+    public void setup() throws IOException {
+        corpus = BenchmarkCorpus.zipf(corpusMegabytes * 1024L * 1024L, 30000, 12345);
+    }
+
+    @TearDown
+    public void tearDown() {
+        corpus.delete();
+    }
+
+    @TearDown(Level.Iteration)
+    public void reportThroughput() {
+        if (vectors != null)
+            System.out.println(String.format("%s, layerSize %d: %.1f words/sec/thread", algorithm, layerSize, vectors.getWordsPerSecondPerThread()));
+    }
+
+    @Benchmark
+    public SequenceVectors<VocabWord> fit() throws IOException {
+        SentenceTransformer transformer = new SentenceTransformer.Builder()
+                .iterator(new BasicLineIterator(corpus))
+                .tokenizerFactory(new DefaultTokenizerFactory())
+                .build();
+        AbstractSequenceIterator<VocabWord> sequenceIterator = new AbstractSequenceIterator.Builder<VocabWord>(transformer).build();
+
+        vectors = new SequenceVectors.Builder<VocabWord>(new VectorsConfiguration())
+                .minWordFrequency(5)
+                .iterate(sequenceIterator)
+                .layerSize(layerSize)
+                .windowSize(5)
+                .negativeSample(negative)
+                .epochs(1)
+                .elementsLearningAlgorithm(createAlgorithm())
+                .resetModel(true)
+                .trainElementsRepresentation(true)
+                .build();
+        vectors.fit();
+        return vectors;
+    }
+
+    private ElementsLearningAlgorithm<VocabWord> createAlgorithm() {
+        switch (algorithm) {
+            case HOGWILD:
+                return new HogwildSkipGram<>();
+            case BATCHED:
+                return new BatchedSkipGram<>();
+            default:
+                return new SkipGram<>();
+        }
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ *
+ *  * Copyright 2016 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+package org.deeplearning4j.benchmarks;
+
+import org.deeplearning4j.models.embeddings.WeightLookupTable;
+import org.deeplearning4j.models.embeddings.inmemory.InMemoryLookupTable;
+import org.deeplearning4j.models.embeddings.reader.ModelUtils;
+import org.deeplearning4j.models.embeddings.reader.impl.BasicModelUtils;
+import org.deeplearning4j.models.embeddings.reader.impl.FlatModelUtils;
+import org.deeplearning4j.models.embeddings.reader.impl.HnswModelUtils;
+import org.deeplearning4j.models.word2vec.VocabWord;
+import org.deeplearning4j.models.word2vec.wordstore.inmemory.AbstractCache;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * wordsNearest queries per second for BasicModelUtils (matrix-vector product and sort), FlatModelUtils (cosine
+ * similarity per word) and HnswModelUtils (approximate, HNSW index), on random word vectors.<br>
+ * Recall@k of each implementation against an exact scan is printed during setup. For HNSW, recall and QPS are
+ * traded off via the ef parameter (ignored by the other implementations); index construction is not included in
+ * the measurement.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+@State(Scope.Benchmark)
+public class WordsNearestBenchmark {
+
+    public enum Implementation {BASIC, FLAT, HNSW}
+
+    private static final int NUM_QUERIES = 100;
+    private static final int BATCH_SIZE = 64;
+
+    @Param({"BASIC", "FLAT", "HNSW"})
+    public Implementation implementation;
+
+    @Param({"100000"})
+    public int vocabSize;
+
+    @Param({"100"})
+    public int layerSize;
+
+    @Param({"10"})
+    public int k;
+
+    @Param({"32", "128"})
+    public int ef;
+
+    private ModelUtils<VocabWord> modelUtils;
+    private String[] queries;
+    private int next;
+
+    @Setup
+    public void setup() {
+        Nd4j.getRandom().setSeed(12345);
+        AbstractCache<VocabWord> cache = new AbstractCache.Builder<VocabWord>().build();
+        for (int i = 0; i < vocabSize; i++) {
+            String label = "w" + i;
+            cache.addToken(new VocabWord(1.0, label));
+            cache.addWordToIndex(i, label);
+        }
+        InMemoryLookupTable<VocabWord> lookupTable = (InMemoryLookupTable<VocabWord>) new InMemoryLookupTable.Builder<VocabWord>()
+                .cache(cache)
+                .vectorLength(layerSize)
+                .build();
+        lookupTable.setSyn0(Nd4j.randn(vocabSize, layerSize));
+
+        Random random = new Random(12345);
+        queries = new String[NUM_QUERIES];
+        for (int i = 0; i < NUM_QUERIES; i++)
+            queries[i] = "w" + random.nextInt(vocabSize);
+
+        //Exact results have to be computed before BasicModelUtils normalizes syn0 in place
+        List<Set<String>> exact = exactNearest(lookupTable, cache);
+
+        modelUtils = createModelUtils(lookupTable);
+        long start = System.currentTimeMillis();
+        modelUtils.wordsNearest(queries[0], k);
+        long firstQuery = System.currentTimeMillis() - start;
+
+        int found = 0;
+        for (int i = 0; i < NUM_QUERIES; i++) {
+            for (String word : modelUtils.wordsNearest(queries[i], k))
+                if (exact.get(i).contains(word)) found++;
+        }
+        System.out.println(String.format("%s (ef %d): recall@%d = %.4f, first query (including index build) %d ms",
+                implementation, ef, k, found / (double) (NUM_QUERIES * k), firstQuery));
+    }
+
+    @Benchmark
+    public Collection<String> wordsNearest() {
+        String query = queries[next++ % NUM_QUERIES];
+        return modelUtils.wordsNearest(query, k);
+    }
+
+    /**
+     * Batch of queries: HnswModelUtils processes the batch with one thread per core, others sequentially
+     */
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public List<Collection<String>> wordsNearestBatch() {
+        List<String> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++)
+            batch.add(queries[next++ % NUM_QUERIES]);
+
+        if (modelUtils instanceof HnswModelUtils)
+            return ((HnswModelUtils<VocabWord>) modelUtils).wordsNearest(batch, k, Runtime.getRuntime().availableProcessors());
+
+        List<Collection<String>> ret = new ArrayList<>(BATCH_SIZE);
+        for (String query : batch)
+            ret.add(modelUtils.wordsNearest(query, k));
+        return ret;
+    }
+
+    private ModelUtils<VocabWord> createModelUtils(WeightLookupTable<VocabWord> lookupTable) {
+        ModelUtils<VocabWord> utils;
+        switch (implementation) {
+            case FLAT:
+                utils = new FlatModelUtils<>();
+                break;
+            case HNSW:
+                HnswModelUtils<VocabWord> hnsw = new HnswModelUtils<>();
+                hnsw.setEf(ef);
+                utils = hnsw;
+                break;
+            default:
+                utils = new BasicModelUtils<>();
+        }
+        utils.init(lookupTable);
+        return utils;
+    }
+
+    private List<Set<String>> exactNearest(InMemoryLookupTable<VocabWord> lookupTable, AbstractCache<VocabWord> cache) {
+        INDArray syn0 = lookupTable.getSyn0();
+        INDArray unit = syn0.divColumnVector(syn0.norm2(1));
+        List<Set<String>> ret = new ArrayList<>(NUM_QUERIES);
+        for (String query : queries) {
+            INDArray similarity = unit.mmul(unit.getRow(cache.indexOf(query)).transpose());
+            INDArray[] sorted = Nd4j.sortWithIndices(similarity, 0, false);
+            Set<String> nearest = new HashSet<>();
+            for (int i = 0; nearest.size() < k; i++) {
+                String word = cache.wordAtIndex(sorted[0].getInt(i));
+                if (!word.equals(query)) nearest.add(word);
+            }
+            ret.add(nearest);
+        }
+        return ret;
+    }
+}
@@ -0,0 +1,687 @@
+/*
+ *
+ *  * Copyright 2016 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+package org.deeplearning4j.clustering.hnsw;
+
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Approximate nearest neighbour index for cosine similarity, based on Hierarchical Navigable Small World graphs:
+ * Malkov and Yashunin, "Efficient and robust approximate nearest neighbor search using Hierarchical Navigable Small
+ * World graphs" (2016). http://arxiv.org/abs/1603.09320<br>
+ * Vectors are normalized and stored as a single float array; each point is linked to (up to) m neighbours on each of
+ * its levels, and 2*m neighbours on the bottom level. Search cost grows approximately logarithmically with the number
+ * of points, instead of linearly for a full scan.<br>
+ * Recall vs. latency is controlled by ef (the size of the dynamic candidate list during search), which can be changed
+ * at any time via {@link #setEf(int)}. The index can be built using multiple threads, and saved/loaded in a compact
+ * binary format via {@link #save(File)} and {@link #load(File)}.
+ */
+public class HnswIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(HnswIndex.class);
+
+    private static final int MAGIC = 0x484E5357;
+    private static final int VERSION = 1;
+    private static final int MAX_LEVEL = 16;
+    private static final int NUM_LOCKS = 1 << 12;
+    private static final int CHUNK_SIZE = 1 << 20;
+
+    private final int size;
+    private final int dims;
+    private final int m;
+    private final int maxM0;
+    private final int efConstruction;
+    private volatile int ef;
+
+    private final float[] vectors;
+    private final int[] levels;
+    private final int[][][] links;  //links[point][level] = neighbours
+    private volatile int entryPoint = -1;
+    private volatile int maxLevel = -1;
+
+    //Neighbour lists are replaced (never modified in place) under these locks while building
+    private final Object[] locks;
+    private final Object entryLock = new Object();
+    private volatile boolean building;
+
+    private final ThreadLocal<SearchContext> contexts = new ThreadLocal<SearchContext>() {
+        @Override
+        protected SearchContext initialValue() {
+            return new SearchContext(size);
+        }
+    };
+
+    private HnswIndex(int size, int dims, int m, int maxM0, int efConstruction, int ef, float[] vectors, int[] levels,
+                      int[][][] links) {
+        this.size = size;
+        this.dims = dims;
+        this.m = m;
+        this.maxM0 = maxM0;
+        this.efConstruction = efConstruction;
+        this.ef = ef;
+        this.vectors = vectors;
+        this.levels = levels;
+        this.links = links;
+        this.locks = new Object[NUM_LOCKS];
+        for (int i = 0; i < NUM_LOCKS; i++)
+            locks[i] = new Object();
+    }
+
+    /** Number of points in the index */
+    public int size() {
+        return size;
+    }
+
+    /** Dimensionality of the points */
+    public int dims() {
+        return dims;
+    }
+
+    public int getEf() {
+        return ef;
+    }
+
+    /**
+     * Set the size of the candidate list used during search. Higher values give better recall but slower queries.
+     * Search always uses at least k candidates.
+     */
+    public void setEf(int ef) {
+        if (ef < 1) throw new IllegalArgumentException("ef must be positive, got " + ef);
+        this.ef = ef;
+    }
+
+    /**
+     * Approximate k nearest neighbours (by cosine similarity) of the given vector
+     *
+     * @param query query vector, of length {@link #dims()}
+     * @param k     number of neighbours
+     * @return indices of the (up to) k nearest points, most similar first
+     */
+    public int[] search(float[] query, int k) {
+        if (query.length != dims)
+            throw new IllegalArgumentException("Query length " + query.length + " does not match index dimensions " + dims);
+        if (size == 0 || k <= 0) return new int[0];
+
+        float[] q = Arrays.copyOf(query, dims);
+        normalize(q, 0, dims);
+
+        SearchContext ctx = contexts.get();
+        int ep = entryPoint;
+        for (int level = maxLevel; level > 0; level--)
+            ep = greedySearch(q, 0, ep, level);
+        searchLayer(q, 0, ep, Math.max(ef, k), 0, ctx);
+
+        int n = Math.min(k, ctx.resultCount);
+        return Arrays.copyOf(ctx.resultIds, n);
+    }
+
+    /** As per {@link #search(float[], int)} for a vector given as an INDArray */
+    public int[] search(INDArray query, int k) {
+        if (!query.isVector())
+            throw new IllegalArgumentException("Query must be a vector");
+        return search(query.dup().data().asFloat(), k);
+    }
+
+    /**
+     * Batch search: approximate k nearest neighbours for each row of the queries matrix, using multiple threads
+     *
+     * @param queries matrix of queries, one per row
+     * @param k       number of neighbours
+     * @param workers number of threads
+     * @return nearest neighbour indices for each query, most similar first
+     */
+    public int[][] search(INDArray queries, final int k, int workers) {
+        if (queries.columns() != dims)
+            throw new IllegalArgumentException("Queries have " + queries.columns() + " columns, index dimensions " + dims);
+        final float[] data = queries.dup('c').data().asFloat();
+        final int rows = queries.rows();
+        final int[][] out = new int[rows][];
+        final AtomicInteger next = new AtomicInteger();
+        final AtomicReference<Throwable> error = new AtomicReference<>();
+
+        Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    int i;
+                    while ((i = next.getAndIncrement()) < rows)
+                        out[i] = search(Arrays.copyOfRange(data, i * dims, (i + 1) * dims), k);
+                } catch (Throwable t) {
+                    error.compareAndSet(null, t);
+                }
+            }
+        };
+        runAll(task, Math.max(1, Math.min(workers, rows)));
+        if (error.get() != null)
+            throw new RuntimeException("Error during batch search", error.get());
+        return out;
+    }
+
+    /**
+     * Write the index to the given file
+     */
+    public void save(File file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(size);
+            out.writeInt(dims);
+            out.writeInt(m);
+            out.writeInt(maxM0);
+            out.writeInt(efConstruction);
+            out.writeInt(ef);
+            out.writeInt(entryPoint);
+            out.writeInt(maxLevel);
+
+            ByteBuffer buffer = ByteBuffer.allocate(4 * Math.min(CHUNK_SIZE, Math.max(1, vectors.length)));
+            for (int pos = 0; pos < vectors.length; pos += CHUNK_SIZE) {
+                int n = Math.min(CHUNK_SIZE, vectors.length - pos);
+                buffer.clear();
+                buffer.asFloatBuffer().put(vectors, pos, n);
+                out.write(buffer.array(), 0, 4 * n);
+            }
+
+            for (int i = 0; i < size; i++) {
+                out.writeByte(levels[i]);
+                for (int level = 0; level <= levels[i]; level++) {
+                    int[] neighbours = links[i][level];
+                    out.writeShort(neighbours.length);
+                    for (int n : neighbours)
+                        out.writeInt(n);
+                }
+            }
+        }
+    }
+
+    /**
+     * Load an index written with {@link #save(File)}
+     */
+    public static HnswIndex load(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16))) {
+            if (in.readInt() != MAGIC)
+                throw new IOException("Not an HNSW index file: " + file.getAbsolutePath());
+            int version = in.readInt();
+            if (version != VERSION)
+                throw new IOException("Unsupported HNSW index version: " + version);
+            int size = in.readInt();
+            int dims = in.readInt();
+            int m = in.readInt();
+            int maxM0 = in.readInt();
+            int efConstruction = in.readInt();
+            int ef = in.readInt();
+            int entryPoint = in.readInt();
+            int maxLevel = in.readInt();
+
+            float[] vectors = new float[size * dims];
+            byte[] bytes = new byte[4 * Math.min(CHUNK_SIZE, Math.max(1, vectors.length))];
+            for (int pos = 0; pos < vectors.length; pos += CHUNK_SIZE) {
+                int n = Math.min(CHUNK_SIZE, vectors.length - pos);
+                in.readFully(bytes, 0, 4 * n);
+                ByteBuffer.wrap(bytes, 0, 4 * n).asFloatBuffer().get(vectors, pos, n);
+            }
+
+            int[] levels = new int[size];
+            int[][][] links = new int[size][][];
+            for (int i = 0; i < size; i++) {
+                levels[i] = in.readByte();
+                links[i] = new int[levels[i] + 1][];
+                for (int level = 0; level <= levels[i]; level++) {
+                    int[] neighbours = new int[in.readUnsignedShort()];
+                    for (int j = 0; j < neighbours.length; j++)
+                        neighbours[j] = in.readInt();
+                    links[i][level] = neighbours;
+                }
+            }
+
+            HnswIndex index = new HnswIndex(size, dims, m, maxM0, efConstruction, ef, vectors, levels, links);
+            index.entryPoint = entryPoint;
+            index.maxLevel = maxLevel;
+            return index;
+        }
+    }
+
+    private void buildGraph(int workers) {
+        if (size == 0) return;
+        building = true;
+        entryPoint = 0;
+        maxLevel = levels[0];
+
+        final AtomicInteger next = new AtomicInteger(1);
+        final AtomicReference<Throwable> error = new AtomicReference<>();
+        Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    int i;
+                    while ((i = next.getAndIncrement()) < size) {
+                        insert(i);
+                        if (i % 100000 == 0) log.info("HNSW index: inserted {} of {} points", i, size);
+                    }
+                } catch (Throwable t) {
+                    error.compareAndSet(null, t);
+                }
+            }
+        };
+        runAll(task, workers);
+        building = false;
+        if (error.get() != null)
+            throw new RuntimeException("Error building HNSW index", error.get());
+    }
+
+    private static void runAll(Runnable task, int workers) {
+        if (workers <= 1) {
+            task.run();
+            return;
+        }
+        Thread[] threads = new Thread[workers];
+        for (int i = 0; i < workers; i++) {
+            threads[i] = new Thread(task, "HnswIndex worker " + i);
+            threads[i].setDaemon(true);
+            threads[i].start();
+        }
+        for (Thread t : threads) {
+            try {
+                t.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    private void insert(int point) {
+        int level = levels[point];
+        int offset = point * dims;
+        int ep;
+        int top;
+        synchronized (entryLock) {
+            ep = entryPoint;
+            top = maxLevel;
+        }
+
+        SearchContext ctx = contexts.get();
+        for (int lc = top; lc > level; lc--)
+            ep = greedySearch(vectors, offset, ep, lc);
+
+        for (int lc = Math.min(level, top); lc >= 0; lc--) {
+            searchLayer(vectors, offset, ep, efConstruction, lc, ctx);
+            int[] candidates = Arrays.copyOf(ctx.resultIds, ctx.resultCount);
+            double[] distances = Arrays.copyOf(ctx.resultDistances, ctx.resultCount);
+            int[] neighbours = selectNeighbours(candidates, distances, candidates.length, m);
+
+            connect(point, lc, neighbours);
+            for (int n : neighbours)
+                connect(n, lc, new int[]{point});
+            ep = candidates[0];
+        }
+
+        if (level > top) {
+            synchronized (entryLock) {
+                if (level > maxLevel) {
+                    maxLevel = level;
+                    entryPoint = point;
+                }
+            }
+        }
+    }
+
+    /**
+     * Add links from point to the given neighbours at the given level, shrinking the neighbour list if required
+     */
+    private void connect(int point, int level, int[] add) {
+        int maxConnections = level == 0 ? maxM0 : m;
+        synchronized (locks[point & (NUM_LOCKS - 1)]) {
+            int[] current = links[point][level];
+            int[] merged = Arrays.copyOf(current, current.length + add.length);
+            int n = current.length;
+            outer:
+            for (int a : add) {
+                if (a == point) continue;
+                for (int i = 0; i < n; i++)
+                    if (merged[i] == a) continue outer;
+                merged[n++] = a;
+            }
+            if (n <= maxConnections) {
+                links[point][level] = Arrays.copyOf(merged, n);
+                return;
+            }
+
+            //Too many connections: keep a diverse subset of the closest
+            int offset = point * dims;
+            double[] distances = new double[n];
+            for (int i = 0; i < n; i++)
+                distances[i] = distance(vectors, offset, merged[i]);
+            sortByDistance(merged, distances, n);
+            links[point][level] = selectNeighbours(merged, distances, n, maxConnections);
+        }
+    }
+
+    /**
+     * Neighbour selection heuristic (algorithm 4 in the paper, keeping pruned connections): a candidate is selected
+     * only if it is closer to the base point than to any already selected neighbour; remaining slots are filled with
+     * the closest pruned candidates. Candidates must be sorted by distance.
+     */
+    private int[] selectNeighbours(int[] candidates, double[] distances, int count, int max) {
+        if (count <= max)
+            return Arrays.copyOf(candidates, count);
+
+        int[] selected = new int[max];
+        int numSelected = 0;
+        int[] pruned = new int[count];
+        int numPruned = 0;
+        for (int i = 0; i < count && numSelected < max; i++) {
+            int c = candidates[i];
+            boolean good = true;
+            for (int j = 0; j < numSelected; j++) {
+                if (distance(vectors, c * dims, selected[j]) < distances[i]) {
+                    good = false;
+                    break;
+                }
+            }
+            if (good) selected[numSelected++] = c;
+            else pruned[numPruned++] = c;
+        }
+        for (int i = 0; i < numPruned && numSelected < max; i++)
+            selected[numSelected++] = pruned[i];
+        return numSelected == max ? selected : Arrays.copyOf(selected, numSelected);
+    }
+
+    private int[] neighbours(int point, int level) {
+        if (building) {
+            synchronized (locks[point & (NUM_LOCKS - 1)]) {
+                return links[point][level];
+            }
+        }
+        return links[point][level];
+    }
+
+    private int greedySearch(float[] query, int offset, int ep, int level) {
+        int current = ep;
+        double currentDistance = distance(query, offset, current);
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int n : neighbours(current, level)) {
+                double d = distance(query, offset, n);
+                if (d < currentDistance) {
+                    currentDistance = d;
+                    current = n;
+                    changed = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Beam search on one level. Results are stored in ctx.resultIds/resultDistances, sorted by distance
+     */
+    private void searchLayer(float[] query, int offset, int ep, int ef, int level, SearchContext ctx) {
+        int visit = ctx.nextVisit();
+        int[] visited = ctx.visited;
+        Heap candidates = ctx.candidates;
+        Heap results = ctx.results;
+        candidates.clear();
+        results.clear();
+
+        double d = distance(query, offset, ep);
+        visited[ep] = visit;
+        candidates.push(-d, ep);    //max heap on negative distance: closest first
+        results.push(d, ep);        //max heap on distance: furthest first
+
+        while (candidates.size() > 0) {
+            double cd = -candidates.topKey();
+            int c = candidates.pop();
+            if (cd > results.topKey() && results.size() >= ef)
+                break;
+
+            for (int n : neighbours(c, level)) {
+                if (visited[n] == visit) continue;
+                visited[n] = visit;
+                double dn = distance(query, offset, n);
+                if (results.size() < ef || dn < results.topKey()) {
+                    candidates.push(-dn, n);
+                    results.push(dn, n);
+                    if (results.size() > ef) results.pop();
+                }
+            }
+        }
+
+        int count = results.size();
+        ctx.ensureResultCapacity(count);
+        for (int i = count - 1; i >= 0; i--) {
+            ctx.resultDistances[i] = results.topKey();
+            ctx.resultIds[i] = results.pop();
+        }
+        ctx.resultCount = count;
+    }
+
+    /** Cosine distance between the (normalized) vector at query[offset] and the given point */
+    private double distance(float[] query, int offset, int point) {
+        int p = point * dims;
+        double dot = 0;
+        for (int i = 0; i < dims; i++)
+            dot += query[offset + i] * vectors[p + i];
+        return 1.0 - dot;
+    }
+
+    private static void normalize(float[] v, int offset, int length) {
+        double norm = 0;
+        for (int i = 0; i < length; i++)
+            norm += v[offset + i] * v[offset + i];
+        if (norm == 0) return;
+        float inv = (float) (1.0 / Math.sqrt(norm));
+        for (int i = 0; i < length; i++)
+            v[offset + i] *= inv;
+    }
+
+    private static void sortByDistance(int[] ids, double[] distances, int n) {
+        //Insertion sort: lists are short (at most 2*m + 1)
+        for (int i = 1; i < n; i++) {
+            int id = ids[i];
+            double d = distances[i];
+            int j = i - 1;
+            while (j >= 0 && distances[j] > d) {
+                ids[j + 1] = ids[j];
+                distances[j + 1] = distances[j];
+                j--;
+            }
+            ids[j + 1] = id;
+            distances[j + 1] = d;
+        }
+    }
+
+    /** Per-thread search state: visited markers are reset by incrementing the visit number */
+    private static class SearchContext {
+        private final int[] visited;
+        private int visit;
+        private final Heap candidates = new Heap();
+        private final Heap results = new Heap();
+        private int[] resultIds = new int[64];
+        private double[] resultDistances = new double[64];
+        private int resultCount;
+
+        private SearchContext(int size) {
+            this.visited = new int[size];
+        }
+
+        private int nextVisit() {
+            if (++visit == Integer.MAX_VALUE) {
+                Arrays.fill(visited, 0);
+                visit = 1;
+            }
+            return visit;
+        }
+
+        private void ensureResultCapacity(int n) {
+            if (resultIds.length < n) {
+                resultIds = new int[n];
+                resultDistances = new double[n];
+            }
+        }
+    }
+
+    /** Binary max heap of (key, id) pairs */
+    private static class Heap {
+        private double[] keys = new double[64];
+        private int[] ids = new int[64];
+        private int size;
+
+        private int size() {
+            return size;
+        }
+
+        private void clear() {
+            size = 0;
+        }
+
+        private double topKey() {
+            return keys[0];
+        }
+
+        private void push(double key, int id) {
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (keys[parent] >= key) break;
+                keys[i] = keys[parent];
+                ids[i] = ids[parent];
+                i = parent;
+            }
+            keys[i] = key;
+            ids[i] = id;
+        }
+
+        /** Remove the top element, returning its id */
+        private int pop() {
+            int top = ids[0];
+            size--;
+            if (size > 0) {
+                double key = keys[size];
+                int id = ids[size];
+                int i = 0;
+                while (true) {
+                    int child = 2 * i + 1;
+                    if (child >= size) break;
+                    if (child + 1 < size && keys[child + 1] > keys[child]) child++;
+                    if (keys[child] <= key) break;
+                    keys[i] = keys[child];
+                    ids[i] = ids[child];
+                    i = child;
+                }
+                keys[i] = key;
+                ids[i] = id;
+            }
+            return top;
+        }
+    }
+
+    public static class Builder {
+        private int m = 16;
+        private int efConstruction = 200;
+        private int ef = 64;
+        private int workers = Runtime.getRuntime().availableProcessors();
+        private long seed = 12345;
+
+        /** Number of neighbours per point on each level (2*m on the bottom level). Default: 16 */
+        public Builder m(int m) {
+            this.m = m;
+            return this;
+        }
+
+        /** Size of the candidate list while building. Higher values give a better graph, but slower build. Default: 200 */
+        public Builder efConstruction(int efConstruction) {
+            this.efConstruction = efConstruction;
+            return this;
+        }
+
+        /** Default size of the candidate list for search: see {@link HnswIndex#setEf(int)}. Default: 64 */
+        public Builder ef(int ef) {
+            this.ef = ef;
+            return this;
+        }
+
+        /** Number of threads used to build the index */
+        public Builder workers(int workers) {
+            this.workers = workers;
+            return this;
+        }
+
+        /** Random seed for level assignment */
+        public Builder seed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        /**
+         * Build an index over the rows of the given matrix
+         */
+        public HnswIndex build(INDArray points) {
+            if (!points.isMatrix() && !points.isRowVector())
+                throw new IllegalArgumentException("Points must be a matrix (one point per row)");
+            float[] data = points.dup('c').data().asFloat();
+            return build(data, points.rows(), points.columns());
+        }
+
+        /**
+         * Build an index over the given points, stored row-wise: point i is data[i*dims .. (i+1)*dims).
+         * The array is normalized in place, and used by the index (not copied).
+         */
+        public HnswIndex build(float[] data, int size, int dims) {
+            if (m < 2) throw new IllegalArgumentException("m must be at least 2, got " + m);
+            if (efConstruction < 1 || ef < 1)
+                throw new IllegalArgumentException("ef and efConstruction must be positive");
+            if (workers < 1) throw new IllegalArgumentException("Invalid number of workers: " + workers);
+            if ((long) size * dims != data.length)
+                throw new IllegalArgumentException("Data length " + data.length + " != size * dims = " + ((long) size * dims));
+
+            for (int i = 0; i < size; i++)
+                normalize(data, i * dims, dims);
+
+            Random rng = new Random(seed);
+            double levelMultiplier = 1.0 / Math.log(m);
+            int[] levels = new int[size];
+            int[][][] links = new int[size][][];
+            for (int i = 0; i < size; i++) {
+                levels[i] = Math.min(MAX_LEVEL, (int) (-Math.log(1.0 - rng.nextDouble()) * levelMultiplier));
+                links[i] = new int[levels[i] + 1][];
+                for (int level = 0; level <= levels[i]; level++)
+                    links[i][level] = new int[0];
+            }
+
+            HnswIndex index = new HnswIndex(size, dims, m, 2 * m, efConstruction, ef, data, levels, links);
+            long start = System.currentTimeMillis();
+            index.buildGraph(workers);
+            log.info("Built HNSW index over {} points in {} ms", size, System.currentTimeMillis() - start);
+            return index;
+        }
+    }
+}
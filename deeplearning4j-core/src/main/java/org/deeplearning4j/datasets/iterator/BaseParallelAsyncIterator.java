@@ -0,0 +1,351 @@
+/*
+ *
+ *  * Copyright 2015 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+package org.deeplearning4j.datasets.iterator;
+
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.indexing.INDArrayIndex;
+import org.nd4j.linalg.indexing.NDArrayIndex;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Base class for asynchronous prefetching over multiple source iterators, with one producer thread per source.<br>
+ * Sources are typically splits of the same data (for example, one record reader per set of files), so that
+ * expensive ETL (image decoding, record parsing etc) is spread over multiple threads.
+ * <ul>
+ *     <li>If preserveOrder is true, elements are returned in round robin order over the sources (source 0, 1, ..., K-1, 0, ...;
+ *     sources that are exhausted are skipped). The order is then deterministic, and independent of thread timing.</li>
+ *     <li>If preserveOrder is false, elements are returned in the order they become available.</li>
+ * </ul>
+ * Queue depth and starvation (time that next() had to wait for a producer) are recorded, to help determine whether
+ * training is limited by ETL.
+ *
+ * @param <T> type of element: DataSet or MultiDataSet
+ */
+public abstract class BaseParallelAsyncIterator<T> {
+
+    private static final Object END = new Object();
+
+    protected final int numSources;
+    protected final int queueSize;
+    protected final boolean preserveOrder;
+
+    private BlockingQueue<Object>[] queues;
+    private Producer[] producers;
+    private Thread[] threads;
+    private boolean[] finished;
+    private int numFinished;
+    private int cursor;
+    private T next;
+    private T leftover;
+
+    private final AtomicLong produced = new AtomicLong();
+    private long consumed;
+    private long starvationCount;
+    private long starvationNanos;
+
+    /**
+     * @param numSources    number of source iterators (and producer threads)
+     * @param queueSize     maximum number of elements to prefetch, in total over all sources
+     * @param preserveOrder if true: return elements in round robin order over the sources
+     */
+    protected BaseParallelAsyncIterator(int numSources, int queueSize, boolean preserveOrder) {
+        if (numSources <= 0)
+            throw new IllegalArgumentException("At least one source is required");
+        if (queueSize <= 0)
+            throw new IllegalArgumentException("Queue size must be > 0");
+        this.numSources = numSources;
+        this.queueSize = queueSize;
+        this.preserveOrder = preserveOrder;
+    }
+
+    /** Source iterator with the given index */
+    protected abstract Iterator<T> source(int idx);
+
+    /** Reset the source iterator with the given index */
+    protected abstract void resetSource(int idx);
+
+    /** Number of examples in the given element */
+    protected abstract int numExamples(T element);
+
+    /** Merge the elements (in order) in to one element */
+    protected abstract T merge(List<T> elements);
+
+    /** Split the element in to the first n examples and the remainder */
+    protected abstract T[] split(T element, int n);
+
+    /** Start the producer threads. Must be called by subclasses at the end of their constructor. */
+    @SuppressWarnings("unchecked")
+    protected void start() {
+        int numQueues = (preserveOrder ? numSources : 1);
+        int capacity = (preserveOrder ? Math.max(1, queueSize / numSources) : queueSize);
+        queues = new BlockingQueue[numQueues];
+        for (int i = 0; i < numQueues; i++)
+            queues[i] = new LinkedBlockingQueue<>(capacity);
+
+        finished = new boolean[numSources];
+        numFinished = 0;
+        cursor = 0;
+        next = null;
+        leftover = null;
+
+        producers = new Producer[numSources];
+        threads = new Thread[numSources];
+        for (int i = 0; i < numSources; i++) {
+            producers[i] = new Producer(i, queues[preserveOrder ? i : 0]);
+            threads[i] = new Thread(producers[i], getClass().getSimpleName() + "-producer-" + i);
+            threads[i].setDaemon(true);
+            threads[i].start();
+        }
+    }
+
+    public synchronized boolean hasNext() {
+        if (next != null || leftover != null)
+            return true;
+        next = take();
+        return next != null;
+    }
+
+    public synchronized T next() {
+        T ret = nextElement();
+        consumed++;
+        return ret;
+    }
+
+    /** Next element (the leftover of a split, if any), without updating the consumed count */
+    private T nextElement() {
+        if (leftover != null) {
+            T ret = leftover;
+            leftover = null;
+            return ret;
+        }
+        if (!hasNext())
+            throw new NoSuchElementException();
+        T ret = next;
+        next = null;
+        return ret;
+    }
+
+    /**
+     * Return the next num examples, merging and splitting the prefetched elements as required. Fewer than num
+     * examples are returned only when the sources are exhausted.
+     */
+    public synchronized T next(int num) {
+        if (!hasNext())
+            throw new NoSuchElementException();
+        List<T> elements = new ArrayList<>();
+        int count = 0;
+        consumed++;
+        while (count < num && hasNext()) {
+            T element = nextElement();
+            elements.add(element);
+            count += numExamples(element);
+        }
+
+        T merged = (elements.size() == 1 ? elements.get(0) : merge(elements));
+        if (count > num) {
+            T[] split = split(merged, num);
+            leftover = split[1];
+            return split[0];
+        }
+        return merged;
+    }
+
+    /** Stop the producer threads, reset all sources, and start prefetching again */
+    public synchronized void reset() {
+        stopProducers();
+        for (int i = 0; i < numSources; i++)
+            resetSource(i);
+        start();
+    }
+
+    /**
+     * Shut down the producer threads. Not typically necessary, as the producers are daemon threads.
+     * Behaviour of the iterator after shutdown is undefined.
+     */
+    public synchronized void shutdown() {
+        stopProducers();
+    }
+
+    /** Number of elements currently prefetched and waiting in the queue(s) */
+    public int getQueueDepth() {
+        int depth = 0;
+        for (BlockingQueue<Object> q : queues) {
+            depth += q.size();
+        }
+        //End markers are not elements
+        return Math.max(0, depth - countEndMarkers());
+    }
+
+    /** Total number of elements produced by the producer threads since construction */
+    public long getNumProduced() {
+        return produced.get();
+    }
+
+    /** Total number of elements returned by next() and next(int) since construction */
+    public synchronized long getNumConsumed() {
+        return consumed;
+    }
+
+    /** Number of times an element was requested, but none was available in the queue (i.e., the consumer had to wait) */
+    public synchronized long getStarvationCount() {
+        return starvationCount;
+    }
+
+    /** Total time the consumer has spent waiting for the producers, in milliseconds */
+    public synchronized long getStarvationTimeMs() {
+        return TimeUnit.NANOSECONDS.toMillis(starvationNanos);
+    }
+
+    /** Copy of examples [from,to) (along dimension 0) of the given array; null if the array is null */
+    protected static INDArray getExamples(INDArray array, int from, int to) {
+        if (array == null)
+            return null;
+        INDArrayIndex[] indexes = new INDArrayIndex[array.rank()];
+        indexes[0] = NDArrayIndex.interval(from, to);
+        for (int i = 1; i < indexes.length; i++)
+            indexes[i] = NDArrayIndex.all();
+        return array.get(indexes).dup();
+    }
+
+    private int countEndMarkers() {
+        int count = 0;
+        for (BlockingQueue<Object> q : queues) {
+            if (q.contains(END)) count++;
+        }
+        return count;
+    }
+
+    @SuppressWarnings("unchecked")
+    private T take() {
+        while (numFinished < numSources) {
+            int queueIdx = 0;
+            if (preserveOrder) {
+                if (finished[cursor]) {
+                    cursor = (cursor + 1) % numSources;
+                    continue;
+                }
+                queueIdx = cursor;
+            }
+
+            Object o = poll(queues[queueIdx]);
+            if (o == END) {
+                //Source exhausted, or its producer failed
+                checkProducerExceptions();
+                if (preserveOrder) {
+                    finished[queueIdx] = true;
+                    cursor = (cursor + 1) % numSources;
+                }
+                numFinished++;
+                continue;
+            }
+            if (preserveOrder) cursor = (cursor + 1) % numSources;
+            return (T) o;
+        }
+        return null;
+    }
+
+    private void checkProducerExceptions() {
+        for (Producer p : producers) {
+            if (p.exception != null) throw p.exception;
+        }
+    }
+
+    private Object poll(BlockingQueue<Object> queue) {
+        Object o = queue.poll();
+        if (o != null)
+            return o;
+
+        starvationCount++;
+        long start = System.nanoTime();
+        try {
+            while (o == null) {
+                o = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (o == null) checkProducerExceptions();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for data", e);
+        } finally {
+            starvationNanos += System.nanoTime() - start;
+        }
+        return o;
+    }
+
+    private void stopProducers() {
+        if (producers == null)
+            return;
+        for (int i = 0; i < numSources; i++) {
+            producers[i].killed = true;
+            threads[i].interrupt();
+        }
+        for (int i = 0; i < numSources; i++) {
+            try {
+                threads[i].join(5000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        for (BlockingQueue<Object> q : queues)
+            q.clear();
+    }
+
+    private class Producer implements Runnable {
+        private final int idx;
+        private final BlockingQueue<Object> queue;
+        private volatile boolean killed = false;
+        private volatile RuntimeException exception;
+
+        private Producer(int idx, BlockingQueue<Object> queue) {
+            this.idx = idx;
+            this.queue = queue;
+        }
+
+        @Override
+        public void run() {
+            Iterator<T> source = source(idx);
+            try {
+                while (!killed && source.hasNext()) {
+                    queue.put(source.next());
+                    produced.incrementAndGet();
+                }
+            } catch (InterruptedException e) {
+                if (!killed) exception = new RuntimeException("Producer interrupted unexpectedly", e);
+            } catch (RuntimeException e) {
+                exception = e;
+            }
+
+            if (killed)
+                return;
+            try {
+                queue.put(END);
+            } catch (InterruptedException e) {
+                //Killed while waiting to add end marker
+            }
+        }
+    }
+}
@@ -0,0 +1,275 @@
+/*
+ *
+ *  * Copyright 2015 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+package org.deeplearning4j.datasets.iterator;
+
+import org.nd4j.linalg.api.buffer.DataBuffer;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Compact binary storage of DataSet minibatches, as a directory of shard files.<br>
+ * Each shard file (shard-00000.bin, shard-00001.bin, ...) contains a sequence of records, one per minibatch. Each
+ * record contains the features, labels, features mask and labels mask arrays (masks optional), stored as: a presence
+ * flag, the data type (float/double), the rank, the shape, and the values in 'c' order. All values are big endian.
+ * A directory is complete (i.e., all minibatches have been written) once the _COMPLETE marker file exists.<br>
+ * Shards are read using memory mapped I/O: reading a minibatch requires no parsing, only a copy of the values.
+ * Shard files are limited to {@link #DEFAULT_MAX_SHARD_BYTES} by default (and must be smaller than 2GB); a shard file
+ * is the unit of distribution when the cache is used for Spark training.
+ *
+ * @see CachingDataSetIterator
+ */
+public class BinaryDataSetCache {
+
+    public static final String SHARD_PREFIX = "shard-";
+    public static final String SHARD_EXTENSION = ".bin";
+    public static final String COMPLETE_MARKER = "_COMPLETE";
+    public static final long DEFAULT_MAX_SHARD_BYTES = 256L * 1024 * 1024;
+
+    private static final int MAGIC = 0x444C3442;
+    private static final int NUM_ARRAYS = 4;   //features, labels, features mask, labels mask
+    private static final byte TYPE_FLOAT = 0;
+    private static final byte TYPE_DOUBLE = 1;
+
+    private BinaryDataSetCache() {
+    }
+
+    /** Returns true if the directory contains a complete cache */
+    public static boolean isComplete(File directory) {
+        return new File(directory, COMPLETE_MARKER).exists();
+    }
+
+    /** The shard files in the given directory, in order */
+    public static List<File> getShards(File directory) {
+        File[] files = directory.listFiles(new FilenameFilter() {
+            @Override
+            public boolean accept(File dir, String name) {
+                return name.startsWith(SHARD_PREFIX) && name.endsWith(SHARD_EXTENSION);
+            }
+        });
+        if (files == null)
+            return Collections.emptyList();
+        List<File> shards = new ArrayList<>(Arrays.asList(files));
+        Collections.sort(shards);
+        return shards;
+    }
+
+    /** Delete the shard files and completion marker (but not the directory itself) */
+    public static void clear(File directory) {
+        for (File f : getShards(directory)) {
+            if (!f.delete())
+                throw new IllegalStateException("Could not delete cache file " + f.getAbsolutePath());
+        }
+        File marker = new File(directory, COMPLETE_MARKER);
+        if (marker.exists() && !marker.delete())
+            throw new IllegalStateException("Could not delete cache file " + marker.getAbsolutePath());
+    }
+
+    /** Memory map the given shard file (read only) */
+    public static MappedByteBuffer map(File shard) throws IOException {
+        if (shard.length() > Integer.MAX_VALUE)
+            throw new IllegalStateException("Shard file too large to map: " + shard.getAbsolutePath());
+        RandomAccessFile raf = new RandomAccessFile(shard, "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            //Mapping remains valid after the channel is closed
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * Find the start position of each record in the given (mapped) shard. Only the record headers are read.
+     */
+    public static List<Integer> index(ByteBuffer shard) {
+        ByteBuffer buffer = shard.duplicate();
+        buffer.position(0);
+        List<Integer> offsets = new ArrayList<>();
+        while (buffer.remaining() > 0) {
+            int start = buffer.position();
+            offsets.add(start);
+            checkMagic(buffer, start);
+            for (int i = 0; i < NUM_ARRAYS; i++) {
+                if (buffer.get() == 0) continue;
+                byte type = buffer.get();
+                int length = 1;
+                int rank = buffer.getInt();
+                for (int j = 0; j < rank; j++)
+                    length *= buffer.getInt();
+                buffer.position(buffer.position() + length * (type == TYPE_DOUBLE ? 8 : 4));
+            }
+        }
+        return offsets;
+    }
+
+    /** Read the record at the given position in the (mapped) shard */
+    public static DataSet read(ByteBuffer shard, int offset) {
+        ByteBuffer buffer = shard.duplicate();
+        buffer.position(offset);
+        checkMagic(buffer, offset);
+        INDArray[] arrays = new INDArray[NUM_ARRAYS];
+        for (int i = 0; i < NUM_ARRAYS; i++)
+            arrays[i] = readArray(buffer);
+        return new DataSet(arrays[0], arrays[1], arrays[2], arrays[3]);
+    }
+
+    /** Read all records in the given shard file */
+    public static List<DataSet> readShard(File shard) throws IOException {
+        MappedByteBuffer buffer = map(shard);
+        List<DataSet> out = new ArrayList<>();
+        for (int offset : index(buffer))
+            out.add(read(buffer, offset));
+        return out;
+    }
+
+    private static void checkMagic(ByteBuffer buffer, int position) {
+        if (buffer.getInt() != MAGIC)
+            throw new IllegalStateException("Invalid or corrupt DataSet cache: no record at position " + position);
+    }
+
+    private static INDArray readArray(ByteBuffer buffer) {
+        if (buffer.get() == 0)
+            return null;
+        byte type = buffer.get();
+        int rank = buffer.getInt();
+        int[] shape = new int[rank];
+        int length = 1;
+        for (int i = 0; i < rank; i++) {
+            shape[i] = buffer.getInt();
+            length *= shape[i];
+        }
+        INDArray out;
+        if (type == TYPE_DOUBLE) {
+            double[] values = new double[length];
+            buffer.asDoubleBuffer().get(values);
+            out = Nd4j.create(values, shape, 'c');
+            buffer.position(buffer.position() + 8 * length);
+        } else {
+            float[] values = new float[length];
+            buffer.asFloatBuffer().get(values);
+            out = Nd4j.create(values, shape, 'c');
+            buffer.position(buffer.position() + 4 * length);
+        }
+        return out;
+    }
+
+    /**
+     * Writes minibatches to shard files in a directory. Call {@link #close()} once all minibatches have been written,
+     * to mark the directory as complete.
+     */
+    public static class Writer implements Closeable {
+        private final File directory;
+        private final long maxShardBytes;
+        private int shardIdx = 0;
+        private DataOutputStream out;
+        private long shardBytes;
+
+        /**
+         * @param directory     directory to write to. Any existing cache in the directory is deleted
+         * @param maxShardBytes maximum size of each shard file (a single minibatch may exceed this)
+         */
+        public Writer(File directory, long maxShardBytes) {
+            if (maxShardBytes <= 0 || maxShardBytes > Integer.MAX_VALUE)
+                throw new IllegalArgumentException("Invalid max shard size: " + maxShardBytes);
+            if (!directory.exists() && !directory.mkdirs())
+                throw new IllegalStateException("Could not create cache directory " + directory.getAbsolutePath());
+            clear(directory);
+            this.directory = directory;
+            this.maxShardBytes = maxShardBytes;
+        }
+
+        /** Append a minibatch to the cache */
+        public void write(DataSet ds) throws IOException {
+            if (out == null || shardBytes >= maxShardBytes) {
+                if (out != null) out.close();
+                File shard = new File(directory, String.format("%s%05d%s", SHARD_PREFIX, shardIdx++, SHARD_EXTENSION));
+                out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(shard), 1 << 16));
+                shardBytes = 0;
+            }
+            int before = out.size();
+            out.writeInt(MAGIC);
+            writeArray(ds.getFeatureMatrix());
+            writeArray(ds.getLabels());
+            writeArray(ds.getFeaturesMaskArray());
+            writeArray(ds.getLabelsMaskArray());
+            //DataOutputStream.size() overflows at 2GB; shards are kept well below that
+            shardBytes += out.size() - before;
+            if (shardBytes > Integer.MAX_VALUE)
+                throw new IllegalStateException("Minibatch too large for DataSet cache shard: " + shardBytes + " bytes");
+        }
+
+        private void writeArray(INDArray arr) throws IOException {
+            if (arr == null) {
+                out.writeByte(0);
+                return;
+            }
+            out.writeByte(1);
+            boolean isDouble = arr.data().dataType() == DataBuffer.Type.DOUBLE;
+            out.writeByte(isDouble ? TYPE_DOUBLE : TYPE_FLOAT);
+            int[] shape = arr.shape();
+            out.writeInt(shape.length);
+            for (int s : shape)
+                out.writeInt(s);
+
+            //Bulk copy of the values (big endian, as for DataOutputStream)
+            INDArray c = arr.dup('c');
+            ByteBuffer bytes;
+            if (isDouble) {
+                double[] values = c.data().asDouble();
+                bytes = ByteBuffer.allocate(8 * values.length);
+                bytes.asDoubleBuffer().put(values);
+            } else {
+                float[] values = c.data().asFloat();
+                bytes = ByteBuffer.allocate(4 * values.length);
+                bytes.asFloatBuffer().put(values);
+            }
+            out.write(bytes.array());
+        }
+
+        /** Close the current shard, and mark the cache as complete */
+        @Override
+        public void close() throws IOException {
+            if (out != null) {
+                out.close();
+                out = null;
+            }
+            if (!new File(directory, COMPLETE_MARKER).createNewFile() && !isComplete(directory))
+                throw new IOException("Could not create marker file in " + directory.getAbsolutePath());
+        }
+
+        /** Close the current shard and delete everything written so far (cache remains incomplete) */
+        public void abort() throws IOException {
+            if (out != null) {
+                out.close();
+                out = null;
+            }
+            clear(directory);
+        }
+    }
+}
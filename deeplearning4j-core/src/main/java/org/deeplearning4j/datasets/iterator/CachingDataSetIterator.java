@@ -0,0 +1,251 @@
+/*
+ *
+ *  * Copyright 2015 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+package org.deeplearning4j.datasets.iterator;
+
+import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.dataset.api.DataSetPreProcessor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+/**
+ * DataSetIterator that caches the minibatches of another DataSetIterator on disk, in the binary format of
+ * {@link BinaryDataSetCache}.<br>
+ * On the first pass, minibatches are returned from the source iterator and written to the cache directory as they
+ * are returned. Once the first pass is complete, all later epochs (i.e., after {@link #reset()}) are read from the
+ * memory mapped cache files without any parsing; the source iterator is not used again. If the cache directory already
+ * contains a complete cache, it is used from the start.<br>
+ * Optionally, the order of the minibatches is shuffled (at the minibatch level) for each epoch read from the cache.<br>
+ * Usable anywhere a DataSetIterator is, including within a {@link MultipleEpochsIterator}. For Spark training, the
+ * shard files in the cache directory may be loaded as an RDD (one shard per partition element).
+ */
+public class CachingDataSetIterator implements DataSetIterator {
+
+    private static final Logger log = LoggerFactory.getLogger(CachingDataSetIterator.class);
+
+    private final DataSetIterator source;
+    private final File cacheDir;
+    private final boolean shuffle;
+    private final Random rng;
+    private final long maxShardBytes;
+    private DataSetPreProcessor preProcessor;
+
+    private BinaryDataSetCache.Writer writer;
+    private List<MappedByteBuffer> shards;
+    private List<int[]> records;    //{shard index, offset} for each minibatch, in iteration order
+    private int cursor;
+    private int examplesReturned;
+    private DataSet first;
+
+    /**
+     * @param source   the DataSetIterator to cache. Not used after the cache is complete
+     * @param cacheDir directory for the cache files
+     */
+    public CachingDataSetIterator(DataSetIterator source, File cacheDir) {
+        this(source, cacheDir, false, 0);
+    }
+
+    /**
+     * @param source   the DataSetIterator to cache. Not used after the cache is complete
+     * @param cacheDir directory for the cache files
+     * @param shuffle  if true: shuffle the order of the minibatches for each epoch read from the cache
+     * @param seed     random seed for shuffling
+     */
+    public CachingDataSetIterator(DataSetIterator source, File cacheDir, boolean shuffle, long seed) {
+        this(source, cacheDir, shuffle, seed, BinaryDataSetCache.DEFAULT_MAX_SHARD_BYTES);
+    }
+
+    /**
+     * @param source        the DataSetIterator to cache. May be null if cacheDir contains a complete cache
+     * @param cacheDir      directory for the cache files
+     * @param shuffle       if true: shuffle the order of the minibatches for each epoch read from the cache
+     * @param seed          random seed for shuffling
+     * @param maxShardBytes maximum size of each cache file
+     */
+    public CachingDataSetIterator(DataSetIterator source, File cacheDir, boolean shuffle, long seed, long maxShardBytes) {
+        if (source == null && !BinaryDataSetCache.isComplete(cacheDir))
+            throw new IllegalArgumentException("Source iterator is required: no complete cache in " + cacheDir.getAbsolutePath());
+        this.source = source;
+        this.cacheDir = cacheDir;
+        this.shuffle = shuffle;
+        this.rng = new Random(seed);
+        this.maxShardBytes = maxShardBytes;
+        init();
+    }
+
+    private void init() {
+        cursor = 0;
+        examplesReturned = 0;
+        if (BinaryDataSetCache.isComplete(cacheDir)) {
+            if (shards == null) openCache();
+            if (shuffle) Collections.shuffle(records, rng);
+        } else {
+            writer = new BinaryDataSetCache.Writer(cacheDir, maxShardBytes);
+        }
+    }
+
+    private void openCache() {
+        shards = new ArrayList<>();
+        records = new ArrayList<>();
+        try {
+            for (File f : BinaryDataSetCache.getShards(cacheDir)) {
+                MappedByteBuffer buffer = BinaryDataSetCache.map(f);
+                for (int offset : BinaryDataSetCache.index(buffer))
+                    records.add(new int[]{shards.size(), offset});
+                shards.add(buffer);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Error opening DataSet cache in " + cacheDir.getAbsolutePath(), e);
+        }
+        log.debug("Opened DataSet cache: {} minibatches in {} shards", records.size(), shards.size());
+    }
+
+    /** Returns true if the cache is complete, i.e., minibatches are (from now on) read from the cache */
+    public boolean isCacheComplete() {
+        return shards != null;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (shards != null)
+            return cursor < records.size();
+
+        if (source.hasNext())
+            return true;
+        //First pass complete
+        try {
+            writer.close();
+        } catch (IOException e) {
+            throw new RuntimeException("Error completing DataSet cache in " + cacheDir.getAbsolutePath(), e);
+        }
+        writer = null;
+        openCache();
+        cursor = records.size();    //Current epoch is complete
+        return false;
+    }
+
+    @Override
+    public DataSet next() {
+        if (!hasNext())
+            throw new NoSuchElementException();
+
+        DataSet ds;
+        if (shards != null) {
+            int[] record = records.get(cursor);
+            ds = BinaryDataSetCache.read(shards.get(record[0]), record[1]);
+        } else {
+            ds = source.next();
+            try {
+                writer.write(ds);
+            } catch (IOException e) {
+                throw new RuntimeException("Error writing DataSet cache in " + cacheDir.getAbsolutePath(), e);
+            }
+        }
+        cursor++;
+        examplesReturned += ds.numExamples();
+        if (first == null) first = ds;
+        if (preProcessor != null) preProcessor.preProcess(ds);
+        return ds;
+    }
+
+    @Override
+    public DataSet next(int num) {
+        throw new UnsupportedOperationException("next(int) not supported for CachingDataSetIterator");
+    }
+
+    @Override
+    public void reset() {
+        if (shards == null) {
+            //Reset before the first pass was complete: start again
+            try {
+                writer.abort();
+            } catch (IOException e) {
+                throw new RuntimeException("Error clearing DataSet cache in " + cacheDir.getAbsolutePath(), e);
+            }
+            source.reset();
+        }
+        init();
+    }
+
+    @Override
+    public int totalExamples() {
+        return (source != null ? source.totalExamples() : numExamples());
+    }
+
+    @Override
+    public int inputColumns() {
+        if (source != null) return source.inputColumns();
+        return firstDataSet().getFeatureMatrix().size(1);
+    }
+
+    @Override
+    public int totalOutcomes() {
+        if (source != null) return source.totalOutcomes();
+        return firstDataSet().getLabels().size(1);
+    }
+
+    @Override
+    public int batch() {
+        if (source != null) return source.batch();
+        return firstDataSet().numExamples();
+    }
+
+    @Override
+    public int cursor() {
+        return examplesReturned;
+    }
+
+    @Override
+    public int numExamples() {
+        if (source != null) return source.numExamples();
+        throw new UnsupportedOperationException("numExamples() not available without source iterator");
+    }
+
+    @Override
+    public void setPreProcessor(DataSetPreProcessor preProcessor) {
+        this.preProcessor = preProcessor;
+    }
+
+    @Override
+    public List<String> getLabels() {
+        return (source != null ? source.getLabels() : null);
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    private DataSet firstDataSet() {
+        if (first == null) {
+            if (records.isEmpty()) throw new IllegalStateException("DataSet cache is empty");
+            int[] record = records.get(0);
+            first = BinaryDataSetCache.read(shards.get(record[0]), record[1]);
+        }
+        return first;
+    }
+}
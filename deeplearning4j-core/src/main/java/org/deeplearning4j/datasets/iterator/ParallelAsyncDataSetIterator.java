@@ -0,0 +1,147 @@
+/*
+ *
+ *  * Copyright 2015 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+package org.deeplearning4j.datasets.iterator;
+
+import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.dataset.api.DataSetPreProcessor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Multi-threaded asynchronous prefetching DataSetIterator: one producer thread per source DataSetIterator.<br>
+ * Unlike {@link AsyncDataSetIterator} (which loads from a single iterator on a single thread), this allows expensive
+ * ETL (for example, image decoding or record parsing) to be spread over multiple threads, by providing multiple
+ * source iterators - usually one per split of the data. next(int) is supported.<br>
+ * See {@link BaseParallelAsyncIterator} for details on ordering and metrics.
+ * <p>
+ * Usage:
+ * <pre>
+ * {@code
+ * List<DataSetIterator> splits = ...;      //e.g., one RecordReaderDataSetIterator per set of files
+ * ParallelAsyncDataSetIterator iter = new ParallelAsyncDataSetIterator(splits, 16, true);
+ * net.fit(iter);
+ * }
+ * </pre>
+ */
+public class ParallelAsyncDataSetIterator extends BaseParallelAsyncIterator<DataSet> implements DataSetIterator {
+
+    private final List<DataSetIterator> sources;
+
+    /**
+     * @param sources       source iterators; one producer thread is used per source
+     * @param queueSize     maximum number of DataSets to prefetch, in total over all sources
+     * @param preserveOrder if true: return DataSets in round robin order over the sources
+     */
+    public ParallelAsyncDataSetIterator(List<? extends DataSetIterator> sources, int queueSize, boolean preserveOrder) {
+        super(sources.size(), queueSize, preserveOrder);
+        this.sources = new ArrayList<>(sources);
+        start();
+    }
+
+    @Override
+    protected Iterator<DataSet> source(int idx) {
+        return sources.get(idx);
+    }
+
+    @Override
+    protected void resetSource(int idx) {
+        sources.get(idx).reset();
+    }
+
+    @Override
+    protected int numExamples(DataSet element) {
+        return element.numExamples();
+    }
+
+    @Override
+    protected DataSet merge(List<DataSet> elements) {
+        return DataSet.merge(elements);
+    }
+
+    @Override
+    protected DataSet[] split(DataSet element, int n) {
+        int total = element.numExamples();
+        return new DataSet[]{getExamples(element, 0, n), getExamples(element, n, total)};
+    }
+
+    private static DataSet getExamples(DataSet ds, int from, int to) {
+        return new DataSet(getExamples(ds.getFeatureMatrix(), from, to), getExamples(ds.getLabels(), from, to),
+                getExamples(ds.getFeaturesMaskArray(), from, to), getExamples(ds.getLabelsMaskArray(), from, to));
+    }
+
+    @Override
+    public int totalExamples() {
+        int total = 0;
+        for (DataSetIterator iter : sources)
+            total += iter.totalExamples();
+        return total;
+    }
+
+    @Override
+    public int inputColumns() {
+        return sources.get(0).inputColumns();
+    }
+
+    @Override
+    public int totalOutcomes() {
+        return sources.get(0).totalOutcomes();
+    }
+
+    @Override
+    public int batch() {
+        return sources.get(0).batch();
+    }
+
+    @Override
+    public int cursor() {
+        //Position of the producers, in total over all sources (includes examples prefetched but not yet returned)
+        int cursor = 0;
+        for (DataSetIterator iter : sources)
+            cursor += iter.cursor();
+        return cursor;
+    }
+
+    @Override
+    public int numExamples() {
+        int total = 0;
+        for (DataSetIterator iter : sources)
+            total += iter.numExamples();
+        return total;
+    }
+
+    @Override
+    public void setPreProcessor(DataSetPreProcessor preProcessor) {
+        for (DataSetIterator iter : sources)
+            iter.setPreProcessor(preProcessor);
+    }
+
+    @Override
+    public List<String> getLabels() {
+        List<String> labels = sources.get(0).getLabels();
+        return (labels == null ? null : Collections.unmodifiableList(labels));
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+}
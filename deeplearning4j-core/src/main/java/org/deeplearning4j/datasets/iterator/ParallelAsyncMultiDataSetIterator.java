@@ -0,0 +1,136 @@
+/*
+ *
+ *  * Copyright 2015 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+package org.deeplearning4j.datasets.iterator;
+
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.dataset.api.MultiDataSet;
+import org.nd4j.linalg.dataset.api.MultiDataSetPreProcessor;
+import org.nd4j.linalg.dataset.api.iterator.MultiDataSetIterator;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Multi-threaded asynchronous prefetching MultiDataSetIterator (as used for training a ComputationGraph):
+ * one producer thread per source MultiDataSetIterator. next(int) is supported.<br>
+ * MultiDataSet equivalent of {@link ParallelAsyncDataSetIterator}; see {@link BaseParallelAsyncIterator} for details
+ * on ordering and metrics.
+ */
+public class ParallelAsyncMultiDataSetIterator extends BaseParallelAsyncIterator<MultiDataSet> implements MultiDataSetIterator {
+
+    private final List<MultiDataSetIterator> sources;
+
+    /**
+     * @param sources       source iterators; one producer thread is used per source
+     * @param queueSize     maximum number of MultiDataSets to prefetch, in total over all sources
+     * @param preserveOrder if true: return MultiDataSets in round robin order over the sources
+     */
+    public ParallelAsyncMultiDataSetIterator(List<? extends MultiDataSetIterator> sources, int queueSize, boolean preserveOrder) {
+        super(sources.size(), queueSize, preserveOrder);
+        this.sources = new ArrayList<>(sources);
+        start();
+    }
+
+    @Override
+    protected Iterator<MultiDataSet> source(int idx) {
+        return sources.get(idx);
+    }
+
+    @Override
+    protected void resetSource(int idx) {
+        sources.get(idx).reset();
+    }
+
+    @Override
+    protected int numExamples(MultiDataSet element) {
+        return element.getFeatures()[0].size(0);
+    }
+
+    @Override
+    protected MultiDataSet merge(List<MultiDataSet> elements) {
+        MultiDataSet first = elements.get(0);
+        return new org.nd4j.linalg.dataset.MultiDataSet(
+                merge(elements, first.getFeatures(), 0), merge(elements, first.getLabels(), 1),
+                merge(elements, first.getFeaturesMaskArrays(), 2), merge(elements, first.getLabelsMaskArrays(), 3));
+    }
+
+    private static INDArray[] merge(List<MultiDataSet> elements, INDArray[] firstArrays, int type) {
+        if (firstArrays == null)
+            return null;
+        INDArray[] out = new INDArray[firstArrays.length];
+        for (int i = 0; i < out.length; i++) {
+            INDArray[] toMerge = new INDArray[elements.size()];
+            for (int j = 0; j < toMerge.length; j++) {
+                INDArray[] arrays = getArrays(elements.get(j), type);
+                if (arrays == null || arrays[i] == null)
+                    throw new IllegalStateException("Cannot merge MultiDataSets: mask arrays are present in some but not all MultiDataSets");
+                toMerge[j] = arrays[i];
+            }
+            out[i] = Nd4j.concat(0, toMerge);
+        }
+        return out;
+    }
+
+    private static INDArray[] getArrays(MultiDataSet mds, int type) {
+        switch (type) {
+            case 0:
+                return mds.getFeatures();
+            case 1:
+                return mds.getLabels();
+            case 2:
+                return mds.getFeaturesMaskArrays();
+            default:
+                return mds.getLabelsMaskArrays();
+        }
+    }
+
+    @Override
+    protected MultiDataSet[] split(MultiDataSet element, int n) {
+        int total = numExamples(element);
+        return new MultiDataSet[]{getExamples(element, 0, n), getExamples(element, n, total)};
+    }
+
+    private static MultiDataSet getExamples(MultiDataSet mds, int from, int to) {
+        return new org.nd4j.linalg.dataset.MultiDataSet(getExamples(mds.getFeatures(), from, to),
+                getExamples(mds.getLabels(), from, to), getExamples(mds.getFeaturesMaskArrays(), from, to),
+                getExamples(mds.getLabelsMaskArrays(), from, to));
+    }
+
+    private static INDArray[] getExamples(INDArray[] arrays, int from, int to) {
+        if (arrays == null)
+            return null;
+        INDArray[] out = new INDArray[arrays.length];
+        for (int i = 0; i < arrays.length; i++)
+            out[i] = getExamples(arrays[i], from, to);
+        return out;
+    }
+
+    @Override
+    public void setPreProcessor(MultiDataSetPreProcessor preProcessor) {
+        for (MultiDataSetIterator iter : sources)
+            iter.setPreProcessor(preProcessor);
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+}
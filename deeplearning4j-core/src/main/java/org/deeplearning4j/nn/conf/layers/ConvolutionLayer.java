@@ -15,10 +15,28 @@ public class ConvolutionLayer extends FeedForwardLayer {
     protected int[] kernelSize; // Square filter
     protected int[] stride; // Default is 2. Down-sample by a factor of 2
     protected int[] padding;
+    protected AlgoMode algoMode;
+
+    /**
+     * Algorithm used to compute the convolution.<br>
+     * IM2COL: expand the input in to columns (kernelHeight*kernelWidth times the input size) and use a single
+     * tensor multiplication (native im2col). The columns are allocated on every forward pass, as the native im2col
+     * of this ND4J version can't write in to an existing array.<br>
+     * DIRECT: one gemm per kernel position on strided views of the input; never builds the columns. Usually the
+     * better choice for small kernels and large images.<br>
+     * AUTO: time both algorithms on first use (after warmup, median of several runs), and use the faster one from then on.
+     * The selection runs 14 extra forward passes of the layer (7 per algorithm) during the first forward pass, so
+     * that pass is much slower than later ones. For latency sensitive inference, run one forward pass before serving,
+     * or set IM2COL or DIRECT explicitly.
+     */
+    public enum AlgoMode {
+        IM2COL, DIRECT, AUTO
+    }
 
     private ConvolutionLayer(Builder builder) {
     	super(builder);
         this.convolutionType = builder.convolutionType;
+        this.algoMode = builder.algoMode;
         if(builder.kernelSize.length != 2)
             throw new IllegalArgumentException("Kernel size of should be rows x columns (a 2d array)");
         this.kernelSize = builder.kernelSize;
@@ -45,6 +63,7 @@ public class ConvolutionLayer extends FeedForwardLayer {
         private int[] kernelSize = new int[] {5,5};
         private int[] stride = new int[] {1,1};
         private int[] padding = new int[] {0, 0};
+        private AlgoMode algoMode = AlgoMode.IM2COL;
 
 
         public Builder(int[] kernelSize, int[] stride, int[] padding) {
@@ -91,6 +110,15 @@ public class ConvolutionLayer extends FeedForwardLayer {
             return this;
         }
 
+        /**
+         * Convolution algorithm to use. Default: {@link AlgoMode#IM2COL}
+         * @param algoMode the algorithm, or AUTO to select the faster algorithm on first use
+         */
+        public Builder algoMode(AlgoMode algoMode){
+            this.algoMode = algoMode;
+            return this;
+        }
+
         @Override
         @SuppressWarnings("unchecked")
         public ConvolutionLayer build() {
@@ -32,7 +32,20 @@ import java.util.*;
 
 public class DefaultGradient implements Gradient {
     private Map<String,INDArray> gradients = new LinkedHashMap<>();
+    private INDArray flattenedGradient;
 
+    public DefaultGradient() {
+    }
+
+    /**
+     * Create a gradient backed by a single flattened array.
+     * Entries added via {@link #gradientForVariable()} are expected
+     * to be views of this array; {@link #gradient()} then returns it without copying.
+     * @param flattenedGradient the flattened gradient (row vector)
+     */
+    public DefaultGradient(INDArray flattenedGradient) {
+        this.flattenedGradient = flattenedGradient;
+    }
 
 
     @Override
@@ -53,12 +66,15 @@ public class DefaultGradient implements Gradient {
 
     @Override
     public INDArray gradient() {
+        if(flattenedGradient != null)
+            return flattenedGradient;
         return Nd4j.toFlattened('f',gradients.values());
     }
 
     @Override
     public void clear() {
         gradients.clear();
+        flattenedGradient = null;
     }
 
     @Override
@@ -68,6 +84,16 @@ public class DefaultGradient implements Gradient {
 
     @Override
     public INDArray setGradientFor(String variable, INDArray newGradient) {
+        if(flattenedGradient != null) {
+            //Keep the flattened array in sync: copy in to the existing view instead of replacing it
+            INDArray view = gradients.get(variable);
+            if(view != null && view.length() == newGradient.length()) {
+                if(view != newGradient)
+                    view.assign(newGradient);
+                return view;
+            }
+            flattenedGradient = null;
+        }
         return gradients.put(variable, newGradient);
     }
 
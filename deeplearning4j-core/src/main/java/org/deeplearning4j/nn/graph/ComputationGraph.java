@@ -33,6 +33,7 @@ import org.deeplearning4j.nn.graph.util.ComputationGraphUtil;
 import org.deeplearning4j.nn.graph.vertex.*;
 import org.deeplearning4j.nn.graph.vertex.impl.*;
 import org.deeplearning4j.nn.graph.vertex.GraphVertex;
+import org.deeplearning4j.nn.layers.BaseLayer;
 import org.deeplearning4j.nn.layers.BaseOutputLayer;
 import org.deeplearning4j.nn.layers.BasePretrainNetwork;
 import org.deeplearning4j.nn.layers.recurrent.BaseRecurrentLayer;
@@ -58,6 +59,8 @@ import org.nd4j.linalg.indexing.NDArrayIndex;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.util.*;
 
@@ -107,6 +110,12 @@ public class ComputationGraph implements Serializable, Model {
     private NeuralNetConfiguration defaultConfiguration;
     private Collection<IterationListener> listeners = new ArrayList<>();
 
+    /** Flattened parameters and gradients for all layers (in topological order); layer parameters are views.
+     * Rebuilt after deserialization (see readObject) */
+    protected transient INDArray flattenedParams;
+    protected transient INDArray flattenedGradients;
+    protected transient Map<String,INDArray> gradientViews;
+
 
     public ComputationGraph(ComputationGraphConfiguration configuration){
         this.configuration = configuration;
@@ -341,9 +350,60 @@ public class ComputationGraph implements Serializable, Model {
         //Given the graph structure, do a topological sort to define forward pass and flattening order:
         topologicalOrder = topologicalSortOrder();
 
+        initFlattenedParams();
+
         initCalled = true;
     }
 
+    /** Allocate a single flattened parameter array and gradient array for the network, in topological order.
+     * Each layer's parameters become views of the parameter array, so {@link #params()} and
+     * {@link Gradient#gradient()} don't need to copy. Not used for networks with layerwise pretraining layers.
+     */
+    protected void initFlattenedParams(){
+        int nParams = 0;
+        for(Layer l : layers){
+            if(l instanceof BasePretrainNetwork) return;
+            INDArray layerParams = l.params();
+            if(layerParams != null) nParams += layerParams.length();
+        }
+        if(nParams == 0) return;
+
+        INDArray params = Nd4j.create(1, nParams);
+        INDArray gradients = Nd4j.zeros(1, nParams);
+        Map<String,INDArray> views = new LinkedHashMap<>();
+        int idx = 0;
+        for( int i=0; i<topologicalOrder.length; i++ ){
+            GraphVertex gv = vertices[topologicalOrder[i]];
+            if(!gv.hasLayer()) continue;
+
+            Layer layer = gv.getLayer();
+            INDArray layerParams = layer.params();
+            if(layerParams == null || layerParams.length() == 0) continue;
+            int range = layerParams.length();
+            INDArray paramsView = params.get(NDArrayIndex.point(0),NDArrayIndex.interval(idx, idx + range));
+            paramsView.assign(layerParams);
+            layer.setParams(paramsView);
+
+            //Layers extending BaseLayer write their gradients directly in to these views during backprop
+            int gradIdx = idx;
+            Map<String,INDArray> layerViews = new LinkedHashMap<>();
+            for(Map.Entry<String,INDArray> entry : layer.paramTable().entrySet()){
+                INDArray param = entry.getValue();
+                INDArray gradView = gradients.get(NDArrayIndex.point(0),NDArrayIndex.interval(gradIdx, gradIdx + param.length()));
+                gradView = gradView.reshape('f',param.shape());
+                layerViews.put(entry.getKey(), gradView);
+                views.put(gv.getVertexName() + "_" + entry.getKey(), gradView);
+                gradIdx += param.length();
+            }
+            if(layer instanceof BaseLayer) ((BaseLayer) layer).setBackpropGradientViews(layerViews);
+            idx += range;
+        }
+
+        this.flattenedParams = params;
+        this.flattenedGradients = gradients;
+        this.gradientViews = views;
+    }
+
     /** Pretrain network with a single input and single output. DataSetIterators can only be used if the number of input
      * and output arrays for the ComputationGraph are both 1.
      * For networks with more than one input or output, use {@link #pretrain(MultiDataSetIterator)}
@@ -849,6 +909,21 @@ public class ComputationGraph implements Serializable, Model {
             gradient.setGradientFor(p.getFirst(),p.getSecond());
         }
 
+        //Copy in to the flattened gradient array where possible, so Gradient.gradient() is a no-copy operation
+        if(flattenedGradients != null && gradients.size() == gradientViews.size()){
+            Gradient flattened = new DefaultGradient(flattenedGradients);
+            for(Pair<String,INDArray> p : gradients){
+                INDArray view = gradientViews.get(p.getFirst());
+                if(view == null || !Arrays.equals(view.shape(),p.getSecond().shape())){
+                    flattened = null;
+                    break;
+                }
+                if(view != p.getSecond()) view.assign(p.getSecond());
+                flattened.gradientForVariable().put(p.getFirst(),view);
+            }
+            if(flattened != null) gradient = flattened;
+        }
+
         this.gradient = gradient;
     }
 
@@ -862,6 +937,29 @@ public class ComputationGraph implements Serializable, Model {
         return cg;
     }
 
+    /** Create a copy of this ComputationGraph that shares this network's parameter arrays (i.e., no copy of the
+     * parameters is made), but has its own layer state (inputs, mask arrays, RNN state etc).<br>
+     * Intended for concurrent inference: each thread can use its own copy, without multiplying parameter memory.
+     * Parameter updates made via one network are visible in the other. The copy should not be trained.
+     */
+    public ComputationGraph cloneSharingParams(){
+        if(!initCalled) init();
+        ComputationGraph cg = new ComputationGraph(configuration.clone());
+        cg.init();
+
+        for(GraphVertex gv : vertices){
+            if(!gv.hasLayer()) continue;
+            Map<String,INDArray> paramTable = gv.getLayer().paramTable();
+            if(paramTable == null) continue;
+            cg.getVertex(gv.getVertexName()).getLayer().setParamTable(new LinkedHashMap<>(paramTable));
+        }
+        cg.flattenedParams = flattenedParams;
+        cg.flattenedGradients = null;
+        cg.gradientViews = null;
+
+        return cg;
+    }
+
     /** Calculate the L2 regularization term for all layers in the entire network. This is the sum of the L2 terms
      * for each layer individually
      */
@@ -944,6 +1042,8 @@ public class ComputationGraph implements Serializable, Model {
      * @param backwardOnly If true: backprop parameters only (i.e., no visible layer biases used in layerwise pretraining layers)
      */
     public INDArray params(boolean backwardOnly){
+        if(flattenedParams != null) return flattenedParams;
+
         List<INDArray> list = new ArrayList<>(layers.length);
         for( int i=0; i<topologicalOrder.length; i++ ){
             if(!vertices[topologicalOrder[i]].hasLayer()) continue;
@@ -1106,6 +1206,12 @@ public class ComputationGraph implements Serializable, Model {
         throw new UnsupportedOperationException("Not implemented");
     }
 
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        //Layer parameters were serialized as separate arrays: make them views of a flattened array again
+        if(initCalled) initFlattenedParams();
+    }
+
     private void update(Task task) {
         if (!initDone) {
             initDone = true;
@@ -1151,6 +1257,11 @@ public class ComputationGraph implements Serializable, Model {
 
     @Override
     public void setParams(INDArray params) {
+        if(flattenedParams != null && flattenedParams.length() == params.length()){
+            //Layer parameters are views of the flattened array: copy in place to keep them valid
+            if(flattenedParams != params) flattenedParams.assign(params);
+            return;
+        }
         int idx = 0;
         for( int i=0; i<topologicalOrder.length; i++ ){
             if(!vertices[topologicalOrder[i]].hasLayer()) continue;
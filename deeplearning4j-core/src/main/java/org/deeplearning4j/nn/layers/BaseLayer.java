@@ -60,6 +60,8 @@ public abstract class BaseLayer<LayerConfT extends org.deeplearning4j.nn.conf.la
     protected int index = 0;
     protected INDArray maskArray;
     protected Solver solver;
+    //Views of the network's flattened gradient, keyed as per the param table: backprop writes the gradients in to these
+    protected transient Map<String,INDArray> gradientViews;
 
     public BaseLayer(NeuralNetConfiguration conf) {
         this.conf = conf;
@@ -151,14 +153,47 @@ public abstract class BaseLayer<LayerConfT extends org.deeplearning4j.nn.conf.la
         }
 
         Gradient ret = new DefaultGradient();
-        ret.gradientForVariable().put(DefaultParamInitializer.WEIGHT_KEY, delta.transpose().mmul(input).transpose());
-        ret.gradientForVariable().put(DefaultParamInitializer.BIAS_KEY, delta.sum(0));
-        
+        ret.gradientForVariable().put(DefaultParamInitializer.WEIGHT_KEY, weightGradient(delta));
+        ret.gradientForVariable().put(DefaultParamInitializer.BIAS_KEY, biasGradient(delta));
+
         INDArray epsilonNext = params.get(DefaultParamInitializer.WEIGHT_KEY).mmul(delta.transpose()).transpose();
 
         return new Pair<>(ret,epsilonNext);
     }
 
+    /**
+     * Set views of a flattened gradient array for backprop to write the weight and bias gradients in to,
+     * instead of allocating new arrays on every call. Gradients of parameters without a view (or with a view
+     * of a different shape) are allocated as before.
+     * @param gradientViews gradient views keyed as per the param table ('f' order), or null to allocate
+     */
+    public void setBackpropGradientViews(Map<String,INDArray> gradientViews) {
+        this.gradientViews = gradientViews;
+    }
+
+    /** Weight gradient input^T * delta, written in to the weight gradient view if one was set */
+    protected INDArray weightGradient(INDArray delta) {
+        INDArray ret = gradientArray(DefaultParamInitializer.WEIGHT_KEY, input.size(1), delta.size(1));
+        Nd4j.gemm(input, delta, ret, true, false, 1.0, 0.0);
+        return ret;
+    }
+
+    /** Bias gradient (column sums of delta), written in to the bias gradient view if one was set */
+    protected INDArray biasGradient(INDArray delta) {
+        INDArray sum = delta.sum(0);
+        INDArray view = gradientViews == null ? null : gradientViews.get(DefaultParamInitializer.BIAS_KEY);
+        if (view == null || !Arrays.equals(view.shape(), sum.shape()))
+            return sum;
+        return view.assign(sum);
+    }
+
+    private INDArray gradientArray(String key, int rows, int columns) {
+        INDArray view = gradientViews == null ? null : gradientViews.get(key);
+        if (view != null && view.ordering() == 'f' && view.rows() == rows && view.columns() == columns)
+            return view;
+        return Nd4j.create(new int[]{rows, columns}, 'f');
+    }
+
     public void fit() {
         fit(this.input);
     }
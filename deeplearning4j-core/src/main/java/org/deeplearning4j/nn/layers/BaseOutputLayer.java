@@ -189,47 +189,47 @@ public abstract class BaseOutputLayer<LayerConfT extends org.deeplearning4j.nn.c
         Triple<Gradient,INDArray,INDArray> triple;
         switch (layerConf().getLossFunction()) {
             case MCXENT:	//cross-entropy (multi-class, with one-hot encoding)
-                gradient.gradientForVariable().put(DefaultParamInitializer.WEIGHT_KEY, input.transpose().mmul(outSubLabels));
-                gradient.gradientForVariable().put(DefaultParamInitializer.BIAS_KEY, outSubLabels.sum(0));
+                gradient.gradientForVariable().put(DefaultParamInitializer.WEIGHT_KEY, weightGradient(outSubLabels));
+                gradient.gradientForVariable().put(DefaultParamInitializer.BIAS_KEY, biasGradient(outSubLabels));
                 triple = new Triple<>(gradient,outSubLabels,output);
                 break;
 
             case XENT: // cross-entropy (single binary output variable)
-                gradient.gradientForVariable().put(DefaultParamInitializer.WEIGHT_KEY, input.transpose().mmul(outSubLabels.div(output.mul(output.rsub(1)))));
-                gradient.gradientForVariable().put(DefaultParamInitializer.BIAS_KEY, outSubLabels.sum(0));
+                gradient.gradientForVariable().put(DefaultParamInitializer.WEIGHT_KEY, weightGradient(outSubLabels.div(output.mul(output.rsub(1)))));
+                gradient.gradientForVariable().put(DefaultParamInitializer.BIAS_KEY, biasGradient(outSubLabels));
                 triple = new Triple<>(gradient,outSubLabels,output);
                 break;
 
             case MSE: // mean squared error
                 INDArray delta = outSubLabels.mul(derivativeActivation(preOut));
-                gradient.gradientForVariable().put(DefaultParamInitializer.WEIGHT_KEY, input.transpose().mmul(delta));
-                gradient.gradientForVariable().put(DefaultParamInitializer.BIAS_KEY, delta.sum(0));
+                gradient.gradientForVariable().put(DefaultParamInitializer.WEIGHT_KEY, weightGradient(delta));
+                gradient.gradientForVariable().put(DefaultParamInitializer.BIAS_KEY, biasGradient(delta));
                 triple = new Triple<>(gradient,delta,output);
                 break;
 
             case EXPLL: // exponential logarithmic
-                gradient.gradientForVariable().put(DefaultParamInitializer.WEIGHT_KEY, input.transpose().mmul(labels.rsub(1).divi(output)));
-                gradient.gradientForVariable().put(DefaultParamInitializer.BIAS_KEY, outSubLabels.sum(0));
+                gradient.gradientForVariable().put(DefaultParamInitializer.WEIGHT_KEY, weightGradient(labels.rsub(1).divi(output)));
+                gradient.gradientForVariable().put(DefaultParamInitializer.BIAS_KEY, biasGradient(outSubLabels));
                 triple = new Triple<>(gradient,outSubLabels,output);
                 break;
 
             case RMSE_XENT: // root mean squared error cross entropy
                 INDArray squaredrmseXentDiff = pow(outSubLabels, 2.0);
                 INDArray sqrt = sqrt(squaredrmseXentDiff);
-                gradient.gradientForVariable().put(DefaultParamInitializer.WEIGHT_KEY, input.transpose().mmul(sqrt));
-                gradient.gradientForVariable().put(DefaultParamInitializer.BIAS_KEY, outSubLabels.sum(0));
+                gradient.gradientForVariable().put(DefaultParamInitializer.WEIGHT_KEY, weightGradient(sqrt));
+                gradient.gradientForVariable().put(DefaultParamInitializer.BIAS_KEY, biasGradient(outSubLabels));
                 triple = new Triple<>(gradient,outSubLabels,output);
                 break;
 
             case SQUARED_LOSS:
-                gradient.gradientForVariable().put(DefaultParamInitializer.WEIGHT_KEY, input.transpose().mmul(pow(outSubLabels,2)));
-                gradient.gradientForVariable().put(DefaultParamInitializer.BIAS_KEY, outSubLabels.sum(0));
+                gradient.gradientForVariable().put(DefaultParamInitializer.WEIGHT_KEY, weightGradient(pow(outSubLabels,2)));
+                gradient.gradientForVariable().put(DefaultParamInitializer.BIAS_KEY, biasGradient(outSubLabels));
                 triple = new Triple<>(gradient,outSubLabels,output);
                 break;
 
             case NEGATIVELOGLIKELIHOOD: // multi-class cross-entropy
-                gradient.gradientForVariable().put(DefaultParamInitializer.WEIGHT_KEY, input.transpose().mmul(outSubLabels));
-                gradient.gradientForVariable().put(DefaultParamInitializer.BIAS_KEY, outSubLabels.sum(0));
+                gradient.gradientForVariable().put(DefaultParamInitializer.WEIGHT_KEY, weightGradient(outSubLabels));
+                gradient.gradientForVariable().put(DefaultParamInitializer.BIAS_KEY, biasGradient(outSubLabels));
                 triple = new Triple<>(gradient,outSubLabels,output);
                 break;
 
@@ -0,0 +1,259 @@
+/*
+ *
+ *  * Copyright 2015 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+package org.deeplearning4j.nn.layers.convolution;
+
+import org.deeplearning4j.berkeley.Pair;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.api.shape.Shape;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.indexing.INDArrayIndex;
+import org.nd4j.linalg.indexing.NDArrayIndex;
+
+import java.util.Arrays;
+
+/**
+ * Static helper functions for convolution and pooling that work on strided views of the (padded) input,
+ * rather than on an im2col expansion of it.<br>
+ * For kernel position (i,j), the "window" of a [n,c,h,w] input is the [n,c,outH,outW] view of the padded input
+ * consisting of the input values multiplied by kernel element (i,j) - i.e., rows i, i+strideH, ... and columns
+ * j, j+strideW, ... The convolution is then a sum over kernel positions of (window x kernel slice), and
+ * pooling is a max/average over the windows. Memory use is bounded by the size of the input, instead of
+ * kernelH*kernelW times the input size.
+ */
+public class ConvolutionHelpers {
+
+    private ConvolutionHelpers() {
+    }
+
+    /**
+     * Output size (height, width) of a convolution or pooling operation
+     */
+    public static int[] outputSize(int inHeight, int inWidth, int[] kernel, int[] stride, int[] padding) {
+        int padH = (padding == null ? 0 : padding[0]);
+        int padW = (padding == null ? 0 : padding[1]);
+        int outH = (inHeight + 2 * padH - kernel[0]) / stride[0] + 1;
+        int outW = (inWidth + 2 * padW - kernel[1]) / stride[1] + 1;
+        if (outH <= 0 || outW <= 0)
+            throw new IllegalStateException("Invalid input size: kernel " + Arrays.toString(kernel)
+                    + " is larger than input (" + inHeight + "," + inWidth + ") plus padding " + Arrays.toString(padding));
+        return new int[]{outH, outW};
+    }
+
+    /**
+     * Direct convolution: z = sum over kernel positions (i,j) of window(i,j) x W[:,:,i,j], one gemm per position.
+     *
+     * @param input   input activations, shape [miniBatch,depthIn,h,w]
+     * @param weights weights, shape [depthOut,depthIn,kernelH,kernelW]
+     * @param bias    bias, shape [1,depthOut]
+     * @return pre-activations, shape [miniBatch,depthOut,outH,outW]
+     */
+    public static INDArray convolveDirect(INDArray input, INDArray weights, INDArray bias, int[] stride, int[] padding) {
+        int miniBatch = input.size(0);
+        int depthIn = input.size(1);
+        int depthOut = weights.size(0);
+        int[] kernel = new int[]{weights.size(2), weights.size(3)};
+        int[] outSize = outputSize(input.size(2), input.size(3), kernel, stride, padding);
+        int rows = miniBatch * outSize[0] * outSize[1];
+
+        INDArray padded = pad(input, padding);
+        INDArray z2d = Nd4j.create(new int[]{rows, depthOut}, 'f');     //Rows ordered by [example,y,x]
+        for (int i = 0; i < kernel[0]; i++) {
+            for (int j = 0; j < kernel[1]; j++) {
+                INDArray window2d = toRows(window(padded, i, j, outSize, stride), rows, depthIn);
+                INDArray kernelSlice = kernelSlice(weights, i, j);     //[depthOut,depthIn]
+                Nd4j.gemm(window2d, kernelSlice, z2d, false, true, 1.0, 1.0);
+            }
+        }
+        z2d.addiRowVector(bias);
+
+        return z2d.reshape('c', miniBatch, outSize[0], outSize[1], depthOut).permute(0, 3, 1, 2);
+    }
+
+    /**
+     * Backprop for {@link #convolveDirect(INDArray, INDArray, INDArray, int[], int[])}
+     *
+     * @param input           input activations, shape [miniBatch,depthIn,h,w]
+     * @param weights         weights, shape [depthOut,depthIn,kernelH,kernelW]
+     * @param delta           errors with respect to the pre-activations, shape [miniBatch,depthOut,outH,outW]
+     * @param weightGradients output: weight gradients are placed in this array, shape [depthOut,depthIn,kernelH,kernelW]
+     * @return epsilon for the layer below, shape [miniBatch,depthIn,h,w]
+     */
+    public static INDArray backpropDirect(INDArray input, INDArray weights, INDArray delta, int[] stride, int[] padding,
+                                          INDArray weightGradients) {
+        int depthIn = input.size(1);
+        int depthOut = weights.size(0);
+        int[] kernel = new int[]{weights.size(2), weights.size(3)};
+        int[] outSize = new int[]{delta.size(2), delta.size(3)};
+        int rows = delta.size(0) * outSize[0] * outSize[1];
+
+        INDArray padded = pad(input, padding);
+        INDArray delta2d = toRows(delta, rows, depthOut);
+        INDArray delta2dTranspose = delta2d.transpose();
+        INDArray epsPadded = Nd4j.zeros(padded.shape());
+        for (int i = 0; i < kernel[0]; i++) {
+            for (int j = 0; j < kernel[1]; j++) {
+                INDArray window2d = toRows(window(padded, i, j, outSize, stride), rows, depthIn);
+                INDArray kernelSlice = kernelSlice(weights, i, j);     //[depthOut,depthIn]
+
+                INDArray weightGradSlice = delta2dTranspose.mmul(window2d);   //[depthOut,depthIn]
+                weightGradients.put(new INDArrayIndex[]{NDArrayIndex.all(), NDArrayIndex.all(), NDArrayIndex.point(i), NDArrayIndex.point(j)}, weightGradSlice);
+
+                INDArray eps2d = delta2d.mmul(kernelSlice);      //[rows,depthIn]
+                window(epsPadded, i, j, outSize, stride).addi(fromRows(eps2d, delta.size(0), outSize, depthIn));
+            }
+        }
+        return unpad(epsPadded, padding);
+    }
+
+    /**
+     * Max pooling without im2col.
+     *
+     * @return the pooled output, shape [miniBatch,depth,outH,outW], and the index (i*kernelW+j) of the maximum
+     * value in each pooling window, for use in {@link #maxPoolBackprop(INDArray, INDArray, int[], int[], int[], int[])}
+     */
+    public static Pair<INDArray, INDArray> maxPool(INDArray input, int[] kernel, int[] stride, int[] padding) {
+        int[] outSize = outputSize(input.size(2), input.size(3), kernel, stride, padding);
+        INDArray padded = pad(input, padding);
+
+        INDArray max = null;
+        INDArray maxIndexes = Nd4j.zeros(input.size(0), input.size(1), outSize[0], outSize[1]);
+        int length = maxIndexes.length();
+        for (int i = 0; i < kernel[0]; i++) {
+            for (int j = 0; j < kernel[1]; j++) {
+                INDArray window = window(padded, i, j, outSize, stride).dup();
+                if (max == null) {
+                    max = window;
+                    continue;
+                }
+                //Select rather than multiply by a 0/1 mask: -Infinity * 0 would give NaN
+                //Strictly greater: ties keep the first index, as argMax would
+                int index = i * kernel[1] + j;
+                for (int k = 0; k < length; k++) {
+                    double value = window.getDouble(k);
+                    if (value > max.getDouble(k)) {
+                        max.putScalar(k, value);
+                        maxIndexes.putScalar(k, index);
+                    }
+                }
+            }
+        }
+        return new Pair<>(max, maxIndexes);
+    }
+
+    /**
+     * Backprop for max pooling: each epsilon value is routed to the position of the maximum in its pooling window
+     *
+     * @param inputShape shape of the input to the pooling layer
+     */
+    public static INDArray maxPoolBackprop(INDArray epsilon, INDArray maxIndexes, int[] inputShape, int[] kernel,
+                                           int[] stride, int[] padding) {
+        int[] outSize = new int[]{epsilon.size(2), epsilon.size(3)};
+        INDArray epsPadded = Nd4j.zeros(paddedShape(inputShape, padding));
+        for (int i = 0; i < kernel[0]; i++) {
+            for (int j = 0; j < kernel[1]; j++) {
+                INDArray isMax = maxIndexes.eq(i * kernel[1] + j);
+                window(epsPadded, i, j, outSize, stride).addi(isMax.muli(epsilon));
+            }
+        }
+        return unpad(epsPadded, padding);
+    }
+
+    /**
+     * Average pooling without im2col. Padding counts towards the average, as with im2col based pooling
+     */
+    public static INDArray avgPool(INDArray input, int[] kernel, int[] stride, int[] padding) {
+        int[] outSize = outputSize(input.size(2), input.size(3), kernel, stride, padding);
+        INDArray padded = pad(input, padding);
+
+        INDArray sum = null;
+        for (int i = 0; i < kernel[0]; i++) {
+            for (int j = 0; j < kernel[1]; j++) {
+                INDArray window = window(padded, i, j, outSize, stride);
+                if (sum == null) sum = window.dup();
+                else sum.addi(window);
+            }
+        }
+        return sum.divi(kernel[0] * kernel[1]);
+    }
+
+    /**
+     * Backprop for average pooling: each epsilon value is spread evenly over its pooling window
+     *
+     * @param inputShape shape of the input to the pooling layer
+     */
+    public static INDArray avgPoolBackprop(INDArray epsilon, int[] inputShape, int[] kernel, int[] stride, int[] padding) {
+        int[] outSize = new int[]{epsilon.size(2), epsilon.size(3)};
+        INDArray epsPadded = Nd4j.zeros(paddedShape(inputShape, padding));
+        INDArray scaled = epsilon.div(kernel[0] * kernel[1]);
+        for (int i = 0; i < kernel[0]; i++) {
+            for (int j = 0; j < kernel[1]; j++) {
+                window(epsPadded, i, j, outSize, stride).addi(scaled);
+            }
+        }
+        return unpad(epsPadded, padding);
+    }
+
+    /** The [n,c,outH,outW] view of the padded input for kernel position (i,j) */
+    private static INDArray window(INDArray padded, int i, int j, int[] outSize, int[] stride) {
+        return padded.get(NDArrayIndex.all(), NDArrayIndex.all(),
+                NDArrayIndex.interval(i, stride[0], i + stride[0] * (outSize[0] - 1) + 1),
+                NDArrayIndex.interval(j, stride[1], j + stride[1] * (outSize[1] - 1) + 1));
+    }
+
+    /** [depthOut,depthIn] slice of the weights for kernel position (i,j) */
+    private static INDArray kernelSlice(INDArray weights, int i, int j) {
+        return Shape.toMmulCompatible(weights.get(NDArrayIndex.all(), NDArrayIndex.all(), NDArrayIndex.point(i), NDArrayIndex.point(j)));
+    }
+
+    /** Reshape [n,c,h,w] to [n*h*w,c], rows ordered by [example,y,x] */
+    private static INDArray toRows(INDArray in4d, int rows, int columns) {
+        return in4d.permute(0, 2, 3, 1).dup('c').reshape('c', rows, columns);
+    }
+
+    /** Inverse of {@link #toRows(INDArray, int, int)} */
+    private static INDArray fromRows(INDArray in2d, int miniBatch, int[] outSize, int columns) {
+        return in2d.reshape('c', miniBatch, outSize[0], outSize[1], columns).permute(0, 3, 1, 2);
+    }
+
+    private static boolean hasPadding(int[] padding) {
+        return padding != null && (padding[0] > 0 || padding[1] > 0);
+    }
+
+    private static int[] paddedShape(int[] shape, int[] padding) {
+        if (!hasPadding(padding)) return shape;
+        return new int[]{shape[0], shape[1], shape[2] + 2 * padding[0], shape[3] + 2 * padding[1]};
+    }
+
+    /** Zero pad the input; returns the input itself if there is no padding */
+    private static INDArray pad(INDArray input, int[] padding) {
+        if (!hasPadding(padding)) return input;
+        INDArray padded = Nd4j.zeros(paddedShape(input.shape(), padding));
+        padded.get(NDArrayIndex.all(), NDArrayIndex.all(),
+                NDArrayIndex.interval(padding[0], padding[0] + input.size(2)),
+                NDArrayIndex.interval(padding[1], padding[1] + input.size(3))).assign(input);
+        return padded;
+    }
+
+    private static INDArray unpad(INDArray padded, int[] padding) {
+        if (!hasPadding(padding)) return padded;
+        return padded.get(NDArrayIndex.all(), NDArrayIndex.all(),
+                NDArrayIndex.interval(padding[0], padded.size(2) - padding[0]),
+                NDArrayIndex.interval(padding[1], padded.size(3) - padding[1])).dup();
+    }
+}
@@ -22,6 +22,7 @@ package org.deeplearning4j.nn.layers.convolution;
 import org.deeplearning4j.berkeley.Pair;
 import org.deeplearning4j.nn.api.Layer;
 import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
+import org.deeplearning4j.nn.conf.layers.ConvolutionLayer.AlgoMode;
 import org.deeplearning4j.nn.gradient.DefaultGradient;
 import org.deeplearning4j.nn.gradient.Gradient;
 import org.deeplearning4j.nn.layers.BaseLayer;
@@ -33,6 +34,8 @@ import org.nd4j.linalg.api.ops.impl.broadcast.BroadcastAddOp;
 import org.nd4j.linalg.convolution.Convolution;
 import org.nd4j.linalg.factory.Nd4j;
 import org.nd4j.linalg.ops.transforms.Transforms;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.util.Arrays;
 
@@ -43,7 +46,12 @@ import java.util.Arrays;
  * @author Adam Gibson
  */
 public class ConvolutionLayer extends BaseLayer<org.deeplearning4j.nn.conf.layers.ConvolutionLayer> {
-    protected INDArray col; // vectorized input
+    private static final Logger log = LoggerFactory.getLogger(ConvolutionLayer.class);
+
+    protected INDArray col; // vectorized input; allocated by im2col on each forward pass
+    protected AlgoMode algo; // algorithm in use; selected on first use when the configured mode is AUTO
+    protected static final int AUTO_WARMUP_RUNS = 2;
+    protected static final int AUTO_TIMED_RUNS = 5;
 
     public ConvolutionLayer(NeuralNetConfiguration conf) {
         super(conf);
@@ -98,6 +106,13 @@ public class ConvolutionLayer extends BaseLayer<org.deeplearning4j.nn.conf.layer
         //gb = gy[0].sum(axis=(0, 2, 3))
         retGradient.setGradientFor(ConvolutionParamInitializer.BIAS_KEY, delta.sum(0, 2, 3));
 
+        if(getAlgo() == AlgoMode.DIRECT) {
+            INDArray weightGradient = Nd4j.create(weights.shape());
+            INDArray nextEpsilon = ConvolutionHelpers.backpropDirect(input, weights, delta, layerConf().getStride(), layerConf().getPadding(), weightGradient);
+            retGradient.setGradientFor(ConvolutionParamInitializer.WEIGHT_KEY, weightGradient);
+            return new Pair<>(retGradient,nextEpsilon);
+        }
+
         // gW = np.tensordot(gy[0], col, ([0, 2, 3], [0, 4, 5]))
         INDArray weightGradient = Nd4j.tensorMmul(delta, col, new int[][] {{0, 2, 3},{0, 4, 5}});
         retGradient.setGradientFor(ConvolutionParamInitializer.WEIGHT_KEY, weightGradient);
@@ -119,6 +134,12 @@ public class ConvolutionLayer extends BaseLayer<org.deeplearning4j.nn.conf.layer
             }
         }
 
+        if(getAlgo() == AlgoMode.DIRECT)
+            return ConvolutionHelpers.convolveDirect(input, Weights, bias, layerConf().getStride(), layerConf().getPadding());
+
+        if(col == null)
+            col = Convolution.im2col(input, layerConf().getKernelSize(), layerConf().getStride(), layerConf().getPadding());
+
         INDArray z = Nd4j.tensorMmul(col, Weights, new int[][]{{1, 2, 3}, {1, 2, 3}});
         BroadcastOp op = new BroadcastAddOp(z,bias,z,3);
         Nd4j.getExecutioner().exec(op);
@@ -132,13 +153,63 @@ public class ConvolutionLayer extends BaseLayer<org.deeplearning4j.nn.conf.layer
             throw new IllegalArgumentException("No null input allowed");
         applyDropOutIfNecessary(training);
 
-        col = Convolution.im2col(input, layerConf().getKernelSize(), layerConf().getStride(), layerConf().getPadding());
+        if(algo == null && layerConf().getAlgoMode() == AlgoMode.AUTO)
+            algo = selectFastestAlgo(training);
+
+        if(getAlgo() == AlgoMode.IM2COL)
+            col = Convolution.im2col(input, layerConf().getKernelSize(), layerConf().getStride(), layerConf().getPadding());
+        else
+            col = null;
         INDArray z = preOutput(training);
         // TODO add switch here to use bn if included
         INDArray activation = Nd4j.getExecutioner().execAndReturn(Nd4j.getOpFactory().createTransform(conf.getLayer().getActivationFunction(), z));
         return activation;
     }
 
+    /**
+     * The convolution algorithm in use: the configured algorithm, or (for {@link AlgoMode#AUTO}) the algorithm
+     * selected on first use. IM2COL until an algorithm has been selected.
+     */
+    public AlgoMode getAlgo() {
+        if(algo != null)
+            return algo;
+        AlgoMode mode = layerConf().getAlgoMode();
+        return (mode == null || mode == AlgoMode.AUTO ? AlgoMode.IM2COL : mode);
+    }
+
+    /**
+     * Time the forward pass for each algorithm on the current input, and return the faster one.
+     * Each algorithm is run {@link #AUTO_WARMUP_RUNS} times before timing, and the median of
+     * {@link #AUTO_TIMED_RUNS} timed runs is compared, so one-off costs (allocation, JIT) do not decide.
+     * This adds 2 * (AUTO_WARMUP_RUNS + AUTO_TIMED_RUNS) forward passes to the first call of {@link #activate(boolean)}.
+     */
+    protected AlgoMode selectFastestAlgo(boolean training) {
+        long im2colTime = timeForward(AlgoMode.IM2COL, training);
+        long directTime = timeForward(AlgoMode.DIRECT, training);
+
+        AlgoMode selected = (directTime < im2colTime ? AlgoMode.DIRECT : AlgoMode.IM2COL);
+        log.debug("Selected convolution algorithm {} for input shape {} (im2col: {} ms, direct: {} ms)", selected,
+                Arrays.toString(input.shape()), im2colTime / 1000000.0, directTime / 1000000.0);
+        col = null;
+        return selected;
+    }
+
+    /** Median time (ns) of the forward pass with the given algorithm, after warmup */
+    private long timeForward(AlgoMode mode, boolean training) {
+        algo = mode;
+        long[] times = new long[AUTO_TIMED_RUNS];
+        for(int i = 0; i < AUTO_WARMUP_RUNS + AUTO_TIMED_RUNS; i++) {
+            long start = System.nanoTime();
+            col = (mode == AlgoMode.IM2COL ? Convolution.im2col(input, layerConf().getKernelSize(), layerConf().getStride(), layerConf().getPadding()) : null);
+            preOutput(training);
+            if(i >= AUTO_WARMUP_RUNS)
+                times[i - AUTO_WARMUP_RUNS] = System.nanoTime() - start;
+        }
+        algo = null;
+        Arrays.sort(times);
+        return times[times.length / 2];
+    }
+
     @Override
     public Layer transpose(){
         throw new UnsupportedOperationException("Not yet implemented");
@@ -24,16 +24,9 @@ import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
 import org.deeplearning4j.nn.gradient.DefaultGradient;
 import org.deeplearning4j.nn.gradient.Gradient;
 import org.deeplearning4j.nn.layers.BaseLayer;
+import org.deeplearning4j.nn.layers.convolution.ConvolutionHelpers;
 import org.deeplearning4j.util.Dropout;
-import org.nd4j.linalg.api.iter.NdIndexIterator;
 import org.nd4j.linalg.api.ndarray.INDArray;
-import org.nd4j.linalg.api.shape.Shape;
-import org.nd4j.linalg.api.shape.loop.coordinatefunction.CoordinateFunction;
-import org.nd4j.linalg.convolution.Convolution;
-import org.nd4j.linalg.factory.Nd4j;
-import org.nd4j.linalg.indexing.INDArrayIndex;
-import org.nd4j.linalg.indexing.NDArrayIndex;
-import org.nd4j.linalg.util.ArrayUtil;
 
 
 import java.util.*;
@@ -78,49 +71,19 @@ public class SubsamplingLayer extends BaseLayer<org.deeplearning4j.nn.conf.layer
     public Pair<Gradient, INDArray> backpropGradient(INDArray epsilon) {
         //subsampling doesn't have weights and thus gradients are not calculated for this layer
         //only scale and reshape epsilon
-        int inputHeight = input().size(-2);
-        int inputWidth = input().size(-1);
-        INDArray reshapeEpsilon, retE, reshaped;
         Gradient retGradient = new DefaultGradient();
+        INDArray reshapeEpsilon;
 
         switch(layerConf().getPoolingType()) {
             case MAX:
-                int n = epsilon.size(0);
-                int c = epsilon.size(1);
-                int outH = epsilon.size(2);
-                int outW = epsilon.size(3);
-                //compute backwards kernel based on rearranging the given error
-                retE = Nd4j.zeros(n, c, layerConf().getKernelSize()[0], layerConf().getKernelSize()[1], outH, outW);
-                reshaped = retE.reshape(n, c, -1, outH, outW);
-                reshapeEpsilon = Nd4j.rollAxis(reshaped,2);
-
-                final INDArray finalEps = epsilon;
-                final INDArray reshapedEps = reshapeEpsilon;
-
-                NdIndexIterator iter = new NdIndexIterator(maxIndexes.shape());
-                while(iter.hasNext()) {
-                    int[] i = iter.next();
-                    // recover the index to put epsilon on new shape
-                    int idx = maxIndexes.getInt(i);
-                    double epsGet = finalEps.getDouble(i);
-                    INDArrayIndex t = NDArrayIndex.point(idx);
-                    INDArray sliceToGetFrom = reshapedEps.get(NDArrayIndex.point(idx));
-                    sliceToGetFrom.putScalar(i, epsGet);
-                }
-
-                reshapeEpsilon = Convolution.col2im(retE,layerConf().getStride(),layerConf().getPadding(),inputHeight, inputWidth);
+                //route each error back to the position of the maximum in its pooling window
+                reshapeEpsilon = ConvolutionHelpers.maxPoolBackprop(epsilon, maxIndexes, input().shape(),
+                        layerConf().getKernelSize(), layerConf().getStride(), layerConf().getPadding());
                 return new Pair<>(retGradient,reshapeEpsilon);
             case AVG:
                 //compute reverse average error
-                retE = epsilon.get(
-                        NDArrayIndex.all()
-                        , NDArrayIndex.all()
-                        , NDArrayIndex.newAxis()
-                        , NDArrayIndex.newAxis());
-                reshapeEpsilon = Nd4j.tile(retE,1,1,layerConf().getKernelSize()[0],layerConf().getKernelSize()[1],1,1);
-                reshapeEpsilon = Convolution.col2im(reshapeEpsilon, layerConf().getStride(), layerConf().getPadding(), inputHeight, inputWidth);
-                reshapeEpsilon.divi(ArrayUtil.prod(layerConf().getKernelSize()));
-
+                reshapeEpsilon = ConvolutionHelpers.avgPoolBackprop(epsilon, input().shape(),
+                        layerConf().getKernelSize(), layerConf().getStride(), layerConf().getPadding());
                 return new Pair<>(retGradient, reshapeEpsilon);
             case NONE:
                 return new Pair<>(retGradient, epsilon);
@@ -131,27 +94,18 @@ public class SubsamplingLayer extends BaseLayer<org.deeplearning4j.nn.conf.layer
 
     @Override
     public INDArray activate(boolean training) {
-        INDArray pooled, ret;
-        // n = num examples, c = num channels or depth
-        int n, c, kh, kw, outWidth, outHeight;
         if(training && conf.getLayer().getDropOut() > 0) {
             this.dropoutMask = Dropout.applyDropout(input,conf.getLayer().getDropOut(),dropoutMask);
         }
 
-        pooled = Convolution.im2col(input,layerConf().getKernelSize(),layerConf().getStride(),layerConf().getPadding());
+        //Pooling is done directly on strided views of the input: no im2col expansion of the input is required
         switch(layerConf().getPoolingType()) {
             case AVG:
-                return pooled.mean(2,3);
+                return ConvolutionHelpers.avgPool(input, layerConf().getKernelSize(), layerConf().getStride(), layerConf().getPadding());
             case MAX:
-                n = pooled.size(0);
-                c = pooled.size(1);
-                kh = pooled.size(2);
-                kw = pooled.size(3);
-                outHeight = pooled.size(4);
-                outWidth = pooled.size(5);
-                ret = pooled.reshape(n, c, kh * kw, outHeight, outWidth);
-                maxIndexes = Nd4j.argMax(ret, 2);
-                return ret.max(2);
+                Pair<INDArray,INDArray> pooled = ConvolutionHelpers.maxPool(input, layerConf().getKernelSize(), layerConf().getStride(), layerConf().getPadding());
+                maxIndexes = pooled.getSecond();
+                return pooled.getFirst();
             case NONE:
                 return input;
             default: throw new IllegalStateException("Pooling type not supported!");
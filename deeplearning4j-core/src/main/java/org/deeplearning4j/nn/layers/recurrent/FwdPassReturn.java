@@ -9,7 +9,7 @@ public class FwdPassReturn {
     //First: needed by standard forward pass only
     public INDArray fwdPassOutput;
     //Arrays: Needed for backpropGradient only
-    public INDArray[] paramsMmulCompatible;    //{wi,wI,wf,wF,wFF,wo,wO,wOO,wg,wG,wGG}
+    public INDArray[] paramsMmulCompatible;    //{wifog,wIFOG,wFF,wOO,wGG}: input weights, recurrent weights (all 4 gates), peepholes
     public INDArray[] fwdPassOutputAsArrays;
     public INDArray[] memCellState;        //Pre nonlinearity
     public INDArray[] memCellActivations;    //Post nonlinearity
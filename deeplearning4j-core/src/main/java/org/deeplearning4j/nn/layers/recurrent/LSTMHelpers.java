@@ -6,7 +6,6 @@ import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
 import org.deeplearning4j.nn.gradient.DefaultGradient;
 import org.deeplearning4j.nn.gradient.Gradient;
 import org.deeplearning4j.util.Dropout;
-import org.nd4j.linalg.api.blas.Level1;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.api.shape.Shape;
 import org.nd4j.linalg.factory.Nd4j;
@@ -40,7 +39,10 @@ public class LSTMHelpers {
 
     /**
      * Returns FwdPassReturn object with activations/INDArrays. Allows activateHelper to be used for forward pass, backward pass
-     * and rnnTimeStep whilst being reasonably efficient for all
+     * and rnnTimeStep whilst being reasonably efficient for all.<br>
+     * The input to gate projections for all time steps and all four gates are calculated up front with a single gemm.
+     * For each time step, the recurrent projection for all four gates is then one gemm in to a [m,4*hiddenLayerSize]
+     * array, of which the individual gates are (column) views.
      */
     static public FwdPassReturn activateHelper( final Layer layer,
                                                 final NeuralNetConfiguration conf,
@@ -66,8 +68,7 @@ public class LSTMHelpers {
         int timeSeriesLength = (is2dInput ? 1 : input.size(2));
         int hiddenLayerSize = recurrentWeights.size(0);
         int miniBatchSize = input.size(0);
-
-
+        int nIn = input.size(1);
 
         //Apply dropconnect to input (not recurrent) weights only:
         if (conf.isUseDropConnect() && training) {
@@ -76,50 +77,31 @@ public class LSTMHelpers {
             }
         }
 
-        //Extract weights and biases:
-        INDArray wi = inputWeights.get(NDArrayIndex.all(), interval(0, hiddenLayerSize));    //i.e., want rows 0..nIn, columns 0..hiddenLayerSize
-        INDArray wI = recurrentWeights.get(NDArrayIndex.all(), interval(0, hiddenLayerSize));
-        INDArray bi = biases.get(NDArrayIndex.point(0), interval(0, hiddenLayerSize));
-
-        INDArray wf = inputWeights.get(NDArrayIndex.all(), interval(hiddenLayerSize, 2 * hiddenLayerSize));
-        INDArray wF = recurrentWeights.get(NDArrayIndex.all(), interval(hiddenLayerSize, 2 * hiddenLayerSize)); //previous
-        INDArray wFFTranspose = recurrentWeights.get(NDArrayIndex.all(), interval(4 * hiddenLayerSize, 4 * hiddenLayerSize + 1)).transpose(); //current
-        INDArray bf = biases.get(NDArrayIndex.point(0), interval(hiddenLayerSize, 2 * hiddenLayerSize));
-
-        INDArray wo = inputWeights.get(NDArrayIndex.all(), interval(2 * hiddenLayerSize, 3 * hiddenLayerSize));
-        INDArray wO = recurrentWeights.get(NDArrayIndex.all(), interval(2 * hiddenLayerSize, 3 * hiddenLayerSize)); //previous
-        INDArray wOOTranspose = recurrentWeights.get(NDArrayIndex.all(), interval(4 * hiddenLayerSize + 1, 4 * hiddenLayerSize + 2)).transpose(); //current
-        INDArray bo = biases.get(NDArrayIndex.point(0), interval(2 * hiddenLayerSize, 3 * hiddenLayerSize));
-
-        INDArray wg = inputWeights.get(NDArrayIndex.all(), interval(3 * hiddenLayerSize, 4 * hiddenLayerSize));
-        INDArray wG = recurrentWeights.get(NDArrayIndex.all(), interval(3 * hiddenLayerSize, 4 * hiddenLayerSize)); //previous
-        INDArray wGGTranspose = recurrentWeights.get(NDArrayIndex.all(), interval(4 * hiddenLayerSize + 2, 4 * hiddenLayerSize + 3)).transpose(); //previous
-        INDArray bg = biases.get(NDArrayIndex.point(0), interval(3 * hiddenLayerSize, 4 * hiddenLayerSize));
-
-        if (timeSeriesLength > 1 || forBackprop) {
-            wi = Shape.toMmulCompatible(wi);
-            wI = Shape.toMmulCompatible(wI);
-            wf = Shape.toMmulCompatible(wf);
-            wF = Shape.toMmulCompatible(wF);
-            wFFTranspose = Shape.toMmulCompatible(wFFTranspose);
-            wo = Shape.toMmulCompatible(wo);
-            wO = Shape.toMmulCompatible(wO);
-            wOOTranspose = Shape.toMmulCompatible(wOOTranspose);
-            wg = Shape.toMmulCompatible(wg);
-            wG = Shape.toMmulCompatible(wG);
-            wGGTranspose = Shape.toMmulCompatible(wGGTranspose);
-            bi = Shape.toMmulCompatible(bi);
-            bf = Shape.toMmulCompatible(bf);
-            bo = Shape.toMmulCompatible(bo);
-            bg = Shape.toMmulCompatible(bg);
+        //Extract weights: recurrent weights for all 4 gates (IFOG) in one array, plus the peephole connections
+        INDArray wIFOG = Shape.toMmulCompatible(recurrentWeights.get(NDArrayIndex.all(), interval(0, 4 * hiddenLayerSize)));
+        INDArray wFFTranspose = Shape.toMmulCompatible(recurrentWeights.get(NDArrayIndex.all(), interval(4 * hiddenLayerSize, 4 * hiddenLayerSize + 1)).transpose());
+        INDArray wOOTranspose = Shape.toMmulCompatible(recurrentWeights.get(NDArrayIndex.all(), interval(4 * hiddenLayerSize + 1, 4 * hiddenLayerSize + 2)).transpose());
+        INDArray wGGTranspose = Shape.toMmulCompatible(recurrentWeights.get(NDArrayIndex.all(), interval(4 * hiddenLayerSize + 2, 4 * hiddenLayerSize + 3)).transpose());
+        inputWeights = Shape.toMmulCompatible(inputWeights);
+
+        //Input projections for all time steps and all gates, in one gemm: [T*m,nIn] x [nIn,4*hiddenLayerSize]
+        //Rows are ordered by time step, then example: rows t*m .. (t+1)*m-1 are time step t
+        INDArray input2d;
+        if (is2dInput) {
+            input2d = Shape.toMmulCompatible(input);
+        } else {
+            input2d = input.permute(2, 0, 1).dup('c').reshape('c', timeSeriesLength * miniBatchSize, nIn);
         }
+        INDArray ifogInput = Nd4j.create(new int[]{timeSeriesLength * miniBatchSize, 4 * hiddenLayerSize}, 'f');
+        Nd4j.gemm(input2d, inputWeights, ifogInput, false, false, 1.0, 0.0);
+        ifogInput.addiRowVector(biases);
 
         //Allocate arrays for activations:
         INDArray outputActivations = null;
 
         FwdPassReturn toReturn = new FwdPassReturn();
         if (forBackprop) {
-            toReturn.paramsMmulCompatible = new INDArray[]{wi, wI, wf, wF, wFFTranspose, wo, wO, wOOTranspose, wg, wG, wGGTranspose};
+            toReturn.paramsMmulCompatible = new INDArray[]{inputWeights, wIFOG, wFFTranspose, wOOTranspose, wGGTranspose};
             toReturn.fwdPassOutputAsArrays = new INDArray[timeSeriesLength];
             toReturn.memCellState = new INDArray[timeSeriesLength];
             toReturn.memCellActivations = new INDArray[timeSeriesLength];
@@ -133,8 +115,6 @@ public class LSTMHelpers {
             toReturn.fwdPassOutput = outputActivations;
         }
 
-        Level1 l1BLAS = Nd4j.getBlasWrapper().level1();
-
         //initialize prevOutputActivations to zeroes
         if (prevOutputActivations == null) {
             prevOutputActivations = Nd4j.zeros(new int[]{miniBatchSize, hiddenLayerSize});
@@ -144,6 +124,17 @@ public class LSTMHelpers {
             prevMemCellState = Nd4j.zeros(new int[]{miniBatchSize, hiddenLayerSize});
         }
 
+        //Buffers reused across time steps. When the activations are needed for backprop, per time step arrays
+        //are allocated instead (as they are kept in toReturn)
+        INDArray scratch = Nd4j.create(new int[]{miniBatchSize, hiddenLayerSize}, 'f');
+        INDArray ifogBuffer = (forBackprop ? null : Nd4j.create(new int[]{miniBatchSize, 4 * hiddenLayerSize}, 'f'));
+        INDArray[] memCellBuffers = null;
+        INDArray[] outputBuffers = null;
+        if (!forBackprop) {
+            memCellBuffers = new INDArray[]{Nd4j.create(new int[]{miniBatchSize, hiddenLayerSize}, 'f'), Nd4j.create(new int[]{miniBatchSize, hiddenLayerSize}, 'f')};
+            outputBuffers = new INDArray[]{Nd4j.create(new int[]{miniBatchSize, hiddenLayerSize}, 'f'), Nd4j.create(new int[]{miniBatchSize, hiddenLayerSize}, 'f')};
+        }
+
         for (int iTimeIndex = 0; iTimeIndex < timeSeriesLength; iTimeIndex++) {
             int time = iTimeIndex;
 
@@ -151,52 +142,45 @@ public class LSTMHelpers {
                 time = timeSeriesLength - iTimeIndex - 1;
             }
 
+            //Pre-activations for all 4 gates: input projection (calculated above) plus recurrent projection (one gemm)
+            INDArray ifog = (forBackprop ? Nd4j.create(new int[]{miniBatchSize, 4 * hiddenLayerSize}, 'f') : ifogBuffer);
+            ifog.assign(ifogInput.get(interval(time * miniBatchSize, (time + 1) * miniBatchSize), NDArrayIndex.all()));
+            Nd4j.gemm(prevOutputActivations, wIFOG, ifog, false, false, 1.0, 1.0);
 
-            INDArray miniBatchData = (is2dInput ? input : input.tensorAlongDimension(time, 1, 0));    //[Expected shape: [m,nIn]. Also deals with edge case of T=1, with 'time series' data of shape [m,nIn], equiv. to [m,nIn,1]
-            miniBatchData = Shape.toMmulCompatible(miniBatchData);
-
-            //Calculate activations for: network input + forget, output, input modulation gates.
-            INDArray inputActivations = miniBatchData.mmul(wi);
-            Nd4j.gemm(prevOutputActivations, wI, inputActivations, false, false, 1.0, 1.0);
-            inputActivations.addiRowVector(bi);
+            //Network input:
+            INDArray inputActivations = ifog.get(NDArrayIndex.all(), interval(0, hiddenLayerSize));
             if (forBackprop) toReturn.iz[time] = inputActivations.dup('f');
             Nd4j.getExecutioner().execAndReturn(Nd4j.getOpFactory().createTransform(conf.getLayer().getActivationFunction(), inputActivations));
             if (forBackprop) toReturn.ia[time] = inputActivations;
 
-            INDArray forgetGateActivations = miniBatchData.mmul(wf);
-            Nd4j.gemm(prevOutputActivations, wF, forgetGateActivations, false, false, 1.0, 1.0);
-            INDArray pmcellWFF = prevMemCellState.dup('f').muliRowVector(wFFTranspose);
-            l1BLAS.axpy(pmcellWFF.length(), 1.0, pmcellWFF, forgetGateActivations);   //y = a*x + y i.e., forgetGateActivations.addi(pmcellWFF)
-            //Above line: treats matrix as a vector. Can only do this because we're sure both pwcelWFF and forgetGateACtivations are f order, offset 0 and have same strides
-            forgetGateActivations.addiRowVector(bf);
+            //Forget gate: plus peephole connection from previous memory cell state
+            INDArray forgetGateActivations = ifog.get(NDArrayIndex.all(), interval(hiddenLayerSize, 2 * hiddenLayerSize));
+            forgetGateActivations.addi(scratch.assign(prevMemCellState).muliRowVector(wFFTranspose));
             Nd4j.getExecutioner().execAndReturn(Nd4j.getOpFactory().createTransform("sigmoid", forgetGateActivations));
             if (forBackprop) toReturn.fa[time] = forgetGateActivations;
 
-
-            INDArray inputModGateActivations = miniBatchData.mmul(wg);
-            Nd4j.gemm(prevOutputActivations, wG, inputModGateActivations, false, false, 1.0, 1.0);
-            INDArray pmcellWGG = prevMemCellState.dup('f').muliRowVector(wGGTranspose);
-            l1BLAS.axpy(pmcellWGG.length(), 1.0, pmcellWGG, inputModGateActivations);   //inputModGateActivations.addi(pmcellWGG)
-            inputModGateActivations.addiRowVector(bg);
+            //Input modulation gate: plus peephole connection from previous memory cell state
+            INDArray inputModGateActivations = ifog.get(NDArrayIndex.all(), interval(3 * hiddenLayerSize, 4 * hiddenLayerSize));
+            inputModGateActivations.addi(scratch.assign(prevMemCellState).muliRowVector(wGGTranspose));
             Nd4j.getExecutioner().execAndReturn(Nd4j.getOpFactory().createTransform("sigmoid", inputModGateActivations));
             if (forBackprop) toReturn.ga[time] = inputModGateActivations;
 
             //Memory cell state
-            INDArray currentMemoryCellState = forgetGateActivations.dup('f').muli(prevMemCellState);
-            INDArray inputModMulInput = inputModGateActivations.dup('f').muli(inputActivations);
-            l1BLAS.axpy(currentMemoryCellState.length(), 1.0, inputModMulInput, currentMemoryCellState);   //currentMemoryCellState.addi(inputModMulInput)
-
-            INDArray outputGateActivations = miniBatchData.mmul(wo);
-            Nd4j.gemm(prevOutputActivations, wO, outputGateActivations, false, false, 1.0, 1.0);
-            INDArray pmcellWOO = currentMemoryCellState.dup('f').muliRowVector(wOOTranspose);
-            l1BLAS.axpy(pmcellWOO.length(), 1.0, pmcellWOO, outputGateActivations);   //outputGateActivations.addi(pmcellWOO)
-            outputGateActivations.addiRowVector(bo);
+            INDArray currentMemoryCellState = (forBackprop ? Nd4j.create(new int[]{miniBatchSize, hiddenLayerSize}, 'f') : memCellBuffers[iTimeIndex % 2]);
+            currentMemoryCellState.assign(forgetGateActivations).muli(prevMemCellState);
+            currentMemoryCellState.addi(scratch.assign(inputModGateActivations).muli(inputActivations));
+
+            //Output gate: plus peephole connection from current memory cell state
+            INDArray outputGateActivations = ifog.get(NDArrayIndex.all(), interval(2 * hiddenLayerSize, 3 * hiddenLayerSize));
+            outputGateActivations.addi(scratch.assign(currentMemoryCellState).muliRowVector(wOOTranspose));
             Nd4j.getExecutioner().execAndReturn(Nd4j.getOpFactory().createTransform("sigmoid", outputGateActivations));
             if (forBackprop) toReturn.oa[time] = outputGateActivations;
 
             //LSTM unit outputs:
-            INDArray currMemoryCellActivation = Nd4j.getExecutioner().execAndReturn(Nd4j.getOpFactory().createTransform(conf.getLayer().getActivationFunction(), currentMemoryCellState.dup('f')));
-            INDArray currHiddenUnitActivations = currMemoryCellActivation.dup('f').muli(outputGateActivations);    //Expected shape: [m,hiddenLayerSize]
+            INDArray currMemoryCellActivation = (forBackprop ? currentMemoryCellState.dup('f') : scratch.assign(currentMemoryCellState));
+            currMemoryCellActivation = Nd4j.getExecutioner().execAndReturn(Nd4j.getOpFactory().createTransform(conf.getLayer().getActivationFunction(), currMemoryCellActivation));
+            INDArray currHiddenUnitActivations = (forBackprop ? Nd4j.create(new int[]{miniBatchSize, hiddenLayerSize}, 'f') : outputBuffers[iTimeIndex % 2]);
+            currHiddenUnitActivations.assign(currMemoryCellActivation).muli(outputGateActivations);    //Expected shape: [m,hiddenLayerSize]
 
             if (forBackprop) {
                 toReturn.fwdPassOutputAsArrays[time] = currHiddenUnitActivations;
@@ -237,38 +221,38 @@ public class LSTMHelpers {
         boolean is2dInput = epsilon.rank() < 3; //Edge case: T=1 may have shape [miniBatchSize,n^(L+1)], equiv. to [miniBatchSize,n^(L+1),1]
         int timeSeriesLength = (is2dInput ? 1 : epsilon.size(2));
 
-        INDArray wi = fwdPass.paramsMmulCompatible[0];
-        INDArray wI = fwdPass.paramsMmulCompatible[1];
-        INDArray wf = fwdPass.paramsMmulCompatible[2];
-        INDArray wF = fwdPass.paramsMmulCompatible[3];
-        INDArray wo = fwdPass.paramsMmulCompatible[5];
-        INDArray wO = fwdPass.paramsMmulCompatible[6];
-        INDArray wg = fwdPass.paramsMmulCompatible[8];
-        INDArray wG = fwdPass.paramsMmulCompatible[9];
-        INDArray wFFTranspose = fwdPass.paramsMmulCompatible[4];
-        INDArray wOOTranspose = fwdPass.paramsMmulCompatible[7];
-        INDArray wGGTranspose = fwdPass.paramsMmulCompatible[10];
+        INDArray wifog = fwdPass.paramsMmulCompatible[0];
+        INDArray wIFOG = fwdPass.paramsMmulCompatible[1];
+        INDArray wFFTranspose = fwdPass.paramsMmulCompatible[2];
+        INDArray wOOTranspose = fwdPass.paramsMmulCompatible[3];
+        INDArray wGGTranspose = fwdPass.paramsMmulCompatible[4];
 
         //Parameter gradients, summed across time. bias gradients, input weight gradients, recurrent weight gradients
-        INDArray[] bGradients = new INDArray[4];
-        INDArray[] iwGradients = new INDArray[4];
-        INDArray[] rwGradients = new INDArray[7];    //Order: {I,F,O,G,FF,OO,GG}
-        for (int i = 0; i < 4; i++) {
-            bGradients[i] = Nd4j.create(new int[]{1, hiddenLayerSize}); //Order as per Nd4j.order()
-            iwGradients[i] = Nd4j.create(new int[]{prevLayerSize, hiddenLayerSize}, 'f'); //f order for use in gemm
-            rwGradients[i] = Nd4j.create(new int[]{hiddenLayerSize, hiddenLayerSize}, 'f');
-        }
-        for (int i = 0; i < 3; i++) rwGradients[i + 4] = Nd4j.zeros(1, hiddenLayerSize);    //Order as per Nd4j.order()
+        //All 4 gates (IFOG) are handled together, in the same order as the parameters
+        INDArray bGradients = Nd4j.create(new int[]{1, 4 * hiddenLayerSize});
+        INDArray iwGradients = Nd4j.create(new int[]{prevLayerSize, 4 * hiddenLayerSize}, 'f'); //f order for use in gemm
+        INDArray rwGradients = Nd4j.create(new int[]{hiddenLayerSize, 4 * hiddenLayerSize}, 'f');
+        INDArray[] rwPeepholeGradients = new INDArray[3];    //Order: {FF,OO,GG}
+        for (int i = 0; i < 3; i++) rwPeepholeGradients[i] = Nd4j.zeros(1, hiddenLayerSize);
 
         INDArray epsilonNext = Nd4j.zeros(miniBatchSize, prevLayerSize, timeSeriesLength);    //i.e., what would be W^L*(delta^L)^T. Shape: [m,n^(L-1),T]
 
+        //Buffers reused across time steps. Deltas and cell state errors alternate between 2 buffers, as the
+        //values from the previous iteration (i.e., the next time step) are required
+        INDArray[] deltaBuffers = new INDArray[2];
+        INDArray[] nablaCellStateBuffers = new INDArray[2];
+        for (int i = 0; i < 2; i++) {
+            deltaBuffers[i] = Nd4j.create(new int[]{miniBatchSize, 4 * hiddenLayerSize}, 'f');
+            nablaCellStateBuffers[i] = Nd4j.create(new int[]{miniBatchSize, hiddenLayerSize}, 'f');
+        }
+        INDArray nablaOut = Nd4j.create(new int[]{miniBatchSize, hiddenLayerSize}, 'f');
+        INDArray scratch = Nd4j.create(new int[]{miniBatchSize, hiddenLayerSize}, 'f');
+
         INDArray nablaCellStateNext = null;
-        INDArray deltaiNext = null;
+        INDArray deltaNext = null;
         INDArray deltafNext = null;
-        INDArray deltaoNext = null;
         INDArray deltagNext = null;
 
-        Level1 l1BLAS = Nd4j.getBlasWrapper().level1();
         int endIdx = 0;
 
         if (truncatedBPTT) {
@@ -288,137 +272,103 @@ public class LSTMHelpers {
             INDArray prevHiddenUnitActivation = (iTimeIndex == 0 ? null : fwdPass.fwdPassOutputAsArrays[time - inext]);
             INDArray currMemCellState = fwdPass.memCellState[time];
 
+            //Deltas for this time step: [m,4*n^L], with (column) views for each gate
+            INDArray delta = deltaBuffers[iTimeIndex % 2];
+            INDArray deltai = delta.get(NDArrayIndex.all(), interval(0, hiddenLayerSize));
+            INDArray deltaf = delta.get(NDArrayIndex.all(), interval(hiddenLayerSize, 2 * hiddenLayerSize));
+            INDArray deltao = delta.get(NDArrayIndex.all(), interval(2 * hiddenLayerSize, 3 * hiddenLayerSize));
+            INDArray deltag = delta.get(NDArrayIndex.all(), interval(3 * hiddenLayerSize, 4 * hiddenLayerSize));
 
             //LSTM unit output errors (dL/d(a_out)); not to be confused with \delta=dL/d(z_out)
             INDArray epsilonSlice = (is2dInput ? epsilon : epsilon.tensorAlongDimension(time, 1, 0));        //(w^{L+1}*(delta^{(L+1)t})^T)^T or equiv.
-            INDArray nablaOut = Shape.toOffsetZeroCopy(epsilonSlice, 'f'); //Shape: [m,n^L]
+            nablaOut.assign(epsilonSlice); //Shape: [m,n^L]
             if (iTimeIndex != timeSeriesLength - 1) {
-                //if t == timeSeriesLength-1 then deltaiNext etc are zeros
-                Nd4j.gemm(deltaiNext, wI, nablaOut, false, true, 1.0, 1.0);   //nablaOut.addi(deltaiNext.mmul(wITranspose))
-                Nd4j.gemm(deltafNext, wF, nablaOut, false, true, 1.0, 1.0);   //nablaOut.addi(deltafNext.mmul(wFTranspose))
-                Nd4j.gemm(deltaoNext, wO, nablaOut, false, true, 1.0, 1.0);   //nablaOut.addi(deltaoNext.mmul(wOTranspose))
-                Nd4j.gemm(deltagNext, wG, nablaOut, false, true, 1.0, 1.0);   //nablaOut.addi(deltagNext.mmul(wGTranspose));
+                //if t == timeSeriesLength-1 then deltaNext is zeros
+                Nd4j.gemm(deltaNext, wIFOG, nablaOut, false, true, 1.0, 1.0);   //nablaOut.addi(deltaNext.mmul(wIFOGTranspose))
             }
 
             //Output gate deltas:
             INDArray sigmahOfS = fwdPass.memCellActivations[time];
             INDArray ao = fwdPass.oa[time];
-            INDArray sigmaoPrimeOfZo = Nd4j.getExecutioner().execAndReturn(Nd4j.getOpFactory().createTransform("timesoneminus", ao.dup('f')));    //Equivalent to sigmoid deriv on zo
-            //Normally would use zo.dup() in above line, but won't be using zo again (for this time step). Ditto for zf, zg, zi
-            INDArray deltao = nablaOut.dup('f').muli(sigmahOfS).muli(sigmaoPrimeOfZo); //Shape: [m,n^L]
+            INDArray sigmaoPrimeOfZo = Nd4j.getExecutioner().execAndReturn(Nd4j.getOpFactory().createTransform("timesoneminus", scratch.assign(ao)));    //Equivalent to sigmoid deriv on zo
+            deltao.assign(nablaOut).muli(sigmahOfS).muli(sigmaoPrimeOfZo); //Shape: [m,n^L]
 
             //Memory cell error:
-            INDArray sigmahPrimeOfS = Nd4j.getExecutioner().execAndReturn(Nd4j.getOpFactory().createTransform(conf.getLayer().getActivationFunction(), currMemCellState.dup('f')).derivative());//	shape: [m,n^L]
-            INDArray nablaCellState = ao.muli(nablaOut).muli(sigmahPrimeOfS);
-            INDArray deltaMulRowWOO = deltao.dup('f').muliRowVector(wOOTranspose);
-            l1BLAS.axpy(nablaCellState.length(), 1.0, deltaMulRowWOO, nablaCellState); //nablaCellState.addi(deltao.mulRowVector(wOOTranspose));
+            INDArray nablaCellState = nablaCellStateBuffers[iTimeIndex % 2];
+            INDArray sigmahPrimeOfS = Nd4j.getExecutioner().execAndReturn(Nd4j.getOpFactory().createTransform(conf.getLayer().getActivationFunction(), scratch.assign(currMemCellState)).derivative());//	shape: [m,n^L]
+            nablaCellState.assign(ao).muli(nablaOut).muli(sigmahPrimeOfS);
+            nablaCellState.addi(scratch.assign(deltao).muliRowVector(wOOTranspose));    //nablaCellState.addi(deltao.mulRowVector(wOOTranspose));
             if (iTimeIndex != timeSeriesLength - 1) {
                 INDArray nextForgetGateAs = fwdPass.fa[time + inext];
-                int length = nablaCellState.length();
-                l1BLAS.axpy(length, 1.0, nextForgetGateAs.muli(nablaCellStateNext), nablaCellState);       //nablaCellState.addi(nextForgetGateAs.mul(nablaCellStateNext))
-                l1BLAS.axpy(length, 1.0, deltafNext.dup('f').muliRowVector(wFFTranspose), nablaCellState);    //nablaCellState.addi(deltafNext.mulRowVector(wFFTranspose))
-                l1BLAS.axpy(length, 1.0, deltagNext.dup('f').muliRowVector(wGGTranspose), nablaCellState);   //nablaCellState.addi(deltagNext.mulRowVector(wGGTranspose));
+                nablaCellState.addi(scratch.assign(nextForgetGateAs).muli(nablaCellStateNext));
+                nablaCellState.addi(scratch.assign(deltafNext).muliRowVector(wFFTranspose));
+                nablaCellState.addi(scratch.assign(deltagNext).muliRowVector(wGGTranspose));
             }
             nablaCellStateNext = nablaCellState;    //Store for use in next iteration
 
             //Forget gate delta:
             INDArray af = fwdPass.fa[time];
-            INDArray deltaf = null;
             if (iTimeIndex > 0) {
-                deltaf = nablaCellState.dup('f').muli(prevMemCellState)
-                        .muli(Nd4j.getExecutioner().execAndReturn(Nd4j.getOpFactory().createTransform("timesoneminus", af.dup('f'))));    //Equivalent to sigmoid deriv on zf
+                INDArray sigmafPrimeOfZf = Nd4j.getExecutioner().execAndReturn(Nd4j.getOpFactory().createTransform("timesoneminus", scratch.assign(af)));    //Equivalent to sigmoid deriv on zf
+                deltaf.assign(nablaCellState).muli(prevMemCellState).muli(sigmafPrimeOfZf);
+            } else {
+                //No previous memory cell state: forget gate has no effect
+                deltaf.assign(0.0);
             }
             //Shape: [m,n^L]
 
             //Input modulation gate delta:
             INDArray ag = fwdPass.ga[time];
             INDArray ai = fwdPass.ia[time];
-            INDArray deltag = ai.muli(nablaCellState)
-                    .muli(Nd4j.getExecutioner().execAndReturn(Nd4j.getOpFactory().createTransform("timesoneminus", ag.dup('f'))));    //Equivalent to sigmoid deriv on zg
+            INDArray sigmagPrimeOfZg = Nd4j.getExecutioner().execAndReturn(Nd4j.getOpFactory().createTransform("timesoneminus", scratch.assign(ag)));    //Equivalent to sigmoid deriv on zg
+            deltag.assign(ai).muli(nablaCellState).muli(sigmagPrimeOfZg);
             //Shape: [m,n^L]
 
             //Network input delta:
             INDArray zi = fwdPass.iz[time];
-            INDArray deltai = ag.muli(nablaCellState)
-                    .muli(Nd4j.getExecutioner().execAndReturn(Nd4j.getOpFactory().createTransform(conf.getLayer().getActivationFunction(), zi).derivative()));
+            INDArray deltaiPrime = Nd4j.getExecutioner().execAndReturn(Nd4j.getOpFactory().createTransform(conf.getLayer().getActivationFunction(), zi).derivative());
+            deltai.assign(ag).muli(nablaCellState).muli(deltaiPrime);
             //Shape: [m,n^L]
 
+            //Input weight gradients, for all 4 gates in one gemm (deltaf is zero for the first time step)
             INDArray prevLayerActivationSlice = Shape.toMmulCompatible(is2dInput ? input : input.tensorAlongDimension(time, 1, 0));
-            Nd4j.gemm(prevLayerActivationSlice, deltai, iwGradients[0], true, false, 1.0, 1.0);   //iwGradients[0].addi(prevLayerActivationSliceTransposed.mmul(deltai));
-
-            if (iTimeIndex > 0) {
-                Nd4j.gemm(prevLayerActivationSlice, deltaf, iwGradients[1], true, false, 1.0, 1.0);   //iwGradients[1].addi(prevLayerActivationSliceTransposed.mmul(deltaf));
-            }
-
-            Nd4j.gemm(prevLayerActivationSlice, deltao, iwGradients[2], true, false, 1.0, 1.0);   //iwGradients[2].addi(prevLayerActivationSliceTransposed.mmul(deltao));
-            Nd4j.gemm(prevLayerActivationSlice, deltag, iwGradients[3], true, false, 1.0, 1.0);   //iwGradients[3].addi(prevLayerActivationSliceTransposed.mmul(deltag));
+            Nd4j.gemm(prevLayerActivationSlice, delta, iwGradients, true, false, 1.0, 1.0);   //iwGradients.addi(prevLayerActivationSliceTransposed.mmul(delta));
 
             if (iTimeIndex > 0) {
                 //If t==0, then prevHiddenUnitActivation==zeros(n^L,n^L), so dL/dW for recurrent weights will end up as 0 anyway
-                Nd4j.gemm(prevHiddenUnitActivation, deltai, rwGradients[0], true, false, 1.0, 1.0);   //rwGradients[0].addi(prevActTranspose.mmul(deltai));
-                Nd4j.gemm(prevHiddenUnitActivation, deltaf, rwGradients[1], true, false, 1.0, 1.0);   //rwGradients[1].addi(prevActTranspose.mmul(deltaf));
-                Nd4j.gemm(prevHiddenUnitActivation, deltao, rwGradients[2], true, false, 1.0, 1.0);   //rwGradients[2].addi(prevActTranspose.mmul(deltao));
-                Nd4j.gemm(prevHiddenUnitActivation, deltag, rwGradients[3], true, false, 1.0, 1.0);   //rwGradients[3].addi(prevActTranspose.mmul(deltag));
+                Nd4j.gemm(prevHiddenUnitActivation, delta, rwGradients, true, false, 1.0, 1.0);   //rwGradients.addi(prevActTranspose.mmul(delta));
 
                 //Shape: [1,n^L]. sum(0) is sum over examples in mini-batch.
-                //Can use axpy here because result of sum and rwGradients[4 to 6] have order Nd4j.order(), via Nd4j.create()
-                INDArray dLdwFF = deltaf.dup('f').muli(prevMemCellState).sum(0);    //mul not mmul because these weights are from unit j->j only (whereas other recurrent weights are i->j for all i,j)
-                l1BLAS.axpy(rwGradients[4].length(),1.0,dLdwFF,rwGradients[4]);     //rwGradients[4].addi(dLdwFF);    //dL/dw_{FF}
-                INDArray dLdwGG = deltag.dup('f').muli(prevMemCellState).sum(0);
-                l1BLAS.axpy(rwGradients[6].length(),1.0,dLdwGG,rwGradients[6]);     //rwGradients[6].addi(dLdwGG);
+                //mul not mmul because these weights are from unit j->j only (whereas other recurrent weights are i->j for all i,j)
+                rwPeepholeGradients[0].addi(scratch.assign(deltaf).muli(prevMemCellState).sum(0));    //dL/dw_{FF}
+                rwPeepholeGradients[2].addi(scratch.assign(deltag).muli(prevMemCellState).sum(0));    //dL/dw_{GG}
             }
 
-            INDArray dLdwOO = deltao.dup('f').muli(currMemCellState).sum(0);    //Expected shape: [n^L,1]. sum(0) is sum over examples in mini-batch.
-            l1BLAS.axpy(rwGradients[5].length(),1.0,dLdwOO,rwGradients[5]); //rwGradients[5].addi(dLdwOO);    //dL/dw_{OOxy}
+            rwPeepholeGradients[1].addi(scratch.assign(deltao).muli(currMemCellState).sum(0));    //dL/dw_{OO}. sum(0) is sum over examples in mini-batch.
 
-            //Can use axpy here because result of sum and bGradients[i] both have order Nd4j.order(), via Nd4j.create()
-            l1BLAS.axpy(bGradients[0].length(),1.0,deltai.sum(0),bGradients[0]);    //bGradients[0].addi(deltai.sum(0));
-            if(iTimeIndex > 0) {
-                l1BLAS.axpy(bGradients[1].length(),1.0,deltaf.sum(0),bGradients[1]);    //bGradients[1].addi(deltaf.sum(0));
-            }
-
-            l1BLAS.axpy(bGradients[2].length(),1.0,deltao.sum(0),bGradients[2]);    //bGradients[2].addi(deltao.sum(0));
-            l1BLAS.axpy(bGradients[3].length(),1.0,deltag.sum(0),bGradients[3]);    //bGradients[3].addi(deltag.sum(0));
+            bGradients.addi(delta.sum(0));    //Bias gradients for all 4 gates
 
             //Calculate epsilonNext - i.e., equiv. to what would be (w^L*(d^(Lt))^T)^T in a normal network
-            //But here, need to add 4 weights * deltas for the IFOG gates
-            INDArray epsilonNextSlice = Nd4j.gemm(deltai,wi,false,true);
-            Nd4j.gemm(deltao, wo, epsilonNextSlice, false, true, 1.0, 1.0);   //epsilonNextSlice.addi(deltao.mmul(woTranspose))
-            Nd4j.gemm(deltag, wg, epsilonNextSlice, false, true, 1.0, 1.0);   //epsilonNextSlice.addi(deltag.mmul(wgTranspose));
-
-            if (iTimeIndex > 0) {
-                Nd4j.gemm(deltaf, wf, epsilonNextSlice, false, true, 1.0, 1.0); //epsilonNextSlice.addi(deltaf.mmul(wfTranspose));
-            }
-
+            //For all 4 gates (IFOG) in one gemm
+            INDArray epsilonNextSlice = Nd4j.gemm(delta, wifog, false, true);
             epsilonNext.tensorAlongDimension(time, 1, 0).assign(epsilonNextSlice);
 
-            deltaiNext = deltai;
+            deltaNext = delta;
             deltafNext = deltaf;
-            deltaoNext = deltao;
             deltagNext = deltag;
         }
 
         //Weight/bias gradients
-        INDArray iwGradientsOut = Nd4j.zeros(prevLayerSize, 4 * hiddenLayerSize);
         INDArray rwGradientsOut = Nd4j.zeros(hiddenLayerSize, 4 * hiddenLayerSize + 3);    //Order: {I,F,O,G,FF,OO,GG}
-        INDArray bGradientsOut = Nd4j.hstack(bGradients);
-        iwGradientsOut.put(new INDArrayIndex[]{NDArrayIndex.all(), interval(0, hiddenLayerSize)}, iwGradients[0]);
-        iwGradientsOut.put(new INDArrayIndex[]{NDArrayIndex.all(), interval(hiddenLayerSize, 2 * hiddenLayerSize)}, iwGradients[1]);
-        iwGradientsOut.put(new INDArrayIndex[]{NDArrayIndex.all(), interval(2 * hiddenLayerSize, 3 * hiddenLayerSize)}, iwGradients[2]);
-        iwGradientsOut.put(new INDArrayIndex[]{NDArrayIndex.all(), interval(3 * hiddenLayerSize, 4 * hiddenLayerSize)}, iwGradients[3]);
-
-        rwGradientsOut.put(new INDArrayIndex[]{NDArrayIndex.all(), interval(0, hiddenLayerSize)}, rwGradients[0]);
-        rwGradientsOut.put(new INDArrayIndex[]{NDArrayIndex.all(), interval(hiddenLayerSize, 2 * hiddenLayerSize)}, rwGradients[1]);
-        rwGradientsOut.put(new INDArrayIndex[]{NDArrayIndex.all(), interval(2 * hiddenLayerSize, 3 * hiddenLayerSize)}, rwGradients[2]);
-        rwGradientsOut.put(new INDArrayIndex[]{NDArrayIndex.all(), interval(3 * hiddenLayerSize, 4 * hiddenLayerSize)}, rwGradients[3]);
-        rwGradientsOut.put(new INDArrayIndex[]{NDArrayIndex.all(), NDArrayIndex.point(4 * hiddenLayerSize)}, rwGradients[4].transpose());
-        rwGradientsOut.put(new INDArrayIndex[]{NDArrayIndex.all(), NDArrayIndex.point(4 * hiddenLayerSize + 1)}, rwGradients[5].transpose());
-        rwGradientsOut.put(new INDArrayIndex[]{NDArrayIndex.all(), NDArrayIndex.point(4 * hiddenLayerSize + 2)}, rwGradients[6].transpose());
+        rwGradientsOut.put(new INDArrayIndex[]{NDArrayIndex.all(), interval(0, 4 * hiddenLayerSize)}, rwGradients);
+        rwGradientsOut.put(new INDArrayIndex[]{NDArrayIndex.all(), NDArrayIndex.point(4 * hiddenLayerSize)}, rwPeepholeGradients[0].transpose());
+        rwGradientsOut.put(new INDArrayIndex[]{NDArrayIndex.all(), NDArrayIndex.point(4 * hiddenLayerSize + 1)}, rwPeepholeGradients[1].transpose());
+        rwGradientsOut.put(new INDArrayIndex[]{NDArrayIndex.all(), NDArrayIndex.point(4 * hiddenLayerSize + 2)}, rwPeepholeGradients[2].transpose());
 
         Gradient retGradient = new DefaultGradient();
-        retGradient.gradientForVariable().put(inputWeightKey, iwGradientsOut);
+        retGradient.gradientForVariable().put(inputWeightKey, iwGradients);
         retGradient.gradientForVariable().put(recurrentWeightKey, rwGradientsOut);
-        retGradient.gradientForVariable().put(biasWeightKey, bGradientsOut);
+        retGradient.gradientForVariable().put(biasWeightKey, bGradients);
 
         return new Pair<>(retGradient, epsilonNext);
     }
@@ -0,0 +1,140 @@
+/*
+ *
+ *  * Copyright 2015 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+package org.deeplearning4j.nn.multilayer;
+
+import org.deeplearning4j.nn.api.Layer;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Activation buffers reused between inference calls, used by
+ * {@link MultiLayerNetwork#outputWithWorkspace(INDArray)}.<br>
+ * Buffers are allocated per layer and per minibatch size, for minibatch sizes up to
+ * {@link #getMaxBatchSize()}. Only the buffers for the most recently used minibatch sizes
+ * are retained. The workspace also holds its own copies (sharing parameters) of the layers
+ * that are activated without a buffer, as activating a layer stores its input.
+ * Instances are not thread safe: use one workspace per thread.
+ */
+public class InferenceWorkspace {
+
+    public static final int DEFAULT_MAX_BATCH_SIZE = 256;
+    public static final int DEFAULT_MAX_CACHED_BATCH_SIZES = 4;
+
+    private final int maxBatchSize;
+    private final Map<Integer,INDArray[]> buffers;
+    private MultiLayerNetwork layersOwner;
+    private Layer[] layers;
+
+    public InferenceWorkspace() {
+        this(DEFAULT_MAX_BATCH_SIZE, DEFAULT_MAX_CACHED_BATCH_SIZES);
+    }
+
+    /**
+     * @param maxBatchSize        largest minibatch size to keep buffers for. Larger minibatches are allocated per call
+     * @param maxCachedBatchSizes number of distinct minibatch sizes to keep buffers for
+     */
+    public InferenceWorkspace(int maxBatchSize, final int maxCachedBatchSizes) {
+        if (maxBatchSize <= 0 || maxCachedBatchSizes <= 0)
+            throw new IllegalArgumentException("Invalid workspace size: maxBatchSize=" + maxBatchSize
+                    + ", maxCachedBatchSizes=" + maxCachedBatchSizes);
+        this.maxBatchSize = maxBatchSize;
+        this.buffers = new LinkedHashMap<Integer,INDArray[]>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, INDArray[]> eldest) {
+                return size() > maxCachedBatchSizes;
+            }
+        };
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    /**
+     * Get the activation buffer for the given layer
+     * @param layerIdx  index of the layer in the network
+     * @param numLayers number of layers in the network
+     * @param rows      minibatch size
+     * @param columns   size of the layer's output
+     * @return a [rows,columns] array, reused by later calls with the same arguments
+     */
+    public INDArray getBuffer(int layerIdx, int numLayers, int rows, int columns) {
+        if (rows > maxBatchSize)
+            return Nd4j.create(rows, columns);
+
+        INDArray[] forBatchSize = buffers.get(rows);
+        if (forBatchSize == null || forBatchSize.length != numLayers) {
+            forBatchSize = new INDArray[numLayers];
+            buffers.put(rows, forBatchSize);
+        }
+
+        INDArray buffer = forBatchSize[layerIdx];
+        if (buffer == null || buffer.columns() != columns) {
+            buffer = Nd4j.create(rows, columns);
+            forBatchSize[layerIdx] = buffer;
+        }
+        return buffer;
+    }
+
+    /**
+     * Get this workspace's copy of a layer of the given network. The copy shares the network layer's
+     * parameters, and is created again if the network layer's parameter arrays were replaced.
+     * @param network  the network
+     * @param layerIdx index of the layer in the network
+     * @return the copy of the layer
+     */
+    Layer getLayer(MultiLayerNetwork network, int layerIdx) {
+        if (layersOwner != network || layers == null || layers.length != network.getnLayers()) {
+            layers = new Layer[network.getnLayers()];
+            layersOwner = network;
+        }
+
+        Layer layer = layers[layerIdx];
+        if (layer == null || !sameParams(layer, network.getLayer(layerIdx))) {
+            Layer original = network.getLayer(layerIdx);
+            layer = network.cloneLayerSharingParams(layerIdx, original.conf());
+            layers[layerIdx] = layer;
+        }
+        return layer;
+    }
+
+    private static boolean sameParams(Layer copy, Layer original) {
+        Map<String,INDArray> copyParams = copy.paramTable();
+        Map<String,INDArray> originalParams = original.paramTable();
+        if (copyParams == null || originalParams == null)
+            return copyParams == originalParams;
+        if (copyParams.size() != originalParams.size())
+            return false;
+        for (Map.Entry<String,INDArray> entry : originalParams.entrySet()) {
+            if (copyParams.get(entry.getKey()) != entry.getValue())
+                return false;
+        }
+        return true;
+    }
+
+    /** Release all buffers and layer copies held by this workspace */
+    public void clear() {
+        buffers.clear();
+        layers = null;
+        layersOwner = null;
+    }
+}
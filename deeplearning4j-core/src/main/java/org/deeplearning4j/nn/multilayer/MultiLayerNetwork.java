@@ -28,6 +28,7 @@ import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
 import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
 import org.deeplearning4j.nn.gradient.DefaultGradient;
 import org.deeplearning4j.nn.gradient.Gradient;
+import org.deeplearning4j.nn.layers.BaseLayer;
 import org.deeplearning4j.nn.layers.BaseOutputLayer;
 import org.deeplearning4j.nn.layers.BasePretrainNetwork;
 import org.deeplearning4j.nn.layers.factory.LayerFactories;
@@ -59,6 +60,8 @@ import org.nd4j.linalg.util.LinAlgExceptions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.lang.String;
 import java.lang.reflect.Constructor;
@@ -92,7 +95,13 @@ public class MultiLayerNetwork implements Serializable, Classifier, Layer {
     protected INDArray epsilon;
     protected double score;
     @Setter protected boolean initDone = false;
-    private INDArray params;
+    //Flattened parameters; layer parameters are views of this array. Rebuilt after deserialization (see readObject)
+    private transient INDArray params;
+    //Flattened gradient for all layers; per parameter views keyed as per backprop() ("0_W" etc)
+    protected transient INDArray flattenedGradients;
+    protected transient Map<String,INDArray> gradientViews;
+    //Per thread activation buffers for outputWithWorkspace()
+    private transient volatile ThreadLocal<InferenceWorkspace> inferenceWorkspaces;
     /*
       Binary drop connect mask
      */
@@ -364,6 +373,16 @@ public class MultiLayerNetwork implements Serializable, Classifier, Layer {
             initMask();
         }
 
+        initVariables();
+
+        //all params are views
+        if(getLayerWiseConfigurations().isRedistributeParams())
+            reDistributeParams(false);
+        else
+            initFlattenedParams();
+    }
+
+    private void initVariables() {
         //Set parameters in MultiLayerNetwork.defaultConfiguration for later use in BaseOptimizer.setupSearchState() etc
         //Keyed as per backprop()
         defaultConfiguration.clearVariables();
@@ -372,10 +391,98 @@ public class MultiLayerNetwork implements Serializable, Classifier, Layer {
                 defaultConfiguration.addVariable(i+"_"+s);
             }
         }
+    }
 
-        //all params are views
-        if(getLayerWiseConfigurations().isRedistributeParams())
-            reDistributeParams(false);
+    /**
+     * Allocate a single flattened parameter array and a single flattened gradient array
+     * for the whole network, and make each layer's parameters views of the former.
+     * After this, {@link #params()} and {@link Gradient#gradient()} return these arrays without copying.
+     * Networks with layerwise pretraining layers keep the per-layer layout, as their
+     * backprop parameters (no visible bias) are not contiguous.
+     */
+    protected void initFlattenedParams() {
+        int nParams = 0;
+        for (Layer layer : layers) {
+            if (layer instanceof BasePretrainNetwork)
+                return;
+            INDArray layerParams = layer.params();
+            if (layerParams != null)
+                nParams += layerParams.length();
+        }
+        if (nParams == 0)
+            return;
+
+        INDArray flattenedParams = Nd4j.create(1, nParams);
+        int idx = 0;
+        for (Layer layer : layers) {
+            INDArray layerParams = layer.params();
+            if (layerParams == null || layerParams.length() == 0)
+                continue;
+            int range = layerParams.length();
+            INDArray paramsView = flattenedParams.get(NDArrayIndex.point(0), NDArrayIndex.interval(idx, idx + range));
+            paramsView.assign(layerParams);
+            layer.setParams(paramsView);
+            idx += range;
+        }
+
+        this.params = flattenedParams;
+        initGradientViews();
+    }
+
+    /**
+     * Allocate the flattened gradient array, with the same layout as the flattened parameters
+     * (param table order, 'f' order within each array). Layers extending {@link BaseLayer} write their
+     * gradients directly in to their views during backprop; the gradients of other layers are copied in.
+     */
+    protected void initGradientViews() {
+        INDArray flattenedGrad = Nd4j.zeros(1, params.length());
+        Map<String,INDArray> views = new LinkedHashMap<>();
+        int idx = 0;
+        for (int i = 0; i < layers.length; i++) {
+            INDArray layerParams = layers[i].params();
+            if (layerParams == null || layerParams.length() == 0)
+                continue;
+            Map<String,INDArray> layerViews = new LinkedHashMap<>();
+            for (Map.Entry<String,INDArray> entry : layers[i].paramTable().entrySet()) {
+                INDArray param = entry.getValue();
+                INDArray gradView = flattenedGrad.get(NDArrayIndex.point(0), NDArrayIndex.interval(idx, idx + param.length()));
+                gradView = gradView.reshape('f', param.shape());
+                layerViews.put(entry.getKey(), gradView);
+                views.put(i + "_" + entry.getKey(), gradView);
+                idx += param.length();
+            }
+            if (layers[i] instanceof BaseLayer)
+                ((BaseLayer) layers[i]).setBackpropGradientViews(layerViews);
+        }
+
+        this.flattenedGradients = flattenedGrad;
+        this.gradientViews = views;
+    }
+
+    /**
+     * Copy the given gradient in to the flattened gradient array (if one was allocated in init()),
+     * so that {@link Gradient#gradient()} needs no further copy. Gradients already written in to
+     * the flattened array by the layers are not copied.
+     * @param gradient the gradient to copy, keyed as per backprop()
+     * @return a gradient backed by the flattened array, or the original gradient if the layouts don't match
+     */
+    protected Gradient toFlattenedGradient(Gradient gradient) {
+        if (gradient == null || flattenedGradients == null)
+            return gradient;
+        Map<String,INDArray> gradientMap = gradient.gradientForVariable();
+        if (gradientMap.size() != gradientViews.size())
+            return gradient;
+
+        Gradient ret = new DefaultGradient(flattenedGradients);
+        for (Map.Entry<String,INDArray> entry : gradientMap.entrySet()) {
+            INDArray view = gradientViews.get(entry.getKey());
+            if (view == null || !Arrays.equals(view.shape(), entry.getValue().shape()))
+                return gradient;
+            if (view != entry.getValue())
+                view.assign(entry.getValue());
+            ret.gradientForVariable().put(entry.getKey(), view);
+        }
+        return ret;
     }
 
 
@@ -799,6 +906,32 @@ public class MultiLayerNetwork implements Serializable, Classifier, Layer {
         return ret;
     }
 
+    /**
+     * Create a copy of this network that shares this network's parameter arrays (i.e., no copy of the
+     * parameters is made), but has its own layer state (input, mask arrays, RNN state etc).
+     * Intended for concurrent inference: each thread can use its own copy, without multiplying parameter memory.
+     * Parameter updates made via one network are visible in the other. The copy should not be trained.
+     *
+     * @return a network sharing the parameters of this network
+     */
+    public MultiLayerNetwork cloneSharingParams() {
+        if (layers == null || !initCalled)
+            init();
+        //Layers are created directly on the shared parameter arrays: init() would allocate (and discard) new ones
+        MultiLayerNetwork ret = new MultiLayerNetwork(getLayerWiseConfigurations().clone());
+        ret.layers = new Layer[layers.length];
+        for (int i = 0; i < layers.length; i++) {
+            NeuralNetConfiguration conf = ret.layerWiseConfigurations.getConf(i);
+            ret.layers[i] = cloneLayerSharingParams(i, conf);
+            ret.layerMap.put(conf.getLayer().getLayerName(), ret.layers[i]);
+        }
+        ret.initCalled = true;
+        ret.mask = mask;
+        ret.initVariables();
+        ret.params = params;
+        return ret;
+    }
+
 
     /**
      * Returns a 1 x m vector where the vector is composed of
@@ -857,6 +990,12 @@ public class MultiLayerNetwork implements Serializable, Classifier, Layer {
      */
     @Override
     public void setParams(INDArray params) {
+        if(this.params != null && this.params.length() == params.length()) {
+            //Layer parameters are views of the flattened array: copy in place to keep them valid
+            if(this.params != params)
+                this.params.assign(params);
+            return;
+        }
         if(this.params != null) this.params = params;  //not null if isRedistributeParams
         int idx = 0;
         for (int i = 0; i < getLayers().length; i++) {
@@ -1024,7 +1163,7 @@ public class MultiLayerNetwork implements Serializable, Classifier, Layer {
     /** Calculate and set gradients for MultiLayerNetwork, based on OutputLayer and labels*/
     protected void backprop() {
         Pair<Gradient,INDArray> pair = calcBackpropGradients(null, true);
-        this.gradient = (pair == null ? null : pair.getFirst());
+        this.gradient = (pair == null ? null : toFlattenedGradient(pair.getFirst()));
         this.epsilon = (pair == null ? null : pair.getSecond());
     }
 
@@ -1240,6 +1379,7 @@ public class MultiLayerNetwork implements Serializable, Classifier, Layer {
         //Add gradients to Gradients, in correct order
         for( Pair<String,INDArray> pair : gradientList)
             gradient.setGradientFor(pair.getFirst(), pair.getSecond());
+        gradient = toFlattenedGradient(gradient);
     }
 
 
@@ -1451,9 +1591,113 @@ public class MultiLayerNetwork implements Serializable, Classifier, Layer {
      * [0.5, 0.5] or some other probability distribution summing to one
      */
     public INDArray output(INDArray input, boolean train) {
-        List<INDArray> activations = feedForward(input, train);
-        //last activation is output
-        return activations.get(activations.size() - 1);
+        setInput(input);
+        //Only the current layer's activations are needed: don't build the list of activations for all layers
+        INDArray currInput = this.input;
+        for (int i = 0; i < layers.length; i++) {
+            currInput = activationFromPrevLayer(i, currInput, train);
+        }
+        return currInput;
+    }
+
+    /**
+     * Calculate the output of the network at test time, writing the activations of dense and output layers
+     * in to buffers that are reused between calls on the same thread (see {@link InferenceWorkspace}).
+     * Other layer types are activated via the workspace's own copy of the layer, sharing this network's parameters.
+     * Unlike {@link #output(INDArray, boolean)}, the layer inputs are not retained by the network's layers, so this
+     * method may be called concurrently from several threads (each with its own workspace).<br>
+     * <b>NOTE:</b> the returned array is a workspace buffer, and is overwritten by the next call to this method
+     * on the same thread with the same minibatch size. Use dup() if it needs to be kept.
+     *
+     * @param input the input to the network
+     * @return the network output
+     */
+    public INDArray outputWithWorkspace(INDArray input) {
+        return outputWithWorkspace(input, getInferenceWorkspace());
+    }
+
+    /**
+     * As per {@link #outputWithWorkspace(INDArray)}, using the given workspace
+     *
+     * @param input     the input to the network
+     * @param workspace the workspace to use for the activations. Must not be used concurrently by multiple threads
+     * @return the network output
+     */
+    public INDArray outputWithWorkspace(INDArray input, InferenceWorkspace workspace) {
+        if (input == null)
+            throw new IllegalArgumentException("No null input allowed");
+        if (layers == null || !initCalled)
+            init();
+
+        INDArray currInput = input;
+        //Minibatch size of the input: after RnnToFeedForwardPreProcessor, currInput has miniBatch*timeSeriesLength rows
+        int miniBatchSize = input.size(0);
+        for (int i = 0; i < layers.length; i++) {
+            if (getLayerWiseConfigurations().getInputPreProcess(i) != null)
+                currInput = getLayerWiseConfigurations().getInputPreProcess(i).preProcess(currInput, miniBatchSize);
+
+            Layer layer = layers[i];
+            if (layer.getClass() == org.deeplearning4j.nn.layers.feedforward.dense.DenseLayer.class
+                    || layer.getClass() == org.deeplearning4j.nn.layers.OutputLayer.class) {
+                INDArray W = layer.getParam(DefaultParamInitializer.WEIGHT_KEY);
+                INDArray b = layer.getParam(DefaultParamInitializer.BIAS_KEY);
+                INDArray out = workspace.getBuffer(i, layers.length, currInput.size(0), W.columns());
+                currInput.mmul(W, out);
+                out.addiRowVector(b);
+                NeuralNetConfiguration conf = layer.conf();
+                currInput = Nd4j.getExecutioner().execAndReturn(Nd4j.getOpFactory().createTransform(
+                        conf.getLayer().getActivationFunction(), out, conf.getExtraArgs()));
+            } else {
+                //Activating a layer stores its input: use the workspace's copy, not the shared layer
+                currInput = workspace.getLayer(this, i).activate(currInput, false);
+            }
+        }
+        return currInput;
+    }
+
+    /**
+     * Create a copy of layer i that shares the layer's parameter arrays (no copy of the parameters is made),
+     * but has its own input, mask and other layer state.
+     *
+     * @param i    index of the layer to copy
+     * @param conf configuration for the copy
+     * @return the copy of the layer
+     */
+    protected Layer cloneLayerSharingParams(int i, NeuralNetConfiguration conf) {
+        Layer layer = layers[i];
+        Layer ret;
+        try {
+            Constructor<? extends Layer> constructor = layer.getClass().getConstructor(NeuralNetConfiguration.class);
+            ret = constructor.newInstance(conf);
+        } catch (Exception e) {
+            throw new IllegalStateException("Unable to copy layer " + i + " of type " + layer.getClass().getName(), e);
+        }
+        ret.setListeners(listeners);
+        ret.setIndex(i);
+        Map<String,INDArray> paramTable = layer.paramTable();
+        if (paramTable != null)
+            ret.setParamTable(new LinkedHashMap<>(paramTable));
+        return ret;
+    }
+
+    protected InferenceWorkspace getInferenceWorkspace() {
+        //Double checked: only the first call locks, so concurrent inference is not serialized
+        ThreadLocal<InferenceWorkspace> workspaces = inferenceWorkspaces;
+        if (workspaces == null) {
+            synchronized (this) {
+                workspaces = inferenceWorkspaces;
+                if (workspaces == null) {
+                    workspaces = new ThreadLocal<InferenceWorkspace>() {
+                        @Override
+                        protected InferenceWorkspace initialValue() {
+                            return new InferenceWorkspace();
+                        }
+                    };
+                    inferenceWorkspaces = workspaces;
+                }
+            }
+        }
+        return workspaces.get();
     }
 
     /** Calculate the output of the network, with masking arrays. The masking arrays are used in situations such
@@ -1535,6 +1779,12 @@ public class MultiLayerNetwork implements Serializable, Classifier, Layer {
         } else {
             this.layers = null;
         }
+        //Cloned layers no longer share the old flattened arrays
+        this.params = null;
+        this.flattenedGradients = null;
+        this.gradientViews = null;
+        if(network.params != null && layers != null)
+            initFlattenedParams();
         if(network.solver != null){
             //Network updater state: should be cloned over also
             this.setUpdater(network.getUpdater().clone());
@@ -2243,6 +2493,17 @@ public class MultiLayerNetwork implements Serializable, Classifier, Layer {
         return e;
     }
 
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        //Layer parameters were serialized as separate arrays: make them views of a flattened array again
+        if (layers != null && layers.length > 0 && layers[0] != null) {
+            if (layerWiseConfigurations.isRedistributeParams())
+                reDistributeParams(false);
+            else
+                initFlattenedParams();
+        }
+    }
+
     private void update(Task task) {
         if (!initDone) {
             initDone = true;
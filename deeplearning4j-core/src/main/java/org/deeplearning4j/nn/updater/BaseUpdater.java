@@ -31,6 +31,11 @@ import java.util.Map;
 public abstract class BaseUpdater implements Updater {
     protected Map<String, GradientUpdater> updaterForVariable = new HashMap<>();
 
+    /** The GradientUpdater (and hence updater state) for each variable, keyed by parameter name */
+    public Map<String, GradientUpdater> getUpdaterForVariable() {
+        return updaterForVariable;
+    }
+
     @Override
     public void update(Layer layer, Gradient gradient, int iteration, int miniBatchSize) {
         String paramName;
@@ -40,6 +40,11 @@ public class MultiLayerUpdater implements Updater {
 		layerUpdaters = new Updater[size];
 	}
 
+	/** The updater for each layer, in layer index order */
+	public Updater[] getLayerUpdaters(){
+		return layerUpdaters;
+	}
+
 	@Override
 	public void update(Layer layer, Gradient gradient, int iteration, int batchSize) {
 		MultiLayerNetwork mln = (MultiLayerNetwork)layer;
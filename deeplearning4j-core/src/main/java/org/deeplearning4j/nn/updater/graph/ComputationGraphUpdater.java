@@ -48,6 +48,11 @@ public class ComputationGraphUpdater implements Serializable, Cloneable {
         layerUpdatersMap = new HashMap<>(updater.layerUpdatersMap);
     }
 
+    /** The updater for each layer, in the order of {@link ComputationGraph#getLayers()} */
+    public Updater[] getLayerUpdaters(){
+        return layerUpdaters;
+    }
+
     @Override
     public ComputationGraphUpdater clone(){
         return new ComputationGraphUpdater(this);
@@ -169,11 +169,12 @@ public abstract class BaseOptimizer implements ConvexOptimizer {
         INDArray parameters = null;
         model.validateInput();
         Pair<Gradient,Double> pair = gradientAndScore();
+        //Gradient and params may be views of the model's flattened arrays, which change on every step: store copies
         if(searchState.isEmpty()){
-            searchState.put(GRADIENT_KEY, pair.getFirst().gradient());
+            searchState.put(GRADIENT_KEY, pair.getFirst().gradient().dup());
             setupSearchState(pair);		//Only do this once
         } else {
-            searchState.put(GRADIENT_KEY, pair.getFirst().gradient());
+            searchState.put(GRADIENT_KEY, pair.getFirst().gradient().dup());
         }
 
         //pre existing termination conditions
@@ -296,7 +297,7 @@ public abstract class BaseOptimizer implements ConvexOptimizer {
     @Override
     public  void setupSearchState(Pair<Gradient, Double> pair) {
         INDArray gradient = pair.getFirst().gradient(conf.variables());
-        INDArray params = model.params();
+        INDArray params = model.params().dup();
         searchState.put(GRADIENT_KEY,gradient);
         searchState.put(SCORE_KEY,pair.getSecond());
         searchState.put(PARAMS_KEY,params);
@@ -53,7 +53,7 @@ public class ConjugateGradient extends BaseOptimizer {
         INDArray gradient = (INDArray) searchState.get(GRADIENT_KEY);
         INDArray searchDir = (INDArray) searchState.get(SEARCH_DIR);
         if( searchDir == null )
-            searchState.put(SEARCH_DIR, gradient);
+            searchState.put(SEARCH_DIR, gradient.dup());
         else searchDir.assign(gradient);
     }
 
@@ -82,7 +82,7 @@ public class ConjugateGradient extends BaseOptimizer {
 
         //Store current gradient and search direction for
         //(a) use in BaseOptimizer.optimize(), and (b) next iteration
-        searchState.put(GRADIENT_KEY, gradient);
+        searchState.put(GRADIENT_KEY, gradient.dup());   //gradient may be a view of the model's flattened gradient
         searchState.put(SEARCH_DIR, searchDir);
     }
 
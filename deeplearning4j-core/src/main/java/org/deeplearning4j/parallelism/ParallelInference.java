@@ -0,0 +1,362 @@
+/*
+ *
+ *  * Copyright 2015 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+package org.deeplearning4j.parallelism;
+
+import org.deeplearning4j.nn.api.Model;
+import org.deeplearning4j.nn.graph.ComputationGraph;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.indexing.INDArrayIndex;
+import org.nd4j.linalg.indexing.NDArrayIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Thread safe inference for a {@link MultiLayerNetwork} or {@link ComputationGraph}.<br>
+ * A fixed number of worker threads each own a copy of the network that shares the original network's parameters
+ * (see {@link MultiLayerNetwork#cloneSharingParams()}), so parameter memory is not multiplied by the number of threads.
+ * Requests may be submitted concurrently from any number of threads via {@link #output(INDArray...)}.<br>
+ * Optionally (batchWindowMs > 0), requests arriving within the given latency window are coalesced in to a
+ * single minibatch of at most batchLimit examples, which is usually much more efficient than many small
+ * output calls. Coalesced requests must have identical input shapes, other than the minibatch dimension.
+ * <p>
+ * Usage:
+ * <pre>
+ * {@code
+ * ParallelInference inference = new ParallelInference.Builder(net)
+ *      .workers(4).batchWindowMs(2).batchLimit(64).build();
+ * INDArray out = inference.output(features);
+ * ...
+ * inference.shutdown();
+ * }
+ * </pre>
+ */
+public class ParallelInference {
+
+    private static final Logger log = LoggerFactory.getLogger(ParallelInference.class);
+
+    private final Model model;
+    private final int workers;
+    private final int batchLimit;
+    private final long batchWindowMs;
+    private final BlockingQueue<InferenceRequest> queue;
+    private final List<Thread> threads = new ArrayList<>();
+    private volatile boolean shutdown = false;
+
+    protected ParallelInference(Builder builder) {
+        this.model = builder.model;
+        this.workers = builder.workers;
+        this.batchLimit = builder.batchLimit;
+        this.batchWindowMs = builder.batchWindowMs;
+        this.queue = new LinkedBlockingQueue<>(builder.queueLimit);
+
+        for (int i = 0; i < workers; i++) {
+            Thread t = new Thread(new InferenceWorker(cloneModel()), "ParallelInference-" + i);
+            t.setDaemon(true);
+            t.start();
+            threads.add(t);
+        }
+    }
+
+    private Model cloneModel() {
+        if (model instanceof MultiLayerNetwork)
+            return ((MultiLayerNetwork) model).cloneSharingParams();
+        return ((ComputationGraph) model).cloneSharingParams();
+    }
+
+    /**
+     * Calculate the output of a single input, single output network at test time.
+     * Blocks until the output is available.
+     *
+     * @param input the input to the network
+     * @return the network output
+     */
+    public INDArray output(INDArray input) {
+        INDArray[] out = output(new INDArray[]{input});
+        if (out.length != 1)
+            throw new IllegalStateException("Cannot return single output: network has " + out.length + " outputs");
+        return out[0];
+    }
+
+    /**
+     * Calculate the outputs of the network at test time. Blocks until the output is available.
+     *
+     * @param inputs the network inputs (one per network input, for ComputationGraph)
+     * @return the network outputs (one per network output)
+     */
+    public INDArray[] output(INDArray... inputs) {
+        if (shutdown)
+            throw new IllegalStateException("ParallelInference has been shut down");
+        if (inputs == null || inputs.length == 0)
+            throw new IllegalArgumentException("No inputs specified");
+
+        InferenceRequest request = new InferenceRequest(inputs);
+        try {
+            //Bounded waits, so a full queue does not block forever once the workers have stopped
+            while (!queue.offer(request, 100, TimeUnit.MILLISECONDS)) {
+                if (shutdown)
+                    throw new IllegalStateException("ParallelInference has been shut down");
+            }
+            //shutdown() may have drained the queue before this request was added: nobody would process it
+            if (shutdown && queue.remove(request))
+                request.fail(new IllegalStateException("ParallelInference has been shut down"));
+            request.latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for inference result", e);
+        }
+        if (request.exception != null)
+            throw new RuntimeException("Error during inference", request.exception);
+        return request.output;
+    }
+
+    /** Number of worker threads */
+    public int getWorkers() {
+        return workers;
+    }
+
+    /** Stop the worker threads. Requests that are not yet complete (including queued requests) fail with an exception. */
+    public void shutdown() {
+        //Flag must be set before draining: output() re-checks it after queueing a request
+        shutdown = true;
+        for (Thread t : threads)
+            t.interrupt();
+        List<InferenceRequest> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        for (InferenceRequest r : remaining)
+            r.fail(new IllegalStateException("ParallelInference has been shut down"));
+    }
+
+    private static class InferenceRequest {
+        private final INDArray[] input;
+        private final CountDownLatch latch = new CountDownLatch(1);
+        private volatile INDArray[] output;
+        private volatile Throwable exception;
+
+        private InferenceRequest(INDArray[] input) {
+            this.input = input;
+        }
+
+        private int size() {
+            return input[0].size(0);
+        }
+
+        private boolean canBatchWith(InferenceRequest other) {
+            if (input.length != other.input.length)
+                return false;
+            for (int i = 0; i < input.length; i++) {
+                int[] s1 = input[i].shape();
+                int[] s2 = other.input[i].shape();
+                if (s1.length != s2.length)
+                    return false;
+                for (int j = 1; j < s1.length; j++)
+                    if (s1[j] != s2[j])
+                        return false;
+            }
+            return true;
+        }
+
+        private void complete(INDArray[] output) {
+            this.output = output;
+            latch.countDown();
+        }
+
+        private void fail(Throwable t) {
+            this.exception = t;
+            latch.countDown();
+        }
+    }
+
+    private class InferenceWorker implements Runnable {
+        private final Model model;
+        private InferenceRequest pending;
+
+        private InferenceWorker(Model model) {
+            this.model = model;
+        }
+
+        @Override
+        public void run() {
+            while (!shutdown) {
+                List<InferenceRequest> batch;
+                try {
+                    batch = nextBatch();
+                } catch (InterruptedException e) {
+                    break;
+                }
+
+                try {
+                    process(batch);
+                } catch (Throwable t) {
+                    log.warn("Error during inference", t);
+                    for (InferenceRequest r : batch)
+                        r.fail(t);
+                }
+            }
+            if (pending != null)
+                pending.fail(new IllegalStateException("ParallelInference has been shut down"));
+        }
+
+        /** Collect the next request, and (if batching) any compatible requests that arrive within the window */
+        private List<InferenceRequest> nextBatch() throws InterruptedException {
+            InferenceRequest first = pending;
+            pending = null;
+            if (first == null)
+                first = queue.take();
+
+            List<InferenceRequest> batch = new ArrayList<>();
+            batch.add(first);
+            if (batchWindowMs <= 0)
+                return batch;
+
+            int size = first.size();
+            long end = System.currentTimeMillis() + batchWindowMs;
+            while (size < batchLimit) {
+                long remaining = end - System.currentTimeMillis();
+                if (remaining <= 0)
+                    break;
+                InferenceRequest next;
+                try {
+                    next = queue.poll(remaining, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    //Shutting down: still process the requests collected so far
+                    break;
+                }
+                if (next == null)
+                    break;
+                if (!first.canBatchWith(next) || size + next.size() > batchLimit) {
+                    //Process this in the next batch instead
+                    pending = next;
+                    break;
+                }
+                batch.add(next);
+                size += next.size();
+            }
+            return batch;
+        }
+
+        private void process(List<InferenceRequest> batch) {
+            if (batch.size() == 1) {
+                InferenceRequest r = batch.get(0);
+                r.complete(doOutput(r.input));
+                return;
+            }
+
+            //Merge the inputs along the minibatch dimension
+            int numInputs = batch.get(0).input.length;
+            INDArray[] merged = new INDArray[numInputs];
+            for (int i = 0; i < numInputs; i++) {
+                INDArray[] toMerge = new INDArray[batch.size()];
+                for (int j = 0; j < toMerge.length; j++)
+                    toMerge[j] = batch.get(j).input[i];
+                merged[i] = Nd4j.concat(0, toMerge);
+            }
+
+            INDArray[] out = doOutput(merged);
+
+            //Split the outputs back out, one set per request
+            int start = 0;
+            for (InferenceRequest r : batch) {
+                int end = start + r.size();
+                INDArray[] rOut = new INDArray[out.length];
+                for (int i = 0; i < out.length; i++)
+                    rOut[i] = out[i].get(minibatchInterval(out[i].rank(), start, end)).dup();
+                r.complete(rOut);
+                start = end;
+            }
+        }
+
+        private INDArray[] doOutput(INDArray[] input) {
+            if (model instanceof MultiLayerNetwork) {
+                if (input.length != 1)
+                    throw new IllegalArgumentException("MultiLayerNetwork has a single input; got " + input.length);
+                MultiLayerNetwork net = (MultiLayerNetwork) model;
+                return new INDArray[]{net.output(input[0], false)};
+            }
+            return ((ComputationGraph) model).output(false, input);
+        }
+    }
+
+    private static INDArrayIndex[] minibatchInterval(int rank, int start, int end) {
+        INDArrayIndex[] indexes = new INDArrayIndex[rank];
+        indexes[0] = NDArrayIndex.interval(start, end);
+        for (int i = 1; i < rank; i++)
+            indexes[i] = NDArrayIndex.all();
+        return indexes;
+    }
+
+    public static class Builder {
+        private Model model;
+        private int workers = Runtime.getRuntime().availableProcessors();
+        private int batchLimit = 32;
+        private long batchWindowMs = 0;
+        private int queueLimit = 1024;
+
+        /**
+         * @param model the network to use for inference: a {@link MultiLayerNetwork} or {@link ComputationGraph}
+         */
+        public Builder(Model model) {
+            if (!(model instanceof MultiLayerNetwork) && !(model instanceof ComputationGraph))
+                throw new IllegalArgumentException("Unsupported model type: " + (model == null ? null : model.getClass().getName()));
+            this.model = model;
+        }
+
+        /** Number of worker threads (default: number of available processors) */
+        public Builder workers(int workers) {
+            if (workers <= 0)
+                throw new IllegalArgumentException("Number of workers must be > 0");
+            this.workers = workers;
+            return this;
+        }
+
+        /** Maximum number of examples in a coalesced minibatch (default: 32) */
+        public Builder batchLimit(int batchLimit) {
+            if (batchLimit <= 0)
+                throw new IllegalArgumentException("Batch limit must be > 0");
+            this.batchLimit = batchLimit;
+            return this;
+        }
+
+        /** Time to wait for further requests to coalesce with, in milliseconds. 0 (default) disables batching */
+        public Builder batchWindowMs(long batchWindowMs) {
+            this.batchWindowMs = batchWindowMs;
+            return this;
+        }
+
+        /** Maximum number of requests waiting to be processed; further requests block (default: 1024) */
+        public Builder queueLimit(int queueLimit) {
+            if (queueLimit <= 0)
+                throw new IllegalArgumentException("Queue limit must be > 0");
+            this.queueLimit = queueLimit;
+            return this;
+        }
+
+        public ParallelInference build() {
+            return new ParallelInference(this);
+        }
+    }
+}
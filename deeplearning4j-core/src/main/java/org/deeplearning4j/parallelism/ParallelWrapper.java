@@ -0,0 +1,315 @@
+/*
+ *
+ *  * Copyright 2015 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+package org.deeplearning4j.parallelism;
+
+import org.deeplearning4j.datasets.iterator.AsyncDataSetIterator;
+import org.deeplearning4j.datasets.iterator.DataSetIterator;
+import org.deeplearning4j.nn.api.Model;
+import org.deeplearning4j.nn.api.Updater;
+import org.deeplearning4j.nn.graph.ComputationGraph;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.deeplearning4j.nn.updater.aggregate.UpdaterAggregator;
+import org.deeplearning4j.nn.updater.graph.ComputationGraphUpdater;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.dataset.DataSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Data parallel training of a {@link MultiLayerNetwork} or {@link ComputationGraph} on multiple threads in a single JVM.<br>
+ * Each worker thread trains its own copy of the model. Minibatches from the (asynchronously prefetched)
+ * DataSetIterator are handed out to the workers in turn. After each worker has fitted averagingFrequency minibatches,
+ * the parameters (and optionally the updater state, using the {@link UpdaterAggregator} mechanism also used for
+ * distributed training on Spark) of the worker copies are averaged. The averaged parameters are set on the original
+ * model and on all workers, and training continues.
+ * <p>
+ * Usage:
+ * <pre>
+ * {@code
+ * ParallelWrapper wrapper = new ParallelWrapper.Builder(net)
+ *      .workers(8).averagingFrequency(5).prefetchBuffer(16).build();
+ * wrapper.fit(trainData);
+ * wrapper.shutdown();
+ * }
+ * </pre>
+ */
+public class ParallelWrapper {
+
+    private static final Logger log = LoggerFactory.getLogger(ParallelWrapper.class);
+
+    private final Model model;
+    private final int workers;
+    private final int prefetchBuffer;
+    private final int averagingFrequency;
+    private final boolean averageUpdaters;
+    private final boolean reportScore;
+
+    private final Trainer[] trainers;
+    private final Semaphore completed = new Semaphore(0);
+    private volatile Throwable exception;
+    private volatile boolean shutdown = false;
+
+    protected ParallelWrapper(Builder builder) {
+        this.model = builder.model;
+        this.workers = builder.workers;
+        this.prefetchBuffer = builder.prefetchBuffer;
+        this.averagingFrequency = builder.averagingFrequency;
+        this.averageUpdaters = builder.averageUpdaters;
+        this.reportScore = builder.reportScore;
+
+        trainers = new Trainer[workers];
+        for (int i = 0; i < workers; i++) {
+            trainers[i] = new Trainer(cloneModel());
+            Thread t = new Thread(trainers[i], "ParallelWrapper-trainer-" + i);
+            t.setDaemon(true);
+            trainers[i].thread = t;
+            t.start();
+        }
+    }
+
+    private Model cloneModel() {
+        if (model instanceof MultiLayerNetwork) {
+            //MultiLayerNetwork.clone() also copies the updater state
+            return ((MultiLayerNetwork) model).clone();
+        }
+        ComputationGraph graph = (ComputationGraph) model;
+        ComputationGraph copy = graph.clone();
+        copy.setUpdater(graph.getUpdater().clone());
+        return copy;
+    }
+
+    /**
+     * Train the model on all data in the iterator (one epoch). On return, the original model has the averaged
+     * parameters (and updater state, if enabled) of all workers.
+     *
+     * @param source the training data
+     */
+    public synchronized void fit(DataSetIterator source) {
+        if (shutdown)
+            throw new IllegalStateException("ParallelWrapper has been shut down");
+
+        DataSetIterator iterator = source;
+        if (prefetchBuffer > 0 && !(source instanceof AsyncDataSetIterator))
+            iterator = new AsyncDataSetIterator(source, prefetchBuffer);
+
+        int fed = 0;
+        int sinceAveraging = 0;
+        while (iterator.hasNext()) {
+            DataSet ds = iterator.next();
+            if (ds == null || ds.getFeatureMatrix() == null || ds.getLabels() == null)
+                break;
+
+            trainers[fed % workers].feed(ds);
+            fed++;
+            sinceAveraging++;
+
+            if (sinceAveraging == workers * averagingFrequency) {
+                awaitCompletion(sinceAveraging);
+                averageModels(workers);
+                sinceAveraging = 0;
+            }
+        }
+
+        if (sinceAveraging > 0) {
+            awaitCompletion(sinceAveraging);
+            //Only average over workers that have actually trained since the last averaging
+            averageModels(Math.min(workers, sinceAveraging));
+        }
+
+        if (iterator != source)
+            ((AsyncDataSetIterator) iterator).shutdown();
+        log.debug("ParallelWrapper: fitted {} minibatches on {} workers", fed, workers);
+    }
+
+    /** Number of worker threads */
+    public int getWorkers() {
+        return workers;
+    }
+
+    /** Stop the worker threads. The ParallelWrapper cannot be used after calling this method */
+    public void shutdown() {
+        shutdown = true;
+        for (Trainer t : trainers)
+            t.thread.interrupt();
+    }
+
+    private void awaitCompletion(int numMinibatches) {
+        try {
+            completed.acquire(numMinibatches);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for workers", e);
+        }
+        if (exception != null) {
+            Throwable t = exception;
+            exception = null;
+            throw new RuntimeException("Exception in ParallelWrapper worker thread", t);
+        }
+    }
+
+    /**
+     * Average the parameters (and optionally updater state) of the first numWorkers workers, set the result on the
+     * original model, and copy it back to all workers
+     */
+    protected void averageModels(int numWorkers) {
+        INDArray params = trainers[0].model.params().dup();
+        double score = trainers[0].model.score();
+        for (int i = 1; i < numWorkers; i++) {
+            params.addi(trainers[i].model.params());
+            score += trainers[i].model.score();
+        }
+        params.divi(numWorkers);
+        score /= numWorkers;
+
+        //Copies: setParams may use (views of) the given array, which must not be shared between workers
+        model.setParams(params);
+        for (Trainer t : trainers)
+            t.model.setParams(params.dup());
+
+        if (averageUpdaters)
+            averageUpdaters(numWorkers);
+
+        if (reportScore) {
+            if (model instanceof MultiLayerNetwork) ((MultiLayerNetwork) model).setScore(score);
+            else ((ComputationGraph) model).setScore(score);
+            log.info("Averaged parameters of {} workers; average score: {}", numWorkers, score);
+        }
+    }
+
+    private void averageUpdaters(int numWorkers) {
+        if (model instanceof MultiLayerNetwork) {
+            UpdaterAggregator aggregator = ((MultiLayerNetwork) trainers[0].model).getUpdater().getAggregator(true);
+            for (int i = 1; i < numWorkers; i++)
+                aggregator.aggregate(((MultiLayerNetwork) trainers[i].model).getUpdater());
+            Updater averaged = aggregator.getUpdater();
+            ((MultiLayerNetwork) model).setUpdater(averaged);
+            for (Trainer t : trainers)
+                ((MultiLayerNetwork) t.model).setUpdater(averaged.clone());
+        } else {
+            ComputationGraphUpdater.Aggregator aggregator = ((ComputationGraph) trainers[0].model).getUpdater().getAggregator(true);
+            for (int i = 1; i < numWorkers; i++)
+                aggregator.aggregate(((ComputationGraph) trainers[i].model).getUpdater());
+            ComputationGraphUpdater averaged = aggregator.getUpdater();
+            ((ComputationGraph) model).setUpdater(averaged);
+            for (Trainer t : trainers)
+                ((ComputationGraph) t.model).setUpdater(averaged.clone());
+        }
+    }
+
+    private class Trainer implements Runnable {
+        private final Model model;
+        private final BlockingQueue<DataSet> queue = new LinkedBlockingQueue<>();
+        private Thread thread;
+
+        private Trainer(Model model) {
+            this.model = model;
+        }
+
+        private void feed(DataSet ds) {
+            queue.add(ds);
+        }
+
+        @Override
+        public void run() {
+            while (!shutdown) {
+                DataSet ds;
+                try {
+                    ds = queue.take();
+                } catch (InterruptedException e) {
+                    break;
+                }
+
+                try {
+                    if (model instanceof MultiLayerNetwork) ((MultiLayerNetwork) model).fit(ds);
+                    else ((ComputationGraph) model).fit(ds);
+                } catch (Throwable t) {
+                    log.warn("Exception in ParallelWrapper worker thread", t);
+                    exception = t;
+                } finally {
+                    completed.release();
+                }
+            }
+        }
+    }
+
+    public static class Builder {
+        private Model model;
+        private int workers = Runtime.getRuntime().availableProcessors();
+        private int prefetchBuffer = 16;
+        private int averagingFrequency = 1;
+        private boolean averageUpdaters = true;
+        private boolean reportScore = false;
+
+        /**
+         * @param model the network to train: a {@link MultiLayerNetwork} or {@link ComputationGraph}. Must be initialized
+         */
+        public Builder(Model model) {
+            if (!(model instanceof MultiLayerNetwork) && !(model instanceof ComputationGraph))
+                throw new IllegalArgumentException("Unsupported model type: " + (model == null ? null : model.getClass().getName()));
+            this.model = model;
+        }
+
+        /** Number of worker threads, each with its own copy of the model (default: number of available processors) */
+        public Builder workers(int workers) {
+            if (workers <= 0)
+                throw new IllegalArgumentException("Number of workers must be > 0");
+            this.workers = workers;
+            return this;
+        }
+
+        /**
+         * Number of minibatches to load asynchronously ahead of the workers (default: 16).
+         * 0 disables prefetching; the iterator is then used as-is
+         */
+        public Builder prefetchBuffer(int prefetchBuffer) {
+            if (prefetchBuffer < 0)
+                throw new IllegalArgumentException("Prefetch buffer size must be >= 0");
+            this.prefetchBuffer = prefetchBuffer;
+            return this;
+        }
+
+        /** Number of minibatches each worker fits between parameter averaging (default: 1) */
+        public Builder averagingFrequency(int averagingFrequency) {
+            if (averagingFrequency <= 0)
+                throw new IllegalArgumentException("Averaging frequency must be > 0");
+            this.averagingFrequency = averagingFrequency;
+            return this;
+        }
+
+        /** Whether the updater state (momentum, AdaGrad history etc) is averaged along with the parameters (default: true) */
+        public Builder averageUpdaters(boolean averageUpdaters) {
+            this.averageUpdaters = averageUpdaters;
+            return this;
+        }
+
+        /** If true: set the average score of the workers on the model after averaging, and log it (default: false) */
+        public Builder reportScoreAfterAveraging(boolean reportScore) {
+            this.reportScore = reportScore;
+            return this;
+        }
+
+        public ParallelWrapper build() {
+            return new ParallelWrapper(this);
+        }
+    }
+}
@@ -9,6 +9,7 @@ import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
 import org.deeplearning4j.nn.conf.layers.RBM;
 import org.deeplearning4j.nn.graph.ComputationGraph;
 import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.deeplearning4j.nn.updater.MultiLayerUpdater;
 import org.deeplearning4j.nn.updater.graph.ComputationGraphUpdater;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.factory.Nd4j;
@@ -98,6 +99,96 @@ public class ModelSerializer {
         }
     }
 
+    /**
+     * Write a model in the raw format: as for {@link #writeModel(Model, OutputStream, boolean)}, a zip file containing
+     * the configuration, coefficients and (optionally) updater, but with all entries stored rather than deflated, and
+     * with the coefficients and updater state arrays streamed directly from their data buffers in fixed size chunks.
+     * Unlike the default format, no copy of the coefficients or updater state is made on the heap, and the
+     * coefficients are restored by memory mapping the file. The restore methods in this class read both formats.
+     */
+    public static void writeModelRaw(@NonNull Model model, @NonNull File file, boolean saveUpdater) throws IOException {
+        String json = "";
+        if (model instanceof MultiLayerNetwork) {
+            json = ((MultiLayerNetwork) model).getLayerWiseConfigurations().toJson();
+        } else if (model instanceof ComputationGraph) {
+            json = ((ComputationGraph) model).getConfiguration().toJson();
+        }
+
+        try (RawModelFormat.StoredZipWriter zipfile = new RawModelFormat.StoredZipWriter(file)) {
+            zipfile.writeEntry("configuration.json", json.getBytes());
+
+            final INDArray params = model.params();
+            zipfile.writeEntry(RawModelFormat.COEFFICIENTS_ENTRY, RawModelFormat.arraySize(params), new RawModelFormat.EntryContent() {
+                @Override
+                public void write(DataOutputStream out) throws IOException {
+                    RawModelFormat.writeArray(params, out);
+                }
+            });
+
+            if (saveUpdater) {
+                Object updater;
+                final Updater[] layerUpdaters;
+                if (model instanceof MultiLayerNetwork) {
+                    updater = ((MultiLayerNetwork) model).getUpdater();
+                    layerUpdaters = (updater instanceof MultiLayerUpdater ? ((MultiLayerUpdater) updater).getLayerUpdaters() : null);
+                } else if (model instanceof ComputationGraph) {
+                    updater = ((ComputationGraph) model).getUpdater();
+                    layerUpdaters = ((ComputationGraphUpdater) updater).getLayerUpdaters();
+                } else {
+                    updater = null;
+                    layerUpdaters = null;
+                }
+
+                if (layerUpdaters != null && RawModelFormat.isSupported(layerUpdaters)) {
+                    zipfile.writeEntry(RawModelFormat.UPDATER_STATE_ENTRY, RawModelFormat.updaterStateSize(layerUpdaters),
+                            new RawModelFormat.EntryContent() {
+                                @Override
+                                public void write(DataOutputStream out) throws IOException {
+                                    RawModelFormat.writeUpdaterState(layerUpdaters, out);
+                                }
+                            });
+                } else if (updater != null) {
+                    //Custom updater: fall back to Java serialization, as for writeModel
+                    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                    ObjectOutputStream oos = new ObjectOutputStream(bytes);
+                    oos.writeObject(updater);
+                    oos.close();
+                    zipfile.writeEntry("updater.bin", bytes.toByteArray());
+                }
+            }
+        }
+    }
+
+    public static void writeModelRaw(@NonNull Model model, @NonNull String path, boolean saveUpdater) throws IOException {
+        writeModelRaw(model, new File(path), saveUpdater);
+    }
+
+    /**
+     * Restore the coefficients of a model written by {@link #writeModelRaw(Model, File, boolean)}. If the model's
+     * parameters are a single flattened array (the usual case), coefficients are memory mapped and copied directly
+     * in to that array; otherwise they are read and set via setParams.
+     */
+    private static void restoreRawCoefficients(File file, ZipFile zipFile, Model model) throws IOException {
+        INDArray params = model.params();
+        long position = RawModelFormat.findStoredEntry(file, RawModelFormat.COEFFICIENTS_ENTRY);
+        //params() returns the same array on each call only if it is the network's flattened parameter array
+        if (position >= 0 && params == model.params()) {
+            RawModelFormat.readArrayInto(file, position, params);
+        } else {
+            try (DataInputStream dis = new DataInputStream(new BufferedInputStream(
+                    zipFile.getInputStream(zipFile.getEntry(RawModelFormat.COEFFICIENTS_ENTRY))))) {
+                model.setParams(RawModelFormat.readArray(dis));
+            }
+        }
+    }
+
+    private static void restoreRawUpdaterState(ZipFile zipFile, Updater[] layerUpdaters) throws IOException {
+        try (DataInputStream dis = new DataInputStream(new BufferedInputStream(
+                zipFile.getInputStream(zipFile.getEntry(RawModelFormat.UPDATER_STATE_ENTRY)), 1 << 16))) {
+            RawModelFormat.readUpdaterState(layerUpdaters, dis);
+        }
+    }
+
     public static MultiLayerNetwork restoreMultiLayerNetwork(@NonNull File file) throws IOException {
         ZipFile zipFile = new ZipFile(file);
 
@@ -140,6 +231,9 @@ public class ModelSerializer {
          }
 
 
+        boolean rawCoefficients = zipFile.getEntry(RawModelFormat.COEFFICIENTS_ENTRY) != null;
+        gotCoefficients |= rawCoefficients;
+
         ZipEntry updaters = zipFile.getEntry("updater.bin");
         if (updaters != null) {
             InputStream stream = zipFile.getInputStream(updaters);
@@ -153,22 +247,33 @@ public class ModelSerializer {
 
             gotUpdater = true;
         }
-
-
-        zipFile.close();
+        boolean rawUpdater = zipFile.getEntry(RawModelFormat.UPDATER_STATE_ENTRY) != null;
 
         if (gotConfig && gotCoefficients) {
             MultiLayerConfiguration confFromJson = MultiLayerConfiguration.fromJson(json);
             MultiLayerNetwork network = new MultiLayerNetwork(confFromJson);
             network.init();
-            network.setParameters(params);
+            try {
+                if (rawCoefficients) restoreRawCoefficients(file, zipFile, network);
+                else network.setParameters(params);
 
+                if (rawUpdater) {
+                    MultiLayerUpdater mlu = new MultiLayerUpdater(network);
+                    restoreRawUpdaterState(zipFile, mlu.getLayerUpdaters());
+                    network.setUpdater(mlu);
+                }
+            } finally {
+                zipFile.close();
+            }
 
             if (gotUpdater && updater != null) {
                 network.setUpdater(updater);
             }
             return network;
-        } else throw new IllegalStateException("Model wasnt found within file: gotConfig: ["+ gotConfig+"], gotCoefficients: ["+ gotCoefficients+"], gotUpdater: ["+gotUpdater+"]");
+        } else {
+            zipFile.close();
+            throw new IllegalStateException("Model wasnt found within file: gotConfig: ["+ gotConfig+"], gotCoefficients: ["+ gotCoefficients+"], gotUpdater: ["+gotUpdater+"]");
+        }
     }
 
     public static MultiLayerNetwork restoreMultiLayerNetwork(@NonNull String path) throws IOException {
@@ -221,6 +326,9 @@ public class ModelSerializer {
         }
 
 
+        boolean rawCoefficients = zipFile.getEntry(RawModelFormat.COEFFICIENTS_ENTRY) != null;
+        gotCoefficients |= rawCoefficients;
+
         ZipEntry updaters = zipFile.getEntry("updater.bin");
         if (updaters != null) {
             InputStream stream = zipFile.getInputStream(updaters);
@@ -234,22 +342,33 @@ public class ModelSerializer {
 
             gotUpdater = true;
         }
-
-
-        zipFile.close();
+        boolean rawUpdater = zipFile.getEntry(RawModelFormat.UPDATER_STATE_ENTRY) != null;
 
         if (gotConfig && gotCoefficients) {
             ComputationGraphConfiguration confFromJson = ComputationGraphConfiguration.fromJson(json);
             ComputationGraph cg = new ComputationGraph(confFromJson);
             cg.init();
-            cg.setParams(params);
+            try {
+                if (rawCoefficients) restoreRawCoefficients(file, zipFile, cg);
+                else cg.setParams(params);
 
+                if (rawUpdater) {
+                    ComputationGraphUpdater cgu = new ComputationGraphUpdater(cg);
+                    restoreRawUpdaterState(zipFile, cgu.getLayerUpdaters());
+                    cg.setUpdater(cgu);
+                }
+            } finally {
+                zipFile.close();
+            }
 
             if (gotUpdater && updater != null) {
                 cg.setUpdater(updater);
             }
             return cg;
-        } else throw new IllegalStateException("Model wasnt found within file: gotConfig: ["+ gotConfig+"], gotCoefficients: ["+ gotCoefficients+"], gotUpdater: ["+gotUpdater+"]");
+        } else {
+            zipFile.close();
+            throw new IllegalStateException("Model wasnt found within file: gotConfig: ["+ gotConfig+"], gotCoefficients: ["+ gotCoefficients+"], gotUpdater: ["+gotUpdater+"]");
+        }
     }
 
     public static Task taskByModel(Model model) {
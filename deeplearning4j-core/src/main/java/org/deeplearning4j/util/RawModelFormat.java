@@ -0,0 +1,631 @@
+/*
+ *
+ *  * Copyright 2016 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+package org.deeplearning4j.util;
+
+import org.deeplearning4j.nn.api.Updater;
+import org.deeplearning4j.nn.updater.BaseUpdater;
+import org.nd4j.linalg.api.buffer.DataBuffer;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.learning.GradientUpdater;
+
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.io.*;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.util.*;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Helper methods for the raw model format of {@link ModelSerializer#writeModelRaw(org.deeplearning4j.nn.api.Model, File, boolean)}.<br>
+ * All zip entries are stored (not deflated), and arrays are written as a small header (data type, ordering, shape)
+ * followed by the values, streamed in fixed size chunks directly from the array's data buffer. This means that the
+ * coefficients can be restored by memory mapping the coefficients entry of the zip file, without decompression.<br>
+ * Updater state is stored as the public properties (numbers and arrays) of each variable's GradientUpdater, rather
+ * than using Java serialization.
+ */
+public class RawModelFormat {
+
+    public static final String COEFFICIENTS_ENTRY = "coefficients.raw";
+    public static final String UPDATER_STATE_ENTRY = "updaterState.raw";
+
+    private static final int ARRAY_MAGIC = 0x444C3441;
+    private static final int UPDATER_MAGIC = 0x444C3455;
+    private static final int CHUNK_ELEMENTS = 1 << 20;
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+    private static final int LOCAL_HEADER_LENGTH = 30;
+    private static final int LOCAL_HEADER_CRC_OFFSET = 14;
+
+    private static final byte TYPE_FLOAT = 0;
+    private static final byte TYPE_DOUBLE = 1;
+
+    //Updater field kinds
+    private static final byte KIND_NULL = 0;
+    private static final byte KIND_DOUBLE = 1;
+    private static final byte KIND_FLOAT = 2;
+    private static final byte KIND_INT = 3;
+    private static final byte KIND_LONG = 4;
+    private static final byte KIND_BOOLEAN = 5;
+    private static final byte KIND_INT_ARRAY = 6;
+    private static final byte KIND_DOUBLE_ARRAY = 7;
+    private static final byte KIND_INDARRAY = 8;
+
+    private RawModelFormat() {
+    }
+
+    /** Content of a zip entry */
+    public interface EntryContent {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    /**
+     * Writes a zip file of stored (uncompressed) entries. Stored entries require the size and CRC in the local header,
+     * before the data: the size must be known in advance, and the CRC is calculated as the content is written and
+     * then corrected in the local header when the writer is closed. The content of each entry is written once, and
+     * nothing is buffered in memory.
+     */
+    public static class StoredZipWriter implements Closeable {
+        private final RandomAccessFile file;
+        private final CountingOutputStream position;
+        private final ZipOutputStream zip;
+        private final List<long[]> localHeaderCrcs = new ArrayList<>();
+
+        public StoredZipWriter(File file) throws IOException {
+            this.file = new RandomAccessFile(file, "rw");
+            this.file.setLength(0);
+            this.position = new CountingOutputStream(new BufferedOutputStream(Channels.newOutputStream(this.file.getChannel()), 1 << 16));
+            this.zip = new ZipOutputStream(position);
+        }
+
+        /**
+         * Write a stored entry
+         *
+         * @param size    exact number of bytes that the content writes
+         */
+        public void writeEntry(String name, long size, EntryContent content) throws IOException {
+            ZipEntry entry = new ZipEntry(name);
+            entry.setMethod(ZipEntry.STORED);
+            entry.setSize(size);
+            entry.setCompressedSize(size);
+            entry.setCrc(0);
+            long localHeaderOffset = position.count;
+            zip.putNextEntry(entry);
+            CheckedOutputStream checked = new CheckedOutputStream(new NonClosingOutputStream(zip), new CRC32());
+            DataOutputStream out = new DataOutputStream(checked);
+            content.write(out);
+            out.flush();
+            //Central directory gets the correct CRC from the entry; the local header (already written) is fixed on close
+            entry.setCrc(checked.getChecksum().getValue());
+            zip.closeEntry();
+            localHeaderCrcs.add(new long[]{localHeaderOffset, entry.getCrc()});
+        }
+
+        public void writeEntry(String name, final byte[] bytes) throws IOException {
+            writeEntry(name, bytes.length, new EntryContent() {
+                @Override
+                public void write(DataOutputStream out) throws IOException {
+                    out.write(bytes);
+                }
+            });
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                zip.finish();
+                position.flush();
+                byte[] crcBytes = new byte[4];
+                for (long[] headerCrc : localHeaderCrcs) {
+                    ByteBuffer.wrap(crcBytes).order(ByteOrder.LITTLE_ENDIAN).putInt((int) headerCrc[1]);
+                    file.seek(headerCrc[0] + LOCAL_HEADER_CRC_OFFSET);
+                    file.write(crcBytes);
+                }
+            } finally {
+                file.close();
+            }
+        }
+    }
+
+    /**
+     * Find the start of the data of the given stored entry, by walking the local file headers of the zip file.
+     *
+     * @return position of the first byte of the entry's data, or -1 if the entry isn't present (or if it is preceded
+     * by an entry with unknown size, i.e. one that was not stored)
+     */
+    public static long findStoredEntry(File zipFile, String name) throws IOException {
+        byte[] nameBytes = name.getBytes("UTF-8");
+        try (RandomAccessFile raf = new RandomAccessFile(zipFile, "r")) {
+            long pos = 0;
+            byte[] header = new byte[LOCAL_HEADER_LENGTH];
+            while (pos + LOCAL_HEADER_LENGTH <= raf.length()) {
+                raf.seek(pos);
+                raf.readFully(header);
+                ByteBuffer bb = ByteBuffer.wrap(header).order(ByteOrder.LITTLE_ENDIAN);
+                if (bb.getInt(0) != LOCAL_HEADER_SIGNATURE)
+                    return -1;
+                int flags = bb.getShort(6) & 0xFFFF;
+                int method = bb.getShort(8) & 0xFFFF;
+                long compressedSize = bb.getInt(18) & 0xFFFFFFFFL;
+                int nameLength = bb.getShort(26) & 0xFFFF;
+                int extraLength = bb.getShort(28) & 0xFFFF;
+
+                byte[] entryName = new byte[nameLength];
+                raf.readFully(entryName);
+                byte[] extra = new byte[extraLength];
+                raf.readFully(extra);
+                long dataStart = pos + LOCAL_HEADER_LENGTH + nameLength + extraLength;
+                if (method == ZipEntry.STORED && Arrays.equals(nameBytes, entryName))
+                    return dataStart;
+                if ((flags & 8) != 0)
+                    return -1;  //Sizes follow the data: can't skip this entry
+                if (compressedSize == 0xFFFFFFFFL)
+                    compressedSize = zip64CompressedSize(extra);
+                pos = dataStart + compressedSize;
+            }
+        }
+        return -1;
+    }
+
+    private static long zip64CompressedSize(byte[] extra) throws IOException {
+        ByteBuffer bb = ByteBuffer.wrap(extra).order(ByteOrder.LITTLE_ENDIAN);
+        while (bb.remaining() >= 4) {
+            int id = bb.getShort() & 0xFFFF;
+            int size = bb.getShort() & 0xFFFF;
+            if (id == 0x0001) {
+                bb.getLong();   //Uncompressed size
+                return bb.getLong();
+            }
+            bb.position(bb.position() + size);
+        }
+        throw new IOException("Invalid zip file: no ZIP64 extra field for large entry");
+    }
+
+    /** Number of bytes written by {@link #writeArray(INDArray, DataOutputStream)} for the given array */
+    public static long arraySize(INDArray arr) {
+        int bytesPerElement = (arr.data().dataType() == DataBuffer.Type.DOUBLE ? 8 : 4);
+        return 4 + 1 + 2 + 4 + 4L * arr.rank() + (long) arr.length() * bytesPerElement;
+    }
+
+    /** Write the array header and values. Values are copied in chunks; the array itself is not duplicated unless it is a view */
+    public static void writeArray(INDArray arr, DataOutputStream out) throws IOException {
+        INDArray src = arr;
+        if (!isWholeBuffer(arr))
+            src = arr.dup(arr.ordering());
+        boolean isDouble = src.data().dataType() == DataBuffer.Type.DOUBLE;
+        int[] shape = src.shape();
+        out.writeInt(ARRAY_MAGIC);
+        out.writeByte(isDouble ? TYPE_DOUBLE : TYPE_FLOAT);
+        out.writeChar(src.ordering());
+        out.writeInt(shape.length);
+        for (int s : shape)
+            out.writeInt(s);
+
+        int length = src.length();
+        DataBuffer data = src.data();
+        int bytesPerElement = (isDouble ? 8 : 4);
+        byte[] bytes = new byte[Math.min(length, CHUNK_ELEMENTS) * bytesPerElement];
+        ByteBuffer bb = ByteBuffer.wrap(bytes);
+        for (int i = 0; i < length; i += CHUNK_ELEMENTS) {
+            int n = Math.min(CHUNK_ELEMENTS, length - i);
+            bb.clear();
+            if (isDouble) bb.asDoubleBuffer().put(data.getDoublesAt(i, n));
+            else bb.asFloatBuffer().put(data.getFloatsAt(i, n));
+            out.write(bytes, 0, n * bytesPerElement);
+        }
+    }
+
+    /** Read an array written by {@link #writeArray(INDArray, DataOutputStream)}. Values are read in chunks directly in to the new array */
+    public static INDArray readArray(DataInputStream in) throws IOException {
+        ArrayHeader header = readHeader(in);
+        INDArray ret = Nd4j.create(header.shape, header.ordering);
+        int bytesPerElement = (header.isDouble ? 8 : 4);
+        byte[] bytes = new byte[Math.min(header.length, CHUNK_ELEMENTS) * bytesPerElement];
+        ByteBuffer bb = ByteBuffer.wrap(bytes);
+        for (int i = 0; i < header.length; i += CHUNK_ELEMENTS) {
+            int n = Math.min(CHUNK_ELEMENTS, header.length - i);
+            in.readFully(bytes, 0, n * bytesPerElement);
+            bb.clear();
+            copyValues(bb, header.isDouble, n, ret.data(), i);
+        }
+        return ret;
+    }
+
+    /**
+     * Read the values of the array at the given position in the file directly in to the data buffer of the target
+     * row vector, using memory mapped I/O. Values are mapped and copied in chunks, so no array of the full size is allocated.
+     */
+    public static void readArrayInto(File file, long position, INDArray target) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            FileChannel channel = raf.getChannel();
+            raf.seek(position);
+            ArrayHeader header = readHeader(raf);
+            if (header.length != target.length() || !target.isRowVector())
+                throw new IllegalStateException("Cannot read array of length " + header.length + " in to array with shape "
+                        + Arrays.toString(target.shape()));
+            //Row vector that is not the whole of its buffer: read in to a copy, and assign
+            INDArray dest = (isWholeBuffer(target) ? target : Nd4j.create(1, header.length));
+            long dataStart = raf.getFilePointer();
+            int bytesPerElement = (header.isDouble ? 8 : 4);
+            for (int i = 0; i < header.length; i += CHUNK_ELEMENTS) {
+                int n = Math.min(CHUNK_ELEMENTS, header.length - i);
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY,
+                        dataStart + (long) i * bytesPerElement, (long) n * bytesPerElement);
+                copyValues(mapped, header.isDouble, n, dest.data(), i);
+            }
+            if (dest != target)
+                target.assign(dest);
+        }
+    }
+
+    private static boolean isWholeBuffer(INDArray arr) {
+        return arr.offset() == 0 && arr.data().length() == arr.length();
+    }
+
+    /** Copy n values (big endian, as written by writeArray) from src to the given buffer, starting at element offset */
+    private static void copyValues(ByteBuffer src, boolean isDouble, int n, DataBuffer dest, int offset) {
+        boolean destDouble = dest.dataType() == DataBuffer.Type.DOUBLE;
+        if (isDouble && destDouble) {
+            DoubleBuffer from = src.asDoubleBuffer();
+            from.limit(n);
+            DoubleBuffer to = dest.asNioDouble();
+            to.position(offset);
+            to.put(from);
+        } else if (!isDouble && !destDouble) {
+            FloatBuffer from = src.asFloatBuffer();
+            from.limit(n);
+            FloatBuffer to = dest.asNioFloat();
+            to.position(offset);
+            to.put(from);
+        } else {
+            //Different data type: convert element-wise
+            for (int i = 0; i < n; i++)
+                dest.put(offset + i, isDouble ? src.getDouble(i * 8) : src.getFloat(i * 4));
+        }
+    }
+
+    private static ArrayHeader readHeader(DataInput in) throws IOException {
+        if (in.readInt() != ARRAY_MAGIC)
+            throw new IOException("Invalid array data: unexpected header");
+        ArrayHeader header = new ArrayHeader();
+        header.isDouble = in.readByte() == TYPE_DOUBLE;
+        header.ordering = in.readChar();
+        header.shape = new int[in.readInt()];
+        header.length = 1;
+        for (int i = 0; i < header.shape.length; i++) {
+            header.shape[i] = in.readInt();
+            header.length *= header.shape[i];
+        }
+        return header;
+    }
+
+    /**
+     * Whether the state of the given layer updaters can be written in the raw format: all must be BaseUpdaters, and
+     * all GradientUpdaters must have a public no-arg constructor, and a public getter and setter (of type number,
+     * int[], double[] or INDArray) for each of their fields.
+     */
+    public static boolean isSupported(Updater[] layerUpdaters) {
+        for (Updater u : layerUpdaters) {
+            if (!(u instanceof BaseUpdater))
+                return false;
+            for (GradientUpdater gu : ((BaseUpdater) u).getUpdaterForVariable().values()) {
+                try {
+                    gu.getClass().getConstructor();
+                } catch (NoSuchMethodException e) {
+                    return false;
+                }
+                if (stateProperties(gu.getClass()) == null)
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    /** Number of bytes written by {@link #writeUpdaterState(Updater[], DataOutputStream)} for the given layer updaters */
+    public static long updaterStateSize(Updater[] layerUpdaters) {
+        long size = 4 + 4;
+        for (Updater u : layerUpdaters) {
+            Map<String, GradientUpdater> map = ((BaseUpdater) u).getUpdaterForVariable();
+            size += 4;
+            for (Map.Entry<String, GradientUpdater> entry : map.entrySet()) {
+                GradientUpdater gu = entry.getValue();
+                size += utfSize(entry.getKey()) + utfSize(gu.getClass().getName()) + 4;
+                for (PropertyDescriptor pd : stateProperties(gu.getClass()))
+                    size += utfSize(pd.getName()) + valueSize(get(pd, gu), kindOf(pd.getPropertyType()));
+            }
+        }
+        return size;
+    }
+
+    /** Write the state of the given layer updaters. {@link #isSupported(Updater[])} must be true */
+    public static void writeUpdaterState(Updater[] layerUpdaters, DataOutputStream out) throws IOException {
+        out.writeInt(UPDATER_MAGIC);
+        out.writeInt(layerUpdaters.length);
+        for (Updater u : layerUpdaters) {
+            Map<String, GradientUpdater> map = ((BaseUpdater) u).getUpdaterForVariable();
+            out.writeInt(map.size());
+            for (Map.Entry<String, GradientUpdater> entry : map.entrySet()) {
+                GradientUpdater gu = entry.getValue();
+                out.writeUTF(entry.getKey());
+                out.writeUTF(gu.getClass().getName());
+                List<PropertyDescriptor> properties = stateProperties(gu.getClass());
+                out.writeInt(properties.size());
+                for (PropertyDescriptor pd : properties) {
+                    out.writeUTF(pd.getName());
+                    writeValue(get(pd, gu), kindOf(pd.getPropertyType()), out);
+                }
+            }
+        }
+    }
+
+    /**
+     * Read updater state written by {@link #writeUpdaterState(Updater[], DataOutputStream)} in to the given layer
+     * updaters, which must be BaseUpdaters of the same network configuration.
+     */
+    public static void readUpdaterState(Updater[] layerUpdaters, DataInputStream in) throws IOException {
+        if (in.readInt() != UPDATER_MAGIC)
+            throw new IOException("Invalid updater state: unexpected header");
+        int numLayers = in.readInt();
+        if (numLayers != layerUpdaters.length)
+            throw new IllegalStateException("Updater state has " + numLayers + " layers; expected " + layerUpdaters.length);
+        for (Updater u : layerUpdaters) {
+            Map<String, GradientUpdater> map = ((BaseUpdater) u).getUpdaterForVariable();
+            map.clear();
+            int numVariables = in.readInt();
+            for (int i = 0; i < numVariables; i++) {
+                String variable = in.readUTF();
+                String className = in.readUTF();
+                GradientUpdater gu;
+                Map<String, PropertyDescriptor> properties = new HashMap<>();
+                try {
+                    gu = (GradientUpdater) Class.forName(className).getConstructor().newInstance();
+                } catch (ReflectiveOperationException e) {
+                    throw new IOException("Cannot create GradientUpdater of type " + className, e);
+                }
+                List<PropertyDescriptor> list = stateProperties(gu.getClass());
+                if (list == null)
+                    throw new IOException("Cannot restore state of GradientUpdater of type " + className);
+                for (PropertyDescriptor pd : list)
+                    properties.put(pd.getName(), pd);
+
+                int numProperties = in.readInt();
+                for (int j = 0; j < numProperties; j++) {
+                    String name = in.readUTF();
+                    Object value = readValue(in);
+                    PropertyDescriptor pd = properties.get(name);
+                    if (pd == null)
+                        continue;   //Property no longer present in this version
+                    if (value != null || !pd.getPropertyType().isPrimitive())
+                        set(pd, gu, value);
+                }
+                map.put(variable, gu);
+            }
+        }
+    }
+
+    /**
+     * The public properties holding the state of the given GradientUpdater class: one per (non-static, non-transient)
+     * field, with the same name. Null if any field doesn't have a public getter and setter of a supported type.
+     */
+    private static List<PropertyDescriptor> stateProperties(Class<?> c) {
+        Map<String, PropertyDescriptor> byName = new HashMap<>();
+        try {
+            for (PropertyDescriptor pd : Introspector.getBeanInfo(c, Object.class).getPropertyDescriptors())
+                byName.put(pd.getName(), pd);
+        } catch (IntrospectionException e) {
+            return null;
+        }
+
+        List<PropertyDescriptor> out = new ArrayList<>();
+        for (Class<?> cls = c; cls != null && cls != Object.class; cls = cls.getSuperclass()) {
+            for (Field f : cls.getDeclaredFields()) {
+                int mod = f.getModifiers();
+                if (Modifier.isStatic(mod) || Modifier.isTransient(mod))
+                    continue;
+                PropertyDescriptor pd = byName.get(f.getName());
+                if (pd == null || pd.getReadMethod() == null || pd.getWriteMethod() == null || kindOf(pd.getPropertyType()) < 0)
+                    return null;
+                out.add(pd);
+            }
+        }
+        return out;
+    }
+
+    private static Object get(PropertyDescriptor pd, Object bean) {
+        try {
+            return pd.getReadMethod().invoke(bean);
+        } catch (ReflectiveOperationException e) {
+            throw new RuntimeException("Cannot get updater property " + pd.getName(), e);
+        }
+    }
+
+    private static void set(PropertyDescriptor pd, Object bean, Object value) {
+        try {
+            pd.getWriteMethod().invoke(bean, value);
+        } catch (ReflectiveOperationException e) {
+            throw new RuntimeException("Cannot set updater property " + pd.getName(), e);
+        }
+    }
+
+    /** Number of bytes written by DataOutputStream.writeUTF for the given string */
+    private static long utfSize(String str) {
+        long size = 2;
+        for (int i = 0; i < str.length(); i++) {
+            char c = str.charAt(i);
+            if (c >= 0x0001 && c <= 0x007F) size += 1;
+            else if (c > 0x07FF) size += 3;
+            else size += 2;
+        }
+        return size;
+    }
+
+    private static long valueSize(Object value, int kind) {
+        if (value == null)
+            return 1;
+        switch (kind) {
+            case KIND_DOUBLE:
+            case KIND_LONG:
+                return 1 + 8;
+            case KIND_FLOAT:
+            case KIND_INT:
+                return 1 + 4;
+            case KIND_BOOLEAN:
+                return 1 + 1;
+            case KIND_INT_ARRAY:
+                return 1 + 4 + 4L * ((int[]) value).length;
+            case KIND_DOUBLE_ARRAY:
+                return 1 + 4 + 8L * ((double[]) value).length;
+            default:
+                return 1 + arraySize((INDArray) value);
+        }
+    }
+
+    private static int kindOf(Class<?> c) {
+        if (c == double.class || c == Double.class) return KIND_DOUBLE;
+        if (c == float.class || c == Float.class) return KIND_FLOAT;
+        if (c == int.class || c == Integer.class) return KIND_INT;
+        if (c == long.class || c == Long.class) return KIND_LONG;
+        if (c == boolean.class || c == Boolean.class) return KIND_BOOLEAN;
+        if (c == int[].class) return KIND_INT_ARRAY;
+        if (c == double[].class) return KIND_DOUBLE_ARRAY;
+        if (INDArray.class.isAssignableFrom(c)) return KIND_INDARRAY;
+        return -1;
+    }
+
+    private static void writeValue(Object value, int kind, DataOutputStream out) throws IOException {
+        if (value == null) {
+            out.writeByte(KIND_NULL);
+            return;
+        }
+        out.writeByte(kind);
+        switch (kind) {
+            case KIND_DOUBLE:
+                out.writeDouble((Double) value);
+                break;
+            case KIND_FLOAT:
+                out.writeFloat((Float) value);
+                break;
+            case KIND_INT:
+                out.writeInt((Integer) value);
+                break;
+            case KIND_LONG:
+                out.writeLong((Long) value);
+                break;
+            case KIND_BOOLEAN:
+                out.writeBoolean((Boolean) value);
+                break;
+            case KIND_INT_ARRAY:
+                int[] ints = (int[]) value;
+                out.writeInt(ints.length);
+                for (int i : ints) out.writeInt(i);
+                break;
+            case KIND_DOUBLE_ARRAY:
+                double[] doubles = (double[]) value;
+                out.writeInt(doubles.length);
+                for (double d : doubles) out.writeDouble(d);
+                break;
+            default:
+                writeArray((INDArray) value, out);
+        }
+    }
+
+    private static Object readValue(DataInputStream in) throws IOException {
+        byte kind = in.readByte();
+        switch (kind) {
+            case KIND_NULL:
+                return null;
+            case KIND_DOUBLE:
+                return in.readDouble();
+            case KIND_FLOAT:
+                return in.readFloat();
+            case KIND_INT:
+                return in.readInt();
+            case KIND_LONG:
+                return in.readLong();
+            case KIND_BOOLEAN:
+                return in.readBoolean();
+            case KIND_INT_ARRAY:
+                int[] ints = new int[in.readInt()];
+                for (int i = 0; i < ints.length; i++) ints[i] = in.readInt();
+                return ints;
+            case KIND_DOUBLE_ARRAY:
+                double[] doubles = new double[in.readInt()];
+                for (int i = 0; i < doubles.length; i++) doubles[i] = in.readDouble();
+                return doubles;
+            case KIND_INDARRAY:
+                return readArray(in);
+            default:
+                throw new IOException("Invalid updater state: unknown field type " + kind);
+        }
+    }
+
+    private static class ArrayHeader {
+        private boolean isDouble;
+        private char ordering;
+        private int[] shape;
+        private int length;
+    }
+
+    private static class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        private CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+
+    private static class NonClosingOutputStream extends FilterOutputStream {
+        private NonClosingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ *
+ *  * Copyright 2016 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+package org.deeplearning4j.clustering.hnsw;
+
+import org.junit.Test;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Comparator;
+
+import static org.junit.Assert.*;
+
+public class HnswIndexTest {
+
+    @Test
+    public void testNearestIsSelf() {
+        Nd4j.getRandom().setSeed(12345);
+        INDArray points = Nd4j.randn(500, 20);
+        HnswIndex index = new HnswIndex.Builder().m(8).efConstruction(50).workers(1).build(points);
+
+        assertEquals(500, index.size());
+        assertEquals(20, index.dims());
+        for (int i = 0; i < 500; i += 10) {
+            int[] result = index.search(points.getRow(i), 5);
+            assertEquals(5, result.length);
+            assertEquals(i, result[0]);
+        }
+    }
+
+    @Test
+    public void testRecallVsExact() {
+        Nd4j.getRandom().setSeed(12345);
+        int n = 2000;
+        int k = 10;
+        INDArray points = Nd4j.randn(n, 16);
+        INDArray queries = Nd4j.randn(50, 16);
+        HnswIndex index = new HnswIndex.Builder().m(12).efConstruction(100).ef(100).workers(4).build(points);
+
+        INDArray unit = points.divColumnVector(points.norm2(1));
+        int found = 0;
+        for (int q = 0; q < queries.rows(); q++) {
+            INDArray similarity = unit.mmul(queries.getRow(q).transpose());
+            int[] exact = topK(similarity, k);
+            int[] approx = index.search(queries.getRow(q), k);
+            for (int e : exact)
+                for (int a : approx)
+                    if (e == a) found++;
+        }
+        double recall = found / (double) (queries.rows() * k);
+        assertTrue("Recall too low: " + recall, recall > 0.9);
+    }
+
+    @Test
+    public void testBatchSearchAndPersistence() throws Exception {
+        Nd4j.getRandom().setSeed(12345);
+        INDArray points = Nd4j.randn(300, 10);
+        INDArray queries = Nd4j.randn(20, 10);
+        HnswIndex index = new HnswIndex.Builder().m(6).efConstruction(40).ef(30).workers(2).build(points);
+
+        int[][] batch = index.search(queries, 5, 3);
+        for (int i = 0; i < queries.rows(); i++)
+            assertArrayEquals(index.search(queries.getRow(i), 5), batch[i]);
+
+        File file = File.createTempFile("hnswIndex", ".bin");
+        file.deleteOnExit();
+        index.save(file);
+        HnswIndex restored = HnswIndex.load(file);
+
+        assertEquals(index.size(), restored.size());
+        assertEquals(index.dims(), restored.dims());
+        assertEquals(30, restored.getEf());
+        int[][] restoredBatch = restored.search(queries, 5, 1);
+        for (int i = 0; i < queries.rows(); i++)
+            assertArrayEquals(batch[i], restoredBatch[i]);
+    }
+
+    private static int[] topK(INDArray similarity, int k) {
+        final double[] values = new double[similarity.length()];
+        Integer[] idx = new Integer[values.length];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = similarity.getDouble(i);
+            idx[i] = i;
+        }
+        Arrays.sort(idx, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer o1, Integer o2) {
+                return Double.compare(values[o2], values[o1]);
+            }
+        });
+        int[] out = new int[k];
+        for (int i = 0; i < k; i++)
+            out[i] = idx[i];
+        return out;
+    }
+}
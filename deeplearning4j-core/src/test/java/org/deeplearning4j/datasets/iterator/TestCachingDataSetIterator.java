@@ -0,0 +1,219 @@
+package org.deeplearning4j.datasets.iterator;
+
+import org.junit.Test;
+import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.dataset.api.DataSetPreProcessor;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class TestCachingDataSetIterator {
+
+    private static File getCacheDir() throws Exception {
+        File dir = File.createTempFile("dl4jDataSetCache", "");
+        if (!dir.delete() || !dir.mkdir()) throw new IllegalStateException("Could not create temp directory");
+        dir.deleteOnExit();
+        return dir;
+    }
+
+    /** Minibatch i has all feature values equal to i */
+    private static List<DataSet> getData(int numBatches, int batchSize) {
+        List<DataSet> list = new ArrayList<>();
+        for (int i = 0; i < numBatches; i++) {
+            list.add(new DataSet(Nd4j.valueArrayOf(batchSize, 4, i), Nd4j.rand(batchSize, 3)));
+        }
+        return list;
+    }
+
+    private static List<DataSet> collect(DataSetIterator iter) {
+        List<DataSet> out = new ArrayList<>();
+        while (iter.hasNext())
+            out.add(iter.next());
+        return out;
+    }
+
+    private static void assertDataSetsEqual(List<DataSet> expected, List<DataSet> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getFeatureMatrix(), actual.get(i).getFeatureMatrix());
+            assertEquals(expected.get(i).getLabels(), actual.get(i).getLabels());
+            assertEquals(expected.get(i).getFeaturesMaskArray(), actual.get(i).getFeaturesMaskArray());
+            assertEquals(expected.get(i).getLabelsMaskArray(), actual.get(i).getLabelsMaskArray());
+        }
+    }
+
+    @Test
+    public void testCachedEpochsMatchFirstPass() throws Exception {
+        File dir = getCacheDir();
+        List<DataSet> data = getData(7, 5);
+        //Small shards, so that the cache is split over multiple files
+        CachingDataSetIterator iter = new CachingDataSetIterator(new TestListIterator(data), dir, false, 12345, 200);
+        assertFalse(iter.isCacheComplete());
+
+        assertDataSetsEqual(data, collect(iter));
+        assertTrue(iter.isCacheComplete());
+        assertTrue(BinaryDataSetCache.isComplete(dir));
+        assertTrue(BinaryDataSetCache.getShards(dir).size() > 1);
+
+        for (int epoch = 0; epoch < 2; epoch++) {
+            iter.reset();
+            assertDataSetsEqual(data, collect(iter));
+        }
+
+        //Read only use of the complete cache
+        CachingDataSetIterator readOnly = new CachingDataSetIterator(null, dir, false, 12345, 200);
+        assertDataSetsEqual(data, collect(readOnly));
+        assertEquals(4, readOnly.inputColumns());
+        assertEquals(3, readOnly.totalOutcomes());
+        assertEquals(5, readOnly.batch());
+
+        BinaryDataSetCache.clear(dir);
+    }
+
+    @Test
+    public void testShuffle() throws Exception {
+        File dir = getCacheDir();
+        int numBatches = 20;
+        List<DataSet> data = getData(numBatches, 2);
+        CachingDataSetIterator iter = new CachingDataSetIterator(new TestListIterator(data), dir, true, 12345);
+        assertDataSetsEqual(data, collect(iter));  //First pass: source order
+
+        List<Integer> order = new ArrayList<>();
+        iter.reset();
+        for (DataSet ds : collect(iter)) {
+            int idx = (int) ds.getFeatureMatrix().getDouble(0, 0);
+            assertEquals(data.get(idx).getLabels(), ds.getLabels());
+            order.add(idx);
+        }
+        assertEquals(numBatches, new HashSet<>(order).size());
+        boolean inOrder = true;
+        for (int i = 0; i < numBatches; i++)
+            inOrder &= order.get(i) == i;
+        assertFalse(inOrder);
+
+        BinaryDataSetCache.clear(dir);
+    }
+
+    @Test
+    public void testMasksAndResetDuringFirstPass() throws Exception {
+        File dir = getCacheDir();
+        List<DataSet> data = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            DataSet ds = new DataSet(Nd4j.rand(new int[]{3, 2, 5}), Nd4j.rand(new int[]{3, 4, 5}),
+                    Nd4j.ones(3, 5), (i % 2 == 0 ? Nd4j.zeros(3, 5) : null));
+            data.add(ds);
+        }
+
+        CachingDataSetIterator iter = new CachingDataSetIterator(new TestListIterator(data), dir);
+        iter.next();
+        iter.reset();   //Partial first pass: discarded
+        assertFalse(BinaryDataSetCache.isComplete(dir));
+
+        assertDataSetsEqual(data, collect(iter));
+        iter.reset();
+        assertDataSetsEqual(data, collect(iter));
+
+        BinaryDataSetCache.clear(dir);
+    }
+
+    @Test
+    public void testMultipleEpochs() throws Exception {
+        File dir = getCacheDir();
+        int numBatches = 5;
+        int numEpochs = 3;
+        MultipleEpochsIterator iter = new MultipleEpochsIterator(numEpochs,
+                new CachingDataSetIterator(new TestListIterator(getData(numBatches, 3)), dir));
+        Set<Integer> seen = new HashSet<>();
+        int count = 0;
+        while (iter.hasNext()) {
+            DataSet ds = iter.next();
+            if (ds == null) break;
+            seen.add((int) ds.getFeatureMatrix().getDouble(0, 0));
+            count++;
+        }
+        assertEquals(numBatches * numEpochs, count);
+        assertEquals(numBatches, seen.size());
+
+        BinaryDataSetCache.clear(dir);
+    }
+
+    private static class TestListIterator implements DataSetIterator {
+        private final List<DataSet> list;
+        private int cursor;
+
+        private TestListIterator(List<DataSet> list) {
+            this.list = list;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return cursor < list.size();
+        }
+
+        @Override
+        public DataSet next() {
+            return list.get(cursor++);
+        }
+
+        @Override
+        public DataSet next(int num) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int totalExamples() {
+            return list.size() * batch();
+        }
+
+        @Override
+        public int inputColumns() {
+            return list.get(0).getFeatureMatrix().size(1);
+        }
+
+        @Override
+        public int totalOutcomes() {
+            return list.get(0).getLabels().size(1);
+        }
+
+        @Override
+        public void reset() {
+            cursor = 0;
+        }
+
+        @Override
+        public int batch() {
+            return list.get(0).numExamples();
+        }
+
+        @Override
+        public int cursor() {
+            return cursor;
+        }
+
+        @Override
+        public int numExamples() {
+            return totalExamples();
+        }
+
+        @Override
+        public void setPreProcessor(DataSetPreProcessor preProcessor) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public List<String> getLabels() {
+            return null;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
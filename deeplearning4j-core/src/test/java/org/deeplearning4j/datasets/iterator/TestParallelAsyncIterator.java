@@ -0,0 +1,131 @@
+package org.deeplearning4j.datasets.iterator;
+
+import org.deeplearning4j.datasets.iterator.impl.ListDataSetIterator;
+import org.deeplearning4j.nn.graph.util.ComputationGraphUtil;
+import org.junit.Test;
+import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.dataset.api.MultiDataSet;
+import org.nd4j.linalg.dataset.api.iterator.MultiDataSetIterator;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class TestParallelAsyncIterator {
+
+    /** Source k has numExamples examples, with feature/label value k*1000 + i for example i */
+    private static List<DataSetIterator> getSources(int numSources, int numExamples, int batchSize) {
+        List<DataSetIterator> sources = new ArrayList<>();
+        for (int k = 0; k < numSources; k++) {
+            List<DataSet> list = new ArrayList<>();
+            for (int i = 0; i < numExamples; i++) {
+                double value = k * 1000 + i;
+                list.add(new DataSet(Nd4j.valueArrayOf(1, 3, value), Nd4j.valueArrayOf(1, 2, value)));
+            }
+            sources.add(new ListDataSetIterator(list, batchSize));
+        }
+        return sources;
+    }
+
+    @Test
+    public void testPreserveOrder() {
+        int numSources = 3;
+        int numExamples = 10;
+        int batchSize = 2;
+        ParallelAsyncDataSetIterator iter = new ParallelAsyncDataSetIterator(getSources(numSources, numExamples, batchSize), 4, true);
+
+        for (int epoch = 0; epoch < 2; epoch++) {
+            int count = 0;
+            while (iter.hasNext()) {
+                DataSet ds = iter.next();
+                int source = count % numSources;
+                int batch = count / numSources;
+                assertEquals(batchSize, ds.numExamples());
+                assertEquals(source * 1000 + batch * batchSize, ds.getFeatureMatrix().getDouble(0, 0), 0.0);
+                assertEquals(source * 1000 + batch * batchSize + 1, ds.getLabels().getDouble(1, 0), 0.0);
+                count++;
+            }
+            assertEquals(numSources * numExamples / batchSize, count);
+            assertEquals(numSources * numExamples / batchSize, iter.getNumProduced() / (epoch + 1));
+            iter.reset();
+        }
+        iter.shutdown();
+    }
+
+    @Test
+    public void testUnordered() {
+        int numSources = 4;
+        int numExamples = 12;
+        ParallelAsyncDataSetIterator iter = new ParallelAsyncDataSetIterator(getSources(numSources, numExamples, 3), 8, false);
+
+        Set<Double> seen = new HashSet<>();
+        while (iter.hasNext()) {
+            DataSet ds = iter.next();
+            for (int i = 0; i < ds.numExamples(); i++)
+                assertTrue(seen.add(ds.getFeatureMatrix().getDouble(i, 0)));
+        }
+        assertEquals(numSources * numExamples, seen.size());
+        assertEquals(0, iter.getQueueDepth());
+        assertTrue(iter.getStarvationCount() >= 0);
+        iter.shutdown();
+    }
+
+    @Test
+    public void testNextNum() {
+        ParallelAsyncDataSetIterator iter = new ParallelAsyncDataSetIterator(getSources(2, 9, 3), 4, true);
+
+        //Order: source 0 [0,1,2], source 1 [1000,1001,1002], source 0 [3,4,5], ...
+        DataSet first = iter.next(4);
+        assertEquals(4, first.numExamples());
+        assertEquals(0.0, first.getFeatureMatrix().getDouble(0, 0), 0.0);
+        assertEquals(1000.0, first.getFeatureMatrix().getDouble(3, 0), 0.0);
+
+        DataSet second = iter.next(4);
+        assertEquals(4, second.numExamples());
+        assertEquals(1001.0, second.getFeatureMatrix().getDouble(0, 0), 0.0);
+        assertEquals(1002.0, second.getLabels().getDouble(1, 0), 0.0);
+        assertEquals(3.0, second.getFeatureMatrix().getDouble(2, 0), 0.0);
+
+        int total = 8;
+        int calls = 2;
+        while (iter.hasNext()) {
+            total += iter.next(5).numExamples();
+            calls++;
+        }
+        assertEquals(18, total);
+        //One element consumed per call, including calls returning the leftover of a split
+        assertEquals(calls, iter.getNumConsumed());
+        iter.shutdown();
+    }
+
+    @Test
+    public void testCursor() {
+        ParallelAsyncDataSetIterator iter = new ParallelAsyncDataSetIterator(getSources(2, 8, 4), 4, true);
+        while (iter.hasNext())
+            iter.next();
+        assertEquals(16, iter.cursor());
+        iter.shutdown();
+    }
+
+    @Test
+    public void testMultiDataSet() {
+        List<MultiDataSetIterator> sources = new ArrayList<>();
+        for (DataSetIterator iter : getSources(3, 6, 2))
+            sources.add(ComputationGraphUtil.toMultiDataSetIterator(iter));
+        ParallelAsyncMultiDataSetIterator iter = new ParallelAsyncMultiDataSetIterator(sources, 4, true);
+
+        MultiDataSet first = iter.next(3);
+        assertEquals(3, first.getFeatures()[0].size(0));
+        assertEquals(1000.0, first.getFeatures()[0].getDouble(2, 0), 0.0);
+
+        int total = 3;
+        while (iter.hasNext())
+            total += iter.next().getFeatures()[0].size(0);
+        assertEquals(18, total);
+        iter.shutdown();
+    }
+}
@@ -251,14 +251,56 @@ public class ConvolutionLayerTest {
         assertEquals(expectedOutput, delta);
     }
 
+    @Test
+    public void testDirectConvolutionMatchesIm2col() {
+        int[][] strides = new int[][]{{1, 1}, {2, 2}, {2, 1}};
+        int[][] paddings = new int[][]{{0, 0}, {1, 1}, {1, 0}};
+        for (int t = 0; t < strides.length; t++) {
+            Layer im2col = getCNNConfig(2, 3, new int[]{3, 3}, strides[t], paddings[t], ConvolutionLayer.AlgoMode.IM2COL);
+            Layer direct = getCNNConfig(2, 3, new int[]{3, 3}, strides[t], paddings[t], ConvolutionLayer.AlgoMode.DIRECT);
+            direct.setParams(im2col.params());
+
+            INDArray input = Nd4j.rand(new int[]{4, 2, 7, 8});
+            INDArray outIm2col = im2col.activate(input);
+            INDArray outDirect = direct.activate(input);
+            assertArrayEquals(outIm2col.shape(), outDirect.shape());
+            assertEquals(outIm2col, outDirect);
+
+            INDArray epsilon = Nd4j.rand(outIm2col.shape());
+            Pair<Gradient, INDArray> pIm2col = im2col.backpropGradient(epsilon.dup());
+            Pair<Gradient, INDArray> pDirect = direct.backpropGradient(epsilon.dup());
+            assertEquals(pIm2col.getFirst().getGradientFor("W"), pDirect.getFirst().getGradientFor("W"));
+            assertEquals(pIm2col.getFirst().getGradientFor("b"), pDirect.getFirst().getGradientFor("b"));
+            assertEquals(pIm2col.getSecond(), pDirect.getSecond());
+        }
+    }
+
+    @Test
+    public void testAutoAlgoSelection() {
+        Layer layer = getCNNConfig(2, 3, new int[]{3, 3}, new int[]{1, 1}, new int[]{0, 0}, ConvolutionLayer.AlgoMode.AUTO);
+        org.deeplearning4j.nn.layers.convolution.ConvolutionLayer convLayer = (org.deeplearning4j.nn.layers.convolution.ConvolutionLayer) layer;
+        INDArray input = Nd4j.rand(new int[]{2, 2, 6, 6});
+        INDArray out = layer.activate(input);
+
+        ConvolutionLayer.AlgoMode selected = convLayer.getAlgo();
+        assertNotEquals(ConvolutionLayer.AlgoMode.AUTO, selected);
+        assertEquals(out, layer.activate(input));
+        assertEquals(selected, convLayer.getAlgo());
+    }
+
     //////////////////////////////////////////////////////////////////////////////////
 
     private static Layer getCNNConfig(int nIn, int nOut, int[] kernelSize, int[] stride, int[] padding){
+        return getCNNConfig(nIn, nOut, kernelSize, stride, padding, ConvolutionLayer.AlgoMode.IM2COL);
+    }
+
+    private static Layer getCNNConfig(int nIn, int nOut, int[] kernelSize, int[] stride, int[] padding, ConvolutionLayer.AlgoMode algoMode){
 
         ConvolutionLayer layer = new ConvolutionLayer.Builder(kernelSize, stride, padding)
                 .nIn(nIn)
                 .nOut(nOut)
                 .activation("sigmoid")
+                .algoMode(algoMode)
                 .build();
 
         NeuralNetConfiguration conf = new NeuralNetConfiguration.Builder()
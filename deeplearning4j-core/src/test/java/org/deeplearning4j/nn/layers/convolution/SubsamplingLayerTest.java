@@ -199,6 +199,24 @@ public class SubsamplingLayerTest {
 
     //////////////////////////////////////////////////////////////////////////////////
 
+    @Test
+    public void testMaxPoolInfinities() {
+        double inf = Double.POSITIVE_INFINITY;
+        INDArray input = Nd4j.create(new double[]{
+                -inf, -inf, -inf, 3., 2., inf,
+                -inf, -inf, 1., -inf, inf, 1.
+        }, new int[]{1, 1, 2, 6});
+
+        Pair<INDArray, INDArray> pooled = ConvolutionHelpers.maxPool(input, new int[]{2, 2}, new int[]{2, 2}, new int[]{0, 0});
+        INDArray max = pooled.getFirst();
+        assertArrayEquals(new int[]{1, 1, 1, 3}, max.shape());
+        assertEquals(-inf, max.getDouble(0), 0.0);
+        assertEquals(3.0, max.getDouble(1), 0.0);
+        assertEquals(inf, max.getDouble(2), 0.0);
+        //Index of the first maximum in each window
+        assertEquals(Nd4j.create(new double[]{0, 1, 1}, new int[]{1, 1, 1, 3}), pooled.getSecond());
+    }
+
     private Layer getSubsamplingLayer(SubsamplingLayer.PoolingType pooling){
         NeuralNetConfiguration conf = new NeuralNetConfiguration.Builder()
                 .gradientNormalization(GradientNormalization.RenormalizeL2PerLayer)
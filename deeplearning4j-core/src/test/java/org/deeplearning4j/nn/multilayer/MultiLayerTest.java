@@ -36,7 +36,9 @@ import org.deeplearning4j.nn.conf.layers.*;
 import org.deeplearning4j.nn.conf.layers.BatchNormalization;
 import org.deeplearning4j.nn.conf.preprocessor.CnnToFeedForwardPreProcessor;
 import org.deeplearning4j.nn.conf.preprocessor.FeedForwardToCnnPreProcessor;
+import org.deeplearning4j.nn.conf.preprocessor.FeedForwardToRnnPreProcessor;
 import org.deeplearning4j.nn.conf.preprocessor.ReshapePreProcessor;
+import org.deeplearning4j.nn.conf.preprocessor.RnnToFeedForwardPreProcessor;
 import org.deeplearning4j.nn.gradient.DefaultGradient;
 import org.deeplearning4j.nn.gradient.Gradient;
 import org.deeplearning4j.nn.layers.BaseOutputLayer;
@@ -675,6 +677,108 @@ public class MultiLayerTest {
         double score = net.score(new DataSet(input,labels));
     }
 
+    @Test
+    public void testOutputWithWorkspace(){
+        MultiLayerConfiguration conf = new NeuralNetConfiguration.Builder()
+                .seed(12345)
+                .list()
+                .layer(0, new DenseLayer.Builder().nIn(4).nOut(10).activation("tanh").weightInit(WeightInit.XAVIER).build())
+                .layer(1, new DenseLayer.Builder().nIn(10).nOut(8).activation("relu").weightInit(WeightInit.XAVIER).build())
+                .layer(2, new OutputLayer.Builder(LossFunctions.LossFunction.MCXENT).nIn(8).nOut(3)
+                        .activation("softmax").weightInit(WeightInit.XAVIER).build())
+                .build();
+        MultiLayerNetwork net = new MultiLayerNetwork(conf);
+        net.init();
+
+        INDArray input = Nd4j.rand(5, 4);
+        INDArray expected = net.output(input, false);
+        INDArray out = net.outputWithWorkspace(input);
+        assertEquals(expected, out);
+
+        //Same minibatch size: buffer is reused
+        INDArray input2 = Nd4j.rand(5, 4);
+        INDArray out2 = net.outputWithWorkspace(input2);
+        assertTrue(out == out2);
+        assertEquals(net.output(input2, false), out2);
+
+        //Different minibatch size, and minibatch larger than the workspace limit
+        InferenceWorkspace workspace = new InferenceWorkspace(8, 2);
+        INDArray input3 = Nd4j.rand(3, 4);
+        assertEquals(net.output(input3, false), net.outputWithWorkspace(input3, workspace));
+        INDArray input4 = Nd4j.rand(20, 4);
+        assertEquals(net.output(input4, false), net.outputWithWorkspace(input4, workspace));
+    }
+
+    @Test
+    public void testOutputWithWorkspaceRnnPreProcessors(){
+        //Minibatch size passed to FeedForwardToRnnPreProcessor must be that of the input, not miniBatch*timeSeriesLength
+        MultiLayerConfiguration conf = new NeuralNetConfiguration.Builder()
+                .seed(12345)
+                .list()
+                .layer(0, new GravesLSTM.Builder().nIn(3).nOut(4).activation("tanh").weightInit(WeightInit.XAVIER).build())
+                .layer(1, new DenseLayer.Builder().nIn(4).nOut(5).activation("relu").weightInit(WeightInit.XAVIER).build())
+                .layer(2, new RnnOutputLayer.Builder(LossFunctions.LossFunction.MCXENT).nIn(5).nOut(2)
+                        .activation("softmax").weightInit(WeightInit.XAVIER).build())
+                .inputPreProcessor(1, new RnnToFeedForwardPreProcessor())
+                .inputPreProcessor(2, new FeedForwardToRnnPreProcessor())
+                .build();
+        MultiLayerNetwork net = new MultiLayerNetwork(conf);
+        net.init();
+
+        INDArray input = Nd4j.rand(new int[]{4, 3, 6});
+        INDArray expected = net.output(input, false);
+        INDArray out = net.outputWithWorkspace(input);
+        assertArrayEquals(new int[]{4, 2, 6}, out.shape());
+        assertEquals(expected, out);
+    }
+
+    @Test
+    public void testOutputWithWorkspaceConcurrent() throws Exception {
+        //The LSTM layer is activated via a per workspace copy: the network's layers must not store the inputs
+        MultiLayerConfiguration conf = new NeuralNetConfiguration.Builder()
+                .seed(12345)
+                .list()
+                .layer(0, new GravesLSTM.Builder().nIn(3).nOut(4).activation("tanh").weightInit(WeightInit.XAVIER).build())
+                .layer(1, new RnnOutputLayer.Builder(LossFunctions.LossFunction.MCXENT).nIn(4).nOut(2)
+                        .activation("softmax").weightInit(WeightInit.XAVIER).build())
+                .build();
+        final MultiLayerNetwork net = new MultiLayerNetwork(conf);
+        net.init();
+
+        int numThreads = 4;
+        final INDArray[] inputs = new INDArray[numThreads];
+        final INDArray[] expected = new INDArray[numThreads];
+        for (int i = 0; i < numThreads; i++) {
+            inputs[i] = Nd4j.rand(new int[]{i + 1, 3, 5});
+            expected[i] = net.output(inputs[i], false).dup();
+        }
+        net.getLayer(0).setInput(null);
+        net.getLayer(1).setInput(null);
+
+        final INDArray[][] outputs = new INDArray[numThreads][20];
+        Thread[] threads = new Thread[numThreads];
+        for (int i = 0; i < numThreads; i++) {
+            final int idx = i;
+            threads[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < outputs[idx].length; j++)
+                        outputs[idx][j] = net.outputWithWorkspace(inputs[idx]).dup();
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread t : threads)
+            t.join();
+
+        for (int i = 0; i < numThreads; i++) {
+            for (INDArray out : outputs[i])
+                assertEquals(expected[i], out);
+        }
+        assertNull(net.getLayer(0).input());
+        assertNull(net.getLayer(1).input());
+    }
+
     @Test
     @Ignore
     public void testCid() throws Exception {
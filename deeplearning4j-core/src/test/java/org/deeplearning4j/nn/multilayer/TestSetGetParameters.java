@@ -2,6 +2,7 @@ package org.deeplearning4j.nn.multilayer;
 
 import static org.junit.Assert.*;
 
+import java.io.ByteArrayInputStream;
 import java.util.Map;
 
 import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
@@ -14,7 +15,9 @@ import org.deeplearning4j.nn.conf.layers.GravesLSTM;
 import org.deeplearning4j.nn.conf.layers.OutputLayer;
 import org.deeplearning4j.nn.conf.layers.RBM;
 import org.deeplearning4j.nn.conf.layers.RnnOutputLayer;
+import org.deeplearning4j.nn.layers.BaseLayer;
 import org.deeplearning4j.nn.weights.WeightInit;
+import org.deeplearning4j.util.SerializationUtils;
 import org.junit.Test;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.factory.Nd4j;
@@ -98,4 +101,109 @@ public class TestSetGetParameters {
 		
 		assertEquals(net.params(),randomParams);
 	}
+
+	@Test
+	public void testParamsAreViewsOfFlattenedArray(){
+		MultiLayerConfiguration conf = new NeuralNetConfiguration.Builder()
+			.list()
+			.layer(0, new DenseLayer.Builder().nIn(4).nOut(5)
+					.weightInit(WeightInit.DISTRIBUTION).dist(new NormalDistribution(0, 1)).build())
+			.layer(1, new GravesLSTM.Builder().nIn(5).nOut(6)
+					.weightInit(WeightInit.DISTRIBUTION).dist(new NormalDistribution(0, 1)).build())
+			.layer(2, new RnnOutputLayer.Builder(LossFunction.MSE).nIn(6).nOut(3)
+					.weightInit(WeightInit.DISTRIBUTION).dist(new NormalDistribution(0, 1)).build())
+			.build();
+
+		MultiLayerNetwork net = new MultiLayerNetwork(conf);
+		net.init();
+
+		//No copy: same array every time
+		INDArray params = net.params();
+		assertTrue(params == net.params());
+		assertEquals(net.numParams(), params.length());
+
+		//Modifying the flattened array modifies the layer parameters, and vice versa
+		params.assign(0.5);
+		for( INDArray p : net.paramTable().values() ){
+			assertEquals(0.5, p.getDouble(0), 0.0);
+		}
+		net.getLayer(0).getParam("W").putScalar(0, 3.0);
+		assertEquals(3.0, params.getDouble(0), 0.0);
+
+		//setParams copies in to the existing array
+		INDArray randomParams = Nd4j.rand(params.shape());
+		net.setParams(randomParams);
+		assertTrue(params == net.params());
+		assertEquals(randomParams, net.params());
+		//Flattened in 'f' order: element 1 is W[1,0], element 4 is W[0,1]
+		INDArray w = net.getLayer(0).getParam("W");
+		assertEquals(randomParams.getDouble(1), w.getDouble(1, 0), 0.0);
+		assertEquals(randomParams.getDouble(4), w.getDouble(0, 1), 0.0);
+	}
+
+	@Test
+	public void testGradientWrittenToFlattenedArray(){
+		MultiLayerConfiguration conf = new NeuralNetConfiguration.Builder()
+			.list()
+			.layer(0, new DenseLayer.Builder().nIn(4).nOut(5).activation("tanh")
+					.weightInit(WeightInit.DISTRIBUTION).dist(new NormalDistribution(0, 1)).build())
+			.layer(1, new OutputLayer.Builder(LossFunction.MCXENT).nIn(5).nOut(3).activation("softmax")
+					.weightInit(WeightInit.DISTRIBUTION).dist(new NormalDistribution(0, 1)).build())
+			.build();
+
+		MultiLayerNetwork net = new MultiLayerNetwork(conf);
+		net.init();
+		INDArray input = Nd4j.rand(10, 4);
+		INDArray labels = Nd4j.zeros(10, 3);
+		for( int i=0; i<10; i++ ) labels.putScalar(i, i % 3, 1.0);
+
+		net.setInput(input);
+		net.setLabels(labels);
+		net.computeGradientAndScore();
+		Map<String,INDArray> first = net.gradient().gradientForVariable();
+		INDArray flattened = net.gradient().gradient();
+
+		//Layers write in to the flattened gradient array: same arrays on every call
+		net.computeGradientAndScore();
+		Map<String,INDArray> second = net.gradient().gradientForVariable();
+		assertTrue(flattened == net.gradient().gradient());
+		for( String key : first.keySet() ){
+			assertTrue(first.get(key) == second.get(key));
+		}
+
+		//Same gradient as when the layers allocate their gradients, which are then copied in
+		MultiLayerNetwork copy = net.clone();
+		for( int i=0; i<copy.getnLayers(); i++ ){
+			((BaseLayer) copy.getLayer(i)).setBackpropGradientViews(null);
+		}
+		copy.setInput(input);
+		copy.setLabels(labels);
+		copy.computeGradientAndScore();
+		assertEquals(flattened, copy.gradient().gradient());
+	}
+
+	@Test
+	public void testParamsAreViewsAfterSerialization() throws Exception {
+		MultiLayerConfiguration conf = new NeuralNetConfiguration.Builder()
+			.list()
+			.layer(0, new DenseLayer.Builder().nIn(4).nOut(5)
+					.weightInit(WeightInit.DISTRIBUTION).dist(new NormalDistribution(0, 1)).build())
+			.layer(1, new OutputLayer.Builder(LossFunction.MSE).nIn(5).nOut(3)
+					.weightInit(WeightInit.DISTRIBUTION).dist(new NormalDistribution(0, 1)).build())
+			.build();
+
+		MultiLayerNetwork net = new MultiLayerNetwork(conf);
+		net.init();
+
+		MultiLayerNetwork restored = SerializationUtils.readObject(new ByteArrayInputStream(SerializationUtils.toByteArray(net)));
+		assertEquals(net.params(), restored.params());
+
+		INDArray params = restored.params();
+		params.assign(0.5);
+		for( INDArray p : restored.paramTable().values() ){
+			assertEquals(0.5, p.getDouble(0), 0.0);
+		}
+		restored.getLayer(0).getParam("W").putScalar(0, 3.0);
+		assertEquals(3.0, params.getDouble(0), 0.0);
+	}
 }
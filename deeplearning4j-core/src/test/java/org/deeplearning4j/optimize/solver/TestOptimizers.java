@@ -13,6 +13,7 @@ import org.deeplearning4j.datasets.iterator.impl.IrisDataSetIterator;
 import org.deeplearning4j.nn.api.Layer;
 import org.deeplearning4j.nn.api.Model;
 import org.deeplearning4j.nn.api.OptimizationAlgorithm;
+import org.deeplearning4j.nn.conf.ComputationGraphConfiguration;
 import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
 import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
 import org.deeplearning4j.nn.conf.Updater;
@@ -21,6 +22,7 @@ import org.deeplearning4j.nn.conf.layers.OutputLayer;
 import org.deeplearning4j.nn.conf.layers.RBM;
 import org.deeplearning4j.nn.gradient.DefaultGradient;
 import org.deeplearning4j.nn.gradient.Gradient;
+import org.deeplearning4j.nn.graph.ComputationGraph;
 import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
 import org.deeplearning4j.nn.weights.WeightInit;
 import org.deeplearning4j.optimize.api.ConvexOptimizer;
@@ -113,6 +115,62 @@ public class TestOptimizers {
         }
     }
 
+    @Test
+    public void testLineSearchOptimizersFlattenedParams(){
+        //params() and gradient() return the network's flattened arrays (not copies): line search optimizers must
+        //snapshot the previous parameters and gradient, otherwise the score does not decrease (or becomes NaN)
+        DataSet ds = new IrisDataSetIterator(150,150).next();
+        ds.normalizeZeroMeanZeroUnitVariance();
+
+        OptimizationAlgorithm[] toTest = {
+                OptimizationAlgorithm.LINE_GRADIENT_DESCENT,
+                OptimizationAlgorithm.CONJUGATE_GRADIENT,
+                OptimizationAlgorithm.LBFGS
+        };
+
+        for( OptimizationAlgorithm oa : toTest ) {
+            MultiLayerNetwork network = new MultiLayerNetwork(getMLPConfigIris(oa,5));
+            network.init();
+            double scoreBefore = network.score(ds);
+            for( int i=0; i<5; i++ ) network.fit(ds);
+            double scoreAfter = network.score(ds);
+            assertTrue("MLN, OA= " + oa + ", score is NaN", !Double.isNaN(scoreAfter));
+            assertTrue("MLN, OA= " + oa + ", before= " + scoreBefore + ", after= " + scoreAfter, scoreAfter < scoreBefore);
+
+            ComputationGraph graph = new ComputationGraph(getGraphConfigIris(oa,5));
+            graph.init();
+            scoreBefore = graph.score(ds);
+            for( int i=0; i<5; i++ ) graph.fit(ds);
+            scoreAfter = graph.score(ds);
+            assertTrue("CG, OA= " + oa + ", score is NaN", !Double.isNaN(scoreAfter));
+            assertTrue("CG, OA= " + oa + ", before= " + scoreBefore + ", after= " + scoreAfter, scoreAfter < scoreBefore);
+        }
+    }
+
+    private static ComputationGraphConfiguration getGraphConfigIris(OptimizationAlgorithm oa, int nIterations) {
+        return new NeuralNetConfiguration.Builder()
+                .optimizationAlgo(oa)
+                .iterations(nIterations)
+                .learningRate(1e-1)
+                .seed(12345L)
+                .graphBuilder()
+                .addInputs("in")
+                .addLayer("dense", new DenseLayer.Builder().nIn(4).nOut(3)
+                        .weightInit(WeightInit.XAVIER)
+                        .updater(Updater.ADAGRAD)
+                        .activation("relu")
+                        .build(), "in")
+                .addLayer("out", new OutputLayer.Builder(LossFunction.MCXENT)
+                        .nIn(3).nOut(3)
+                        .weightInit(WeightInit.XAVIER)
+                        .updater(Updater.ADAGRAD)
+                        .activation("softmax")
+                        .build(), "dense")
+                .setOutputs("out")
+                .backprop(true).pretrain(false)
+                .build();
+    }
+
     private static MultiLayerConfiguration getMLPConfigIris(OptimizationAlgorithm oa, int nIterations) {
         MultiLayerConfiguration c = new NeuralNetConfiguration.Builder()
                 .optimizationAlgo(oa)
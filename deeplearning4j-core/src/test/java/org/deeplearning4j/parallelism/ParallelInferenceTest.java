@@ -0,0 +1,142 @@
+package org.deeplearning4j.parallelism;
+
+import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
+import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
+import org.deeplearning4j.nn.conf.layers.DenseLayer;
+import org.deeplearning4j.nn.conf.layers.OutputLayer;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.deeplearning4j.nn.weights.WeightInit;
+import org.junit.Test;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.lossfunctions.LossFunctions;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class ParallelInferenceTest {
+
+    private static MultiLayerNetwork getNetwork() {
+        MultiLayerConfiguration conf = new NeuralNetConfiguration.Builder()
+                .seed(12345)
+                .list()
+                .layer(0, new DenseLayer.Builder().nIn(4).nOut(10).activation("tanh").weightInit(WeightInit.XAVIER).build())
+                .layer(1, new OutputLayer.Builder(LossFunctions.LossFunction.MCXENT).nIn(10).nOut(3)
+                        .activation("softmax").weightInit(WeightInit.XAVIER).build())
+                .build();
+        MultiLayerNetwork net = new MultiLayerNetwork(conf);
+        net.init();
+        return net;
+    }
+
+    @Test
+    public void testCloneSharingParams() {
+        MultiLayerNetwork net = getNetwork();
+        MultiLayerNetwork copy = net.cloneSharingParams();
+
+        INDArray input = Nd4j.rand(3, 4);
+        assertEquals(net.output(input, false), copy.output(input, false));
+
+        //Parameters are shared, not copied
+        assertTrue(net.params() == copy.params());
+        for (int i = 0; i < net.getnLayers(); i++) {
+            for (String key : net.getLayer(i).paramTable().keySet())
+                assertTrue(net.getLayer(i).getParam(key) == copy.getLayer(i).getParam(key));
+        }
+        net.getLayer(0).getParam("W").assign(0.1);
+        assertEquals(0.1, copy.getLayer(0).getParam("W").getDouble(0), 0.0);
+        assertEquals(net.output(input, false), copy.output(input, false));
+    }
+
+    @Test
+    public void testConcurrentOutput() throws Exception {
+        testConcurrentOutput(0);
+    }
+
+    @Test
+    public void testConcurrentOutputBatching() throws Exception {
+        testConcurrentOutput(5);
+    }
+
+    @Test(timeout = 30000)
+    public void testShutdownWhileSubmitting() throws Exception {
+        //Requests submitted concurrently with shutdown() must complete or fail, never block forever
+        final MultiLayerNetwork net = getNetwork();
+        final ParallelInference inference = new ParallelInference.Builder(net)
+                .workers(2).queueLimit(4).build();
+
+        final AtomicInteger completed = new AtomicInteger();
+        final AtomicInteger failed = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    //Submit until shut down
+                    while (true) {
+                        try {
+                            inference.output(Nd4j.rand(2, 4));
+                            completed.incrementAndGet();
+                        } catch (RuntimeException e) {
+                            failed.incrementAndGet();
+                            return;
+                        }
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+
+        Thread.sleep(50);
+        inference.shutdown();
+        for (Thread t : threads)
+            t.join();
+
+        assertEquals(8, failed.get());
+        assertTrue(completed.get() > 0);
+    }
+
+    private void testConcurrentOutput(long batchWindowMs) throws Exception {
+        final MultiLayerNetwork net = getNetwork();
+        final ParallelInference inference = new ParallelInference.Builder(net)
+                .workers(2).batchWindowMs(batchWindowMs).batchLimit(16).build();
+
+        final int nThreads = 8;
+        final int nRequests = 20;
+        final List<INDArray> inputs = new ArrayList<>();
+        final List<INDArray> expected = new ArrayList<>();
+        for (int i = 0; i < nThreads * nRequests; i++) {
+            INDArray in = Nd4j.rand(1 + i % 3, 4);
+            inputs.add(in);
+            expected.add(net.output(in, false));
+        }
+
+        final AtomicInteger failures = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < nThreads; t++) {
+            final int threadIdx = t;
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < nRequests; i++) {
+                        int idx = threadIdx * nRequests + i;
+                        INDArray out = inference.output(inputs.get(idx));
+                        if (!expected.get(idx).equals(out))
+                            failures.incrementAndGet();
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread t : threads)
+            t.join();
+
+        inference.shutdown();
+        assertEquals(0, failures.get());
+    }
+}
@@ -0,0 +1,82 @@
+package org.deeplearning4j.parallelism;
+
+import org.deeplearning4j.datasets.iterator.DataSetIterator;
+import org.deeplearning4j.datasets.iterator.impl.IrisDataSetIterator;
+import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
+import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
+import org.deeplearning4j.nn.conf.Updater;
+import org.deeplearning4j.nn.conf.layers.DenseLayer;
+import org.deeplearning4j.nn.conf.layers.OutputLayer;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.deeplearning4j.nn.weights.WeightInit;
+import org.junit.Test;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.lossfunctions.LossFunctions;
+
+import static org.junit.Assert.*;
+
+public class ParallelWrapperTest {
+
+    private static MultiLayerNetwork getNetwork() {
+        MultiLayerConfiguration conf = new NeuralNetConfiguration.Builder()
+                .seed(12345)
+                .iterations(1)
+                .learningRate(0.1)
+                .updater(Updater.NESTEROVS).momentum(0.9)
+                .list()
+                .layer(0, new DenseLayer.Builder().nIn(4).nOut(10).activation("tanh").weightInit(WeightInit.XAVIER).build())
+                .layer(1, new OutputLayer.Builder(LossFunctions.LossFunction.MCXENT).nIn(10).nOut(3)
+                        .activation("softmax").weightInit(WeightInit.XAVIER).build())
+                .build();
+        MultiLayerNetwork net = new MultiLayerNetwork(conf);
+        net.init();
+        return net;
+    }
+
+    @Test
+    public void testSingleWorkerMatchesSequentialFit() {
+        MultiLayerNetwork net = getNetwork();
+        MultiLayerNetwork expected = net.clone();
+
+        DataSetIterator iter = new IrisDataSetIterator(10, 150);
+        while (iter.hasNext()) {
+            DataSet ds = iter.next();
+            expected.fit(ds);
+        }
+
+        ParallelWrapper wrapper = new ParallelWrapper.Builder(net)
+                .workers(1).averagingFrequency(3).prefetchBuffer(4).build();
+        wrapper.fit(new IrisDataSetIterator(10, 150));
+        wrapper.shutdown();
+
+        assertEquals(expected.params(), net.params());
+    }
+
+    @Test
+    public void testMultipleWorkers() {
+        MultiLayerNetwork net = getNetwork();
+        INDArray initialParams = net.params().dup();
+
+        DataSetIterator iter = new IrisDataSetIterator(10, 150);
+        DataSet all = new IrisDataSetIterator(150, 150).next();
+        net.setInput(all.getFeatureMatrix());
+        net.setLabels(all.getLabels());
+        net.computeGradientAndScore();
+        double initialScore = net.score();
+
+        ParallelWrapper wrapper = new ParallelWrapper.Builder(net)
+                .workers(4).averagingFrequency(2).prefetchBuffer(4).reportScoreAfterAveraging(true).build();
+        for (int epoch = 0; epoch < 5; epoch++) {
+            wrapper.fit(iter);
+            iter.reset();
+        }
+        wrapper.shutdown();
+
+        assertNotEquals(initialParams, net.params());
+        net.setInput(all.getFeatureMatrix());
+        net.setLabels(all.getLabels());
+        net.computeGradientAndScore();
+        assertTrue(net.score() < initialScore);
+    }
+}
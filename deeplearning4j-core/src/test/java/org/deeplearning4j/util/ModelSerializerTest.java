@@ -4,17 +4,28 @@ import org.deeplearning4j.nn.api.OptimizationAlgorithm;
 import org.deeplearning4j.nn.conf.ComputationGraphConfiguration;
 import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
 import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
+import org.deeplearning4j.nn.conf.Updater;
 import org.deeplearning4j.nn.conf.layers.DenseLayer;
 import org.deeplearning4j.nn.conf.layers.OutputLayer;
 import org.deeplearning4j.nn.graph.ComputationGraph;
 import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
 import org.deeplearning4j.nn.weights.WeightInit;
 import org.junit.Test;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.factory.Nd4j;
 import org.nd4j.linalg.lossfunctions.LossFunctions;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.util.Enumeration;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
 
 /**
  * @author raver119@gmail.com
@@ -80,4 +91,88 @@ public class ModelSerializerTest {
         // updater breaks equality? huh?
         //assertEquals(cg.getUpdater(), network.getUpdater());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testWriteMLNModelRaw() throws Exception {
+        MultiLayerConfiguration conf = new NeuralNetConfiguration.Builder()
+                .seed(12345)
+                .updater(Updater.ADAM)
+                .learningRate(0.1).activation("tanh").weightInit(WeightInit.XAVIER)
+                .list()
+                .layer(0, new DenseLayer.Builder().nIn(5).nOut(20).build())
+                .layer(1, new OutputLayer.Builder().lossFunction(LossFunctions.LossFunction.MSE).nIn(20).nOut(6).build())
+                .build();
+
+        MultiLayerNetwork net = new MultiLayerNetwork(conf);
+        net.init();
+        DataSet ds = new DataSet(Nd4j.rand(10, 5), Nd4j.rand(10, 6));
+        for (int i = 0; i < 3; i++) net.fit(ds);
+
+        File tempFile = File.createTempFile("tsfs", "fdfsdf");
+        tempFile.deleteOnExit();
+        ModelSerializer.writeModelRaw(net, tempFile, true);
+
+        try (ZipFile zipFile = new ZipFile(tempFile)) {
+            assertNotNull(zipFile.getEntry(RawModelFormat.COEFFICIENTS_ENTRY));
+            assertNotNull(zipFile.getEntry(RawModelFormat.UPDATER_STATE_ENTRY));
+            Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while (entries.hasMoreElements())
+                assertEquals(ZipEntry.STORED, entries.nextElement().getMethod());
+        }
+
+        //ZipInputStream reads the local headers, and checks the CRC of each stored entry
+        try (ZipInputStream zis = new ZipInputStream(new FileInputStream(tempFile))) {
+            int count = 0;
+            byte[] buffer = new byte[8192];
+            while (zis.getNextEntry() != null) {
+                while (zis.read(buffer) >= 0) ;
+                count++;
+            }
+            assertEquals(3, count);
+        }
+
+        MultiLayerNetwork network = ModelSerializer.restoreMultiLayerNetwork(tempFile);
+        assertEquals(net.getLayerWiseConfigurations().toJson(), network.getLayerWiseConfigurations().toJson());
+        assertEquals(net.params(), network.params());
+
+        //Same updater state: further training should give identical parameters
+        INDArray before = net.params().dup();
+        net.fit(ds);
+        network.fit(ds);
+        assertEquals(net.params(), network.params());
+        assertNotEquals(before, net.params());
+    }
+
+    @Test
+    public void testWriteCGModelRaw() throws Exception {
+        ComputationGraphConfiguration config = new NeuralNetConfiguration.Builder()
+                .optimizationAlgo(OptimizationAlgorithm.STOCHASTIC_GRADIENT_DESCENT)
+                .updater(Updater.NESTEROVS).momentum(0.9)
+                .learningRate(0.1)
+                .graphBuilder()
+                .addInputs("in")
+                .addLayer("dense",new DenseLayer.Builder().nIn(4).nOut(2).build(),"in")
+                .addLayer("out",new OutputLayer.Builder(LossFunctions.LossFunction.MCXENT).nIn(2).nOut(3).build(),"dense")
+                .setOutputs("out")
+                .pretrain(false).backprop(true)
+                .build();
+
+        ComputationGraph cg = new ComputationGraph(config);
+        cg.init();
+        DataSet ds = new DataSet(Nd4j.rand(10, 4), Nd4j.create(new double[][]{{1,0,0},{0,1,0},{0,0,1},{1,0,0},{0,1,0},
+                {0,0,1},{1,0,0},{0,1,0},{0,0,1},{1,0,0}}));
+        for (int i = 0; i < 3; i++) cg.fit(ds);
+
+        File tempFile = File.createTempFile("tsfs", "fdfsdf");
+        tempFile.deleteOnExit();
+        ModelSerializer.writeModelRaw(cg, tempFile, true);
+
+        ComputationGraph network = ModelSerializer.restoreComputationGraph(tempFile);
+        assertEquals(cg.getConfiguration().toJson(), network.getConfiguration().toJson());
+        assertEquals(cg.params(), network.params());
+
+        cg.fit(ds);
+        network.fit(ds);
+        assertEquals(cg.params(), network.params());
+    }
+}
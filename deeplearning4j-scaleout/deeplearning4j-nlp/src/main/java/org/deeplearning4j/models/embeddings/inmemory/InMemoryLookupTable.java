@@ -457,6 +457,41 @@ public class InMemoryLookupTable<T extends SequenceElement> implements WeightLoo
     }
 
 
+    /**
+     * Grows weights up to current vocabulary size, keeping existing rows: new rows of syn0 are initialized randomly,
+     * new rows of syn1/syn1Neg with zeros. Negative sampling table is rebuilt, since frequencies might have changed.
+     * Used for incremental training, after new elements were appended to vocabulary. AdaGrad history, if used, is reset.
+     */
+    public void expandWeights() {
+        if (syn0 == null) {
+            resetWeights(true);
+            return;
+        }
+
+        int oldRows = syn0.rows();
+        int newRows = vocab.numWords();
+        if (newRows > oldRows) {
+            if (this.rng == null)
+                this.rng = Nd4j.getRandom();
+            this.rng.setSeed(seed + oldRows);
+
+            INDArray extra = Nd4j.rand(new int[]{newRows - oldRows, vectorLength}, rng).subi(0.5).divi(vectorLength);
+            syn0 = Nd4j.vstack(syn0, extra);
+            syn1 = Nd4j.vstack(syn1, Nd4j.zeros(newRows - oldRows, vectorLength));
+            if (syn1Neg != null)
+                syn1Neg = Nd4j.vstack(syn1Neg, Nd4j.zeros(newRows - oldRows, vectorLength));
+
+            if (useAdaGrad)
+                initAdaGrad();
+        }
+
+        if (negative > 0) {
+            if (syn1Neg == null)
+                syn1Neg = Nd4j.zeros(syn0.shape());
+            makeTable(Math.max(expTable.length, 100000), 0.75);
+        }
+    }
+
     /**
      * Reset the weights of the cache
      */
@@ -0,0 +1,232 @@
+package org.deeplearning4j.models.embeddings.learning.impl.elements;
+
+import lombok.NonNull;
+import org.deeplearning4j.models.embeddings.WeightLookupTable;
+import org.deeplearning4j.models.embeddings.inmemory.InMemoryLookupTable;
+import org.deeplearning4j.models.embeddings.learning.ElementsLearningAlgorithm;
+import org.deeplearning4j.models.embeddings.loader.VectorsConfiguration;
+import org.deeplearning4j.models.sequencevectors.interfaces.SequenceIterator;
+import org.deeplearning4j.models.sequencevectors.sequence.Sequence;
+import org.deeplearning4j.models.sequencevectors.sequence.SequenceElement;
+import org.deeplearning4j.models.word2vec.wordstore.VocabCache;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Minibatched Skip-Gram with negative sampling, using level-3 BLAS.
+ *
+ * For each target element, all context elements in its window, the target and one set of negative samples shared by
+ * the whole window are gathered into small matrices: contexts L [c x layerSize] from syn0, and outputs
+ * O [(1 + negative) x layerSize] from syn1Neg. Then scores S = L * O^T, gradients G = (label - sigmoid(S)) * alpha,
+ * and updates L += G * O, O += G^T * L are computed with 3 gemm calls, instead of c * (1 + negative) pairs of dot/axpy
+ * calls on single vectors.
+ *
+ * This is a minibatch approximation of {@link SkipGram}: within a window, all contexts see the same outputs and
+ * negatives.
+ * Only negative sampling is used (no hierarchic softmax), so negative should be > 0. AdaGrad isn't supported.
+ */
+public class BatchedSkipGram<T extends SequenceElement> implements ElementsLearningAlgorithm<T> {
+    protected HogwildKernel<T> kernel;
+    protected int window;
+    protected int negative;
+    protected int layerSize;
+
+    private final ThreadLocal<Batch> batch = new ThreadLocal<Batch>() {
+        @Override
+        protected Batch initialValue() {
+            return new Batch(window * 2, negative + 1, layerSize);
+        }
+    };
+
+    /**
+     * Dummy construction is required for reflection
+     */
+    public BatchedSkipGram() {
+
+    }
+
+    @Override
+    public String getCodeName() {
+        return "BatchedSkipGram";
+    }
+
+    @Override
+    public void configure(@NonNull VocabCache<T> vocabCache, @NonNull WeightLookupTable<T> lookupTable, @NonNull VectorsConfiguration configuration) {
+        if (configuration.getNegative() <= 0)
+            throw new IllegalStateException("BatchedSkipGram requires negative sampling: negative should be > 0");
+
+        this.kernel = new HogwildKernel<>(vocabCache, (InMemoryLookupTable<T>) lookupTable, configuration);
+        this.window = configuration.getWindow();
+        this.negative = (int) configuration.getNegative();
+        this.layerSize = configuration.getLayersSize();
+    }
+
+    /**
+     * SkipGram doesn't involves any pretraining
+     *
+     * @param iterator
+     */
+    @Override
+    public void pretrain(SequenceIterator<T> iterator) {
+
+    }
+
+    @Override
+    public void learnSequence(@NonNull Sequence<T> sequence, @NonNull AtomicLong nextRandom, double learningRate) {
+        HogwildKernel.Scratch scratch = kernel.getScratch();
+        scratch.setRandom(nextRandom.get());
+        Batch b = batch.get();
+
+        int length = kernel.toIndexes(sequence, scratch);
+        int[] indexes = scratch.getIndexes();
+        for (int i = 0; i < length; i++) {
+            scratch.setRandom(Math.abs(scratch.getRandom() * 25214903917L + 11));
+            int w1 = indexes[i];
+            if (w1 < 0) continue;
+
+            int bw = (int) (scratch.getRandom() % window);
+            int end = window * 2 + 1 - bw;
+            int numContexts = 0;
+            for (int a = bw; a < end; a++) {
+                if (a == window) continue;
+                int c = i - window + a;
+                if (c >= 0 && c < length && indexes[c] >= 0 && indexes[c] != w1)
+                    b.contexts[numContexts++] = indexes[c];
+            }
+            if (numContexts == 0) continue;
+
+            // positive target, followed by negatives shared by all contexts of this window
+            b.targets[0] = w1;
+            for (int d = 1; d <= negative; d++) {
+                scratch.setRandom(Math.abs(scratch.getRandom() * 25214903917L + 11));
+                int idx = Math.abs((int) (scratch.getRandom() >> 16) % kernel.table.length);
+
+                int target = kernel.table[idx];
+                if (target <= 0)
+                    target = (int) scratch.getRandom() % (kernel.numWords - 1) + 1;
+
+                b.targets[d] = (target == w1 || target < 0 || target >= kernel.numWords) ? -1 : target;
+            }
+
+            trainWindow(b, numContexts, learningRate);
+        }
+
+        nextRandom.set(scratch.getRandom());
+    }
+
+    protected void trainWindow(Batch b, int numContexts, double alpha) {
+        HogwildKernel.Weights syn0 = kernel.syn0;
+        HogwildKernel.Weights syn1Neg = kernel.syn1Neg;
+        double[] expTable = kernel.expTable;
+        double maxExp = HogwildKernel.MAX_EXP;
+
+        INDArray l = b.l[numContexts];
+        INDArray s = b.s[numContexts];
+        INDArray dl = b.dl[numContexts];
+        HogwildKernel.Weights lW = b.lWeights[numContexts];
+        HogwildKernel.Weights sW = b.sWeights[numContexts];
+        HogwildKernel.Weights dlW = b.dlWeights[numContexts];
+
+        // gather
+        for (int r = 0; r < numContexts; r++)
+            syn0.copyRow(b.contexts[r], lW, r);
+        for (int t = 0; t < b.numTargets; t++) {
+            if (b.targets[t] >= 0) syn1Neg.copyRow(b.targets[t], b.oWeights, t);
+            else b.oWeights.zeroRow(t);
+        }
+
+        // scores: S = L * O^T
+        Nd4j.gemm(l, b.o, s, false, true, 1.0, 0.0);
+
+        // gradients, same clipping and sigmoid table as SkipGram
+        for (int r = 0; r < numContexts; r++) {
+            for (int t = 0; t < b.numTargets; t++) {
+                double g;
+                if (b.targets[t] < 0) {
+                    g = 0.0;
+                } else {
+                    int label = t == 0 ? 1 : 0;
+                    double f = sW.get(r, t);
+                    if (f > maxExp)
+                        g = (label - 1) * alpha;
+                    else if (f < -maxExp)
+                        g = label * alpha;
+                    else {
+                        int idx = (int) ((f + maxExp) * (expTable.length / maxExp / 2));
+                        g = idx >= expTable.length ? 0.0 : (label - expTable[idx]) * alpha;
+                    }
+                }
+                sW.put(r, t, g);
+            }
+        }
+
+        // errors: dL = G * O, dO = G^T * L
+        Nd4j.gemm(s, b.o, dl, false, false, 1.0, 0.0);
+        Nd4j.gemm(s, l, b.dO, true, false, 1.0, 0.0);
+
+        // scatter
+        for (int t = 0; t < b.numTargets; t++)
+            if (b.targets[t] >= 0) syn1Neg.addRow(b.targets[t], 1.0, b.dOWeights, t);
+        for (int r = 0; r < numContexts; r++)
+            syn0.addRow(b.contexts[r], 1.0, dlW, r);
+    }
+
+    /**
+     * SkipGram has no reasons for early termination ever.
+     *
+     * @return
+     */
+    @Override
+    public boolean isEarlyTerminationHit() {
+        return false;
+    }
+
+    /**
+     * Per-thread matrices. Context matrices are preallocated for each possible number of contexts, to avoid views
+     */
+    protected static class Batch {
+        protected final int numTargets;
+        protected final int[] contexts;
+        protected final int[] targets;
+
+        protected final INDArray o;
+        protected final INDArray dO;
+        protected final HogwildKernel.Weights oWeights;
+        protected final HogwildKernel.Weights dOWeights;
+
+        protected final INDArray[] l;
+        protected final INDArray[] s;
+        protected final INDArray[] dl;
+        protected final HogwildKernel.Weights[] lWeights;
+        protected final HogwildKernel.Weights[] sWeights;
+        protected final HogwildKernel.Weights[] dlWeights;
+
+        protected Batch(int maxContexts, int numTargets, int layerSize) {
+            this.numTargets = numTargets;
+            this.contexts = new int[maxContexts];
+            this.targets = new int[numTargets];
+
+            this.o = Nd4j.create(numTargets, layerSize);
+            this.dO = Nd4j.create(numTargets, layerSize);
+            this.oWeights = HogwildKernel.Weights.of(o, layerSize);
+            this.dOWeights = HogwildKernel.Weights.of(dO, layerSize);
+
+            l = new INDArray[maxContexts + 1];
+            s = new INDArray[maxContexts + 1];
+            dl = new INDArray[maxContexts + 1];
+            lWeights = new HogwildKernel.Weights[maxContexts + 1];
+            sWeights = new HogwildKernel.Weights[maxContexts + 1];
+            dlWeights = new HogwildKernel.Weights[maxContexts + 1];
+            for (int c = 1; c <= maxContexts; c++) {
+                l[c] = Nd4j.create(c, layerSize);
+                s[c] = Nd4j.create(c, numTargets);
+                dl[c] = Nd4j.create(c, layerSize);
+                lWeights[c] = HogwildKernel.Weights.of(l[c], layerSize);
+                sWeights[c] = HogwildKernel.Weights.of(s[c], numTargets);
+                dlWeights[c] = HogwildKernel.Weights.of(dl[c], layerSize);
+            }
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package org.deeplearning4j.models.embeddings.learning.impl.elements;
+
+import lombok.NonNull;
+import org.deeplearning4j.models.embeddings.WeightLookupTable;
+import org.deeplearning4j.models.embeddings.inmemory.InMemoryLookupTable;
+import org.deeplearning4j.models.embeddings.learning.ElementsLearningAlgorithm;
+import org.deeplearning4j.models.embeddings.loader.VectorsConfiguration;
+import org.deeplearning4j.models.sequencevectors.interfaces.SequenceIterator;
+import org.deeplearning4j.models.sequencevectors.sequence.Sequence;
+import org.deeplearning4j.models.sequencevectors.sequence.SequenceElement;
+import org.deeplearning4j.models.word2vec.wordstore.VocabCache;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * CBOW implementation for dl4j SequenceVectors, built on top of {@link HogwildKernel}: context elements within
+ * the window are averaged to predict each element. Output layer math is the same as in {@link SkipGram}, and there's
+ * no per-sample object allocation or locking.
+ *
+ * Select it with SequenceVectors.Builder.elementsLearningAlgorithm(new HogwildCBOW<T>()), or by class name.
+ */
+public class HogwildCBOW<T extends SequenceElement> implements ElementsLearningAlgorithm<T> {
+    protected HogwildKernel<T> kernel;
+    protected int window;
+
+    /**
+     * Dummy construction is required for reflection
+     */
+    public HogwildCBOW() {
+
+    }
+
+    @Override
+    public String getCodeName() {
+        return "HogwildCBOW";
+    }
+
+    @Override
+    public void configure(@NonNull VocabCache<T> vocabCache, @NonNull WeightLookupTable<T> lookupTable, @NonNull VectorsConfiguration configuration) {
+        this.kernel = new HogwildKernel<>(vocabCache, (InMemoryLookupTable<T>) lookupTable, configuration);
+        this.window = configuration.getWindow();
+    }
+
+    /**
+     * CBOW doesn't involves any pretraining
+     *
+     * @param iterator
+     */
+    @Override
+    public void pretrain(SequenceIterator<T> iterator) {
+
+    }
+
+    @Override
+    public void learnSequence(@NonNull Sequence<T> sequence, @NonNull AtomicLong nextRandom, double learningRate) {
+        HogwildKernel.Scratch scratch = kernel.getScratch();
+        scratch.setRandom(nextRandom.get());
+
+        int length = kernel.toIndexes(sequence, scratch);
+        int[] indexes = scratch.getIndexes();
+        for (int i = 0; i < length; i++) {
+            scratch.setRandom(Math.abs(scratch.getRandom() * 25214903917L + 11));
+            int b = (int) (scratch.getRandom() % window);
+            int from = Math.max(0, i - window + b);
+            int to = Math.min(length, i + window + 1 - b);
+            kernel.cbow(i, indexes, from, to, learningRate, scratch);
+        }
+
+        nextRandom.set(scratch.getRandom());
+    }
+
+    /**
+     * CBOW has no reasons for early termination ever.
+     *
+     * @return
+     */
+    @Override
+    public boolean isEarlyTerminationHit() {
+        return false;
+    }
+}
@@ -0,0 +1,521 @@
+package org.deeplearning4j.models.embeddings.learning.impl.elements;
+
+import lombok.NonNull;
+import org.deeplearning4j.models.embeddings.inmemory.InMemoryLookupTable;
+import org.deeplearning4j.models.embeddings.loader.VectorsConfiguration;
+import org.deeplearning4j.models.sequencevectors.sequence.Sequence;
+import org.deeplearning4j.models.sequencevectors.sequence.SequenceElement;
+import org.deeplearning4j.models.word2vec.wordstore.VocabCache;
+import org.nd4j.linalg.api.buffer.DataBuffer;
+import org.nd4j.linalg.api.ndarray.INDArray;
+
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Word2Vec training kernel working directly on the underlying buffers of syn0/syn1/syn1Neg.
+ *
+ * Compared to {@link SkipGram}, no INDArray views or temporary arrays are created per sample: each thread uses its own
+ * scratch arrays, and vocabulary data needed for training (Huffman codes/points, subsampling thresholds, negative
+ * sampling table) is copied into primitive arrays once, on construction.
+ * Weights are updated without any synchronization (Hogwild), exactly as the original word2vec implementation does.
+ * Math is the same as in {@link SkipGram}: hierarchic softmax over Huffman codes, plus negative sampling if enabled.
+ *
+ * AdaGrad isn't supported here.
+ */
+public class HogwildKernel<T extends SequenceElement> {
+    protected static final double MAX_EXP = 6;
+
+    protected final int layerSize;
+    protected final int numWords;
+    protected final int negative;
+    protected final double sampling;
+
+    protected final double[] expTable;
+    protected final int[] table;
+    protected final int[][] codes;
+    protected final int[][] points;
+    protected final boolean[] skipped;
+    protected final double[] keepThreshold;
+    protected final double totalWordOccurrences;
+
+    protected final Weights syn0;
+    protected final Weights syn1;
+    protected final Weights syn1Neg;
+
+    private final ThreadLocal<Scratch> scratch = new ThreadLocal<Scratch>() {
+        @Override
+        protected Scratch initialValue() {
+            return new Scratch(layerSize);
+        }
+    };
+
+    public HogwildKernel(@NonNull VocabCache<T> vocabCache, @NonNull InMemoryLookupTable<T> lookupTable, @NonNull VectorsConfiguration configuration) {
+        if (configuration.isUseAdaGrad())
+            throw new IllegalStateException("AdaGrad isn't supported by HogwildKernel, please use SkipGram instead");
+
+        this.layerSize = configuration.getLayersSize();
+        this.numWords = vocabCache.numWords();
+        this.negative = (int) configuration.getNegative();
+        this.sampling = configuration.getSampling();
+        this.totalWordOccurrences = vocabCache.totalWordOccurrences();
+        this.expTable = lookupTable.getExpTable();
+
+        this.syn0 = Weights.of(lookupTable.getSyn0(), layerSize);
+        this.syn1 = Weights.of(lookupTable.getSyn1(), layerSize);
+        if (negative > 0) {
+            this.syn1Neg = Weights.of(lookupTable.getSyn1Neg(), layerSize);
+            this.table = lookupTable.getTable().data().asInt();
+        } else {
+            this.syn1Neg = null;
+            this.table = null;
+        }
+
+        // vocabulary data is converted to primitives once, to avoid boxing & lookups during training
+        codes = new int[numWords][];
+        points = new int[numWords][];
+        skipped = new boolean[numWords];
+        keepThreshold = new double[numWords];
+        for (int i = 0; i < numWords; i++) {
+            T element = vocabCache.elementAtIndex(i);
+            codes[i] = toArray(element.getCodes(), element.getCodeLength());
+            points[i] = toArray(element.getPoints(), element.getCodeLength());
+            skipped[i] = element.getLabel().equals("STOP") || element.getLabel().equals("UNK");
+            keepThreshold[i] = keepThreshold(element.getElementFrequency());
+        }
+    }
+
+    private static int[] toArray(List<Integer> list, int length) {
+        if (list == null) return new int[0];
+        int[] result = new int[Math.min(length, list.size())];
+        for (int i = 0; i < result.length; i++)
+            result[i] = list.get(i);
+        return result;
+    }
+
+    private double keepThreshold(double frequency) {
+        if (sampling <= 0) return Double.MAX_VALUE;
+        return (Math.sqrt(frequency / (sampling * totalWordOccurrences)) + 1) * (sampling * totalWordOccurrences) / frequency;
+    }
+
+    /**
+     * Returns vocabulary index of the element, or -1 if it's not in vocabulary or shouldn't be trained (STOP/UNK)
+     */
+    public int indexOf(@NonNull T element) {
+        int index = element.getIndex();
+        return index >= 0 && index < numWords && !skipped[index] ? index : -1;
+    }
+
+    public int getLayerSize() {
+        return layerSize;
+    }
+
+    /**
+     * @return scratch space for current thread
+     */
+    public Scratch getScratch() {
+        return scratch.get();
+    }
+
+    /**
+     * This method converts sequence into vocabulary indexes, stored in scratch.indexes, applying subsampling if enabled.
+     * Elements that shouldn't be trained (not in vocabulary, STOP/UNK) are stored as -1.
+     *
+     * @return number of indexes
+     */
+    public int toIndexes(@NonNull Sequence<T> sequence, @NonNull Scratch s) {
+        List<T> elements = sequence.getElements();
+        s.ensureCapacity(elements.size());
+
+        int length = 0;
+        for (int x = 0; x < elements.size(); x++) {
+            T element = elements.get(x);
+            if (element == null) continue;
+            int index = element.getIndex();
+            boolean known = index >= 0 && index < numWords;
+
+            if (sampling > 0) {
+                double ran = known ? keepThreshold[index] : keepThreshold(element.getElementFrequency());
+                s.random = s.random * 25214903917L + 11;
+                if (ran < (s.random & 0xFFFF) / (double) 65536) continue;
+            }
+
+            s.indexes[length++] = known && !skipped[index] ? index : -1;
+        }
+        return length;
+    }
+
+    /**
+     * SkipGram step: trains context element w2 to predict element w1
+     */
+    public void skipGram(int w1, int w2, double alpha, @NonNull Scratch s) {
+        if (w1 < 0 || w2 < 0 || w1 == w2)
+            return;
+
+        double[] l1 = s.l1;
+        double[] neu1e = s.neu1e;
+        syn0.copyRow(w2, l1);
+        Arrays.fill(neu1e, 0.0);
+
+        train(w1, l1, neu1e, alpha, s, true);
+
+        syn0.axpy(w2, 1.0, neu1e);
+    }
+
+    /**
+     * CBOW step: trains mean of context elements indexes[from..to), excluding position i, to predict element at position i
+     */
+    public void cbow(int i, int[] indexes, int from, int to, double alpha, @NonNull Scratch s) {
+        int w1 = indexes[i];
+        if (w1 < 0)
+            return;
+
+        double[] neu1 = s.l1;
+        double[] neu1e = s.neu1e;
+        Arrays.fill(neu1, 0.0);
+        Arrays.fill(neu1e, 0.0);
+
+        int cw = 0;
+        for (int c = from; c < to; c++) {
+            if (c == i || indexes[c] < 0) continue;
+            syn0.addRowTo(indexes[c], 1.0, neu1);
+            cw++;
+        }
+        if (cw == 0)
+            return;
+
+        for (int x = 0; x < layerSize; x++)
+            neu1[x] /= cw;
+
+        train(w1, neu1, neu1e, alpha, s, true);
+
+        for (int c = from; c < to; c++) {
+            if (c == i || indexes[c] < 0) continue;
+            syn0.axpy(indexes[c], 1.0, neu1e);
+        }
+    }
+
+    /**
+     * PV-DBOW inference: vector l1 is initialized randomly from seed, and trained to predict each of the elements
+     * indexes[0..length) (negative indexes are skipped), with learning rate decaying linearly from alpha towards
+     * minAlpha over the iterations.
+     * syn0/syn1/syn1Neg are only read here, so any number of threads can infer vectors concurrently, while nothing
+     * is trained in parallel.
+     */
+    public void infer(@NonNull int[] indexes, int length, @NonNull double[] l1, double alpha, double minAlpha, int iterations, long seed, @NonNull Scratch s) {
+        s.random = seed;
+        for (int x = 0; x < layerSize; x++) {
+            s.random = s.random * 25214903917L + 11;
+            l1[x] = (((s.random & 0xFFFF) / (double) 65536) - 0.5) / layerSize;
+        }
+
+        double[] neu1e = s.neu1e;
+        for (int it = 0; it < iterations; it++) {
+            double a = Math.max(minAlpha, alpha - (alpha - minAlpha) * it / iterations);
+            for (int i = 0; i < length; i++) {
+                if (indexes[i] < 0) continue;
+
+                Arrays.fill(neu1e, 0.0);
+                train(indexes[i], l1, neu1e, a, s, false);
+                for (int x = 0; x < layerSize; x++)
+                    l1[x] += neu1e[x];
+            }
+        }
+    }
+
+    /**
+     * Hierarchic softmax & negative sampling for target w1 and hidden layer l1. Errors are accumulated into neu1e.
+     * syn1/syn1Neg are updated only if updateWeights is true.
+     */
+    protected void train(int w1, double[] l1, double[] neu1e, double alpha, Scratch s, boolean updateWeights) {
+        int[] wCodes = codes[w1];
+        int[] wPoints = points[w1];
+        for (int i = 0; i < wCodes.length; i++) {
+            int code = wCodes[i];
+            int point = wPoints[i];
+            if (point >= numWords || point < 0)
+                throw new IllegalStateException("Illegal point " + point);
+
+            double dot = syn1.dot(point, l1);
+            if (dot < -MAX_EXP || dot >= MAX_EXP)
+                continue;
+
+            int idx = (int) ((dot + MAX_EXP) * ((double) expTable.length / MAX_EXP / 2.0));
+            if (idx >= expTable.length)
+                continue;
+
+            double g = (1 - code - expTable[idx]) * alpha;
+            syn1.addRowTo(point, g, neu1e);
+            if (updateWeights) syn1.axpy(point, g, l1);
+        }
+
+        if (negative <= 0)
+            return;
+
+        int target = w1;
+        int label;
+        for (int d = 0; d < negative + 1; d++) {
+            if (d == 0) {
+                label = 1;
+            } else {
+                s.random = Math.abs(s.random * 25214903917L + 11);
+                int idx = Math.abs((int) (s.random >> 16) % table.length);
+
+                target = table[idx];
+                if (target <= 0)
+                    target = (int) s.random % (numWords - 1) + 1;
+
+                if (target == w1)
+                    continue;
+                label = 0;
+            }
+
+            if (target >= numWords || target < 0)
+                continue;
+
+            double f = syn1Neg.dot(target, l1);
+            double g;
+            if (f > MAX_EXP)
+                g = (label - 1) * alpha;
+            else if (f < -MAX_EXP)
+                g = label * alpha;
+            else {
+                int idx = (int) ((f + MAX_EXP) * (expTable.length / MAX_EXP / 2));
+                if (idx >= expTable.length)
+                    continue;
+
+                g = (label - expTable[idx]) * alpha;
+            }
+
+            syn1Neg.addRowTo(target, g, neu1e);
+            if (updateWeights) syn1Neg.axpy(target, g, l1);
+        }
+    }
+
+    /**
+     * Per-thread scratch space. Random state is kept here as primitive during training of a sequence.
+     */
+    public static class Scratch {
+        protected final double[] l1;
+        protected final double[] neu1e;
+        protected int[] indexes = new int[128];
+        protected long random;
+
+        protected Scratch(int layerSize) {
+            this.l1 = new double[layerSize];
+            this.neu1e = new double[layerSize];
+        }
+
+        protected void ensureCapacity(int length) {
+            if (indexes.length < length) indexes = new int[Math.max(length, indexes.length * 2)];
+        }
+
+        public int[] getIndexes() {
+            return indexes;
+        }
+
+        public long getRandom() {
+            return random;
+        }
+
+        public void setRandom(long random) {
+            this.random = random;
+        }
+    }
+
+    /**
+     * Row access to a 'c' ordered weights matrix, over its underlying buffer
+     */
+    protected static abstract class Weights {
+        protected final int columns;
+
+        protected Weights(int columns) {
+            this.columns = columns;
+        }
+
+        protected static Weights of(@NonNull INDArray array, int columns) {
+            if (array.ordering() != 'c' || array.offset() != 0 || array.columns() != columns)
+                throw new IllegalStateException("HogwildKernel requires 'c' ordered weights with [" + columns + "] columns and zero offset");
+
+            if (array.data().dataType() == DataBuffer.Type.DOUBLE)
+                return new DoubleWeights(array.data().asNioDouble(), columns);
+            else
+                return new FloatWeights(array.data().asNioFloat(), columns);
+        }
+
+        /** row . x */
+        protected abstract double dot(int row, double[] x);
+
+        /** row += a * x */
+        protected abstract void axpy(int row, double a, double[] x);
+
+        /** y += a * row */
+        protected abstract void addRowTo(int row, double a, double[] y);
+
+        /** y = row */
+        protected abstract void copyRow(int row, double[] y);
+
+        /** target[targetRow] = row. Both matrices should have the same data type and number of columns */
+        protected abstract void copyRow(int row, Weights target, int targetRow);
+
+        /** row += a * source[sourceRow]. Both matrices should have the same data type and number of columns */
+        protected abstract void addRow(int row, double a, Weights source, int sourceRow);
+
+        /** row = 0 */
+        protected abstract void zeroRow(int row);
+
+        protected abstract double get(int row, int column);
+
+        protected abstract void put(int row, int column, double value);
+    }
+
+    protected static final class FloatWeights extends Weights {
+        private final FloatBuffer buffer;
+
+        protected FloatWeights(FloatBuffer buffer, int columns) {
+            super(columns);
+            this.buffer = buffer;
+        }
+
+        @Override
+        protected double dot(int row, double[] x) {
+            int offset = row * columns;
+            double sum = 0;
+            for (int i = 0; i < columns; i++)
+                sum += buffer.get(offset + i) * x[i];
+            return sum;
+        }
+
+        @Override
+        protected void axpy(int row, double a, double[] x) {
+            int offset = row * columns;
+            for (int i = 0; i < columns; i++)
+                buffer.put(offset + i, (float) (buffer.get(offset + i) + a * x[i]));
+        }
+
+        @Override
+        protected void addRowTo(int row, double a, double[] y) {
+            int offset = row * columns;
+            for (int i = 0; i < columns; i++)
+                y[i] += a * buffer.get(offset + i);
+        }
+
+        @Override
+        protected void copyRow(int row, double[] y) {
+            int offset = row * columns;
+            for (int i = 0; i < columns; i++)
+                y[i] = buffer.get(offset + i);
+        }
+
+        @Override
+        protected void copyRow(int row, Weights target, int targetRow) {
+            FloatBuffer other = ((FloatWeights) target).buffer;
+            int offset = row * columns;
+            int targetOffset = targetRow * columns;
+            for (int i = 0; i < columns; i++)
+                other.put(targetOffset + i, buffer.get(offset + i));
+        }
+
+        @Override
+        protected void addRow(int row, double a, Weights source, int sourceRow) {
+            FloatBuffer other = ((FloatWeights) source).buffer;
+            int offset = row * columns;
+            int sourceOffset = sourceRow * columns;
+            for (int i = 0; i < columns; i++)
+                buffer.put(offset + i, (float) (buffer.get(offset + i) + a * other.get(sourceOffset + i)));
+        }
+
+        @Override
+        protected void zeroRow(int row) {
+            int offset = row * columns;
+            for (int i = 0; i < columns; i++)
+                buffer.put(offset + i, 0);
+        }
+
+        @Override
+        protected double get(int row, int column) {
+            return buffer.get(row * columns + column);
+        }
+
+        @Override
+        protected void put(int row, int column, double value) {
+            buffer.put(row * columns + column, (float) value);
+        }
+    }
+
+    protected static final class DoubleWeights extends Weights {
+        private final DoubleBuffer buffer;
+
+        protected DoubleWeights(DoubleBuffer buffer, int columns) {
+            super(columns);
+            this.buffer = buffer;
+        }
+
+        @Override
+        protected double dot(int row, double[] x) {
+            int offset = row * columns;
+            double sum = 0;
+            for (int i = 0; i < columns; i++)
+                sum += buffer.get(offset + i) * x[i];
+            return sum;
+        }
+
+        @Override
+        protected void axpy(int row, double a, double[] x) {
+            int offset = row * columns;
+            for (int i = 0; i < columns; i++)
+                buffer.put(offset + i, buffer.get(offset + i) + a * x[i]);
+        }
+
+        @Override
+        protected void addRowTo(int row, double a, double[] y) {
+            int offset = row * columns;
+            for (int i = 0; i < columns; i++)
+                y[i] += a * buffer.get(offset + i);
+        }
+
+        @Override
+        protected void copyRow(int row, double[] y) {
+            int offset = row * columns;
+            for (int i = 0; i < columns; i++)
+                y[i] = buffer.get(offset + i);
+        }
+
+        @Override
+        protected void copyRow(int row, Weights target, int targetRow) {
+            DoubleBuffer other = ((DoubleWeights) target).buffer;
+            int offset = row * columns;
+            int targetOffset = targetRow * columns;
+            for (int i = 0; i < columns; i++)
+                other.put(targetOffset + i, buffer.get(offset + i));
+        }
+
+        @Override
+        protected void addRow(int row, double a, Weights source, int sourceRow) {
+            DoubleBuffer other = ((DoubleWeights) source).buffer;
+            int offset = row * columns;
+            int sourceOffset = sourceRow * columns;
+            for (int i = 0; i < columns; i++)
+                buffer.put(offset + i, (buffer.get(offset + i) + a * other.get(sourceOffset + i)));
+        }
+
+        @Override
+        protected void zeroRow(int row) {
+            int offset = row * columns;
+            for (int i = 0; i < columns; i++)
+                buffer.put(offset + i, 0);
+        }
+
+        @Override
+        protected double get(int row, int column) {
+            return buffer.get(row * columns + column);
+        }
+
+        @Override
+        protected void put(int row, int column, double value) {
+            buffer.put(row * columns + column, value);
+        }
+    }
+}
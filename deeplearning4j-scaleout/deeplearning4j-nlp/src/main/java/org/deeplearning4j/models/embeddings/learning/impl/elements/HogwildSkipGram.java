@@ -0,0 +1,87 @@
+package org.deeplearning4j.models.embeddings.learning.impl.elements;
+
+import lombok.NonNull;
+import org.deeplearning4j.models.embeddings.WeightLookupTable;
+import org.deeplearning4j.models.embeddings.inmemory.InMemoryLookupTable;
+import org.deeplearning4j.models.embeddings.learning.ElementsLearningAlgorithm;
+import org.deeplearning4j.models.embeddings.loader.VectorsConfiguration;
+import org.deeplearning4j.models.sequencevectors.interfaces.SequenceIterator;
+import org.deeplearning4j.models.sequencevectors.sequence.Sequence;
+import org.deeplearning4j.models.sequencevectors.sequence.SequenceElement;
+import org.deeplearning4j.models.word2vec.wordstore.VocabCache;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Skip-Gram implementation for dl4j SequenceVectors, built on top of {@link HogwildKernel}:
+ * same algorithm as {@link SkipGram}, but without per-sample object allocation and locking.
+ *
+ * Select it with SequenceVectors.Builder.elementsLearningAlgorithm(new HogwildSkipGram<T>()), or by class name.
+ */
+public class HogwildSkipGram<T extends SequenceElement> implements ElementsLearningAlgorithm<T> {
+    protected HogwildKernel<T> kernel;
+    protected int window;
+
+    /**
+     * Dummy construction is required for reflection
+     */
+    public HogwildSkipGram() {
+
+    }
+
+    @Override
+    public String getCodeName() {
+        return "HogwildSkipGram";
+    }
+
+    @Override
+    public void configure(@NonNull VocabCache<T> vocabCache, @NonNull WeightLookupTable<T> lookupTable, @NonNull VectorsConfiguration configuration) {
+        this.kernel = new HogwildKernel<>(vocabCache, (InMemoryLookupTable<T>) lookupTable, configuration);
+        this.window = configuration.getWindow();
+    }
+
+    /**
+     * SkipGram doesn't involves any pretraining
+     *
+     * @param iterator
+     */
+    @Override
+    public void pretrain(SequenceIterator<T> iterator) {
+
+    }
+
+    @Override
+    public void learnSequence(@NonNull Sequence<T> sequence, @NonNull AtomicLong nextRandom, double learningRate) {
+        HogwildKernel.Scratch scratch = kernel.getScratch();
+        scratch.setRandom(nextRandom.get());
+
+        int length = kernel.toIndexes(sequence, scratch);
+        int[] indexes = scratch.getIndexes();
+        for (int i = 0; i < length; i++) {
+            scratch.setRandom(Math.abs(scratch.getRandom() * 25214903917L + 11));
+            int w1 = indexes[i];
+            if (w1 < 0) continue;
+
+            int b = (int) (scratch.getRandom() % window);
+            int end = window * 2 + 1 - b;
+            for (int a = b; a < end; a++) {
+                if (a == window) continue;
+                int c = i - window + a;
+                if (c >= 0 && c < length)
+                    kernel.skipGram(w1, indexes[c], learningRate, scratch);
+            }
+        }
+
+        nextRandom.set(scratch.getRandom());
+    }
+
+    /**
+     * SkipGram has no reasons for early termination ever.
+     *
+     * @return
+     */
+    @Override
+    public boolean isEarlyTerminationHit() {
+        return false;
+    }
+}
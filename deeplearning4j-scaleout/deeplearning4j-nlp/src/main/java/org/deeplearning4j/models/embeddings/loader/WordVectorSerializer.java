@@ -40,6 +40,7 @@ import org.deeplearning4j.models.sequencevectors.interfaces.SequenceElementFacto
 import org.deeplearning4j.models.sequencevectors.sequence.SequenceElement;
 import org.deeplearning4j.models.embeddings.WeightLookupTable;
 import org.deeplearning4j.models.embeddings.inmemory.InMemoryLookupTable;
+import org.deeplearning4j.models.embeddings.wordvectors.MappedWordVectors;
 import org.deeplearning4j.models.embeddings.wordvectors.WordVectors;
 import org.deeplearning4j.models.embeddings.wordvectors.WordVectorsImpl;
 import org.deeplearning4j.models.glove.Glove;
@@ -254,6 +255,100 @@ public class WordVectorSerializer {
 
     }
 
+    /**
+     * Converts a Google model to the memory mapped format of {@link MappedWordVectors}, without loading it:
+     * words are streamed from the source file to the target file one at a time.
+     *
+     * PLEASE NOTE: Vectors are stored as is (not normalized). Cosine similarity and wordsNearest are not affected.
+     *
+     * @param modelFile the Google model file (binary or text, optionally gzipped)
+     * @param binary read from binary (if set to true) or from text file format
+     * @param target file to write to
+     * @throws IOException
+     */
+    public static void convertGoogleModelToMapped(@NonNull File modelFile, boolean binary, @NonNull File target) throws IOException {
+        convertGoogleModelToMapped(modelFile, binary, DEFAULT_LINEBREAKS, target);
+    }
+
+    /**
+     * Converts a Google model to the memory mapped format of {@link MappedWordVectors}, without loading it.
+     *
+     * @param modelFile the Google model file (binary or text, optionally gzipped)
+     * @param binary read from binary (if set to true) or from text file format
+     * @param lineBreaks binary format only: if true, each word/vector is expected to be terminated by a line break
+     * @param target file to write to
+     * @throws IOException
+     */
+    public static void convertGoogleModelToMapped(@NonNull File modelFile, boolean binary, boolean lineBreaks, @NonNull File target) throws IOException {
+        try (BufferedInputStream bis = new BufferedInputStream(
+                GzipUtils.isCompressedFilename(modelFile.getName())
+                        ? new GZIPInputStream(new FileInputStream(modelFile))
+                        : new FileInputStream(modelFile), 1 << 20)) {
+            if (binary) {
+                DataInputStream dis = new DataInputStream(bis);
+                int words = Integer.parseInt(readString(dis));
+                int size = Integer.parseInt(readString(dis));
+                try (MappedWordVectors.Writer writer = new MappedWordVectors.Writer(target, size)) {
+                    float[] vector = new float[size];
+                    for (int i = 0; i < words; i++) {
+                        String word = readString(dis);
+                        for (int j = 0; j < size; j++)
+                            vector[j] = readFloat(dis);
+                        writer.add(word, vector);
+
+                        if (lineBreaks) {
+                            dis.readByte(); // line break
+                        }
+                    }
+                }
+            } else {
+                BufferedReader reader = new BufferedReader(new InputStreamReader(bis, "UTF-8"));
+                MappedWordVectors.Writer writer = null;
+                try {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        String[] split = line.trim().split(" ");
+                        // skip header line: number of words and vector size
+                        if (writer == null && split.length == 2) continue;
+                        if (writer == null) writer = new MappedWordVectors.Writer(target, split.length - 1);
+
+                        float[] vector = new float[split.length - 1];
+                        for (int i = 1; i < split.length; i++)
+                            vector[i - 1] = Float.parseFloat(split[i]);
+                        writer.add(split[0].replaceAll(whitespaceReplacement, " "), vector);
+                    }
+                } finally {
+                    if (writer != null) writer.close();
+                }
+                if (writer == null)
+                    throw new IOException("No word vectors found in " + modelFile.getAbsolutePath());
+            }
+        }
+    }
+
+    /**
+     * Writes word vectors in the memory mapped format, to be opened with {@link #loadMappedWordVectors(File)}
+     *
+     * @param vectors word vectors to write
+     * @param file file to write to
+     * @throws IOException
+     */
+    public static void writeMappedWordVectors(@NonNull WordVectors vectors, @NonNull File file) throws IOException {
+        MappedWordVectors.write(vectors, file);
+    }
+
+    /**
+     * Opens word vectors in the memory mapped format. Nothing but the file header is read: vectors and vocabulary
+     * are accessed in place, see {@link MappedWordVectors}
+     *
+     * @param file file written by {@link #writeMappedWordVectors(WordVectors, File)} or convertGoogleModelToMapped()
+     * @return read-only word vectors
+     * @throws IOException
+     */
+    public static MappedWordVectors loadMappedWordVectors(@NonNull File file) throws IOException {
+        return MappedWordVectors.open(file);
+    }
+
     /**
      * Read a float from a data input stream Credit to:
      * https://github.com/NLPchina/Word2VEC_java/blob/master/src/com/ansj/vec/Word2VEC.java
@@ -0,0 +1,215 @@
+package org.deeplearning4j.models.embeddings.reader.impl;
+
+import lombok.NonNull;
+import org.deeplearning4j.clustering.hnsw.HnswIndex;
+import org.deeplearning4j.models.embeddings.WeightLookupTable;
+import org.deeplearning4j.models.embeddings.inmemory.InMemoryLookupTable;
+import org.deeplearning4j.models.sequencevectors.sequence.SequenceElement;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * This is HNSW-based implementation for wordsNearest methods: approximate nearest neighbour search, suited for
+ * large vocabularies and many consequent calls. Query cost grows roughly logarithmically with vocabulary size,
+ * instead of linearly for BasicModelUtils/FlatModelUtils.
+ *
+ * Recall vs. latency is controlled by ef, see {@link #setEf(int)}. The index is built upon first call to
+ * wordsNearest, or can be saved next to the model and restored with {@link #saveIndex(File)}/{@link #loadIndex(File)}.
+ *
+ * PLEASE NOTE: The index keeps its own normalized copy of the weights, so it will take as much memory as syn0.
+ * Underlying lookup table stays intact. If the model is trained further, call init() again to rebuild the index.
+ */
+public class HnswModelUtils<T extends SequenceElement> extends BasicModelUtils<T> {
+    private static final Logger log = LoggerFactory.getLogger(HnswModelUtils.class);
+
+    public static final String INDEX_EXTENSION = ".hnsw";
+
+    protected final HnswIndex.Builder builder;
+    protected volatile HnswIndex index;
+    protected int ef = -1;
+
+    public HnswModelUtils() {
+        this(new HnswIndex.Builder());
+    }
+
+    /**
+     * @param builder builder used to create the index: m, efConstruction, number of workers etc
+     */
+    public HnswModelUtils(@NonNull HnswIndex.Builder builder) {
+        this.builder = builder;
+    }
+
+    @Override
+    public void init(@NonNull WeightLookupTable<T> lookupTable) {
+        super.init(lookupTable);
+        index = null;
+    }
+
+    /**
+     * Returns location of the index file for the given model file: same directory, with {@link #INDEX_EXTENSION} appended
+     */
+    public static File indexFile(@NonNull File modelFile) {
+        return new File(modelFile.getPath() + INDEX_EXTENSION);
+    }
+
+    /**
+     * Set the size of the candidate list used during search. Higher values give better recall but slower queries.
+     */
+    public void setEf(int ef) {
+        this.ef = ef;
+        HnswIndex current = index;
+        if (current != null)
+            current.setEf(ef);
+    }
+
+    /**
+     * Returns the index, building it if required
+     */
+    public HnswIndex getIndex() {
+        checkIndex();
+        return index;
+    }
+
+    /**
+     * Save the index (building it if required) to the given file, usually {@link #indexFile(File)} for model file
+     */
+    public void saveIndex(@NonNull File file) throws IOException {
+        getIndex().save(file);
+    }
+
+    /**
+     * Restore index previously saved with {@link #saveIndex(File)}, instead of building it.
+     * This method should be called after init(), since init() resets the index.
+     */
+    public void loadIndex(@NonNull File file) throws IOException {
+        HnswIndex loaded = HnswIndex.load(file);
+        if (loaded.size() != vocabCache.numWords() || loaded.dims() != lookupTable.layerSize())
+            throw new IllegalStateException("Index in " + file.getAbsolutePath() + " has " + loaded.size() + " points of size "
+                    + loaded.dims() + ", but model has " + vocabCache.numWords() + " words of size " + lookupTable.layerSize());
+        if (ef > 0)
+            loaded.setEf(ef);
+        index = loaded;
+    }
+
+    protected synchronized void checkIndex() {
+        // build new index if it wasn't created before
+        if (index != null) return;
+
+        HnswIndex newIndex;
+        if (lookupTable instanceof InMemoryLookupTable) {
+            newIndex = builder.build(((InMemoryLookupTable) lookupTable).getSyn0());
+        } else {
+            int size = vocabCache.numWords();
+            int dims = lookupTable.layerSize();
+            float[] data = new float[size * dims];
+            for (int i = 0; i < size; i++) {
+                float[] vector = lookupTable.vector(vocabCache.wordAtIndex(i)).dup().data().asFloat();
+                System.arraycopy(vector, 0, data, i * dims, dims);
+            }
+            newIndex = builder.build(data, size, dims);
+        }
+        if (ef > 0)
+            newIndex.setEf(ef);
+        index = newIndex;
+    }
+
+    /**
+     * This method returns nearest words for target word, based on HNSW index.
+     * Index will be built upon first call to this method
+     *
+     * @param label label of element we're looking nearest words to
+     * @param n number of nearest elements to return
+     * @return
+     */
+    @Override
+    public Collection<String> wordsNearest(String label, int n) {
+        if (!vocabCache.hasToken(label)) return new ArrayList<>();
+
+        checkIndex();
+        List<String> collection = labelsOf(index.search(lookupTable.vector(label), n + 1));
+        collection.remove(label);
+        while (collection.size() > n) collection.remove(collection.size() - 1);
+
+        return collection;
+    }
+
+    /**
+     * Words nearest to the given vector, based on HNSW index
+     *
+     * @param words vector to look nearest words to
+     * @param top number of nearest elements to return
+     * @return labels of nearest elements, most similar first
+     */
+    @Override
+    public Collection<String> wordsNearest(INDArray words, int top) {
+        checkIndex();
+        return labelsOf(index.search(words, top));
+    }
+
+    /**
+     * Batch version of {@link #wordsNearest(INDArray, int)}: queries are processed in parallel
+     *
+     * @param words matrix of vectors to look nearest words to, one per row
+     * @param top number of nearest elements to return for each row
+     * @param workers number of threads to use
+     * @return labels of nearest elements for each row, most similar first
+     */
+    public List<Collection<String>> wordsNearest(INDArray words, int top, int workers) {
+        checkIndex();
+        int[][] indices = index.search(words, top, workers);
+        List<Collection<String>> ret = new ArrayList<>(indices.length);
+        for (int[] i : indices)
+            ret.add(labelsOf(i));
+        return ret;
+    }
+
+    /**
+     * Batch version of {@link #wordsNearest(String, int)}. Labels not in vocabulary get empty results
+     */
+    public List<Collection<String>> wordsNearest(@NonNull List<String> labels, int n, int workers) {
+        List<String> known = new ArrayList<>();
+        for (String label : labels)
+            if (vocabCache.hasToken(label)) known.add(label);
+
+        int[][] found = new int[0][];
+        if (!known.isEmpty()) {
+            checkIndex();
+            INDArray queries = Nd4j.create(known.size(), lookupTable.layerSize());
+            for (int i = 0; i < known.size(); i++)
+                queries.putRow(i, lookupTable.vector(known.get(i)));
+            found = index.search(queries, n + 1, workers);
+        }
+
+        List<Collection<String>> ret = new ArrayList<>(labels.size());
+        int k = 0;
+        for (String label : labels) {
+            if (!vocabCache.hasToken(label)) {
+                ret.add(new ArrayList<String>());
+                continue;
+            }
+            List<String> collection = labelsOf(found[k++]);
+            collection.remove(label);
+            while (collection.size() > n) collection.remove(collection.size() - 1);
+            ret.add(collection);
+        }
+        return ret;
+    }
+
+    protected List<String> labelsOf(int[] indices) {
+        List<String> ret = new ArrayList<>(indices.length);
+        for (int i : indices) {
+            String word = vocabCache.wordAtIndex(i);
+            if (word != null)
+                ret.add(word);
+        }
+        return ret;
+    }
+}
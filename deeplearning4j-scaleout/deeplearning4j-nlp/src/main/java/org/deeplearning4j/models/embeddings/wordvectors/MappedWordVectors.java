@@ -0,0 +1,606 @@
+/*
+ *
+ *  * Copyright 2016 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+package org.deeplearning4j.models.embeddings.wordvectors;
+
+import lombok.NonNull;
+import org.deeplearning4j.berkeley.Counter;
+import org.deeplearning4j.models.embeddings.WeightLookupTable;
+import org.deeplearning4j.models.embeddings.reader.ModelUtils;
+import org.deeplearning4j.models.word2vec.wordstore.VocabCache;
+import org.deeplearning4j.util.MathUtils;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.*;
+
+/**
+ * Read-only {@link WordVectors} backed by a memory mapped file, so that nothing but a few buffer objects is kept on
+ * heap: the service starts without reading the vectors, and multiple JVMs using the same file share the OS page cache.
+ * <br>
+ * File layout (all values little endian):
+ * <ul>
+ *     <li>Header ({@link #HEADER_LENGTH} bytes): magic, version, number of words, layer size, offsets of each section,
+ *     hash table size</li>
+ *     <li>Vectors: float32, one row per word</li>
+ *     <li>Norms: float32 L2 norm of each vector, for cosine similarity</li>
+ *     <li>Label offsets: int64 start of each label (plus end of the last) within the labels section</li>
+ *     <li>Labels: UTF-8 bytes</li>
+ *     <li>Hash table: int32 (word index + 1, 0 for empty slots), open addressing with linear probing</li>
+ * </ul>
+ * Files are written with {@link Writer}, usually via {@link org.deeplearning4j.models.embeddings.loader.WordVectorSerializer#writeMappedWordVectors(WordVectors, File)}
+ * or {@link org.deeplearning4j.models.embeddings.loader.WordVectorSerializer#convertGoogleModelToMapped(File, boolean, File)}.
+ * <br>
+ * wordsNearest is an exact scan over the mapped vectors. vocab(), lookupTable() and setModelUtils() are not supported.
+ */
+public class MappedWordVectors implements WordVectors {
+
+    public static final int MAGIC = 0x444C3457;
+    public static final int VERSION = 1;
+    public static final int HEADER_LENGTH = 64;
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    //Vectors are mapped in chunks of whole rows, up to this size
+    private static final long MAX_CHUNK_BYTES = 1L << 30;
+
+    private final File file;
+    private final int numWords;
+    private final int layerSize;
+    private final int rowsPerChunk;
+
+    private transient FloatBuffer[] vectors;
+    private transient FloatBuffer norms;
+    private transient LongBuffer labelOffsets;
+    private transient ByteBuffer labels;
+    private transient IntBuffer hashTable;
+    private final int hashMask;
+
+    private String UNK = WordVectorsImpl.DEFAULT_UNK;
+
+    private MappedWordVectors(File file) throws IOException {
+        this.file = file;
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+            if (channel.size() < HEADER_LENGTH)
+                throw new IOException("Not a mapped word vectors file: " + file.getAbsolutePath());
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_LENGTH).order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getInt() != MAGIC)
+                throw new IOException("Not a mapped word vectors file: " + file.getAbsolutePath());
+            int version = header.getInt();
+            if (version != VERSION)
+                throw new IOException("Unsupported mapped word vectors version: " + version);
+            numWords = header.getInt();
+            layerSize = header.getInt();
+            long normsOffset = header.getLong();
+            long labelOffsetsOffset = header.getLong();
+            long labelsOffset = header.getLong();
+            long hashOffset = header.getLong();
+            int hashSize = header.getInt();
+            hashMask = hashSize - 1;
+
+            long rowBytes = 4L * Math.max(1, layerSize);
+            rowsPerChunk = (int) Math.max(1, MAX_CHUNK_BYTES / rowBytes);
+            int numChunks = (numWords + rowsPerChunk - 1) / rowsPerChunk;
+            vectors = new FloatBuffer[numChunks];
+            for (int i = 0; i < numChunks; i++) {
+                long first = (long) i * rowsPerChunk;
+                long rows = Math.min(rowsPerChunk, numWords - first);
+                vectors[i] = map(channel, HEADER_LENGTH + first * rowBytes, rows * rowBytes).asFloatBuffer();
+            }
+            norms = map(channel, normsOffset, 4L * numWords).asFloatBuffer();
+            labelOffsets = map(channel, labelOffsetsOffset, 8L * (numWords + 1)).asLongBuffer();
+            labels = map(channel, labelsOffset, hashOffset - labelsOffset);
+            hashTable = map(channel, hashOffset, 4L * hashSize).asIntBuffer();
+        }
+    }
+
+    private static ByteBuffer map(FileChannel channel, long position, long size) throws IOException {
+        if (size > Integer.MAX_VALUE)
+            throw new IOException("Section of " + size + " bytes is too large to be mapped");
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, size).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Open (memory map) a file written by {@link Writer}
+     */
+    public static MappedWordVectors open(@NonNull File file) throws IOException {
+        return new MappedWordVectors(file);
+    }
+
+    /**
+     * Write the given word vectors in the mapped format
+     */
+    public static void write(@NonNull WordVectors vectors, @NonNull File file) throws IOException {
+        VocabCache vocab = vectors.vocab();
+        int numWords = vocab.numWords();
+        int layerSize = vectors.lookupTable().layerSize();
+        try (Writer writer = new Writer(file, layerSize)) {
+            for (int i = 0; i < numWords; i++) {
+                String word = vocab.wordAtIndex(i);
+                writer.add(word, vectors.getWordVectorMatrix(word).dup().data().asFloat());
+            }
+        }
+    }
+
+    /** Number of words */
+    public int numWords() {
+        return numWords;
+    }
+
+    /** Length of the word vectors */
+    public int layerSize() {
+        return layerSize;
+    }
+
+    /**
+     * Returns the label of the word at the given index, or null if index is out of range
+     */
+    public String wordAtIndex(int index) {
+        if (index < 0 || index >= numWords) return null;
+        int start = (int) labelOffsets.get(index);
+        int end = (int) labelOffsets.get(index + 1);
+        byte[] bytes = new byte[end - start];
+        for (int i = 0; i < bytes.length; i++)
+            bytes[i] = labels.get(start + i);
+        return new String(bytes, UTF8);
+    }
+
+    @Override
+    public int indexOf(String word) {
+        if (word == null) return -1;
+        byte[] bytes = word.getBytes(UTF8);
+        int slot = hash(bytes) & hashMask;
+        while (true) {
+            int entry = hashTable.get(slot);
+            if (entry == 0) return -1;
+            if (labelEquals(entry - 1, bytes)) return entry - 1;
+            slot = (slot + 1) & hashMask;
+        }
+    }
+
+    private boolean labelEquals(int index, byte[] bytes) {
+        int start = (int) labelOffsets.get(index);
+        int end = (int) labelOffsets.get(index + 1);
+        if (end - start != bytes.length) return false;
+        for (int i = 0; i < bytes.length; i++)
+            if (labels.get(start + i) != bytes[i]) return false;
+        return true;
+    }
+
+    /** FNV-1a hash of the label bytes */
+    private static int hash(byte[] bytes) {
+        int h = 0x811C9DC5;
+        for (byte b : bytes) {
+            h ^= b & 0xFF;
+            h *= 0x01000193;
+        }
+        return h ^ (h >>> 16);
+    }
+
+    @Override
+    public boolean hasWord(String word) {
+        return indexOf(word) >= 0;
+    }
+
+    @Override
+    public String getUNK() {
+        return UNK;
+    }
+
+    @Override
+    public void setUNK(String newUNK) {
+        this.UNK = newUNK;
+    }
+
+    /** Index of the word, or of UNK if the word isn't present (as per InMemoryLookupTable.vector()) */
+    private int indexOrUnk(String word) {
+        int idx = indexOf(word);
+        return idx >= 0 ? idx : indexOf(UNK);
+    }
+
+    private float[] row(int index) {
+        float[] out = new float[layerSize];
+        FloatBuffer chunk = vectors[index / rowsPerChunk];
+        int offset = (index % rowsPerChunk) * layerSize;
+        for (int i = 0; i < layerSize; i++)
+            out[i] = chunk.get(offset + i);
+        return out;
+    }
+
+    @Override
+    public double[] getWordVector(String word) {
+        int idx = indexOf(word);
+        if (idx < 0) return null;
+        float[] row = row(idx);
+        double[] out = new double[layerSize];
+        for (int i = 0; i < layerSize; i++)
+            out[i] = row[i];
+        return out;
+    }
+
+    @Override
+    public INDArray getWordVectorMatrix(String word) {
+        int idx = indexOrUnk(word);
+        if (idx < 0) return null;
+        return Nd4j.create(row(idx));
+    }
+
+    @Override
+    public INDArray getWordVectorMatrixNormalized(String word) {
+        int idx = indexOf(word);
+        if (idx < 0) return null;
+        float[] row = row(idx);
+        float norm = norms.get(idx);
+        if (norm > 0) {
+            for (int i = 0; i < layerSize; i++)
+                row[i] /= norm;
+        }
+        return Nd4j.create(row);
+    }
+
+    @Override
+    public double similarity(String word, String word2) {
+        if (word == null || word2 == null) return Double.NaN;
+        int idx1 = indexOrUnk(word);
+        int idx2 = indexOrUnk(word2);
+        if (idx1 < 0 || idx2 < 0) return Double.NaN;
+        if (word.equals(word2)) return 1.0;
+
+        float[] v1 = row(idx1);
+        float[] v2 = row(idx2);
+        double dot = 0;
+        for (int i = 0; i < layerSize; i++)
+            dot += v1[i] * v2[i];
+        return dot / ((double) norms.get(idx1) * norms.get(idx2));
+    }
+
+    /**
+     * Indices of the (up to) top most similar words by cosine similarity, most similar first. Full scan over the
+     * mapped vectors, without allocation per word.
+     */
+    protected int[] nearest(float[] query, int top, int exclude) {
+        double queryNorm = 0;
+        for (float q : query)
+            queryNorm += q * q;
+        queryNorm = Math.sqrt(queryNorm);
+
+        top = Math.max(0, Math.min(top, numWords));
+        int[] ids = new int[top];
+        double[] sims = new double[top];
+        int count = 0;
+        if (top == 0) return ids;
+
+        for (int c = 0; c < vectors.length; c++) {
+            FloatBuffer chunk = vectors[c];
+            int first = c * rowsPerChunk;
+            int rows = Math.min(rowsPerChunk, numWords - first);
+            for (int r = 0; r < rows; r++) {
+                int idx = first + r;
+                if (idx == exclude) continue;
+                int offset = r * layerSize;
+                double dot = 0;
+                for (int i = 0; i < layerSize; i++)
+                    dot += query[i] * chunk.get(offset + i);
+                float norm = norms.get(idx);
+                double sim = norm == 0 || queryNorm == 0 ? 0 : dot / (norm * queryNorm);
+
+                if (count == top && sim <= sims[count - 1]) continue;
+                //Insert into the sorted (descending) top list
+                int pos = count < top ? count++ : count - 1;
+                while (pos > 0 && sims[pos - 1] < sim) {
+                    sims[pos] = sims[pos - 1];
+                    ids[pos] = ids[pos - 1];
+                    pos--;
+                }
+                sims[pos] = sim;
+                ids[pos] = idx;
+            }
+        }
+        return count == top ? ids : Arrays.copyOf(ids, count);
+    }
+
+    private List<String> labelsOf(int[] indices) {
+        List<String> ret = new ArrayList<>(indices.length);
+        for (int i : indices)
+            ret.add(wordAtIndex(i));
+        return ret;
+    }
+
+    @Override
+    public Collection<String> wordsNearest(INDArray words, int top) {
+        return labelsOf(nearest(words.dup().data().asFloat(), top, -1));
+    }
+
+    @Override
+    public Collection<String> wordsNearest(String word, int n) {
+        int idx = indexOf(word);
+        if (idx < 0) return new ArrayList<>();
+        return labelsOf(nearest(row(idx), n, idx));
+    }
+
+    @Override
+    public Collection<String> wordsNearest(Collection<String> positive, Collection<String> negative, int top) {
+        float[] mean = combine(positive, negative);
+        if (mean == null) return new ArrayList<>();
+        return labelsOf(nearest(mean, top, -1));
+    }
+
+    /**
+     * Mean of the positive and negated negative word vectors, or null if any of the words isn't present
+     */
+    private float[] combine(Collection<String> positive, Collection<String> negative) {
+        float[] sum = new float[layerSize];
+        for (String s : positive) {
+            int idx = indexOf(s);
+            if (idx < 0) return null;
+            float[] row = row(idx);
+            for (int i = 0; i < layerSize; i++)
+                sum[i] += row[i];
+        }
+        for (String s : negative) {
+            int idx = indexOf(s);
+            if (idx < 0) return null;
+            float[] row = row(idx);
+            for (int i = 0; i < layerSize; i++)
+                sum[i] -= row[i];
+        }
+        int count = positive.size() + negative.size();
+        if (count > 1) {
+            for (int i = 0; i < layerSize; i++)
+                sum[i] /= count;
+        }
+        return sum;
+    }
+
+    /**
+     * As per BasicModelUtils, the weighted sum of normalized vectors ranks words the same way as cosine similarity
+     */
+    @Override
+    public Collection<String> wordsNearestSum(INDArray words, int top) {
+        return wordsNearest(words, top);
+    }
+
+    @Override
+    public Collection<String> wordsNearestSum(String word, int n) {
+        int idx = indexOrUnk(word);
+        if (idx < 0) return new ArrayList<>();
+        return labelsOf(nearest(row(idx), n, -1));
+    }
+
+    @Override
+    public Collection<String> wordsNearestSum(Collection<String> positive, Collection<String> negative, int top) {
+        return wordsNearest(positive, negative, top);
+    }
+
+    @Override
+    public Map<String, Double> accuracy(List<String> questions) {
+        Map<String, Double> accuracy = new HashMap<>();
+        Counter<String> right = new Counter<>();
+        String analogyType = "";
+        for (String s : questions) {
+            if (s.startsWith(":")) {
+                if (!analogyType.isEmpty())
+                    accuracy.put(analogyType, 100.0 * right.getCount("right") / right.totalCount());
+                analogyType = s;
+                right.clear();
+            } else {
+                String[] split = s.split(" ");
+                Collection<String> nearest = wordsNearest(Arrays.asList(split[0]), Arrays.asList(split[1], split[2]), 1);
+                if (!nearest.isEmpty() && split[3].equals(nearest.iterator().next()))
+                    right.incrementCount("right", 1.0);
+                else
+                    right.incrementCount("wrong", 1.0);
+            }
+        }
+        if (!analogyType.isEmpty())
+            accuracy.put(analogyType, 100.0 * right.getCount("right") / right.totalCount());
+        return accuracy;
+    }
+
+    @Override
+    public List<String> similarWordsInVocabTo(String word, double accuracy) {
+        List<String> ret = new ArrayList<>();
+        for (int i = 0; i < numWords; i++) {
+            String s = wordAtIndex(i);
+            if (MathUtils.stringSimilarity(word, s) >= accuracy)
+                ret.add(s);
+        }
+        return ret;
+    }
+
+    @Override
+    public VocabCache vocab() {
+        throw new UnsupportedOperationException("MappedWordVectors has no VocabCache: use indexOf()/wordAtIndex()");
+    }
+
+    @Override
+    public WeightLookupTable lookupTable() {
+        throw new UnsupportedOperationException("MappedWordVectors has no WeightLookupTable: use getWordVectorMatrix()");
+    }
+
+    @Override
+    public void setModelUtils(ModelUtils utils) {
+        throw new UnsupportedOperationException("MappedWordVectors does not support ModelUtils");
+    }
+
+    /** Buffers are not serialized: the file is mapped again on deserialization */
+    private Object readResolve() throws ObjectStreamException {
+        try {
+            MappedWordVectors ret = open(file);
+            ret.setUNK(UNK);
+            return ret;
+        } catch (IOException e) {
+            InvalidObjectException ex = new InvalidObjectException("Unable to map " + file.getAbsolutePath());
+            ex.initCause(e);
+            throw ex;
+        }
+    }
+
+    /**
+     * Writes the mapped format one word at a time: vectors are streamed to the file, and only the labels and norms are
+     * kept in memory until {@link #close()}
+     */
+    public static class Writer implements Closeable {
+        private static final int BUFFER_SIZE = 1 << 16;
+
+        private final FileOutputStream fos;
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        private final int layerSize;
+        private final List<byte[]> labels = new ArrayList<>();
+        private float[] norms = new float[1024];
+        private long position;
+        private boolean closed;
+
+        public Writer(@NonNull File file, int layerSize) throws IOException {
+            if (layerSize <= 0) throw new IllegalArgumentException("Invalid layer size: " + layerSize);
+            this.layerSize = layerSize;
+            this.fos = new FileOutputStream(file);
+            this.channel = fos.getChannel();
+            //Header is written on close
+            channel.position(HEADER_LENGTH);
+            position = HEADER_LENGTH;
+        }
+
+        /**
+         * Add the next word, with index equal to the number of words added before it
+         */
+        public void add(@NonNull String label, @NonNull float[] vector) throws IOException {
+            if (vector.length != layerSize)
+                throw new IllegalArgumentException("Vector for \"" + label + "\" has length " + vector.length + ", expected " + layerSize);
+            double norm = 0;
+            for (float v : vector) {
+                putFloat(v);
+                norm += v * v;
+            }
+            int idx = labels.size();
+            if (idx == norms.length) norms = Arrays.copyOf(norms, 2 * idx);
+            norms[idx] = (float) Math.sqrt(norm);
+            labels.add(label.getBytes(UTF8));
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) flush();
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining())
+                position += channel.write(buffer);
+            buffer.clear();
+        }
+
+        private void putFloat(float v) throws IOException {
+            ensure(4);
+            buffer.putFloat(v);
+        }
+
+        private void putLong(long v) throws IOException {
+            ensure(8);
+            buffer.putLong(v);
+        }
+
+        private void putInt(int v) throws IOException {
+            ensure(4);
+            buffer.putInt(v);
+        }
+
+        private void putBytes(byte[] bytes) throws IOException {
+            int pos = 0;
+            while (pos < bytes.length) {
+                if (!buffer.hasRemaining()) flush();
+                int n = Math.min(buffer.remaining(), bytes.length - pos);
+                buffer.put(bytes, pos, n);
+                pos += n;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) return;
+            closed = true;
+            try {
+                int numWords = labels.size();
+
+                flush();
+                long normsOffset = position;
+                for (int i = 0; i < numWords; i++)
+                    putFloat(norms[i]);
+
+                flush();
+                long labelOffsetsOffset = position;
+                long offset = 0;
+                for (byte[] label : labels) {
+                    putLong(offset);
+                    offset += label.length;
+                }
+                putLong(offset);
+                if (offset > Integer.MAX_VALUE)
+                    throw new IOException("Labels are too large to be mapped: " + offset + " bytes");
+
+                flush();
+                long labelsOffset = position;
+                for (byte[] label : labels)
+                    putBytes(label);
+
+                int hashSize = 2;
+                while (hashSize < 2 * numWords) hashSize <<= 1;
+                int[] table = new int[hashSize];
+                for (int i = 0; i < numWords; i++) {
+                    int slot = hash(labels.get(i)) & (hashSize - 1);
+                    boolean duplicate = false;
+                    while (table[slot] != 0) {
+                        if (Arrays.equals(labels.get(table[slot] - 1), labels.get(i))) {
+                            duplicate = true;
+                            break;
+                        }
+                        slot = (slot + 1) & (hashSize - 1);
+                    }
+                    //First occurrence of duplicate labels wins, as per AbstractCache
+                    if (!duplicate) table[slot] = i + 1;
+                }
+
+                flush();
+                long hashOffset = position;
+                for (int t : table)
+                    putInt(t);
+                flush();
+
+                ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH).order(ByteOrder.LITTLE_ENDIAN);
+                header.putInt(MAGIC);
+                header.putInt(VERSION);
+                header.putInt(numWords);
+                header.putInt(layerSize);
+                header.putLong(normsOffset);
+                header.putLong(labelOffsetsOffset);
+                header.putLong(labelsOffset);
+                header.putLong(hashOffset);
+                header.putInt(hashSize);
+                header.clear();
+                long pos = 0;
+                while (header.hasRemaining())
+                    pos += channel.write(header, pos);
+            } finally {
+                fos.close();
+            }
+        }
+    }
+}
@@ -19,17 +19,18 @@ import org.slf4j.LoggerFactory;
 
 import java.io.*;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * This class implements building cooccurrence map for abstract training corpus.
- * However it's performance rather low, due to exsessive IO that happens in ShadowCopyThread
  *
- * PLEASE NOTE: Current implementation involves massive IO, and it should be rewritter as soon as ND4j gets sparse arrays support
+ * Each worker thread counts into its own {@link PrimitiveCountMap} shard, so no locks are involved in counting.
+ * Memory threshold is split between shards: as soon as a shard can't grow within its share, it's spilled to disk
+ * as sorted run. After counting, shards are either merged in memory, or (if anything was spilled) all runs are
+ * k-way merged by {@link CoOccurrenceMerger} into the target file.
  *
  * @author raver119@gmail.com
  */
@@ -40,23 +41,21 @@ public class AbstractCoOccurrences<T extends SequenceElement> implements Seriali
     protected VocabCache<T> vocabCache;
     protected SequenceIterator<T> sequenceIterator;
 
-    // please note, we need enough room for ShadowCopy thread, that's why -1 there
-    protected int workers = Math.max(Runtime.getRuntime().availableProcessors() - 1, 1);
+    protected int workers = Runtime.getRuntime().availableProcessors();
 
     // target file, where text with cooccurrencies should be saved
     protected File targetFile;
 
-    protected ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
-
     protected long memory_threshold = 0;
 
-    private ShadowCopyThread shadowThread;
+    // per-thread shards, available while fit() is running
+    private volatile List<PrimitiveCountMap> shards = Collections.emptyList();
+
+    // sorted runs spilled to disk by worker threads
+    private List<File> runs;
 
-//    private Counter<Integer> sentenceOccurrences = Util.parallelCounter();
-    //private CounterMap<T, T> coOccurrenceCounts = Util.parallelCounterMap();
-    private volatile CountMap<T> coOccurrenceCounts = new CountMap<>();
-    //private Counter<Integer> occurrenceAllocations = Util.parallelCounter();
-    //private List<Pair<T, T>> coOccurrences;
+    // final counts, available after fit() if whole map fit into memory
+    private volatile PrimitiveCountMap coOccurrenceCounts;
     private AtomicLong processedSequences = new AtomicLong(0);
 
 
@@ -70,26 +69,33 @@ public class AbstractCoOccurrences<T extends SequenceElement> implements Seriali
     /**
      * This method returns cooccurrence distance weights for two SequenceElements
      *
+     * Please note: counts are available only if whole cooccurrence map fit into memory during fit(). Otherwise use iterator()
+     *
      * @param element1
      * @param element2
      * @return distance weight
      */
     public double getCoOccurrenceCount(@NonNull T element1, @NonNull T element2) {
-        return coOccurrenceCounts.getCount(element1, element2);
+        PrimitiveCountMap counts = coOccurrenceCounts;
+        if (counts == null)
+            throw new IllegalStateException("CoOccurrence counts aren't available in memory: either fit() wasn't called, or counts were spilled to disk. Use iterator() instead.");
+
+        return counts.getCount(element1.getIndex(), element2.getIndex());
     }
 
     /**
-     * This method returns estimated memory footrpint, based on current CountMap content
+     * This method returns memory footprint of cooccurrence counts held in memory, in bytes
      * @return
      */
     protected long getMemoryFootprint() {
-        // TODO: implement this method. It should return approx. memory used by appropriate CountMap
-        try {
-            lock.readLock().lock();
-            return ((long) coOccurrenceCounts.size()) * 24L * 5L;
-        } finally {
-            lock.readLock().unlock();
-        }
+        if (coOccurrenceCounts != null)
+            return coOccurrenceCounts.getMemoryFootprint();
+
+        // shards are owned by worker threads, so this is just an estimate while fit() is running
+        long footprint = 0;
+        for (PrimitiveCountMap shard : shards)
+            footprint += shard.getMemoryFootprint();
+        return footprint;
     }
 
     /**
@@ -101,15 +107,22 @@ public class AbstractCoOccurrences<T extends SequenceElement> implements Seriali
     }
 
     public void fit() {
-        shadowThread = new ShadowCopyThread();
-        shadowThread.start();
-
         // we should reset iterator before counting cooccurrences
         sequenceIterator.reset();
 
+        coOccurrenceCounts = null;
+        runs = Collections.synchronizedList(new ArrayList<File>());
+        long shardThreshold = Math.max(getMemoryThreshold() / workers, 1L);
+
         List<CoOccurrencesCalculatorThread> threads = new ArrayList<>();
+        List<PrimitiveCountMap> maps = new ArrayList<>();
+        for (int x = 0; x < workers; x++) {
+            threads.add(x, new CoOccurrencesCalculatorThread(x, new FilteredSequenceIterator<T>(new SynchronizedSequenceIterator<T>(sequenceIterator), vocabCache), processedSequences, shardThreshold));
+            maps.add(threads.get(x).counts);
+        }
+        shards = maps;
+
         for (int x = 0; x < workers; x++) {
-            threads.add(x, new CoOccurrencesCalculatorThread(x, new FilteredSequenceIterator<T>(new SynchronizedSequenceIterator<T>(sequenceIterator), vocabCache), processedSequences));
             threads.get(x).start();
         }
 
@@ -121,8 +134,48 @@ public class AbstractCoOccurrences<T extends SequenceElement> implements Seriali
             }
         }
 
-        shadowThread.finish();
-        logger.info("CoOccurrences map was built.");
+        try {
+            long pairs;
+            if (runs.isEmpty() && canMergeInMemory(maps)) {
+                PrimitiveCountMap merged = maps.get(0);
+                for (PrimitiveCountMap map : maps)
+                    if (map.size() > merged.size()) merged = map;
+
+                for (PrimitiveCountMap map : maps)
+                    if (map != merged) merged.mergeFrom(map);
+
+                try (PrintWriter writer = new PrintWriter(new BufferedWriter(new FileWriter(targetFile), 10 * 1024 * 1024))) {
+                    merged.writeSorted(writer);
+                }
+                pairs = merged.size();
+                coOccurrenceCounts = merged;
+            } else {
+                for (PrimitiveCountMap map : maps)
+                    if (map.size() > 0) runs.add(CoOccurrenceMerger.writeRun(map));
+
+                logger.info("Merging [" + runs.size() + "] spilled runs...");
+                pairs = CoOccurrenceMerger.merge(runs, targetFile);
+            }
+            logger.info("CoOccurrences map was built: [" + pairs + "] pairs");
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        } finally {
+            shards = Collections.emptyList();
+            runs = null;
+        }
+    }
+
+    private boolean canMergeInMemory(List<PrimitiveCountMap> maps) {
+        long footprint = 0;
+        long pairs = 0;
+        for (PrimitiveCountMap map : maps) {
+            footprint += map.getMemoryFootprint();
+            pairs += map.size();
+        }
+
+        // worst case: no pairs are shared between shards, and merged map has to grow from the largest shard
+        return pairs <= PrimitiveCountMap.MAX_CAPACITY / 2
+                && footprint + 2 * PrimitiveCountMap.estimateFootprintForSize(pairs) <= memory_threshold;
     }
 
     /**
@@ -283,12 +336,22 @@ public class AbstractCoOccurrences<T extends SequenceElement> implements Seriali
 
         private final SequenceIterator<T> iterator;
         private final AtomicLong sequenceCounter;
+        private final long memoryThreshold;
+        private final PrimitiveCountMap counts;
         private int threadId;
+        private int[] indexes = new int[64];
 
-        public CoOccurrencesCalculatorThread(int threadId, @NonNull SequenceIterator<T> iterator, @NonNull AtomicLong sequenceCounter) {
+        public CoOccurrencesCalculatorThread(int threadId, @NonNull SequenceIterator<T> iterator, @NonNull AtomicLong sequenceCounter, long memoryThreshold) {
             this.iterator = iterator;
             this.sequenceCounter = sequenceCounter;
             this.threadId = threadId;
+            this.memoryThreshold = memoryThreshold;
+
+            // initial table shouldn't exceed thread's share of memory, unless that share is really tiny
+            int capacity = PrimitiveCountMap.DEFAULT_CAPACITY;
+            while (capacity > 1024 && PrimitiveCountMap.estimateFootprint(capacity) > memoryThreshold)
+                capacity >>= 1;
+            this.counts = new PrimitiveCountMap(capacity);
 
             this.setName("CoOccurrencesCalculatorThread " + threadId);
         }
@@ -298,70 +361,39 @@ public class AbstractCoOccurrences<T extends SequenceElement> implements Seriali
             while (iterator.hasMoreSequences()) {
                 Sequence<T> sequence = iterator.nextSequence();
 
-                List<String> tokens = new ArrayList<>(sequence.asLabels());
-    //            logger.info("Tokens size: " + tokens.size());
-                for (int x = 0; x < sequence.getElements().size(); x++) {
-                    int wordIdx = vocabCache.indexOf(tokens.get(x));
-                    if (wordIdx < 0) continue;
-                    String w1 = vocabCache.wordFor(tokens.get(x)).getLabel();
-
-                    // THIS iS SAFE TO REMOVE, NO CHANCE WE'll HAVE UNK WORD INSIDE SEQUENCE
-                    /*if(w1.equals(Glove.UNK))
-                        continue;
-                    */
+                // vocab lookups are done once per element, not once per window position
+                List<T> elements = sequence.getElements();
+                int length = elements.size();
+                if (indexes.length < length) indexes = new int[Math.max(length, indexes.length * 2)];
+                for (int x = 0; x < length; x++) {
+                    String label = elements.get(x).getLabel();
+                    indexes[x] = label.equals(Glove.DEFAULT_UNK) ? -1 : vocabCache.indexOf(label);
+                }
 
-                    int windowStop = Math.min(x + windowSize + 1,tokens.size());
-                    for(int j = x; j < windowStop; j++) {
-                        int otherWord = vocabCache.indexOf(tokens.get(j));
-                        if (otherWord < 0) continue;
-                        String w2 = vocabCache.wordFor(tokens.get(j)).getLabel();
+                for (int x = 0; x < length; x++) {
+                    int wordIdx = indexes[x];
+                    if (wordIdx < 0) continue;
 
-                        if(w2.equals(Glove.DEFAULT_UNK) || otherWord == wordIdx) {
+                    int windowStop = Math.min(x + windowSize + 1, length);
+                    for (int j = x; j < windowStop; j++) {
+                        int otherWord = indexes[j];
+                        if (otherWord < 0 || otherWord == wordIdx) {
                             continue;
                         }
 
-
-                        T tokenX  = vocabCache.wordFor(tokens.get(x));
-                        T tokenJ = vocabCache.wordFor(tokens.get(j));
                         double nWeight = 1.0 / (j - x + Nd4j.EPS_THRESHOLD);
 
-                        while (getMemoryFootprint() >= getMemoryThreshold()) {
-                            try {
-                                shadowThread.invoke();
-                                /*lock.readLock().lock();
-                                int size = coOccurrenceCounts.size();
-                                lock.readLock().unlock();
-                                */
-                                if (threadId == 0) logger.debug("Memory consuimption > threshold: {footrpint: ["+ getMemoryFootprint()+"], threshold: [" + getMemoryThreshold() +"] }");
-                                Thread.sleep(10000);
-                            } catch (Exception e) {
-                                throw new RuntimeException(e);
-                            } finally {
-
+                        if (wordIdx < otherWord) {
+                            increment(wordIdx, otherWord, nWeight);
+                            if (symmetric) {
+                                increment(otherWord, wordIdx, nWeight);
                             }
-                        }
-                        /*
-                        if (getMemoryFootprint() == 0) {
-                            logger.info("Zero size!");
-                        }
-                        */
-
-                        try {
-                            lock.readLock().lock();
-                            if (wordIdx < otherWord) {
-                                coOccurrenceCounts.incrementCount(tokenX, tokenJ, nWeight);
-                                if (symmetric) {
-                                    coOccurrenceCounts.incrementCount(tokenJ, tokenX, nWeight);
-                                }
-                            } else {
-                                coOccurrenceCounts.incrementCount(tokenJ, tokenX, nWeight);
-
-                                if (symmetric) {
-                                    coOccurrenceCounts.incrementCount(tokenX, tokenJ, nWeight);
-                                }
+                        } else {
+                            increment(otherWord, wordIdx, nWeight);
+
+                            if (symmetric) {
+                                increment(wordIdx, otherWord, nWeight);
                             }
-                        } finally {
-                            lock.readLock().unlock();
                         }
                     }
                 }
@@ -369,257 +401,18 @@ public class AbstractCoOccurrences<T extends SequenceElement> implements Seriali
                 sequenceCounter.incrementAndGet();
             }
         }
-    }
-
-    /**
-     * This class is designed to provide shadow copy functionality for CoOccurence maps, since with proper corpus size you can't fit such a map into memory
-     *
-     */
-    private class ShadowCopyThread extends Thread implements Runnable {
-
-        private AtomicBoolean isFinished = new AtomicBoolean(false);
-        private AtomicBoolean isTerminate = new AtomicBoolean(false);
-        private AtomicBoolean isInvoked = new AtomicBoolean(false);
-        private AtomicBoolean shouldInvoke = new AtomicBoolean(false);
-
-        // file that contains resuts from previous runs
-        private File[] tempFiles;
-        private RoundCount counter;
-
-        public ShadowCopyThread() {
-            try {
-
-                counter = new RoundCount(1);
-                tempFiles = new File[2];
-
-                tempFiles[0] = File.createTempFile("aco", "tmp");
-                tempFiles[1] = File.createTempFile("aco", "tmp");
-
-                tempFiles[0].deleteOnExit();
-                tempFiles[1].deleteOnExit();
-            } catch (Exception e) {
-                throw new RuntimeException(e);
-            }
-
-            this.setName("ACO ShadowCopy thread");
-        }
-
-        @Override
-        public void run() {
-            /*
-                  Basic idea is pretty simple: run quetly, untill memory gets filled up to some high volume.
-                  As soon as this happens - execute shadow copy.
-            */
-            while (!isFinished.get() && !isTerminate.get()) {
-                // check used memory. if memory use below threshold - sleep for a while. if above threshold - invoke copier
-
-                if (getMemoryFootprint() > getMemoryThreshold()  || (shouldInvoke.get() && !isInvoked.get())) {
-                    // we'll just invoke copier, nothing else
-                    shouldInvoke.compareAndSet(true, false);
-                    invokeBlocking();
-                } else {
-                    try {
-                        /*
-                               commented and left here for future debugging purposes, if needed
-
-                                //lock.readLock().lock();
-                                //int size = coOccurrenceCounts.size();
-                                //lock.readLock().unlock();
-                                //logger.info("Current memory situation: {size: [" +size+ "], footprint: [" + getMemoryFootprint()+"], threshold: ["+ getMemoryThreshold() +"]}");
-                         */
-                        Thread.sleep(1000);
-                    } catch (Exception e) {
-                        throw new RuntimeException(e);
-                    }
-                }
-            }
-        }
-
-        /**
-         * This methods advises shadow copy process to start
-         */
-        public void invoke() {
-            shouldInvoke.compareAndSet(false, true);
-        }
-
-        /**
-         * This methods dumps cooccurrence map into save file.
-         * Please note: this method is synchronized and will block, until complete
-         */
-        public synchronized void invokeBlocking() {
-            if (getMemoryFootprint() < getMemoryThreshold() && !isFinished.get()) return;
-
-            int numberOfLinesSaved = 0;
-
-            isInvoked.set(true);
-
-            logger.debug("Memory purge started.");
-
-            /*
-                Basic plan:
-                    1. Open temp file
-                    2. Read that file line by line
-                    3. For each read line do synchronization in memory > new file direction
-             */
-
-            counter.tick();
 
-            CountMap<T> localMap;
-            try {
-                // in any given moment there's going to be only 1 WriteLock, due to invokeBlocking() being synchronized call
-                lock.writeLock().lock();
-
-
-
-                // obtain local copy of CountMap
-                 localMap = coOccurrenceCounts;
-
-                // set new CountMap, and release write lock
-                coOccurrenceCounts = new CountMap<T>();
-            } catch (Exception e) {
-                throw new RuntimeException(e);
-            } finally {
-                lock.writeLock().unlock();
-            }
-
-            try {
-
-                File file = null;
-                if (!isFinished.get()) {
-                    file = tempFiles[counter.previous()];
-                } else file = targetFile;
-
-
-            //    PrintWriter pw = new PrintWriter(file);
-
-                int linesRead = 0;
-
-                logger.debug("Saving to: ["+ counter.get()+"], Reading from: [" + counter.previous()+"]");
-                CoOccurenceReader<T> reader = new BinaryCoOccurrenceReader<>(tempFiles[counter.previous()], vocabCache, localMap);
-                CoOccurrenceWriter<T> writer = (isFinished.get()) ? new ASCIICoOccurrenceWriter<T>(targetFile): new BinaryCoOccurrenceWriter<T>(tempFiles[counter.get()]);
-                while (reader.hasMoreObjects()) {
-                    CoOccurrenceWeight<T> line = reader.nextObject();
-
-                    if (line != null) {
-                        writer.writeObject(line);
-                        numberOfLinesSaved++;
-                        linesRead++;
-                    }
-                }
-                reader.finish();
-
-                logger.debug("Lines read: [" + linesRead + "]");
-
-                //now, we can dump the rest of elements, which were not presented in existing dump
-                Iterator<Pair<T, T>> iterator = localMap.getPairIterator();
-                while (iterator.hasNext()) {
-                    Pair<T, T> pair = iterator.next();
-                    double mWeight = localMap.getCount(pair);
-                    CoOccurrenceWeight<T> object = new CoOccurrenceWeight<>();
-                    object.setElement1(pair.getFirst());
-                    object.setElement2(pair.getSecond());
-                    object.setWeight(mWeight);
-
-                    writer.writeObject(object);
-
-                    numberOfLinesSaved++;
-                    //      if (numberOfLinesSaved % 100000 == 0) logger.info("Lines saved: [" + numberOfLinesSaved +"]");
+        private void increment(int index1, int index2, double weight) {
+            if (counts.isFull() && counts.getGrowthFootprint() > memoryThreshold) {
+                // can't grow within our share of memory: spill sorted run to disk, and reuse the table
+                if (threadId == 0) logger.debug("Memory consumption > threshold: {footprint: [" + counts.getGrowthFootprint() + "], threshold: [" + memoryThreshold + "] }");
+                try {
+                    runs.add(CoOccurrenceMerger.writeRun(counts));
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
                 }
-
-                writer.finish();
-
-            /*
-                SentenceIterator sIterator =  new PrefetchingSentenceIterator.Builder(new BasicLineIterator(tempFiles[counter.get()]))
-                        .setFetchSize(500000)
-                        .build();
-
-
-                int linesRead = 0;
-                while (sIterator.hasNext()) {
-                    //List<Writable> list = new ArrayList<>(reader.next());
-                    String sentence = sIterator.nextSentence();
-                    if (sentence == null || sentence.isEmpty()) continue;
-                    String[] strings = sentence.split(" ");
-
-
-                    // first two elements are integers - vocab indexes
-                    //T element1 = vocabCache.wordFor(vocabCache.wordAtIndex(list.get(0).toInt()));
-                    //T element2 = vocabCache.wordFor(vocabCache.wordAtIndex(list.get(1).toInt()));
-                    T element1 = vocabCache.elementAtIndex(Integer.valueOf(strings[0]));
-                    T element2 = vocabCache.elementAtIndex(Integer.valueOf(strings[1]));
-
-                    // getting third element, previously stored weight
-                    double sWeight = Double.valueOf(strings[2]);  // list.get(2).toDouble();
-
-                    // now, since we have both elements ready, we can check this pair against inmemory map
-                        double mWeight = localMap.getCount(element1, element2);
-                        if (mWeight <= 0) {
-                            // this means we have no such pair in memory, so we'll do nothing to sWeight
-                        } else {
-                            // since we have new weight value in memory, we should update sWeight value before moving it off memory
-                            sWeight += mWeight;
-
-                            // original pair can be safely removed from CountMap
-                            localMap.removePair(element1,element2);
-                        }
-
-                        StringBuilder builder = new StringBuilder().append(element1.getIndex()).append(" ").append(element2.getIndex()).append(" ").append(sWeight);
-                        pw.println(builder.toString());
-                        numberOfLinesSaved++;
-                        linesRead++;
-
-                   // if (numberOfLinesSaved % 100000 == 0) logger.info("Lines saved: [" + numberOfLinesSaved +"]");
-                  //  if (linesRead % 100000 == 0) logger.info("Lines read: [" + linesRead +"]");
-                }
-                */
-/*
-                logger.info("Lines read: [" + linesRead + "]");
-
-                //now, we can dump the rest of elements, which were not presented in existing dump
-                Iterator<Pair<T, T>> iterator = localMap.getPairIterator();
-                while (iterator.hasNext()) {
-                    Pair<T, T> pair = iterator.next();
-                    double mWeight = localMap.getCount(pair);
-
-                    StringBuilder builder = new StringBuilder().append(pair.getFirst().getIndex()).append(" ").append(pair.getFirst().getIndex()).append(" ").append(mWeight);
-                    pw.println(builder.toString());
-                    numberOfLinesSaved++;
-
-              //      if (numberOfLinesSaved % 100000 == 0) logger.info("Lines saved: [" + numberOfLinesSaved +"]");
-                }
-
-                pw.flush();
-                pw.close();
-
-*/
-
-                // just a hint for gc
-                localMap = null;
-                //sIterator.finish();
-            } catch (Exception e) {
-                throw new RuntimeException(e);
             }
-
-            logger.info("Number of word pairs saved so far: [" + numberOfLinesSaved + "]");
-            isInvoked.set(false);
-        }
-
-        /**
-         * This method provides soft finish ability for shadow copy process.
-         * Please note: it's blocking call, since it requires for final merge.
-         */
-        public void finish() {
-            if (this.isFinished.get()) return;
-
-            this.isFinished.set(true);
-            invokeBlocking();
-        }
-
-        /**
-         * This method provides hard fiinish ability for shadow copy process
-         */
-        public void terminate() {
-            this.isTerminate.set(true);
+            counts.incrementCount(index1, index2, weight);
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,163 @@
+package org.deeplearning4j.models.glove.count;
+
+import lombok.NonNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * External sort-merge for co-occurrence counts that don't fit into memory.
+ *
+ * Each spilled {@link PrimitiveCountMap} is written as a sorted run: binary records (int index1, int index2,
+ * double weight) in key order, same record format as {@link BinaryCoOccurrenceWriter}. Runs are then k-way merged,
+ * summing weights of equal pairs, into the final text file with "index1 index2 weight" lines.
+ * If there are more runs than {@link #MAX_FAN_IN}, intermediate merge passes are used, to bound number of open files.
+ */
+public class CoOccurrenceMerger {
+    public static final int MAX_FAN_IN = 64;
+
+    private static final int BUFFER_SIZE = 1024 * 1024;
+    private static final Logger log = LoggerFactory.getLogger(CoOccurrenceMerger.class);
+
+    private CoOccurrenceMerger() {
+    }
+
+    /**
+     * This method writes map contents as sorted run into a new temporary file, and clears the map
+     *
+     * @param map map to be spilled
+     * @return run file
+     */
+    public static File writeRun(@NonNull PrimitiveCountMap map) throws IOException {
+        File file = File.createTempFile("aco", "run");
+        file.deleteOnExit();
+        try (DataOutputStream stream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), BUFFER_SIZE))) {
+            map.writeSorted(stream);
+        }
+        map.clear();
+        return file;
+    }
+
+    /**
+     * This method merges sorted runs into target text file. Run files are deleted afterwards.
+     *
+     * @param runs sorted runs, as produced by {@link #writeRun(PrimitiveCountMap)}
+     * @param target text file to write to
+     * @return number of distinct pairs written
+     */
+    public static long merge(@NonNull List<File> runs, @NonNull File target) throws IOException {
+        List<File> current = new ArrayList<>(runs);
+        while (current.size() > MAX_FAN_IN) {
+            log.debug("Intermediate merge pass over [" + current.size() + "] runs");
+            List<File> next = new ArrayList<>();
+            for (int i = 0; i < current.size(); i += MAX_FAN_IN) {
+                List<File> group = current.subList(i, Math.min(i + MAX_FAN_IN, current.size()));
+                File file = File.createTempFile("aco", "run");
+                file.deleteOnExit();
+                try (DataOutputStream stream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), BUFFER_SIZE))) {
+                    mergeGroup(group, stream, null);
+                }
+                next.add(file);
+            }
+            current = next;
+        }
+
+        try (PrintWriter writer = new PrintWriter(new BufferedWriter(new FileWriter(target), BUFFER_SIZE))) {
+            return mergeGroup(current, null, writer);
+        }
+    }
+
+    private static long mergeGroup(List<File> group, DataOutputStream binary, PrintWriter text) throws IOException {
+        PriorityQueue<RunReader> queue = new PriorityQueue<>(Math.max(1, group.size()));
+        List<RunReader> readers = new ArrayList<>();
+        long written = 0;
+        try {
+            for (File file : group) {
+                RunReader reader = new RunReader(file);
+                readers.add(reader);
+                if (reader.advance())
+                    queue.add(reader);
+            }
+
+            while (!queue.isEmpty()) {
+                RunReader head = queue.poll();
+                long key = head.key;
+                double weight = head.value;
+                if (head.advance())
+                    queue.add(head);
+
+                while (!queue.isEmpty() && queue.peek().key == key) {
+                    RunReader other = queue.poll();
+                    weight += other.value;
+                    if (other.advance())
+                        queue.add(other);
+                }
+
+                if (binary != null) {
+                    binary.writeInt(PrimitiveCountMap.element1(key));
+                    binary.writeInt(PrimitiveCountMap.element2(key));
+                    binary.writeDouble(weight);
+                } else {
+                    writeLine(text, key, weight);
+                }
+                written++;
+            }
+        } finally {
+            for (RunReader reader : readers)
+                reader.close();
+        }
+
+        for (File file : group)
+            if (!file.delete())
+                log.warn("Unable to delete run file [" + file.getAbsolutePath() + "]");
+
+        return written;
+    }
+
+    /**
+     * Writes single pair in the text format used by {@link ASCIICoOccurrenceWriter}
+     */
+    static void writeLine(PrintWriter writer, long key, double weight) {
+        writer.print(PrimitiveCountMap.element1(key));
+        writer.print(' ');
+        writer.print(PrimitiveCountMap.element2(key));
+        writer.print(' ');
+        writer.println(weight);
+    }
+
+    private static class RunReader implements Comparable<RunReader>, Closeable {
+        private final DataInputStream stream;
+        private long remaining;
+        private long key;
+        private double value;
+
+        private RunReader(File file) throws IOException {
+            // records are fixed size: 2 ints + double
+            this.remaining = file.length() / 16;
+            this.stream = new DataInputStream(new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE));
+        }
+
+        private boolean advance() throws IOException {
+            if (remaining <= 0)
+                return false;
+            key = PrimitiveCountMap.key(stream.readInt(), stream.readInt());
+            value = stream.readDouble();
+            remaining--;
+            return true;
+        }
+
+        @Override
+        public int compareTo(RunReader o) {
+            return Long.compare(key, o.key);
+        }
+
+        @Override
+        public void close() throws IOException {
+            stream.close();
+        }
+    }
+}
@@ -0,0 +1,341 @@
+package org.deeplearning4j.models.glove.count;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Arrays;
+
+/**
+ * Primitive co-occurrence counter: open addressing hash table (linear probing) from a pair of vocabulary indexes,
+ * packed into a single long key, to a double weight. No objects are allocated per pair, so memory use is
+ * 16 bytes per slot, and is known exactly (see {@link #getMemoryFootprint()}).
+ *
+ * This class is NOT thread safe: it's meant to be used as a per-thread shard, with shards merged (or spilled to disk
+ * and merged, see {@link CoOccurrenceMerger}) once counting is complete.
+ */
+public class PrimitiveCountMap {
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+    public static final int MAX_CAPACITY = 1 << 30;
+
+    private static final long EMPTY = -1L;
+    private static final float LOAD_FACTOR = 0.75f;
+
+    private long[] keys;
+    private double[] values;
+    private int mask;
+    private int size;
+    private int maxSize;
+
+    // once sorted, entries are stored compacted in key order, and the map becomes read-only
+    private boolean sorted;
+
+    public PrimitiveCountMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param initialCapacity number of slots, rounded up to the next power of 2
+     */
+    public PrimitiveCountMap(int initialCapacity) {
+        if (initialCapacity < 1 || initialCapacity > MAX_CAPACITY)
+            throw new IllegalArgumentException("Invalid capacity: " + initialCapacity);
+        allocate(Math.max(2, Integer.highestOneBit(initialCapacity - 1) << 1));
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new double[capacity];
+        Arrays.fill(keys, EMPTY);
+        mask = capacity - 1;
+        maxSize = (int) (capacity * LOAD_FACTOR);
+    }
+
+    /**
+     * Packs a pair of vocabulary indexes into a single key. Keys sort in (index1, index2) order.
+     */
+    public static long key(int index1, int index2) {
+        return ((long) index1 << 32) | (index2 & 0xFFFFFFFFL);
+    }
+
+    public static int element1(long key) {
+        return (int) (key >>> 32);
+    }
+
+    public static int element2(long key) {
+        return (int) key;
+    }
+
+    private static int hash(long key) {
+        // MurmurHash3 finalizer: consecutive indexes would cluster otherwise
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+
+    public void incrementCount(int index1, int index2, double weight) {
+        incrementCount(key(index1, index2), weight);
+    }
+
+    public void incrementCount(long key, double weight) {
+        if (sorted)
+            throw new IllegalStateException("Map is read-only after sortEntries()");
+        if (isInvalid(key))
+            throw new IllegalArgumentException("Negative element index: " + element1(key) + ", " + element2(key));
+
+        int slot = hash(key) & mask;
+        while (true) {
+            long k = keys[slot];
+            if (k == key) {
+                values[slot] += weight;
+                return;
+            }
+            if (k == EMPTY) {
+                if (size >= maxSize) {
+                    grow();
+                    incrementCount(key, weight);
+                    return;
+                }
+                keys[slot] = key;
+                values[slot] = weight;
+                size++;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private static boolean isInvalid(long key) {
+        return key < 0 || element2(key) < 0;
+    }
+
+    public double getCount(int index1, int index2) {
+        long key = key(index1, index2);
+        if (sorted) {
+            int pos = Arrays.binarySearch(keys, 0, size, key);
+            return pos >= 0 ? values[pos] : 0.0;
+        }
+
+        int slot = hash(key) & mask;
+        while (true) {
+            long k = keys[slot];
+            if (k == key)
+                return values[slot];
+            if (k == EMPTY)
+                return 0.0;
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * Adds all counts from other map into this one
+     */
+    public void mergeFrom(PrimitiveCountMap other) {
+        if (other.sorted) {
+            for (int i = 0; i < other.size; i++)
+                incrementCount(other.keys[i], other.values[i]);
+        } else {
+            for (int i = 0; i < other.keys.length; i++)
+                if (other.keys[i] != EMPTY)
+                    incrementCount(other.keys[i], other.values[i]);
+        }
+    }
+
+    private void grow() {
+        if (keys.length >= MAX_CAPACITY)
+            throw new IllegalStateException("PrimitiveCountMap capacity exceeded: " + size + " pairs");
+
+        long[] oldKeys = keys;
+        double[] oldValues = values;
+        allocate(keys.length * 2);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++)
+            if (oldKeys[i] != EMPTY)
+                incrementCount(oldKeys[i], oldValues[i]);
+    }
+
+    /**
+     * @return number of distinct pairs stored
+     */
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return keys.length;
+    }
+
+    /**
+     * @return true if the next new pair will trigger table growth
+     */
+    public boolean isFull() {
+        return size >= maxSize;
+    }
+
+    /**
+     * This method returns memory used by this map, in bytes
+     */
+    public long getMemoryFootprint() {
+        return estimateFootprint(keys.length);
+    }
+
+    /**
+     * This method returns peak memory required to grow this map: old and new tables are both alive during rehash.
+     * If the map can't grow any further, Long.MAX_VALUE is returned.
+     */
+    public long getGrowthFootprint() {
+        if (keys.length >= MAX_CAPACITY)
+            return Long.MAX_VALUE;
+        return getMemoryFootprint() + estimateFootprint(keys.length * 2);
+    }
+
+    /**
+     * @param capacity number of slots
+     * @return memory used by a map with given number of slots, in bytes
+     */
+    public static long estimateFootprint(int capacity) {
+        // long key + double value per slot, plus array headers
+        return 16L * capacity + 32L;
+    }
+
+    /**
+     * @param pairs number of distinct pairs
+     * @return memory used by a map holding given number of pairs, without growth, in bytes
+     */
+    public static long estimateFootprintForSize(long pairs) {
+        long capacity = 2;
+        while (capacity * LOAD_FACTOR < pairs)
+            capacity <<= 1;
+        return 16L * capacity + 32L;
+    }
+
+    /**
+     * This method compacts all entries to the start of the table and sorts them by key.
+     * After this call the map is read-only: counts are available via {@link #getCount(int, int)} (binary search)
+     * and {@link #keyAt(int)}/{@link #valueAt(int)}, until {@link #clear()} is called.
+     */
+    public void sortEntries() {
+        if (sorted)
+            return;
+
+        int pos = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                keys[pos] = keys[i];
+                values[pos] = values[i];
+                pos++;
+            }
+        }
+        Arrays.fill(keys, pos, keys.length, EMPTY);
+        quickSort(0, size - 1);
+        sorted = true;
+    }
+
+    public long keyAt(int i) {
+        checkSorted(i);
+        return keys[i];
+    }
+
+    public double valueAt(int i) {
+        checkSorted(i);
+        return values[i];
+    }
+
+    private void checkSorted(int i) {
+        if (!sorted)
+            throw new IllegalStateException("sortEntries() should be called first");
+        if (i < 0 || i >= size)
+            throw new IndexOutOfBoundsException("Index: " + i + ", size: " + size);
+    }
+
+    /**
+     * This method writes all entries in key order, in the format used by {@link BinaryCoOccurrenceWriter}:
+     * int index1, int index2, double weight
+     */
+    public void writeSorted(DataOutputStream stream) throws IOException {
+        sortEntries();
+        for (int i = 0; i < size; i++) {
+            stream.writeInt(element1(keys[i]));
+            stream.writeInt(element2(keys[i]));
+            stream.writeDouble(values[i]);
+        }
+    }
+
+    /**
+     * This method writes all entries in key order, in the format used by {@link ASCIICoOccurrenceWriter}:
+     * "index1 index2 weight" per line
+     */
+    public void writeSorted(PrintWriter writer) {
+        sortEntries();
+        for (int i = 0; i < size; i++)
+            CoOccurrenceMerger.writeLine(writer, keys[i], values[i]);
+    }
+
+    /**
+     * Removes all entries, but keeps allocated table
+     */
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+        sorted = false;
+    }
+
+    private void quickSort(int lo, int hi) {
+        while (hi - lo > 16) {
+            long pivot = median(keys[lo], keys[(lo + hi) >>> 1], keys[hi]);
+            int i = lo;
+            int j = hi;
+            while (i <= j) {
+                while (keys[i] < pivot) i++;
+                while (keys[j] > pivot) j--;
+                if (i <= j) {
+                    swap(i, j);
+                    i++;
+                    j--;
+                }
+            }
+            // recurse into smaller part, loop over larger one, to bound stack depth
+            if (j - lo < hi - i) {
+                quickSort(lo, j);
+                lo = i;
+            } else {
+                quickSort(i, hi);
+                hi = j;
+            }
+        }
+
+        for (int i = lo + 1; i <= hi; i++) {
+            long k = keys[i];
+            double v = values[i];
+            int j = i - 1;
+            while (j >= lo && keys[j] > k) {
+                keys[j + 1] = keys[j];
+                values[j + 1] = values[j];
+                j--;
+            }
+            keys[j + 1] = k;
+            values[j + 1] = v;
+        }
+    }
+
+    private static long median(long a, long b, long c) {
+        if (a < b) {
+            if (b < c) return b;
+            return a < c ? c : a;
+        } else {
+            if (a < c) return a;
+            return b < c ? c : b;
+        }
+    }
+
+    private void swap(int i, int j) {
+        long k = keys[i];
+        keys[i] = keys[j];
+        keys[j] = k;
+        double v = values[i];
+        values[i] = values[j];
+        values[j] = v;
+    }
+}
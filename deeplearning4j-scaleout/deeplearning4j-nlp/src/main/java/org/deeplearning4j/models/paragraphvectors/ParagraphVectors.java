@@ -4,6 +4,8 @@ import lombok.Getter;
 import lombok.NonNull;
 import lombok.Setter;
 import org.deeplearning4j.berkeley.Counter;
+import org.deeplearning4j.models.embeddings.inmemory.InMemoryLookupTable;
+import org.deeplearning4j.models.embeddings.learning.impl.elements.HogwildKernel;
 import org.deeplearning4j.models.embeddings.learning.impl.sequence.DBOW;
 import org.deeplearning4j.models.embeddings.reader.ModelUtils;
 import org.deeplearning4j.models.embeddings.wordvectors.WordVectors;
@@ -32,7 +34,9 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Basic ParagraphVectors (aka Doc2Vec) implementation for DL4j, as wrapper over SequenceVectors
@@ -43,6 +47,9 @@ public class ParagraphVectors extends Word2Vec {
     @Getter protected LabelsSource labelsSource;
     @Getter @Setter protected transient LabelAwareIterator labelAwareIterator;
 
+    protected transient HogwildKernel<VocabWord> inferenceKernel;
+    protected transient INDArray inferenceSyn1;
+
 
     /**
      * This method takes raw text, applies tokenizer, and returns most probable label
@@ -87,17 +94,7 @@ public class ParagraphVectors extends Word2Vec {
      * @return
      */
     public INDArray inferVector(String text, double learningRate, double minLearningRate, int iterations) {
-        if (tokenizerFactory == null) throw new IllegalStateException("TokenizerFactory should be defined, prior to predict() call");
-
-        List<String> tokens = tokenizerFactory.create(text).getTokens();
-        List<VocabWord> document = new ArrayList<>();
-        for (String token: tokens) {
-            if (vocab.containsWord(token)) {
-                document.add(vocab.wordFor(token));
-            }
-        }
-
-        return inferVector(document, learningRate, minLearningRate, iterations);
+        return inferVector(documentElements(text), learningRate, minLearningRate, iterations);
     }
 
     /**
@@ -119,6 +116,17 @@ public class ParagraphVectors extends Word2Vec {
      * @return
      */
     public INDArray inferVector(List<VocabWord> document, double learningRate, double minLearningRate, int iterations) {
+        // HogwildKernel doesn't support AdaGrad, so previous inference path is used in this case
+        if (configuration.isUseAdaGrad())
+            return inferVectorSequential(document, learningRate, iterations);
+
+        return Nd4j.create(inferVector(inferenceKernel(), document, learningRate, minLearningRate, iterations));
+    }
+
+    /**
+     * Inference via DBOW learning algorithm, used with AdaGrad only. Calls are serialized, since learning algorithm isn't thread-safe
+     */
+    protected synchronized INDArray inferVectorSequential(List<VocabWord> document, double learningRate, int iterations) {
         if (sequenceLearningAlgorithm == null) {
             sequenceLearningAlgorithm = new DBOW<VocabWord>();
             sequenceLearningAlgorithm.configure(vocab, lookupTable, configuration);
@@ -133,6 +141,168 @@ public class ParagraphVectors extends Word2Vec {
         return null;
     }
 
+    /**
+     * PV-DBOW inference over frozen weights: lookup table isn't modified, and scratch space is per thread,
+     * so this method can be called from any number of threads at once
+     */
+    protected double[] inferVector(HogwildKernel<VocabWord> kernel, List<VocabWord> document, double learningRate, double minLearningRate, int iterations) {
+        int[] indexes = new int[document.size()];
+        int length = 0;
+        long seed = configuration.getSeed();
+        for (VocabWord word: document) {
+            int index = kernel.indexOf(word);
+            if (index < 0) continue;
+
+            indexes[length++] = index;
+            seed = 31 * seed + index;
+        }
+
+        double[] vector = new double[kernel.getLayerSize()];
+        kernel.infer(indexes, length, vector, learningRate, minLearningRate, iterations, seed, kernel.getScratch());
+        return vector;
+    }
+
+    /**
+     * Returns inference kernel over current weights. Kernel is rebuilt if weights were reset since the previous call
+     */
+    protected synchronized HogwildKernel<VocabWord> inferenceKernel() {
+        if (configuration.isUseAdaGrad()) throw new IllegalStateException("Parallel inference isn't supported with AdaGrad, please use inferVector() instead");
+        if (!(lookupTable instanceof InMemoryLookupTable)) throw new IllegalStateException("Inference requires InMemoryLookupTable");
+        InMemoryLookupTable<VocabWord> table = (InMemoryLookupTable<VocabWord>) lookupTable;
+
+        if (inferenceKernel == null || inferenceSyn1 != table.getSyn1()) {
+            inferenceKernel = new HogwildKernel<>(vocab, table, configuration);
+            inferenceSyn1 = table.getSyn1();
+        }
+        return inferenceKernel;
+    }
+
+    private List<VocabWord> documentElements(String text) {
+        if (tokenizerFactory == null) throw new IllegalStateException("TokenizerFactory should be defined, prior to inferVector() call");
+
+        List<String> tokens = tokenizerFactory.create(text).getTokens();
+        List<VocabWord> document = new ArrayList<>();
+        for (String token: tokens) {
+            if (vocab.containsWord(token)) {
+                document.add(vocab.wordFor(token));
+            }
+        }
+        return document;
+    }
+
+    /**
+     * This method calculates inferred vectors for a batch of texts, using number of workers defined for this model
+     *
+     * @param texts
+     * @return matrix with inferred vector for i-th text in i-th row
+     */
+    public INDArray inferVectorBatch(@NonNull List<String> texts) {
+        return inferVectorBatch(texts, this.learningRate.get(), this.minLearningRate, this.numEpochs, this.workers);
+    }
+
+    /**
+     * This method calculates inferred vectors for a batch of texts, using given number of threads.
+     * Each text gives the same vector as inferVector() call would.
+     *
+     * @param texts
+     * @return matrix with inferred vector for i-th text in i-th row
+     */
+    public INDArray inferVectorBatch(@NonNull final List<String> texts, final double learningRate, final double minLearningRate, final int iterations, int workers) {
+        if (texts.isEmpty()) throw new IllegalArgumentException("No texts to infer vectors for");
+
+        final HogwildKernel<VocabWord> kernel = inferenceKernel();
+        final double[][] vectors = new double[texts.size()][];
+        final AtomicInteger position = new AtomicInteger(0);
+
+        runInference(workers, new Runnable() {
+            @Override
+            public void run() {
+                int i;
+                while ((i = position.getAndIncrement()) < texts.size()) {
+                    vectors[i] = inferVector(kernel, documentElements(texts.get(i)), learningRate, minLearningRate, iterations);
+                }
+            }
+        });
+
+        return Nd4j.create(vectors);
+    }
+
+    /**
+     * This method calculates inferred vectors for all documents provided by iterator, using given number of threads,
+     * with default parameters for learning rate and iterations. Each inferred vector is passed to callback as soon as
+     * it's available, so documents don't have to fit in memory.
+     *
+     * PLEASE NOTE: callback is called from worker threads, in no particular order.
+     *
+     * @param iterator
+     * @param workers
+     * @param callback
+     */
+    public void inferVectors(@NonNull final LabelAwareIterator iterator, int workers, @NonNull final InferenceCallback callback) {
+        final HogwildKernel<VocabWord> kernel = inferenceKernel();
+        final double learningRate = this.learningRate.get();
+
+        runInference(workers, new Runnable() {
+            @Override
+            public void run() {
+                while (true) {
+                    LabelledDocument document;
+                    synchronized (iterator) {
+                        if (!iterator.hasNextDocument()) return;
+                        document = iterator.nextDocument();
+                    }
+
+                    List<VocabWord> elements = document.getReferencedContent() != null ? document.getReferencedContent() : documentElements(document.getContent());
+                    double[] vector = inferVector(kernel, elements, learningRate, minLearningRate, numEpochs);
+                    callback.processVector(document, Nd4j.create(vector));
+                }
+            }
+        });
+    }
+
+    private void runInference(int workers, Runnable worker) {
+        final AtomicReference<Throwable> error = new AtomicReference<>();
+        Thread[] threads = new Thread[Math.max(1, workers)];
+        for (int t = 0; t < threads.length; t++) {
+            final Runnable runnable = worker;
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        runnable.run();
+                    } catch (Throwable e) {
+                        error.compareAndSet(null, e);
+                    }
+                }
+            }, "ParagraphVectors inference " + t);
+            threads[t].setDaemon(true);
+            threads[t].start();
+        }
+
+        for (Thread thread: threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            }
+        }
+
+        if (error.get() != null) throw new RuntimeException("Inference failed", error.get());
+    }
+
+    /**
+     * Receives vectors inferred by inferVectors(LabelAwareIterator, ...)
+     */
+    public interface InferenceCallback {
+
+        /**
+         * @param document source document
+         * @param vector inferred vector
+         */
+        void processVector(LabelledDocument document, INDArray vector);
+    }
+
     /**
      * This method calculates inferred vector for given text, with default parameters for learning rate and iterations
      *
@@ -61,6 +61,9 @@ public class SequenceVectors<T extends SequenceElement> extends WordVectorsImpl<
 
     @Setter protected transient Set<VectorsListener<T>> eventListeners;
 
+    // training throughput of last epoch, averaged over worker threads
+    @Getter protected transient double wordsPerSecondPerThread;
+
     /**
      * Builds vocabulary from provided SequenceIterator instance
      */
@@ -71,6 +74,7 @@ public class SequenceVectors<T extends SequenceElement> extends WordVectorsImpl<
                 .addSource(iterator, minWordFrequency)
                 .setTargetVocabCache(vocab)
                 .fetchLabels(trainSequenceVectors)
+                .workers(workers)
                 .setStopWords(stopWords)
                 .build();
 
@@ -141,6 +145,52 @@ public class SequenceVectors<T extends SequenceElement> extends WordVectorsImpl<
             lookupTable.resetWeights(true);
         }
 
+        trainModel(vocab.totalWordOccurrences());
+    }
+
+    /**
+     * Incremental training over current SequenceIterator, for models that were already trained with fit().
+     *
+     * Vocabulary is updated with elements from the iterator: frequencies of known elements are increased, and new
+     * elements are appended to the vocabulary, so indexes of known elements don't change. Weights are grown for new
+     * elements only, existing weights are kept, and then the model is trained over the current iterator.
+     *
+     * PLEASE NOTE: Huffman tree is rebuilt if new elements were added, so inner nodes of hierarchic softmax are
+     * shuffled, while vectors (syn0) are kept. Update it as often as new data arrives: daily, hourly etc.
+     */
+    public void fitIncremental() {
+        if (!trainElementsVectors && !trainSequenceVectors) throw new IllegalStateException("You should define at least one training goal 'trainElementsRepresentation' or 'trainSequenceRepresentation'");
+        if (iterator == null) throw new IllegalStateException("You can't fit() data without SequenceIterator defined");
+        if (vocab == null || vocab.numWords() == 0 || !(lookupTable instanceof InMemoryLookupTable) || ((InMemoryLookupTable<T>) lookupTable).getSyn0() == null)
+            throw new IllegalStateException("Incremental training requires model trained with fit() and InMemoryLookupTable");
+
+        VocabConstructor<T> constructor = new VocabConstructor.Builder<T>()
+                .addSource(iterator, minWordFrequency)
+                .setTargetVocabCache(vocab)
+                .fetchLabels(trainSequenceVectors)
+                .workers(workers)
+                .setStopWords(stopWords)
+                .build();
+
+        int added = constructor.buildIncrementalVocabulary();
+        log.info("Vocabulary updated: [" + added + "] new elements, vocabulary size: [" + vocab.numWords() + "]");
+
+        ((InMemoryLookupTable<T>) lookupTable).expandWeights();
+
+        // learning rate decay is driven by the size of the new data, not by the whole vocabulary
+        trainModel(Math.max(1, constructor.getNumberOfTokens()));
+    }
+
+    /**
+     * Sets SequenceIterator used by fit() and fitIncremental()
+     *
+     * @param iterator
+     */
+    public void setSequenceIterator(@NonNull SequenceIterator<T> iterator) {
+        this.iterator = iterator;
+    }
+
+    protected void trainModel(long totalWordsCount) {
         log.info("Building learning algorithms:");
         if (trainElementsVectors && elementsLearningAlgorithm != null) {
             log.info("          building ElementsLearningAlgorithm: [" +elementsLearningAlgorithm.getCodeName()+ "]");
@@ -166,7 +216,7 @@ public class SequenceVectors<T extends SequenceElement> extends WordVectorsImpl<
             //final VectorCalculationsThread[] threads = new VectorCalculationsThread[workers];
             final List<VectorCalculationsThread> threads = new ArrayList<>();
             for (int x = 0; x < workers; x++) {
-                threads.add(x, new VectorCalculationsThread(x, currentEpoch, wordsCounter, vocab.totalWordOccurrences(), linesCounter,  sequencer));
+                threads.add(x, new VectorCalculationsThread(x, currentEpoch, wordsCounter, totalWordsCount, linesCounter,  sequencer));
                 threads.get(x).start();
             }
 
@@ -176,13 +226,16 @@ public class SequenceVectors<T extends SequenceElement> extends WordVectorsImpl<
                 throw new RuntimeException(e);
             }
 
+            double wordsPerSecond = 0;
             for (int x = 0; x < workers; x++) {
                 try {
                     threads.get(x).join();
                 } catch (Exception e) {
                     throw new RuntimeException(e);
                 }
+                wordsPerSecond += threads.get(x).getWordsPerSecond();
             }
+            wordsPerSecondPerThread = wordsPerSecond / workers;
 
             // TODO: fix this to non-exclusive termination
             if (trainElementsVectors && elementsLearningAlgorithm != null) {
@@ -196,7 +249,7 @@ public class SequenceVectors<T extends SequenceElement> extends WordVectorsImpl<
                     if (sequenceLearningAlgorithm.isEarlyTerminationHit()) break;
                 }
             }
-            log.info("Epoch: [" + currentEpoch+ "]; Words vectorized so far: [" + wordsCounter.get() + "];  Lines vectorized so far: [" + linesCounter.get() + "]; learningRate: [" + minLearningRate + "]");
+            log.info("Epoch: [" + currentEpoch+ "]; Words vectorized so far: [" + wordsCounter.get() + "];  Lines vectorized so far: [" + linesCounter.get() + "]; learningRate: [" + minLearningRate + "]; Words/sec/thread: [" + String.format("%.1f", wordsPerSecondPerThread) + "]");
 
             if (eventListeners != null && eventListeners.size() > 0) {
                 for (VectorsListener listener: eventListeners) {
@@ -874,6 +927,10 @@ public class SequenceVectors<T extends SequenceElement> extends WordVectorsImpl<
         private final AsyncSequencer digitizer;
         private final AtomicLong nextRandom;
 
+        // words trained by this thread, and time spent in training, excluding waits for the sequencer
+        private long trainedWords;
+        private long trainingTime;
+
         /*
                 Long constructors suck, so this should be reduced to something reasonable later
          */
@@ -918,7 +975,10 @@ public class SequenceVectors<T extends SequenceElement> extends WordVectorsImpl<
 
                             alpha = Math.max(minLearningRate, learningRate.get() * (1 - (1.0 * this.wordsCounter.get() / (double) this.totalWordsCount)));
 
+                            long time = System.nanoTime();
                             trainSequence(sequence, nextRandom, alpha);
+                            trainingTime += System.nanoTime() - time;
+                            trainedWords += sequence.getElements().size();
 
                             // increment processed word count, please note: this affects learningRate decay
                             totalLines.incrementAndGet();
@@ -940,5 +1000,12 @@ public class SequenceVectors<T extends SequenceElement> extends WordVectorsImpl<
                 }
             }
         }
+
+        /**
+         * @return number of words trained per second of training time by this thread
+         */
+        public double getWordsPerSecond() {
+            return trainingTime > 0 ? trainedWords / (trainingTime / 1e9) : 0.0;
+        }
     }
 }
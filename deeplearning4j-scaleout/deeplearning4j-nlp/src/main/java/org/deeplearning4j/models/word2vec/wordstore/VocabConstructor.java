@@ -14,12 +14,11 @@ import org.deeplearning4j.text.invertedindex.InvertedIndex;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  *
@@ -39,7 +38,16 @@ public class VocabConstructor<T extends SequenceElement> {
     private boolean fetchLabels = false;
     private int limit;
     private AtomicLong seqCount = new AtomicLong(0);
+    private AtomicLong tokensCounter = new AtomicLong(0);
+    private AtomicLong elementsCounter = new AtomicLong(0);
     private InvertedIndex<T> index;
+    private int workers = 1;
+    private int candidatesLimit;
+    private volatile long buildStart;
+    private volatile double tokensPerSecond;
+
+    // number of sequences read from a partition at once by each worker
+    private static final int BATCH_SIZE = 256;
 
     protected static final Logger log = LoggerFactory.getLogger(VocabConstructor.class);
 
@@ -84,6 +92,24 @@ public class VocabConstructor<T extends SequenceElement> {
         return seqCount.get();
     }
 
+    /**
+     * This method returns total number of tokens counted by VocabConstructor (excluding stop words)
+     *
+     * @return
+     */
+    public long getNumberOfTokens() {
+        return tokensCounter.get();
+    }
+
+    /**
+     * This method returns counting throughput for the last source processed by buildJointVocabulary()
+     *
+     * @return tokens per second
+     */
+    public double getTokensPerSecond() {
+        return tokensPerSecond;
+    }
+
     /**
      * This method transfers existing vocabulary into current one
      *
@@ -120,28 +146,29 @@ public class VocabConstructor<T extends SequenceElement> {
 
         if (fetchLabels) {
             for(VocabSource<T> source: sources) {
-                SequenceIterator<T> iterator = source.getIterator();
-                iterator.reset();
+                for (SequenceIterator<T> iterator : source.getPartitions()) {
+                    iterator.reset();
 
-                while (iterator.hasMoreSequences()) {
-                    Sequence<T> sequence = iterator.nextSequence();
-                    seqCount.incrementAndGet();
+                    while (iterator.hasMoreSequences()) {
+                        Sequence<T> sequence = iterator.nextSequence();
+                        seqCount.incrementAndGet();
 
-                    for (T label: sequence.getSequenceLabels()) {
-                        if (!cache.containsWord(label.getLabel())) {
-                            label.markAsLabel(true);
-                            label.setSpecial(true);
+                        for (T label: sequence.getSequenceLabels()) {
+                            if (!cache.containsWord(label.getLabel())) {
+                                label.markAsLabel(true);
+                                label.setSpecial(true);
 
-                            label.setIndex(cache.numWords());
+                                label.setIndex(cache.numWords());
 
-                            cache.addToken(label);
-                            cache.addWordToIndex(label.getIndex(), label.getLabel());
+                                cache.addToken(label);
+                                cache.addWordToIndex(label.getIndex(), label.getLabel());
 
-                            // backward compatibility code
-                            cache.putVocabWord(label.getLabel());
+                                // backward compatibility code
+                                cache.putVocabWord(label.getLabel());
 
-                            log.info("Adding label ["+label.getLabel()+"]: " + cache.wordFor(label.getLabel()));
-                        } else log.info("Label ["+label.getLabel()+"] already exists: " + cache.wordFor(label.getLabel()));
+                                log.info("Adding label ["+label.getLabel()+"]: " + cache.wordFor(label.getLabel()));
+                            } else log.info("Label ["+label.getLabel()+"] already exists: " + cache.wordFor(label.getLabel()));
+                        }
                     }
                 }
             }
@@ -165,7 +192,106 @@ public class VocabConstructor<T extends SequenceElement> {
 
         if (cache == null) cache = new AbstractCache.Builder<T>().build();
         log.debug("Target vocab size before building: [" + cache.numWords() + "]");
-        final AtomicLong elementsCounter = new AtomicLong(0);
+
+        AbstractCache<T> topHolder = countSources(false);
+
+        // at this moment, we have vocabulary full of words, and we have to reset counters before transfer everything back to VocabCache
+
+            //topHolder.resetWordCounters();
+
+
+
+        cache.importVocabulary(topHolder);
+
+        if (resetCounters) {
+            for (T element: cache.vocabWords()) {
+                element.setElementFrequency(0);
+            }
+            cache.updateWordsOccurencies();
+        }
+
+        if (buildHuffmanTree) {
+            Huffman huffman = new Huffman(cache.vocabWords());
+            huffman.build();
+            huffman.applyIndexes(cache);
+            //topHolder.updateHuffmanCodes();
+
+            if (limit > 0) {
+                LinkedBlockingQueue<String> labelsToRemove = new LinkedBlockingQueue<>();
+                for (T element : cache.vocabWords()) {
+                    if (element.getIndex() > limit && !element.isSpecial() && !element.isLabel())
+                        labelsToRemove.add(element.getLabel());
+                }
+
+                for (String label: labelsToRemove) {
+                    cache.removeElement(label);
+                }
+            }
+        }
+
+        log.info("Sequences checked: [" + seqCount.get() +"], Current vocabulary size: [" + cache.numWords() +"]");
+        return cache;
+    }
+
+    /**
+     * This method updates existing vocabulary (with Huffman indexes applied) with all sources passed through builder:
+     * frequencies of known elements are increased, and new elements are appended to the end of vocabulary, so indexes
+     * of known elements stay the same, and weights built for them remain valid.
+     * Huffman tree is rebuilt over the whole vocabulary only if new elements were added, without changing indexes.
+     * minWordFrequency of each source is applied to new elements only.
+     *
+     * @return number of new elements
+     */
+    public int buildIncrementalVocabulary() {
+        if (cache == null || cache.numWords() == 0) throw new IllegalStateException("Incremental vocabulary building requires existing vocabulary");
+
+        AbstractCache<T> counted = countSources(true);
+
+        List<T> newElements = new ArrayList<>();
+        for (T element: counted.vocabWords()) {
+            if (cache.containsWord(element.getLabel())) {
+                T existing = cache.wordFor(element.getLabel());
+                cache.incrementWordCount(element.getLabel(), (int) element.getElementFrequency());
+                existing.incrementSequencesCount(element.getSequencesCount());
+            } else newElements.add(element);
+        }
+        cache.incrementTotalDocCount(counted.totalNumberOfDocs());
+
+        // frequent elements go first, as in vocabulary built from scratch
+        Collections.sort(newElements, new Comparator<T>() {
+            @Override
+            public int compare(T o1, T o2) {
+                return Double.compare(o2.getElementFrequency(), o1.getElementFrequency());
+            }
+        });
+
+        int index = cache.numWords();
+        for (T element: newElements) {
+            cache.addToken(element);
+            cache.addWordToIndex(index++, element.getLabel());
+        }
+
+        if (!newElements.isEmpty()) {
+            // Huffman appends to existing points, so we start from clean codes
+            for (T element: cache.vocabWords()) {
+                element.setCodes(new ArrayList<Integer>());
+                element.setPoints(new ArrayList<Integer>());
+                element.setCodeLength(0);
+            }
+            new Huffman(cache.vocabWords()).build();
+        }
+
+        log.info("Sequences checked: [" + seqCount.get() +"], New elements: [" + newElements.size() + "], Current vocabulary size: [" + cache.numWords() +"]");
+        return newElements.size();
+    }
+
+    /**
+     * Counts elements of all sources, applying minWordFrequency of each source
+     *
+     * @param keepKnown if true, elements already present in the target vocabulary are kept regardless of minWordFrequency
+     */
+    private AbstractCache<T> countSources(boolean keepKnown) {
+        buildStart = System.currentTimeMillis();
 
         AbstractCache<T> topHolder = new AbstractCache.Builder<T>()
                 .minElementFrequency(0)
@@ -173,8 +299,8 @@ public class VocabConstructor<T extends SequenceElement> {
 
         int cnt = 0;
         for(VocabSource<T> source: sources) {
-            SequenceIterator<T> iterator = source.getIterator();
-            iterator.reset();
+            for (SequenceIterator<T> partition : source.getPartitions())
+                partition.reset();
 
             log.debug("Trying source iterator: ["+ cnt+"]");
             log.debug("Target vocab size before building: [" + cache.numWords() + "]");
@@ -182,71 +308,32 @@ public class VocabConstructor<T extends SequenceElement> {
 
             AbstractCache<T> tempHolder = new AbstractCache.Builder<T>().build();
 
-            int sequences = 0;
-            long counter = 0;
-            while (iterator.hasMoreSequences()) {
-                Sequence<T> document = iterator.nextSequence();
-                seqCount.incrementAndGet();
-
-                tempHolder.incrementTotalDocCount();
-
-                Map<String, AtomicLong> seqMap = new HashMap<>();
-              //  log.info("Sequence length: ["+ document.getElements().size()+"]");
-
-                if (fetchLabels) {
-                    T labelWord = document.getSequenceLabel();
-                    labelWord.setSpecial(true);
-                    labelWord.markAsLabel(true);
-                    labelWord.setElementFrequency(1);
-
-                    tempHolder.addToken(labelWord);
-                }
-
-                List<String> tokens = document.asLabels();
-                for (String token: tokens) {
-                    if (stopWords !=null && stopWords.contains(token)) continue;
-                    if (token == null || token.isEmpty()) continue;
-
-                    if (!tempHolder.containsWord(token)) {
-                        T element = document.getElementByLabel(token);
-                        element.setElementFrequency(1);
-                        tempHolder.addToken(element);
-                        elementsCounter.incrementAndGet();
-                        counter++;
-
-                        // if there's no such element in tempHolder, it's safe to set seqCount to 1
-                        element.setSequencesCount(1);
-                        seqMap.put(token, new AtomicLong(0));
-                    } else {
-                        counter++;
-                        tempHolder.incrementWordCount(token);
-
-                        // if element exists in tempHolder, we should update it seqCount, but only once per sequence
-                        if (!seqMap.containsKey(token)) {
-                            seqMap.put(token, new AtomicLong(1));
-                            T element = tempHolder.wordFor(token);
-                            element.incrementSequencesCount();
-                        }
-
-                        if (index != null) {
-                            if (document.getSequenceLabel() != null) {
-                                index.addWordsToDoc(index.numDocuments(), document.getElements(), document.getSequenceLabel());
-                            } else {
-                                index.addWordsToDoc(index.numDocuments(),document.getElements());
-                            }
-                        }
+            long sequencesBefore = seqCount.get();
+            long tokensBefore = tokensCounter.get();
+            long time1 = System.currentTimeMillis();
+            if (workers > 1 && index == null) {
+                countParallel(source.getPartitions(), tempHolder);
+            } else {
+                LocalVocab local = new LocalVocab(tempHolder);
+                for (SequenceIterator<T> partition : source.getPartitions()) {
+                    while (partition.hasMoreSequences()) {
+                        countSequence(partition.nextSequence(), local);
                     }
                 }
-
-                sequences++;
-                if (seqCount.get() % 100000 == 0) log.info("Sequences checked: [" + seqCount.get() +"], Current vocabulary size: [" + elementsCounter.get() +"]");
             }
+            long time2 = System.currentTimeMillis();
+            long sequences = seqCount.get() - sequencesBefore;
+            long counter = tokensCounter.get() - tokensBefore;
+            tokensPerSecond = counter / (Math.max(1, time2 - time1) / 1000.0);
+            log.info("Source [" + (cnt - 1) + "]: " + sequences + " sequences, " + counter + " tokens in " + (time2 - time1)
+                    + " ms (" + String.format("%.0f", tokensPerSecond) + " tokens/sec)");
             // apply minWordFrequency set for this source
             log.debug("Vocab size before truncation: [" + tempHolder.numWords() + "],  NumWords: [" + tempHolder.totalWordOccurrences()+ "], sequences parsed: [" + sequences+ "], counter: ["+counter+"]");
             if (source.getMinWordFrequency() > 0) {
                 LinkedBlockingQueue<String> labelsToRemove = new LinkedBlockingQueue<>();
                 for (T element : tempHolder.vocabWords()) {
-                    if (element.getElementFrequency() < source.getMinWordFrequency() && !element.isSpecial() && !element.isLabel())
+                    if (element.getElementFrequency() < source.getMinWordFrequency() && !element.isSpecial() && !element.isLabel()
+                            && !(keepKnown && cache.containsWord(element.getLabel())))
                         labelsToRemove.add(element.getLabel());
                 }
 
@@ -261,42 +348,168 @@ public class VocabConstructor<T extends SequenceElement> {
             topHolder.importVocabulary(tempHolder);
         }
 
-        // at this moment, we have vocabulary full of words, and we have to reset counters before transfer everything back to VocabCache
+        return topHolder;
+    }
 
-            //topHolder.resetWordCounters();
+    /**
+     * Vocabulary counted by one thread, with its own pruning threshold
+     */
+    private class LocalVocab {
+        private final AbstractCache<T> holder;
+        private int minReduce = 1;
 
+        private LocalVocab(AbstractCache<T> holder) {
+            this.holder = holder;
+        }
+    }
 
+    /**
+     * Counts elements of a single sequence into the given vocabulary
+     */
+    private void countSequence(Sequence<T> document, LocalVocab local) {
+        AbstractCache<T> tempHolder = local.holder;
+        long cnt = seqCount.incrementAndGet();
 
-        cache.importVocabulary(topHolder);
+        tempHolder.incrementTotalDocCount();
 
-        if (resetCounters) {
-            for (T element: cache.vocabWords()) {
-                element.setElementFrequency(0);
-            }
-            cache.updateWordsOccurencies();
+        Map<String, AtomicLong> seqMap = new HashMap<>();
+
+        if (fetchLabels) {
+            T labelWord = document.getSequenceLabel();
+            labelWord.setSpecial(true);
+            labelWord.markAsLabel(true);
+            labelWord.setElementFrequency(1);
+
+            tempHolder.addToken(labelWord);
         }
 
-        if (buildHuffmanTree) {
-            Huffman huffman = new Huffman(cache.vocabWords());
-            huffman.build();
-            huffman.applyIndexes(cache);
-            //topHolder.updateHuffmanCodes();
+        List<String> tokens = document.asLabels();
+        long counter = 0;
+        for (String token: tokens) {
+            if (stopWords !=null && stopWords.contains(token)) continue;
+            if (token == null || token.isEmpty()) continue;
+
+            if (!tempHolder.containsWord(token)) {
+                T element = document.getElementByLabel(token);
+                element.setElementFrequency(1);
+                tempHolder.addToken(element);
+                elementsCounter.incrementAndGet();
+                counter++;
+
+                // if there's no such element in tempHolder, it's safe to set seqCount to 1
+                element.setSequencesCount(1);
+                seqMap.put(token, new AtomicLong(0));
+            } else {
+                counter++;
+                tempHolder.incrementWordCount(token);
+
+                // if element exists in tempHolder, we should update it seqCount, but only once per sequence
+                if (!seqMap.containsKey(token)) {
+                    seqMap.put(token, new AtomicLong(1));
+                    T element = tempHolder.wordFor(token);
+                    element.incrementSequencesCount();
+                }
 
-            if (limit > 0) {
-                LinkedBlockingQueue<String> labelsToRemove = new LinkedBlockingQueue<>();
-                for (T element : cache.vocabWords()) {
-                    if (element.getIndex() > limit && !element.isSpecial() && !element.isLabel())
-                        labelsToRemove.add(element.getLabel());
+                if (index != null) {
+                    if (document.getSequenceLabel() != null) {
+                        index.addWordsToDoc(index.numDocuments(), document.getElements(), document.getSequenceLabel());
+                    } else {
+                        index.addWordsToDoc(index.numDocuments(),document.getElements());
+                    }
                 }
+            }
+        }
+        long total = tokensCounter.addAndGet(counter);
 
-                for (String label: labelsToRemove) {
-                    cache.removeElement(label);
+        if (candidatesLimit > 0 && tempHolder.numWords() > candidatesLimit) reduceVocab(local);
+
+        if (cnt % 100000 == 0) {
+            double seconds = Math.max(1, System.currentTimeMillis() - buildStart) / 1000.0;
+            log.info("Sequences checked: [" + cnt +"], Current vocabulary size: [" + elementsCounter.get() +"], Tokens/sec: [" + String.format("%.0f", total / seconds) + "]");
+        }
+    }
+
+    /**
+     * Removes elements with frequency below increasing threshold from the local vocabulary, to bound memory use.
+     * Please note: frequencies of words that were removed and seen again later are underestimated.
+     */
+    private void reduceVocab(LocalVocab local) {
+        List<String> labelsToRemove = new ArrayList<>();
+        for (T element : local.holder.vocabWords()) {
+            if (element.getElementFrequency() <= local.minReduce && !element.isSpecial() && !element.isLabel())
+                labelsToRemove.add(element.getLabel());
+        }
+        for (String label: labelsToRemove) {
+            local.holder.removeElement(label);
+        }
+        log.debug("Pruned " + labelsToRemove.size() + " elements with frequency <= " + local.minReduce + ", vocab size: [" + local.holder.numWords() + "]");
+        local.minReduce++;
+    }
+
+    /**
+     * Counts all sequences from the given partitions using worker threads. Each worker reads batches of sequences
+     * from a partition (partitions are read by one worker at a time, different partitions are read in parallel),
+     * counts them into its own vocabulary, and all vocabularies are merged into target at the end.
+     */
+    private void countParallel(final List<SequenceIterator<T>> partitions, AbstractCache<T> target) {
+        final int numPartitions = partitions.size();
+        final AtomicBoolean[] exhausted = new AtomicBoolean[numPartitions];
+        for (int p = 0; p < numPartitions; p++)
+            exhausted[p] = new AtomicBoolean(false);
+        final AtomicReference<Throwable> error = new AtomicReference<>();
+        final List<LocalVocab> locals = new ArrayList<>();
+
+        Thread[] threads = new Thread[workers];
+        for (int w = 0; w < workers; w++) {
+            final LocalVocab local = new LocalVocab(new AbstractCache.Builder<T>().build());
+            locals.add(local);
+            final int first = w % numPartitions;
+            threads[w] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        List<Sequence<T>> batch = new ArrayList<>(BATCH_SIZE);
+                        int p = first;
+                        int remaining = numPartitions;
+                        while (remaining > 0 && error.get() == null) {
+                            if (exhausted[p].get()) {
+                                remaining--;
+                                p = (p + 1) % numPartitions;
+                                continue;
+                            }
+                            SequenceIterator<T> partition = partitions.get(p);
+                            synchronized (partition) {
+                                while (batch.size() < BATCH_SIZE && partition.hasMoreSequences())
+                                    batch.add(partition.nextSequence());
+                                if (batch.size() < BATCH_SIZE) exhausted[p].set(true);
+                            }
+                            for (Sequence<T> sequence : batch)
+                                countSequence(sequence, local);
+                            batch.clear();
+                            remaining = numPartitions;
+                        }
+                    } catch (Throwable t) {
+                        error.compareAndSet(null, t);
+                    }
                 }
+            }, "VocabConstructor worker " + w);
+            threads[w].setDaemon(true);
+            threads[w].start();
+        }
+
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
             }
         }
+        if (error.get() != null)
+            throw new RuntimeException("Vocabulary construction failed", error.get());
 
-        log.info("Sequences checked: [" + seqCount.get() +"], Current vocabulary size: [" + cache.numWords() +"]");
-        return cache;
+        for (LocalVocab local : locals)
+            target.importVocabulary(local.holder);
     }
 
     public static class Builder<T extends SequenceElement> {
@@ -307,11 +520,41 @@ public class VocabConstructor<T extends SequenceElement> {
         private boolean fetchLabels = false;
         private InvertedIndex<T> index;
         private int limit;
+        private int workers = 1;
+        private int candidatesLimit;
 
         public Builder() {
 
         }
 
+        /**
+         * Number of threads used for counting. Sequences are read from each source's partitions in batches, and counted
+         * by workers into thread-local vocabularies, which are merged at the end.
+         *
+         * PLEASE NOTE: If InvertedIndex is set, counting is done in the calling thread.
+         *
+         * @param workers
+         * @return
+         */
+        public Builder<T> workers(int workers) {
+            if (workers < 1) throw new IllegalArgumentException("Number of workers should be positive");
+            this.workers = workers;
+            return this;
+        }
+
+        /**
+         * Limits the number of candidate elements kept during counting: when a worker's vocabulary grows above this
+         * size, elements with frequency below increasing threshold (1, 2, 3...) are removed from it.
+         * Frequencies of rare elements become approximate. Default: 0 (no limit)
+         *
+         * @param limit
+         * @return
+         */
+        public Builder<T> setCandidatesLimit(int limit) {
+            this.candidatesLimit = limit;
+            return this;
+        }
+
         /**
          * This method sets the limit to resulting vocabulary size.
          *
@@ -356,7 +599,21 @@ public class VocabConstructor<T extends SequenceElement> {
          * @return
          */
         public Builder<T> addSource(@NonNull SequenceIterator<T> iterator, int minElementFrequency) {
-            sources.add(new VocabSource<T>(iterator, minElementFrequency));
+            sources.add(new VocabSource<T>(Collections.singletonList(iterator), minElementFrequency));
+            return this;
+        }
+
+        /**
+         * Adds source for vocabulary construction, split into partitions (i.e. one SequenceIterator per input file),
+         * which can be read by different workers in parallel.
+         *
+         * @param partitions SequenceIterators for the partitions of the source
+         * @param minElementFrequency elements with frequency below this value will be removed from vocabulary
+         * @return
+         */
+        public Builder<T> addSource(@NonNull List<SequenceIterator<T>> partitions, int minElementFrequency) {
+            if (partitions.isEmpty()) throw new IllegalArgumentException("At least one partition is required");
+            sources.add(new VocabSource<T>(new ArrayList<>(partitions), minElementFrequency));
             return this;
         }
 /*
@@ -406,6 +663,8 @@ public class VocabConstructor<T extends SequenceElement> {
             constructor.fetchLabels = this.fetchLabels;
             constructor.limit = this.limit;
             constructor.index = this.index;
+            constructor.workers = this.workers;
+            constructor.candidatesLimit = this.candidatesLimit;
 
             return constructor;
         }
@@ -413,7 +672,7 @@ public class VocabConstructor<T extends SequenceElement> {
 
     @Data
     private static class VocabSource<T extends SequenceElement> {
-        @NonNull private SequenceIterator<T> iterator;
+        @NonNull private List<SequenceIterator<T>> partitions;
         @NonNull private int minWordFrequency;
     }
 }
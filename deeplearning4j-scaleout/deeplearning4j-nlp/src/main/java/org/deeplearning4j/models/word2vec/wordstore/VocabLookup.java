@@ -0,0 +1,119 @@
+/*
+ *
+ *  * Copyright 2015 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+package org.deeplearning4j.models.word2vec.wordstore;
+
+import lombok.NonNull;
+import org.deeplearning4j.models.sequencevectors.sequence.SequenceElement;
+
+import java.util.Collection;
+
+/**
+ * Read-only index over VocabCache elements, which allows looking up elements by a slice of a char buffer, so
+ * tokens produced by BufferedTokenizer can be resolved without creating Strings.<br>
+ * Labels are not copied: the table holds references to the element labels, and uses String hash codes.<br>
+ * Please note: this is a snapshot of the vocabulary, elements added to VocabCache afterwards won't be found.
+ *
+ */
+public class VocabLookup<T extends SequenceElement> {
+
+    private final String[] labels;
+    private final Object[] elements;
+    private final int mask;
+    private final int size;
+
+    public VocabLookup(@NonNull VocabCache<T> vocabCache) {
+        Collection<T> words = vocabCache.vocabWords();
+        int capacity = Integer.highestOneBit(Math.max(2, words.size()) * 2 - 1) << 1;
+        labels = new String[capacity];
+        elements = new Object[capacity];
+        mask = capacity - 1;
+
+        int cnt = 0;
+        for (T element : words) {
+            String label = element.getLabel();
+            int slot = spread(label.hashCode()) & mask;
+            while (labels[slot] != null) {
+                if (labels[slot].equals(label)) break;
+                slot = (slot + 1) & mask;
+            }
+            if (labels[slot] == null) cnt++;
+            labels[slot] = label;
+            elements[slot] = element;
+        }
+        size = cnt;
+    }
+
+    /**
+     * Returns element with label equal to buffer[offset, offset + length), or null if there's no such element
+     */
+    @SuppressWarnings("unchecked")
+    public T get(char[] buffer, int offset, int length) {
+        int hash = 0;
+        for (int i = offset; i < offset + length; i++)
+            hash = 31 * hash + buffer[i];
+
+        int slot = spread(hash) & mask;
+        String label;
+        while ((label = labels[slot]) != null) {
+            if (matches(label, buffer, offset, length)) return (T) elements[slot];
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    /**
+     * Returns element for the given label, or null if there's no such element
+     */
+    @SuppressWarnings("unchecked")
+    public T get(@NonNull String label) {
+        int slot = spread(label.hashCode()) & mask;
+        String key;
+        while ((key = labels[slot]) != null) {
+            if (key.equals(label)) return (T) elements[slot];
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    /**
+     * Returns index of element with label equal to buffer[offset, offset + length), or -1 if there's no such element
+     */
+    public int indexOf(char[] buffer, int offset, int length) {
+        T element = get(buffer, offset, length);
+        return element == null ? -1 : element.getIndex();
+    }
+
+    /**
+     * Number of elements in this lookup
+     */
+    public int size() {
+        return size;
+    }
+
+    private static boolean matches(String label, char[] buffer, int offset, int length) {
+        if (label.length() != length) return false;
+        for (int i = 0; i < length; i++)
+            if (label.charAt(i) != buffer[offset + i]) return false;
+        return true;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
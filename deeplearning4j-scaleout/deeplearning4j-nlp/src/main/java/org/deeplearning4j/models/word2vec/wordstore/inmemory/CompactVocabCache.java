@@ -0,0 +1,822 @@
+package org.deeplearning4j.models.word2vec.wordstore.inmemory;
+
+import lombok.NonNull;
+import org.deeplearning4j.models.sequencevectors.sequence.SequenceElement;
+import org.deeplearning4j.models.word2vec.VocabWord;
+import org.deeplearning4j.models.word2vec.wordstore.VocabCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Serializable;
+import java.nio.charset.Charset;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * VocabCache implementation for very large vocabularies.
+ *
+ * Labels are stored as UTF-8 bytes in a single array, and mapped to slots by an open addressing hash table of ints.
+ * Frequencies, sequence counts and Huffman indexes are primitive arrays indexed by slot. SequenceElement objects are
+ * only created when requested (wordFor(), vocabWords() etc), via ElementFactory, or kept if they were passed in via
+ * addToken(). Once an element exists, it's the source of truth for its counters, same as in AbstractCache.
+ *
+ * Counting is done either via incrementWordCount() (which, unlike AbstractCache, adds unknown labels), or in parallel
+ * via Shards: each thread counts into its own Shard, and shards are merged into the cache with {@link #merge(Shard)}.
+ * {@link #truncate(int)} removes rare elements and compacts storage.
+ *
+ * Optionally, a count-min sketch can be used to filter rare tokens: labels are only admitted into the table once
+ * their estimated frequency reaches admissionThreshold. Occurrences before admission are not counted, so frequencies
+ * of admitted labels may be lower by up to (admissionThreshold - 1) per Shard; use threshold well below
+ * minWordFrequency.
+ *
+ * PLEASE NOTE: Modifications are synchronized, but reads are not, so reads concurrent with modifications aren't
+ * supported. Use Shards for concurrent counting.
+ *
+ * This cache is opt-in: VocabConstructor and the models still default to AbstractCache. To use it, pass an instance
+ * via VocabConstructor.Builder.setTargetVocabCache(), or via vocabCache() on the Word2Vec/ParagraphVectors builders.
+ */
+public class CompactVocabCache<T extends SequenceElement> implements VocabCache<T> {
+    private static final Logger logger = LoggerFactory.getLogger(CompactVocabCache.class);
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /**
+     * Creates SequenceElements for labels that were counted without element
+     */
+    public interface ElementFactory<T extends SequenceElement> extends Serializable {
+        T create(String label);
+    }
+
+    private LabelTable labels;
+    private long[] frequencies;
+    private long[] sequences;
+    private int[] indexes;
+    private Object[] elements;
+    private BitSet removed = new BitSet();
+    private int[] indexToSlot = new int[0];
+    private int numSlots;
+    private int numWords;
+
+    private final AtomicLong totalWordCount = new AtomicLong(0);
+    private final AtomicLong documentsCounter = new AtomicLong(0);
+
+    private ElementFactory<T> elementFactory;
+    private CountMinSketch sketch;
+    private int admissionThreshold;
+
+    private CompactVocabCache(int initialCapacity) {
+        labels = new LabelTable(initialCapacity);
+        frequencies = new long[initialCapacity];
+        sequences = new long[initialCapacity];
+        indexes = new int[initialCapacity];
+        Arrays.fill(indexes, -1);
+        elements = new Object[initialCapacity];
+    }
+
+    /**
+     * Creates ElementFactory for VocabWords
+     */
+    public static ElementFactory<VocabWord> vocabWordFactory() {
+        return new ElementFactory<VocabWord>() {
+            @Override
+            public VocabWord create(String label) {
+                return new VocabWord(1.0, label);
+            }
+        };
+    }
+
+    private int slot(String label) {
+        if (label == null) return -1;
+        int slot = labels.get(label.getBytes(UTF8));
+        return slot >= 0 && !removed.get(slot) ? slot : -1;
+    }
+
+    /** Returns slot for the label, adding it (or reviving removed label) if required */
+    private int addSlot(byte[] label) {
+        int slot = labels.getOrAdd(label);
+        if (slot >= frequencies.length) grow(labels.capacity());
+        if (slot == numSlots) {
+            numSlots++;
+            numWords++;
+        } else if (removed.get(slot)) {
+            removed.clear(slot);
+            numWords++;
+        }
+        return slot;
+    }
+
+    private void grow(int capacity) {
+        int old = frequencies.length;
+        frequencies = Arrays.copyOf(frequencies, capacity);
+        sequences = Arrays.copyOf(sequences, capacity);
+        indexes = Arrays.copyOf(indexes, capacity);
+        Arrays.fill(indexes, old, capacity, -1);
+        elements = Arrays.copyOf(elements, capacity);
+    }
+
+    @SuppressWarnings("unchecked")
+    private T element(int slot, boolean create) {
+        T element = (T) elements[slot];
+        if (element == null && create && elementFactory != null) {
+            synchronized (this) {
+                element = (T) elements[slot];
+                if (element == null) {
+                    element = elementFactory.create(labels.label(slot));
+                    element.setElementFrequency(frequencies[slot]);
+                    element.setSequencesCount(sequences[slot]);
+                    if (indexes[slot] >= 0) element.setIndex(indexes[slot]);
+                    elements[slot] = element;
+                }
+            }
+        }
+        return element;
+    }
+
+    private long frequency(int slot) {
+        Object element = elements[slot];
+        return element != null ? (long) ((SequenceElement) element).getElementFrequency() : frequencies[slot];
+    }
+
+    /**
+     * Not supported, as per AbstractCache
+     */
+    @Override
+    public void loadVocab() {
+        //No-op
+    }
+
+    @Override
+    public boolean vocabExists() {
+        return numWords > 0;
+    }
+
+    /**
+     * Not supported, as per AbstractCache
+     */
+    @Override
+    public void saveVocab() {
+        //No-op
+    }
+
+    /**
+     * Returns collection of labels available in this vocabulary. Labels are decoded on each call.
+     *
+     * @return
+     */
+    @Override
+    public Collection<String> words() {
+        List<String> ret = new ArrayList<>(numWords);
+        for (int slot = 0; slot < numSlots; slot++)
+            if (!removed.get(slot)) ret.add(labels.label(slot));
+        return Collections.unmodifiableCollection(ret);
+    }
+
+    @Override
+    public void incrementWordCount(String word) {
+        incrementWordCount(word, 1);
+    }
+
+    /**
+     * Increment frequency for specified label by specified value. Unknown labels are added to the vocabulary
+     * (subject to count-min sketch admission, if enabled).
+     *
+     * @param word the word to increment the count for
+     * @param increment the amount to increment by
+     */
+    @Override
+    public synchronized void incrementWordCount(String word, int increment) {
+        byte[] bytes = word.getBytes(UTF8);
+        int slot = labels.get(bytes);
+        if (slot < 0 || removed.get(slot)) {
+            if (sketch != null && sketch.add(bytes, increment) < admissionThreshold) return;
+            slot = addSlot(bytes);
+        }
+        SequenceElement element = element(slot, false);
+        if (element != null) element.increaseElementFrequency(increment);
+        else frequencies[slot] += increment;
+        totalWordCount.addAndGet(increment);
+    }
+
+    /**
+     * Frequency of the specified label, capped at Integer.MAX_VALUE (counters are longs internally)
+     */
+    @Override
+    public int wordFrequency(String word) {
+        int slot = slot(word);
+        return slot < 0 ? 0 : (int) Math.min(Integer.MAX_VALUE, frequency(slot));
+    }
+
+    @Override
+    public boolean containsWord(String word) {
+        return slot(word) >= 0;
+    }
+
+    @Override
+    public String wordAtIndex(int index) {
+        if (index < 0 || index >= indexToSlot.length) return null;
+        int slot = indexToSlot[index];
+        return slot < 0 || removed.get(slot) ? null : labels.label(slot);
+    }
+
+    @Override
+    public T elementAtIndex(int index) {
+        if (index < 0 || index >= indexToSlot.length) return null;
+        int slot = indexToSlot[index];
+        return slot < 0 || removed.get(slot) ? null : element(slot, true);
+    }
+
+    /**
+     * Returns Huffman index for specified label
+     *
+     * @param label the label to get index for
+     * @return >=0 if label exists, -1 if Huffman tree wasn't built yet, -2 if specified label wasn't found
+     */
+    @Override
+    public int indexOf(String label) {
+        int slot = slot(label);
+        if (slot < 0) return -2;
+        SequenceElement element = element(slot, false);
+        return element != null ? element.getIndex() : indexes[slot];
+    }
+
+    /**
+     * Returns collection of SequenceElements stored in this vocabulary. Missing elements are created via
+     * ElementFactory, if set; otherwise only elements added via addToken() are returned.
+     *
+     * @return
+     */
+    @Override
+    public Collection<T> vocabWords() {
+        List<T> ret = new ArrayList<>(numWords);
+        for (int slot = 0; slot < numSlots; slot++) {
+            if (removed.get(slot)) continue;
+            T element = element(slot, true);
+            if (element != null) ret.add(element);
+        }
+        return ret;
+    }
+
+    @Override
+    public long totalWordOccurrences() {
+        return totalWordCount.get();
+    }
+
+    @Override
+    public T wordFor(@NonNull String label) {
+        int slot = slot(label);
+        return slot < 0 ? null : element(slot, true);
+    }
+
+    /**
+     * This method allows to insert specified label to specified Huffman tree position.
+     * CAUTION: Never use this, unless you 100% sure what are you doing.
+     *
+     * @param index
+     * @param label
+     */
+    @Override
+    public synchronized void addWordToIndex(int index, String label) {
+        int slot = slot(label);
+        if (index < 0 || slot < 0) return;
+        if (index >= indexToSlot.length) {
+            int old = indexToSlot.length;
+            indexToSlot = Arrays.copyOf(indexToSlot, Math.max(index + 1, Math.max(16, 2 * old)));
+            Arrays.fill(indexToSlot, old, indexToSlot.length, -1);
+        }
+        indexToSlot[index] = slot;
+        indexes[slot] = index;
+        SequenceElement element = element(slot, false);
+        if (element != null) element.setIndex(index);
+    }
+
+    @Override
+    @Deprecated
+    public void putVocabWord(String word) {
+        if (!containsWord(word))
+            throw new IllegalStateException("Specified label is not present in vocabulary");
+    }
+
+    @Override
+    public int numWords() {
+        return numWords;
+    }
+
+    @Override
+    public int docAppearedIn(String word) {
+        int slot = slot(word);
+        if (slot < 0) return -1;
+        SequenceElement element = element(slot, false);
+        return (int) (element != null ? element.getSequencesCount() : sequences[slot]);
+    }
+
+    @Override
+    public synchronized void incrementDocCount(String word, int howMuch) {
+        int slot = slot(word);
+        if (slot < 0) return;
+        SequenceElement element = element(slot, false);
+        if (element != null) element.incrementSequencesCount(howMuch);
+        else sequences[slot] += howMuch;
+    }
+
+    @Override
+    public synchronized void setCountForDoc(String word, int count) {
+        int slot = slot(word);
+        if (slot < 0) return;
+        SequenceElement element = element(slot, false);
+        if (element != null) element.setSequencesCount(count);
+        else sequences[slot] = count;
+    }
+
+    @Override
+    public int totalNumberOfDocs() {
+        return documentsCounter.intValue();
+    }
+
+    @Override
+    public void incrementTotalDocCount() {
+        documentsCounter.incrementAndGet();
+    }
+
+    @Override
+    public void incrementTotalDocCount(int by) {
+        documentsCounter.addAndGet(by);
+    }
+
+    @Override
+    public Collection<T> tokens() {
+        return vocabWords();
+    }
+
+    /**
+     * This method adds specified SequenceElement to vocabulary. If label already exists, its counters are incremented.
+     *
+     * @param element the word to add
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public synchronized void addToken(T element) {
+        long added = (long) element.getElementFrequency();
+        byte[] bytes = element.getLabel().getBytes(UTF8);
+        int existing = labels.get(bytes);
+        boolean isNew = existing < 0 || removed.get(existing);
+        int slot = addSlot(bytes);
+        if (isNew) {
+            frequencies[slot] = 0;
+            sequences[slot] = 0;
+            indexes[slot] = -1;
+            elements[slot] = element;
+        } else {
+            SequenceElement current = element(slot, false);
+            if (current == null) {
+                element.increaseElementFrequency((int) frequencies[slot]);
+                element.incrementSequencesCount(sequences[slot]);
+                if (indexes[slot] >= 0) element.setIndex(indexes[slot]);
+                elements[slot] = element;
+            } else {
+                current.incrementSequencesCount(element.getSequencesCount());
+                current.increaseElementFrequency((int) element.getElementFrequency());
+            }
+        }
+        totalWordCount.addAndGet(added);
+    }
+
+    @Override
+    public T tokenFor(String label) {
+        return wordFor(label);
+    }
+
+    @Override
+    public boolean hasToken(String label) {
+        return containsWord(label);
+    }
+
+    /**
+     * This method imports all elements from VocabCache passed as argument.
+     * Another CompactVocabCache is merged by counters, without creating elements.
+     *
+     * @param vocabCache
+     */
+    @Override
+    public synchronized void importVocabulary(@NonNull VocabCache<T> vocabCache) {
+        if (vocabCache instanceof CompactVocabCache) {
+            CompactVocabCache<T> other = (CompactVocabCache<T>) vocabCache;
+            for (int s = 0; s < other.numSlots; s++) {
+                if (other.removed.get(s)) continue;
+                T element = other.element(s, false);
+                if (element != null) {
+                    addToken(element);
+                } else {
+                    addCounts(other.labels.bytes(s), other.frequencies[s], other.sequences[s]);
+                }
+            }
+        } else {
+            for (T element : vocabCache.vocabWords())
+                addToken(element);
+        }
+        documentsCounter.addAndGet(vocabCache.totalNumberOfDocs());
+    }
+
+    private void addCounts(byte[] label, long frequency, long sequenceCount) {
+        int existing = labels.get(label);
+        boolean isNew = existing < 0 || removed.get(existing);
+        int slot = addSlot(label);
+        if (isNew) {
+            frequencies[slot] = 0;
+            sequences[slot] = 0;
+            indexes[slot] = -1;
+            elements[slot] = null;
+        }
+        SequenceElement element = element(slot, false);
+        if (element != null) {
+            element.increaseElementFrequency((int) frequency);
+            element.incrementSequencesCount(sequenceCount);
+        } else {
+            frequencies[slot] += frequency;
+            sequences[slot] += sequenceCount;
+        }
+        totalWordCount.addAndGet(frequency);
+    }
+
+    /**
+     * Merge counters of the given shard into this vocabulary. The shard can't be used after merging.
+     */
+    public synchronized void merge(@NonNull Shard shard) {
+        for (int s = 0; s < shard.labels.size(); s++)
+            addCounts(shard.labels.bytes(s), shard.frequencies[s], shard.sequences[s]);
+        documentsCounter.addAndGet(shard.documents);
+        shard.labels = null;
+        shard.frequencies = null;
+        shard.sequences = null;
+        logger.debug("Merged shard: " + numWords + " words, " + bytesPerWord() + " bytes per word");
+    }
+
+    /**
+     * Creates new Shard for counting in a separate thread. Shards share this vocabulary's count-min sketch, if any.
+     */
+    public Shard newShard() {
+        return new Shard(sketch, admissionThreshold);
+    }
+
+    /**
+     * Removes all elements with frequency below minFrequency (except special elements and labels), and compacts the
+     * storage. Huffman indexes are dropped, since they're not valid after truncation.
+     *
+     * @param minFrequency
+     */
+    public synchronized void truncate(int minFrequency) {
+        int survivors = 0;
+        for (int slot = 0; slot < numSlots; slot++) {
+            if (removed.get(slot)) continue;
+            SequenceElement element = element(slot, false);
+            boolean keep = frequency(slot) >= minFrequency || (element != null && (element.isSpecial() || element.isLabel()));
+            if (keep) survivors++;
+            else removed.set(slot);
+        }
+
+        LabelTable newLabels = new LabelTable(Math.max(16, survivors));
+        long[] newFrequencies = new long[newLabels.capacity()];
+        long[] newSequences = new long[newLabels.capacity()];
+        int[] newIndexes = new int[newLabels.capacity()];
+        Arrays.fill(newIndexes, -1);
+        Object[] newElements = new Object[newLabels.capacity()];
+        long total = 0;
+        for (int slot = 0; slot < numSlots; slot++) {
+            if (removed.get(slot)) continue;
+            int n = newLabels.getOrAdd(labels.bytes(slot));
+            newFrequencies[n] = frequencies[slot];
+            newSequences[n] = sequences[slot];
+            newElements[n] = elements[slot];
+            //indexOf() prefers the element's own index, so it must be dropped along with indexes[]
+            if (elements[slot] != null) ((SequenceElement) elements[slot]).setIndex(-1);
+            total += frequency(slot);
+        }
+
+        labels = newLabels;
+        frequencies = newFrequencies;
+        sequences = newSequences;
+        indexes = newIndexes;
+        elements = newElements;
+        removed = new BitSet();
+        indexToSlot = new int[0];
+        numSlots = survivors;
+        numWords = survivors;
+        totalWordCount.set(total);
+        logger.info("Vocabulary truncated to " + numWords + " words, " + bytesPerWord() + " bytes per word");
+    }
+
+    @Override
+    public synchronized void updateWordsOccurencies() {
+        long total = 0;
+        for (int slot = 0; slot < numSlots; slot++) {
+            if (removed.get(slot)) continue;
+            long value = frequency(slot);
+            if (value > 0) total += value;
+        }
+        totalWordCount.set(total);
+        logger.info("Updated counter: [" + total + "]");
+    }
+
+    @Override
+    public synchronized void removeElement(String label) {
+        int slot = slot(label);
+        if (slot < 0) throw new IllegalStateException("Can't get label: '" + label + "'");
+        totalWordCount.getAndAdd(-frequency(slot));
+        if (indexes[slot] >= 0 && indexes[slot] < indexToSlot.length) indexToSlot[indexes[slot]] = -1;
+        indexes[slot] = -1;
+        elements[slot] = null;
+        frequencies[slot] = 0;
+        sequences[slot] = 0;
+        removed.set(slot);
+        numWords--;
+    }
+
+    @Override
+    public void removeElement(T element) {
+        removeElement(element.getLabel());
+    }
+
+    /**
+     * Approximate memory used by this vocabulary in bytes, excluding SequenceElement objects
+     */
+    public long bytesUsed() {
+        long bytes = labels.bytesUsed();
+        bytes += 8L * frequencies.length + 8L * sequences.length + 4L * indexes.length + 4L * elements.length;
+        bytes += 4L * indexToSlot.length + removed.size() / 8;
+        if (sketch != null) bytes += sketch.bytesUsed();
+        return bytes;
+    }
+
+    /**
+     * Approximate memory used per word, excluding SequenceElement objects
+     */
+    public double bytesPerWord() {
+        return numWords == 0 ? 0.0 : bytesUsed() / (double) numWords;
+    }
+
+    /** FNV-1a hash of the label bytes, with different seeds for count-min sketch rows */
+    private static int hash(byte[] bytes, int seed) {
+        int h = 0x811C9DC5 ^ seed;
+        for (byte b : bytes) {
+            h ^= b & 0xFF;
+            h *= 0x01000193;
+        }
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Per-thread counter: primitive counts for labels seen by one thread, to be merged via
+     * {@link CompactVocabCache#merge(Shard)}. Not thread safe.
+     */
+    public static class Shard {
+        private LabelTable labels = new LabelTable(1024);
+        private long[] frequencies = new long[labels.capacity()];
+        private long[] sequences = new long[labels.capacity()];
+        private long documents;
+        private final CountMinSketch sketch;
+        private final int admissionThreshold;
+
+        private Shard(CountMinSketch sketch, int admissionThreshold) {
+            this.sketch = sketch;
+            this.admissionThreshold = admissionThreshold;
+        }
+
+        private int slot(String label, int count) {
+            byte[] bytes = label.getBytes(UTF8);
+            int slot = labels.get(bytes);
+            if (slot >= 0) return slot;
+            if (sketch != null && sketch.add(bytes, count) < admissionThreshold) return -1;
+            slot = labels.getOrAdd(bytes);
+            if (slot >= frequencies.length) {
+                frequencies = Arrays.copyOf(frequencies, labels.capacity());
+                sequences = Arrays.copyOf(sequences, labels.capacity());
+            }
+            return slot;
+        }
+
+        /**
+         * Increment frequency of the label by count
+         */
+        public void add(@NonNull String label, int count) {
+            int slot = slot(label, count);
+            if (slot >= 0) frequencies[slot] += count;
+        }
+
+        /**
+         * Count one sequence: frequency of each label is incremented by its number of occurrences, and number of
+         * sequences by one per distinct label
+         */
+        public void addSequence(@NonNull List<String> labels) {
+            Set<String> seen = new HashSet<>();
+            for (String label : labels) {
+                int slot = slot(label, 1);
+                if (slot < 0) continue;
+                frequencies[slot]++;
+                if (seen.add(label)) sequences[slot]++;
+            }
+            documents++;
+        }
+
+        /** Number of distinct labels counted by this shard */
+        public int size() {
+            return labels.size();
+        }
+    }
+
+    /**
+     * Open addressing hash table from UTF-8 label bytes to slots, numbered in insertion order. Labels are stored in a
+     * single byte array.
+     */
+    private static class LabelTable implements Serializable {
+        private byte[] arena;
+        private int arenaSize;
+        private int[] offsets;
+        private int[] hashes;
+        private int[] table;
+        private int size;
+
+        private LabelTable(int capacity) {
+            int tableSize = 16;
+            while (tableSize < 2 * capacity) tableSize <<= 1;
+            table = new int[tableSize];
+            offsets = new int[capacity + 1];
+            hashes = new int[capacity];
+            arena = new byte[Math.max(64, 8 * capacity)];
+        }
+
+        private int size() {
+            return size;
+        }
+
+        private int capacity() {
+            return hashes.length;
+        }
+
+        private int get(byte[] label) {
+            int h = hash(label, 0);
+            int mask = table.length - 1;
+            for (int pos = h & mask; ; pos = (pos + 1) & mask) {
+                int entry = table[pos];
+                if (entry == 0) return -1;
+                if (hashes[entry - 1] == h && equals(entry - 1, label)) return entry - 1;
+            }
+        }
+
+        private int getOrAdd(byte[] label) {
+            int h = hash(label, 0);
+            int mask = table.length - 1;
+            int pos = h & mask;
+            for (; ; pos = (pos + 1) & mask) {
+                int entry = table[pos];
+                if (entry == 0) break;
+                if (hashes[entry - 1] == h && equals(entry - 1, label)) return entry - 1;
+            }
+
+            int slot = size++;
+            if (slot == hashes.length) {
+                int capacity = 2 * hashes.length;
+                hashes = Arrays.copyOf(hashes, capacity);
+                offsets = Arrays.copyOf(offsets, capacity + 1);
+            }
+            if (arenaSize + label.length > arena.length) {
+                long newLength = Math.max((long) arena.length * 2, (long) arenaSize + label.length);
+                if (newLength > Integer.MAX_VALUE - 8) newLength = Integer.MAX_VALUE - 8;
+                if (arenaSize + label.length > newLength)
+                    throw new IllegalStateException("Vocabulary labels exceed 2GB");
+                arena = Arrays.copyOf(arena, (int) newLength);
+            }
+            System.arraycopy(label, 0, arena, arenaSize, label.length);
+            offsets[slot] = arenaSize;
+            arenaSize += label.length;
+            offsets[slot + 1] = arenaSize;
+            hashes[slot] = h;
+            table[pos] = slot + 1;
+
+            if (2 * size > table.length) rehash();
+            return slot;
+        }
+
+        private void rehash() {
+            int[] newTable = new int[table.length * 2];
+            int mask = newTable.length - 1;
+            for (int slot = 0; slot < size; slot++) {
+                int pos = hashes[slot] & mask;
+                while (newTable[pos] != 0) pos = (pos + 1) & mask;
+                newTable[pos] = slot + 1;
+            }
+            table = newTable;
+        }
+
+        private boolean equals(int slot, byte[] label) {
+            int start = offsets[slot];
+            if (offsets[slot + 1] - start != label.length) return false;
+            for (int i = 0; i < label.length; i++)
+                if (arena[start + i] != label[i]) return false;
+            return true;
+        }
+
+        private byte[] bytes(int slot) {
+            return Arrays.copyOfRange(arena, offsets[slot], offsets[slot + 1]);
+        }
+
+        private String label(int slot) {
+            return new String(arena, offsets[slot], offsets[slot + 1] - offsets[slot], UTF8);
+        }
+
+        private long bytesUsed() {
+            return arena.length + 4L * offsets.length + 4L * hashes.length + 4L * table.length;
+        }
+    }
+
+    /**
+     * Count-min sketch with conservative update, shared by shards
+     */
+    private static class CountMinSketch implements Serializable {
+        private final int depth;
+        private final int mask;
+        private final AtomicIntegerArray counters;
+
+        private CountMinSketch(int width, int depth) {
+            int w = 16;
+            while (w < width) w <<= 1;
+            this.depth = depth;
+            this.mask = w - 1;
+            this.counters = new AtomicIntegerArray(w * depth);
+        }
+
+        /** Add count for the label, and return the new estimate of its frequency */
+        private int add(byte[] label, int count) {
+            int width = mask + 1;
+            int[] positions = new int[depth];
+            int min = Integer.MAX_VALUE;
+            for (int d = 0; d < depth; d++) {
+                positions[d] = d * width + (hash(label, 0x9E3779B9 * (d + 1)) & mask);
+                min = Math.min(min, counters.get(positions[d]));
+            }
+            int estimate = min + count;
+            for (int d = 0; d < depth; d++) {
+                //Conservative update: only raise counters below the new estimate
+                int current;
+                while ((current = counters.get(positions[d])) < estimate) {
+                    if (counters.compareAndSet(positions[d], current, estimate)) break;
+                }
+            }
+            return estimate;
+        }
+
+        private long bytesUsed() {
+            return 4L * counters.length();
+        }
+    }
+
+    public static class Builder<T extends SequenceElement> {
+        protected int initialCapacity = 1024;
+        protected ElementFactory<T> elementFactory;
+        protected int admissionThreshold = 0;
+        protected int sketchWidth = 1 << 22;
+        protected int sketchDepth = 4;
+
+        /**
+         * Expected number of elements
+         */
+        public Builder<T> initialCapacity(int initialCapacity) {
+            this.initialCapacity = initialCapacity;
+            return this;
+        }
+
+        /**
+         * Factory used to create SequenceElements on demand, for labels that were counted without element
+         */
+        public Builder<T> elementFactory(@NonNull ElementFactory<T> elementFactory) {
+            this.elementFactory = elementFactory;
+            return this;
+        }
+
+        /**
+         * Enables count-min sketch pre-filtering: labels are added to vocabulary only once their estimated frequency
+         * reaches this value. Default: 0 (disabled)
+         */
+        public Builder<T> admissionThreshold(int admissionThreshold) {
+            this.admissionThreshold = admissionThreshold;
+            return this;
+        }
+
+        /**
+         * Count-min sketch size: number of counters per row, and number of rows. Default: 4M x 4
+         */
+        public Builder<T> sketchSize(int width, int depth) {
+            this.sketchWidth = width;
+            this.sketchDepth = depth;
+            return this;
+        }
+
+        public CompactVocabCache<T> build() {
+            CompactVocabCache<T> cache = new CompactVocabCache<>(Math.max(16, initialCapacity));
+            cache.elementFactory = elementFactory;
+            if (admissionThreshold > 1) {
+                cache.sketch = new CountMinSketch(sketchWidth, sketchDepth);
+                cache.admissionThreshold = admissionThreshold;
+            }
+            return cache;
+        }
+    }
+}
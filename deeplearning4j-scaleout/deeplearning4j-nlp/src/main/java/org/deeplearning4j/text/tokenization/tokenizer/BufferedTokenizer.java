@@ -0,0 +1,169 @@
+/*
+ *
+ *  * Copyright 2015 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+package org.deeplearning4j.text.tokenization.tokenizer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Whitespace tokenizer working on a reusable char buffer. Splits on the same delimiters as DefaultTokenizer
+ * (" \t\n\r\f"), and produces the same tokens when used through the Tokenizer interface.<br>
+ * To avoid per token allocations, use reset() to tokenize the next sentence with the same instance, and advance()
+ * to move to the next token, which is then available as buffer()[tokenOffset(), tokenOffset() + tokenLength()).
+ * CharTokenPreProcess implementations are applied in place; other TokenPreProcess implementations are applied
+ * through Strings.<br>
+ * Instances are not thread safe.
+ *
+ */
+public class BufferedTokenizer implements Tokenizer {
+
+    private char[] buffer = new char[256];
+    private int length;
+    private int position;
+
+    private char[] token;
+    private int tokenOffset;
+    private int tokenLength;
+
+    private TokenPreProcess tokenPreProcess;
+    private CharTokenPreProcess charPreProcess;
+
+    public BufferedTokenizer() {
+    }
+
+    public BufferedTokenizer(CharSequence text) {
+        reset(text);
+    }
+
+    /**
+     * Starts tokenization of the given text, reusing the buffer of this tokenizer
+     *
+     * @param text
+     * @return this tokenizer
+     */
+    public BufferedTokenizer reset(CharSequence text) {
+        int n = text.length();
+        if (buffer.length < n) buffer = new char[Math.max(n, buffer.length * 2)];
+
+        if (text instanceof String) {
+            ((String) text).getChars(0, n, buffer, 0);
+        } else {
+            for (int i = 0; i < n; i++)
+                buffer[i] = text.charAt(i);
+        }
+
+        length = n;
+        position = 0;
+        token = buffer;
+        tokenLength = 0;
+        return this;
+    }
+
+    /**
+     * Moves to the next token, and applies pre processor to it. Please note: pre processed token might be empty.
+     *
+     * @return false if there are no more tokens
+     */
+    public boolean advance() {
+        while (position < length && isDelimiter(buffer[position])) position++;
+        if (position >= length) return false;
+
+        int start = position;
+        while (position < length && !isDelimiter(buffer[position])) position++;
+
+        token = buffer;
+        tokenOffset = start;
+        tokenLength = position - start;
+
+        if (charPreProcess != null) {
+            tokenLength = charPreProcess.preProcess(buffer, tokenOffset, tokenLength);
+        } else if (tokenPreProcess != null) {
+            token = tokenPreProcess.preProcess(new String(buffer, tokenOffset, tokenLength)).toCharArray();
+            tokenOffset = 0;
+            tokenLength = token.length;
+        }
+        return true;
+    }
+
+    /**
+     * Buffer holding the current token
+     */
+    public char[] buffer() {
+        return token;
+    }
+
+    /**
+     * Offset of the current token within buffer()
+     */
+    public int tokenOffset() {
+        return tokenOffset;
+    }
+
+    /**
+     * Length of the current token, after pre processing
+     */
+    public int tokenLength() {
+        return tokenLength;
+    }
+
+    private static boolean isDelimiter(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f';
+    }
+
+    @Override
+    public boolean hasMoreTokens() {
+        int i = position;
+        while (i < length && isDelimiter(buffer[i])) i++;
+        return i < length;
+    }
+
+    @Override
+    public int countTokens() {
+        int count = 0;
+        boolean inToken = false;
+        for (int i = position; i < length; i++) {
+            boolean delimiter = isDelimiter(buffer[i]);
+            if (!delimiter && !inToken) count++;
+            inToken = !delimiter;
+        }
+        return count;
+    }
+
+    @Override
+    public String nextToken() {
+        if (!advance()) throw new NoSuchElementException();
+        return new String(token, tokenOffset, tokenLength);
+    }
+
+    @Override
+    public List<String> getTokens() {
+        List<String> tokens = new ArrayList<>();
+        while (advance()) {
+            tokens.add(new String(token, tokenOffset, tokenLength));
+        }
+        return tokens;
+    }
+
+    @Override
+    public void setTokenPreProcessor(TokenPreProcess tokenPreProcessor) {
+        this.tokenPreProcess = tokenPreProcessor;
+        this.charPreProcess = tokenPreProcessor instanceof CharTokenPreProcess ? (CharTokenPreProcess) tokenPreProcessor : null;
+    }
+}
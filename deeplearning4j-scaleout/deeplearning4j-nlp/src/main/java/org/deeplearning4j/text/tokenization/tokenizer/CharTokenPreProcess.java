@@ -0,0 +1,38 @@
+/*
+ *
+ *  * Copyright 2015 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+package org.deeplearning4j.text.tokenization.tokenizer;
+
+/**
+ * Token pre processor working in place on a slice of a char buffer, so tokens can be pre processed without
+ * allocating Strings. Used by BufferedTokenizer; String based preProcess() is still available for other tokenizers.
+ *
+ */
+public interface CharTokenPreProcess extends TokenPreProcess {
+
+    /**
+     * Pre process the token stored in buffer[offset, offset + length) in place. The result has to be written
+     * starting at offset, and can't be longer than the original token.
+     *
+     * @param buffer buffer holding the token
+     * @param offset first char of the token
+     * @param length length of the token
+     * @return length of the pre processed token, 0 if nothing is left of it
+     */
+    int preProcess(char[] buffer, int offset, int length);
+}
@@ -0,0 +1,42 @@
+package org.deeplearning4j.text.tokenization.tokenizer.preprocessor;
+
+import org.deeplearning4j.text.tokenization.tokenizer.CharTokenPreProcess;
+
+/**
+ * Single pass equivalent of CommonPreprocessor: strips digits and punctuation (the same characters as
+ * StringCleaning.stripPunct()) and lower cases the token, char by char, without regular expressions.<br>
+ * Please note: lower casing is done with Character.toLowerCase(), so locale specific and multi char mappings
+ * of String.toLowerCase() (i.e. Turkish dotted I) are not applied.
+ *
+ */
+public class CommonCharPreprocessor implements CharTokenPreProcess {
+
+    @Override
+    public String preProcess(String token) {
+        char[] chars = token.toCharArray();
+        int length = preProcess(chars, 0, chars.length);
+        return new String(chars, 0, length);
+    }
+
+    @Override
+    public int preProcess(char[] buffer, int offset, int length) {
+        int out = offset;
+        for (int i = offset; i < offset + length; i++) {
+            char c = buffer[i];
+            if (isStripped(c)) continue;
+            buffer[out++] = Character.toLowerCase(c);
+        }
+        return out - offset;
+    }
+
+    private static boolean isStripped(char c) {
+        if (c >= '0' && c <= '9') return true;
+        switch (c) {
+            case '.': case ':': case ',': case '"': case '\'': case '(': case ')':
+            case '[': case ']': case '|': case '/': case '?': case '!': case ';':
+                return true;
+            default:
+                return false;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ *
+ *  * Copyright 2015 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+package org.deeplearning4j.text.tokenization.tokenizerfactory;
+
+import lombok.NonNull;
+import org.deeplearning4j.models.sequencevectors.sequence.Sequence;
+import org.deeplearning4j.models.sequencevectors.sequence.SequenceElement;
+import org.deeplearning4j.models.word2vec.wordstore.VocabLookup;
+import org.deeplearning4j.text.tokenization.tokenizer.BufferedTokenizer;
+import org.deeplearning4j.text.tokenization.tokenizer.DefaultStreamTokenizer;
+import org.deeplearning4j.text.tokenization.tokenizer.TokenPreProcess;
+import org.deeplearning4j.text.tokenization.tokenizer.Tokenizer;
+
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Drop-in replacement for DefaultTokenizerFactory, producing BufferedTokenizer instances. In addition, sentences can be
+ * converted directly into sequences of vocabulary elements or their indexes, using a per thread tokenizer and
+ * VocabLookup, without creating Strings for tokens. Use it with CharTokenPreProcess implementations
+ * (i.e. CommonCharPreprocessor) to avoid String allocations in pre processing as well.
+ *
+ */
+public class BufferedTokenizerFactory implements TokenizerFactory {
+
+    private TokenPreProcess tokenPreProcess;
+
+    private final ThreadLocal<BufferedTokenizer> tokenizers = new ThreadLocal<BufferedTokenizer>() {
+        @Override
+        protected BufferedTokenizer initialValue() {
+            return new BufferedTokenizer();
+        }
+    };
+
+    private final ThreadLocal<int[]> indexBuffers = new ThreadLocal<int[]>() {
+        @Override
+        protected int[] initialValue() {
+            return new int[64];
+        }
+    };
+
+    @Override
+    public Tokenizer create(String toTokenize) {
+        BufferedTokenizer t = new BufferedTokenizer(toTokenize);
+        t.setTokenPreProcessor(tokenPreProcess);
+        return t;
+    }
+
+    @Override
+    public Tokenizer create(InputStream toTokenize) {
+        Tokenizer t =  new DefaultStreamTokenizer(toTokenize);
+        t.setTokenPreProcessor(tokenPreProcess);
+        return t;
+    }
+
+    /**
+     * Tokenizes the text and resolves tokens against the vocabulary. Tokens which are empty after pre processing,
+     * or absent in the vocabulary, are skipped.<br>
+     * Please note: returned sequence holds elements from the vocabulary, not copies.
+     *
+     * @param text sentence to tokenize
+     * @param lookup vocabulary lookup
+     * @return
+     */
+    public <T extends SequenceElement> Sequence<T> toSequence(@NonNull CharSequence text, @NonNull VocabLookup<T> lookup) {
+        BufferedTokenizer tokenizer = tokenizer(text);
+        Sequence<T> sequence = new Sequence<>();
+        while (tokenizer.advance()) {
+            if (tokenizer.tokenLength() == 0) continue;
+
+            T element = lookup.get(tokenizer.buffer(), tokenizer.tokenOffset(), tokenizer.tokenLength());
+            if (element != null) sequence.addElement(element);
+        }
+        return sequence;
+    }
+
+    /**
+     * Tokenizes the text, and returns vocabulary indexes of the tokens. Tokens which are empty after pre processing,
+     * or absent in the vocabulary, are skipped.
+     *
+     * @param text sentence to tokenize
+     * @param lookup vocabulary lookup
+     * @return
+     */
+    public int[] toIndexes(@NonNull CharSequence text, @NonNull VocabLookup<?> lookup) {
+        BufferedTokenizer tokenizer = tokenizer(text);
+        int[] indexes = indexBuffers.get();
+        int cnt = 0;
+        while (tokenizer.advance()) {
+            if (tokenizer.tokenLength() == 0) continue;
+
+            int index = lookup.indexOf(tokenizer.buffer(), tokenizer.tokenOffset(), tokenizer.tokenLength());
+            if (index < 0) continue;
+
+            if (cnt == indexes.length) {
+                indexes = Arrays.copyOf(indexes, indexes.length * 2);
+                indexBuffers.set(indexes);
+            }
+            indexes[cnt++] = index;
+        }
+        return Arrays.copyOf(indexes, cnt);
+    }
+
+    private BufferedTokenizer tokenizer(CharSequence text) {
+        BufferedTokenizer tokenizer = tokenizers.get();
+        tokenizer.setTokenPreProcessor(tokenPreProcess);
+        return tokenizer.reset(text);
+    }
+
+    @Override
+    public void setTokenPreProcessor(TokenPreProcess preProcessor) {
+        this.tokenPreProcess = preProcessor;
+    }
+
+    /**
+     * Returns TokenPreProcessor set for this TokenizerFactory instance
+     *
+     * @return TokenPreProcessor instance, or null if no preprocessor was defined
+     */
+    @Override
+    public TokenPreProcess getTokenPreProcessor() {
+        return tokenPreProcess;
+    }
+}
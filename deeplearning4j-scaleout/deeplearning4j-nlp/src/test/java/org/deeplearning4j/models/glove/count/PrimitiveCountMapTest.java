@@ -0,0 +1,112 @@
+package org.deeplearning4j.models.glove.count;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class PrimitiveCountMapTest {
+
+    @Test
+    public void testIncrementAndGrowth() throws Exception {
+        PrimitiveCountMap map = new PrimitiveCountMap(4);
+        assertEquals(4, map.capacity());
+
+        for (int i = 0; i < 1000; i++) {
+            map.incrementCount(i, i + 1, 1.0);
+            map.incrementCount(i, i + 1, 0.5);
+        }
+
+        assertEquals(1000, map.size());
+        assertTrue(map.capacity() >= 1000);
+        assertEquals(PrimitiveCountMap.estimateFootprint(map.capacity()), map.getMemoryFootprint());
+        assertEquals(1.5, map.getCount(17, 18), 1e-10);
+        assertEquals(0.0, map.getCount(18, 17), 1e-10);
+        assertEquals(0.0, map.getCount(5000, 1), 1e-10);
+    }
+
+    @Test
+    public void testSortAndMerge() throws Exception {
+        Random random = new Random(12345);
+        PrimitiveCountMap map1 = new PrimitiveCountMap();
+        PrimitiveCountMap map2 = new PrimitiveCountMap();
+        Map<Long, Double> expected = new HashMap<>();
+
+        for (int i = 0; i < 10000; i++) {
+            int e1 = random.nextInt(200);
+            int e2 = random.nextInt(200);
+            double weight = random.nextDouble();
+            (i % 2 == 0 ? map1 : map2).incrementCount(e1, e2, weight);
+
+            long key = PrimitiveCountMap.key(e1, e2);
+            Double current = expected.get(key);
+            expected.put(key, current == null ? weight : current + weight);
+        }
+
+        map1.mergeFrom(map2);
+        map1.sortEntries();
+        assertEquals(expected.size(), map1.size());
+
+        for (int i = 0; i < map1.size(); i++) {
+            if (i > 0) assertTrue(map1.keyAt(i - 1) < map1.keyAt(i));
+            assertEquals(expected.get(map1.keyAt(i)), map1.valueAt(i), 1e-10);
+        }
+
+        long key = map1.keyAt(map1.size() / 2);
+        assertEquals(expected.get(key), map1.getCount(PrimitiveCountMap.element1(key), PrimitiveCountMap.element2(key)), 1e-10);
+    }
+
+    @Test
+    public void testSpillAndMerge() throws Exception {
+        Random random = new Random(12345);
+        PrimitiveCountMap map = new PrimitiveCountMap(1024);
+        Map<Long, Double> expected = new HashMap<>();
+        List<File> runs = new ArrayList<>();
+
+        // more runs than max fan-in, to check intermediate merge passes too
+        for (int r = 0; r < CoOccurrenceMerger.MAX_FAN_IN + 6; r++) {
+            for (int i = 0; i < 100; i++) {
+                int e1 = random.nextInt(50);
+                int e2 = random.nextInt(50);
+                map.incrementCount(e1, e2, 1.0);
+
+                long key = PrimitiveCountMap.key(e1, e2);
+                Double current = expected.get(key);
+                expected.put(key, current == null ? 1.0 : current + 1.0);
+            }
+            runs.add(CoOccurrenceMerger.writeRun(map));
+            assertEquals(0, map.size());
+        }
+
+        File target = File.createTempFile("aco", "merged");
+        target.deleteOnExit();
+        long pairs = CoOccurrenceMerger.merge(runs, target);
+        assertEquals(expected.size(), pairs);
+
+        for (File run : runs)
+            assertFalse(run.exists());
+
+        try (BufferedReader reader = new BufferedReader(new FileReader(target))) {
+            String line;
+            long previous = -1;
+            int cnt = 0;
+            while ((line = reader.readLine()) != null) {
+                String[] split = line.split(" ");
+                long key = PrimitiveCountMap.key(Integer.parseInt(split[0]), Integer.parseInt(split[1]));
+                assertTrue(key > previous);
+                assertEquals(expected.get(key), Double.parseDouble(split[2]), 1e-10);
+                previous = key;
+                cnt++;
+            }
+            assertEquals(expected.size(), cnt);
+        }
+    }
+}
@@ -21,6 +21,7 @@ package org.deeplearning4j.models.paragraphvectors;
 
 import lombok.NonNull;
 import org.canova.api.util.ClassPathResource;
+import org.deeplearning4j.models.embeddings.inmemory.InMemoryLookupTable;
 import org.deeplearning4j.models.embeddings.loader.WordVectorSerializer;
 import org.deeplearning4j.models.word2vec.VocabWord;
 import org.deeplearning4j.models.word2vec.Word2Vec;
@@ -54,6 +55,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
@@ -445,6 +447,59 @@ public class ParagraphVectorsTest {
     }
 
 
+    @Test
+    public void testParallelInference() throws Exception {
+        FileLabelAwareIterator labelAwareIterator = new FileLabelAwareIterator.Builder()
+                .addSourceFolder(new ClassPathResource("/paravec/labeled").getFile())
+                .build();
+
+        TokenizerFactory t = new DefaultTokenizerFactory();
+        t.setTokenPreProcessor(new CommonPreprocessor());
+
+        ParagraphVectors vec = new ParagraphVectors.Builder()
+                .iterate(labelAwareIterator)
+                .learningRate(0.025)
+                .minLearningRate(0.001)
+                .minWordFrequency(1)
+                .epochs(5)
+                .layerSize(50)
+                .sampling(0)
+                .tokenizerFactory(t)
+                .build();
+
+        vec.fit();
+
+        FileLabelAwareIterator unlabeledIterator = new FileLabelAwareIterator.Builder()
+                .addSourceFolder(new ClassPathResource("/paravec/unlabeled").getFile())
+                .build();
+
+        List<String> texts = new ArrayList<>();
+        while (unlabeledIterator.hasNextDocument())
+            texts.add(unlabeledIterator.nextDocument().getContent());
+
+        INDArray syn1 = ((InMemoryLookupTable<VocabWord>) vec.lookupTable()).getSyn1().dup();
+
+        INDArray batch = vec.inferVectorBatch(texts, 0.025, 0.001, 10, 4);
+        assertEquals(texts.size(), batch.rows());
+        for (int i = 0; i < texts.size(); i++) {
+            assertEquals(vec.inferVector(texts.get(i), 0.025, 0.001, 10), batch.getRow(i));
+        }
+
+        // inference shouldn't affect the model
+        assertEquals(syn1, ((InMemoryLookupTable<VocabWord>) vec.lookupTable()).getSyn1());
+
+        unlabeledIterator.reset();
+        final AtomicInteger cnt = new AtomicInteger(0);
+        vec.inferVectors(unlabeledIterator, 3, new ParagraphVectors.InferenceCallback() {
+            @Override
+            public void processVector(LabelledDocument document, INDArray vector) {
+                assertEquals(50, vector.length());
+                cnt.incrementAndGet();
+            }
+        });
+        assertEquals(texts.size(), cnt.get());
+    }
+
     /*
         In this test we'll build w2v model, and will use it's vocab and weights for ParagraphVectors.
         there's no need in this test within travis, use it manually only for problems detection
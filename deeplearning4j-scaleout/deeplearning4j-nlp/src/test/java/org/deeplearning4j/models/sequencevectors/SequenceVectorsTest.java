@@ -7,7 +7,11 @@ import org.canova.api.records.reader.impl.CSVRecordReader;
 import org.canova.api.split.FileSplit;
 import org.canova.api.util.ClassPathResource;
 import org.canova.api.writable.Writable;
+import org.deeplearning4j.models.embeddings.learning.ElementsLearningAlgorithm;
+import org.deeplearning4j.models.embeddings.learning.impl.elements.BatchedSkipGram;
 import org.deeplearning4j.models.embeddings.learning.impl.elements.GloVe;
+import org.deeplearning4j.models.embeddings.learning.impl.elements.HogwildCBOW;
+import org.deeplearning4j.models.embeddings.learning.impl.elements.HogwildSkipGram;
 import org.deeplearning4j.models.embeddings.learning.impl.elements.SkipGram;
 import org.deeplearning4j.models.embeddings.reader.impl.BasicModelUtils;
 import org.deeplearning4j.models.embeddings.reader.impl.FlatModelUtils;
@@ -28,6 +32,7 @@ import org.deeplearning4j.models.word2vec.VocabWord;
 import org.deeplearning4j.models.word2vec.wordstore.VocabConstructor;
 import org.deeplearning4j.models.word2vec.wordstore.inmemory.AbstractCache;
 import org.deeplearning4j.text.sentenceiterator.BasicLineIterator;
+import org.deeplearning4j.text.sentenceiterator.CollectionSentenceIterator;
 import org.deeplearning4j.text.tokenization.tokenizer.preprocessor.CommonPreprocessor;
 import org.deeplearning4j.text.tokenization.tokenizerfactory.DefaultTokenizerFactory;
 import org.deeplearning4j.text.tokenization.tokenizerfactory.TokenizerFactory;
@@ -226,6 +231,106 @@ public class SequenceVectorsTest {
         logger.info("Nearest labels to 'day': " + labels);
     }
 
+    @Test
+    public void testHogwildSkipGram() throws Exception {
+        SequenceVectors<VocabWord> vectors = fitRawSentences(new HogwildSkipGram<VocabWord>(), 0);
+
+        double sim = vectors.similarity("day", "night");
+        logger.info("Day/night similarity: " + sim);
+        assertTrue(sim > 0.6d);
+        assertTrue(vectors.getWordsPerSecondPerThread() > 0);
+    }
+
+    @Test
+    public void testHogwildCBOW() throws Exception {
+        SequenceVectors<VocabWord> vectors = fitRawSentences(new HogwildCBOW<VocabWord>(), 0);
+
+        double sim = vectors.similarity("day", "night");
+        logger.info("Day/night similarity: " + sim);
+        assertTrue(sim > 0.6d);
+    }
+
+    @Test
+    public void testBatchedSkipGram() throws Exception {
+        SequenceVectors<VocabWord> vectors = fitRawSentences(new BatchedSkipGram<VocabWord>(), 5);
+
+        double sim = vectors.similarity("day", "night");
+        logger.info("Day/night similarity: " + sim);
+        assertTrue(sim > 0.6d);
+    }
+
+    @Test
+    public void testIncrementalFit() throws Exception {
+        SequenceVectors<VocabWord> vectors = fitRawSentences(new HogwildSkipGram<VocabWord>(), 5);
+
+        int numWords = vectors.getVocab().numWords();
+        int dayIndex = vectors.getVocab().indexOf("day");
+        double frequency = vectors.getVocab().wordFrequency("day");
+
+        List<String> sentences = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            sentences.add("zorblax day quintor");
+            sentences.add("quintor night zorblax");
+        }
+
+        TokenizerFactory t = new DefaultTokenizerFactory();
+        t.setTokenPreProcessor(new CommonPreprocessor());
+        SentenceTransformer transformer = new SentenceTransformer.Builder()
+                .iterator(new CollectionSentenceIterator(sentences))
+                .tokenizerFactory(t)
+                .build();
+
+        vectors.setSequenceIterator(new AbstractSequenceIterator.Builder<VocabWord>(transformer).build());
+        vectors.fitIncremental();
+
+        assertEquals(numWords + 2, vectors.getVocab().numWords());
+        assertEquals(dayIndex, vectors.getVocab().indexOf("day"));
+        assertEquals(frequency + 20, vectors.getVocab().wordFrequency("day"), 1e-5);
+        assertTrue(vectors.getVocab().indexOf("zorblax") >= numWords);
+        assertTrue(vectors.getVocab().indexOf("quintor") >= numWords);
+
+        InMemoryLookupTable<VocabWord> table = (InMemoryLookupTable<VocabWord>) vectors.getLookupTable();
+        assertEquals(numWords + 2, table.getSyn0().rows());
+        assertEquals(numWords + 2, table.getSyn1().rows());
+        assertEquals(numWords + 2, table.getSyn1Neg().rows());
+        assertNotNull(vectors.getWordVectorMatrix("zorblax"));
+
+        double sim = vectors.similarity("day", "night");
+        logger.info("Day/night similarity after update: " + sim);
+        assertTrue(sim > 0.5d);
+    }
+
+    private SequenceVectors<VocabWord> fitRawSentences(ElementsLearningAlgorithm<VocabWord> algorithm, int negative) throws Exception {
+        ClassPathResource resource = new ClassPathResource("big/raw_sentences.txt");
+        File file = resource.getFile();
+
+        TokenizerFactory t = new DefaultTokenizerFactory();
+        t.setTokenPreProcessor(new CommonPreprocessor());
+
+        SentenceTransformer transformer = new SentenceTransformer.Builder()
+                .iterator(new BasicLineIterator(file))
+                .tokenizerFactory(t)
+                .build();
+
+        AbstractSequenceIterator<VocabWord> sequenceIterator = new AbstractSequenceIterator.Builder<VocabWord>(transformer)
+                .build();
+
+        SequenceVectors<VocabWord> vectors = new SequenceVectors.Builder<VocabWord>(new VectorsConfiguration())
+                .minWordFrequency(5)
+                .iterate(sequenceIterator)
+                .batchSize(250)
+                .iterations(1)
+                .epochs(1)
+                .negativeSample(negative)
+                .elementsLearningAlgorithm(algorithm)
+                .resetModel(true)
+                .trainElementsRepresentation(true)
+                .build();
+
+        vectors.fit();
+        return vectors;
+    }
+
     @Test
     public void testElementsLearningAlgo1() throws Exception {
         SequenceVectors<VocabWord> vectors = new SequenceVectors.Builder<VocabWord>(new VectorsConfiguration())
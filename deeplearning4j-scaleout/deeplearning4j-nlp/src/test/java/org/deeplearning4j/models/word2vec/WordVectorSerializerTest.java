@@ -25,6 +25,7 @@ import org.canova.api.util.ClassPathResource;
 import org.deeplearning4j.models.embeddings.WeightLookupTable;
 import org.deeplearning4j.models.embeddings.inmemory.InMemoryLookupTable;
 import org.deeplearning4j.models.embeddings.loader.WordVectorSerializer;
+import org.deeplearning4j.models.embeddings.wordvectors.MappedWordVectors;
 import org.deeplearning4j.models.embeddings.wordvectors.WordVectors;
 import org.deeplearning4j.models.word2vec.wordstore.inmemory.InMemoryLookupCache;
 import org.deeplearning4j.text.sentenceiterator.BasicLineIterator;
@@ -51,6 +52,7 @@ import java.util.Arrays;
 import java.util.Collection;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertTrue;
 
@@ -433,6 +435,50 @@ public class WordVectorSerializerTest {
         assertEquals(day1, day2);
     }
 
+    @Test
+    public void testMappedWordVectors() throws Exception {
+        WordVectors vec = WordVectorSerializer.loadGoogleModel(binaryFile, true);
+        File file = File.createTempFile("mappedVectors", ".bin");
+        file.deleteOnExit();
+
+        WordVectorSerializer.writeMappedWordVectors(vec, file);
+        MappedWordVectors mapped = WordVectorSerializer.loadMappedWordVectors(file);
+
+        assertEquals(30, mapped.numWords());
+        assertEquals(300, mapped.layerSize());
+        assertTrue(mapped.hasWord("Morgan_Freeman"));
+        assertFalse(mapped.hasWord("NonExistentWord"));
+        assertEquals(vec.indexOf("JA_Montalbano"), mapped.indexOf("JA_Montalbano"));
+        assertEquals("JA_Montalbano", mapped.wordAtIndex(mapped.indexOf("JA_Montalbano")));
+
+        assertEquals(vec.getWordVectorMatrix("Morgan_Freeman"), mapped.getWordVectorMatrix("Morgan_Freeman"));
+        assertEquals(vec.similarity("Morgan_Freeman", "JA_Montalbano"), mapped.similarity("Morgan_Freeman", "JA_Montalbano"), 1e-5);
+
+        Collection<String> nearest = mapped.wordsNearest("Morgan_Freeman", 5);
+        assertEquals(5, nearest.size());
+        assertFalse(nearest.contains("Morgan_Freeman"));
+        String closest = nearest.iterator().next();
+        for (int i = 0; i < mapped.numWords(); i++) {
+            String word = mapped.wordAtIndex(i);
+            if (!word.equals("Morgan_Freeman"))
+                assertTrue(mapped.similarity("Morgan_Freeman", closest) >= mapped.similarity("Morgan_Freeman", word) - 1e-6);
+        }
+    }
+
+    @Test
+    public void testConvertGoogleModelToMapped() throws Exception {
+        WordVectors vec = WordVectorSerializer.loadGoogleModel(textFile, false);
+        File file = File.createTempFile("mappedVectors", ".bin");
+        file.deleteOnExit();
+
+        WordVectorSerializer.convertGoogleModelToMapped(textFile, false, file);
+        MappedWordVectors mapped = WordVectorSerializer.loadMappedWordVectors(file);
+
+        assertEquals(vec.vocab().numWords(), mapped.numWords());
+        assertEquals(vec.getWordVectorMatrix("JA_Montalbano"), mapped.getWordVectorMatrix("JA_Montalbano"));
+        assertEquals(vec.wordsNearest("Morgan_Freeman", 3), mapped.wordsNearest("Morgan_Freeman", 3));
+    }
+
     private double arraysSimilarity(INDArray array1, INDArray array2) {
         if (array1.equals(array2)) return 1.0;
 
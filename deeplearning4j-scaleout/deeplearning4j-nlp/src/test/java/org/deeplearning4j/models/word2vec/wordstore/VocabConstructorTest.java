@@ -347,4 +347,83 @@ public class VocabConstructorTest {
         assertTrue(cacheTarget.indexOf("Zscience") > sourceSize - 1);
         assertTrue(cacheTarget.indexOf("Zhealth") > sourceSize - 1);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testParallelVocabulary() throws Exception {
+        File inputFile = new ClassPathResource("big/raw_sentences.txt").getFile();
+
+        VocabCache<VocabWord> cacheSequential = new AbstractCache.Builder<VocabWord>().build();
+        VocabConstructor<VocabWord> sequential = new VocabConstructor.Builder<VocabWord>()
+                .addSource(sequenceIterator(inputFile), 5)
+                .setTargetVocabCache(cacheSequential)
+                .build();
+        sequential.buildJointVocabulary(false, true);
+
+        // two partitions over the same file, so every count is doubled
+        List<SequenceIterator<VocabWord>> partitions = new ArrayList<>();
+        partitions.add(sequenceIterator(inputFile));
+        partitions.add(sequenceIterator(inputFile));
+
+        VocabCache<VocabWord> cacheParallel = new AbstractCache.Builder<VocabWord>().build();
+        VocabConstructor<VocabWord> parallel = new VocabConstructor.Builder<VocabWord>()
+                .addSource(partitions, 10)
+                .workers(4)
+                .setTargetVocabCache(cacheParallel)
+                .build();
+        parallel.buildJointVocabulary(false, true);
+
+        assertEquals(2 * sequential.getNumberOfSequences(), parallel.getNumberOfSequences());
+        assertEquals(2 * sequential.getNumberOfTokens(), parallel.getNumberOfTokens());
+        assertEquals(cacheSequential.numWords(), cacheParallel.numWords());
+        assertEquals(2 * cacheSequential.totalNumberOfDocs(), cacheParallel.totalNumberOfDocs());
+        for (VocabWord word: cacheSequential.vocabWords()) {
+            assertEquals(2 * word.getElementFrequency(), cacheParallel.wordFor(word.getLabel()).getElementFrequency(), 1e-5);
+            assertEquals(2 * word.getSequencesCount(), cacheParallel.wordFor(word.getLabel()).getSequencesCount());
+        }
+        assertTrue(parallel.getTokensPerSecond() > 0);
+    }
+
+    @Test
+    public void testIncrementalVocabularyMinWordFrequency() throws Exception {
+        VocabCache<VocabWord> cache = new AbstractCache.Builder<VocabWord>().build();
+        VocabConstructor<VocabWord> initial = new VocabConstructor.Builder<VocabWord>()
+                .addSource(sequenceIterator("known", "known", "known", "other", "other", "other"), 0)
+                .setTargetVocabCache(cache)
+                .build();
+        initial.buildJointVocabulary(false, true);
+        assertEquals(2, cache.numWords());
+
+        // "known" is rare in the new slice, but it's already in the vocabulary, so its count should still be updated
+        VocabConstructor<VocabWord> incremental = new VocabConstructor.Builder<VocabWord>()
+                .addSource(sequenceIterator("known", "rare", "frequent", "frequent", "frequent"), 2)
+                .setTargetVocabCache(cache)
+                .build();
+        assertEquals(1, incremental.buildIncrementalVocabulary());
+
+        assertEquals(3, cache.numWords());
+        assertEquals(4, cache.wordFrequency("known"));
+        assertEquals(3, cache.wordFrequency("other"));
+        assertEquals(3, cache.wordFrequency("frequent"));
+        assertFalse(cache.containsWord("rare"));
+        assertEquals(2, cache.indexOf("frequent"));
+    }
+
+    private SequenceIterator<VocabWord> sequenceIterator(String... labels) {
+        List<VocabWord> elements = new ArrayList<>();
+        for (String label: labels)
+            elements.add(new VocabWord(1.0, label));
+
+        List<Sequence<VocabWord>> sequences = new ArrayList<>();
+        sequences.add(new Sequence<>(elements));
+        return new AbstractSequenceIterator.Builder<>(sequences).build();
+    }
+
+    private SequenceIterator<VocabWord> sequenceIterator(File file) throws Exception {
+        SentenceTransformer transformer = new SentenceTransformer.Builder()
+                .iterator(new BasicLineIterator(file))
+                .tokenizerFactory(t)
+                .build();
+
+        return new AbstractSequenceIterator.Builder<VocabWord>(transformer).build();
+    }
+}
@@ -0,0 +1,144 @@
+package org.deeplearning4j.models.word2vec.wordstore.inmemory;
+
+import org.deeplearning4j.models.word2vec.Huffman;
+import org.deeplearning4j.models.word2vec.VocabWord;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class CompactVocabCacheTest {
+
+    @Test
+    public void testCountsAndTokens() throws Exception {
+        CompactVocabCache<VocabWord> cache = new CompactVocabCache.Builder<VocabWord>()
+                .elementFactory(CompactVocabCache.vocabWordFactory())
+                .build();
+
+        cache.incrementWordCount("word");
+        cache.incrementWordCount("test", 2);
+        cache.addToken(new VocabWord(3.0, "tester"));
+        cache.incrementWordCount("tester");
+
+        assertEquals(3, cache.numWords());
+        assertEquals(7, cache.totalWordOccurrences());
+        assertEquals(1, cache.wordFrequency("word"));
+        assertEquals(2, cache.wordFrequency("test"));
+        assertEquals(4, cache.wordFrequency("tester"));
+        assertTrue(cache.containsWord("word"));
+        assertFalse(cache.containsWord("missing"));
+
+        VocabWord word = cache.wordFor("test");
+        assertEquals("test", word.getLabel());
+        assertEquals(2.0, word.getElementFrequency(), 1e-5);
+
+        cache.removeElement("word");
+        assertEquals(2, cache.numWords());
+        assertFalse(cache.containsWord("word"));
+        assertEquals(6, cache.totalWordOccurrences());
+    }
+
+    @Test
+    public void testHuffman() throws Exception {
+        CompactVocabCache<VocabWord> cache = new CompactVocabCache.Builder<VocabWord>()
+                .elementFactory(CompactVocabCache.vocabWordFactory())
+                .build();
+
+        cache.incrementWordCount("word", 1);
+        cache.incrementWordCount("test", 2);
+        cache.incrementWordCount("tester", 3);
+
+        Huffman huffman = new Huffman(cache.tokens());
+        huffman.build();
+        huffman.applyIndexes(cache);
+
+        assertEquals("tester", cache.wordAtIndex(0));
+        assertEquals("test", cache.wordAtIndex(1));
+        assertEquals("word", cache.wordAtIndex(2));
+        assertEquals(0, cache.indexOf("tester"));
+        assertEquals(0, cache.tokenFor("tester").getIndex());
+        assertEquals("word", cache.elementAtIndex(2).getLabel());
+    }
+
+    @Test
+    public void testTruncateDropsIndexes() throws Exception {
+        CompactVocabCache<VocabWord> cache = new CompactVocabCache.Builder<VocabWord>()
+                .elementFactory(CompactVocabCache.vocabWordFactory())
+                .build();
+
+        cache.incrementWordCount("word", 1);
+        cache.incrementWordCount("test", 2);
+        cache.incrementWordCount("tester", 3);
+
+        Huffman huffman = new Huffman(cache.tokens());
+        huffman.build();
+        huffman.applyIndexes(cache);
+        assertEquals(1, cache.indexOf("test"));
+
+        cache.truncate(2);
+        assertEquals(2, cache.numWords());
+        assertEquals(-1, cache.indexOf("test"));
+        assertEquals(-1, cache.indexOf("tester"));
+        assertEquals(-1, cache.tokenFor("tester").getIndex());
+    }
+
+    @Test
+    public void testShardsAndTruncation() throws Exception {
+        final CompactVocabCache<VocabWord> cache = new CompactVocabCache.Builder<VocabWord>()
+                .elementFactory(CompactVocabCache.vocabWordFactory())
+                .initialCapacity(16)
+                .build();
+
+        final List<CompactVocabCache.Shard> shards = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            final CompactVocabCache.Shard shard = cache.newShard();
+            shards.add(shard);
+            threads.add(new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 1000; i++)
+                        shard.addSequence(Arrays.asList("common", "common", "w" + i));
+                }
+            }));
+        }
+        for (Thread thread : threads) thread.start();
+        for (Thread thread : threads) thread.join();
+        for (CompactVocabCache.Shard shard : shards)
+            cache.merge(shard);
+
+        assertEquals(1001, cache.numWords());
+        assertEquals(8000, cache.wordFrequency("common"));
+        assertEquals(4000, cache.docAppearedIn("common"));
+        assertEquals(4, cache.wordFrequency("w999"));
+        assertEquals(4000, cache.totalNumberOfDocs());
+        assertEquals(12000, cache.totalWordOccurrences());
+        assertTrue(cache.bytesPerWord() > 0);
+
+        cache.truncate(5);
+        assertEquals(1, cache.numWords());
+        assertTrue(cache.containsWord("common"));
+        assertFalse(cache.containsWord("w0"));
+        assertEquals(8000, cache.totalWordOccurrences());
+    }
+
+    @Test
+    public void testSketchAdmission() throws Exception {
+        CompactVocabCache<VocabWord> cache = new CompactVocabCache.Builder<VocabWord>()
+                .admissionThreshold(3)
+                .sketchSize(1 << 16, 4)
+                .build();
+
+        for (int i = 0; i < 100; i++) {
+            cache.incrementWordCount("rare" + i);
+            cache.incrementWordCount("frequent");
+        }
+
+        assertTrue(cache.containsWord("frequent"));
+        assertFalse(cache.containsWord("rare0"));
+        assertEquals(98, cache.wordFrequency("frequent"));
+    }
+}
@@ -0,0 +1,80 @@
+package org.deeplearning4j.text.tokenization.tokenizer;
+
+import org.deeplearning4j.models.sequencevectors.sequence.Sequence;
+import org.deeplearning4j.models.word2vec.VocabWord;
+import org.deeplearning4j.models.word2vec.wordstore.VocabLookup;
+import org.deeplearning4j.models.word2vec.wordstore.inmemory.AbstractCache;
+import org.deeplearning4j.text.tokenization.tokenizer.preprocessor.CommonCharPreprocessor;
+import org.deeplearning4j.text.tokenization.tokenizer.preprocessor.CommonPreprocessor;
+import org.deeplearning4j.text.tokenization.tokenizerfactory.BufferedTokenizerFactory;
+import org.deeplearning4j.text.tokenization.tokenizerfactory.DefaultTokenizerFactory;
+import org.deeplearning4j.text.tokenization.tokenizerfactory.TokenizerFactory;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class BufferedTokenizerTest {
+
+    private static final String[] SENTENCES = {
+            "Mary had a little lamb.",
+            "  It's 10:30, \"Hello\"  (World) [test] a|b path/to?!  ;  ",
+            "\tTabs\nand\r\nNew\flines",
+            "",
+            "1234 .,;"
+    };
+
+    @Test
+    public void testSameTokensAsDefaultTokenizer() throws Exception {
+        TokenizerFactory defaultFactory = new DefaultTokenizerFactory();
+        defaultFactory.setTokenPreProcessor(new CommonPreprocessor());
+
+        TokenizerFactory bufferedFactory = new BufferedTokenizerFactory();
+        bufferedFactory.setTokenPreProcessor(new CommonCharPreprocessor());
+
+        for (String sentence : SENTENCES) {
+            assertEquals(defaultFactory.create(sentence).countTokens(), bufferedFactory.create(sentence).countTokens());
+            assertEquals(defaultFactory.create(sentence).getTokens(), bufferedFactory.create(sentence).getTokens());
+        }
+
+        // String based pre processors are supported as well
+        bufferedFactory.setTokenPreProcessor(new CommonPreprocessor());
+        for (String sentence : SENTENCES)
+            assertEquals(defaultFactory.create(sentence).getTokens(), bufferedFactory.create(sentence).getTokens());
+    }
+
+    @Test
+    public void testReuseAndLookup() throws Exception {
+        AbstractCache<VocabWord> cache = new AbstractCache.Builder<VocabWord>().build();
+        String[] words = {"mary", "had", "little", "lamb"};
+        for (int i = 0; i < words.length; i++) {
+            VocabWord word = new VocabWord(1.0, words[i]);
+            word.setIndex(i);
+            cache.addToken(word);
+        }
+        VocabLookup<VocabWord> lookup = new VocabLookup<>(cache);
+        assertEquals(4, lookup.size());
+        assertEquals(cache.wordFor("lamb"), lookup.get("lamb"));
+        assertNull(lookup.get("sheep"));
+
+        BufferedTokenizerFactory factory = new BufferedTokenizerFactory();
+        factory.setTokenPreProcessor(new CommonCharPreprocessor());
+
+        Sequence<VocabWord> sequence = factory.toSequence("Mary had a little lamb.", lookup);
+        assertEquals(4, sequence.getElements().size());
+        assertEquals("lamb", sequence.getElements().get(3).getLabel());
+        assertTrue(cache.wordFor("mary") == sequence.getElements().get(0));
+
+        assertArrayEquals(new int[] {3, 1, 0}, factory.toIndexes("LAMB, had (a) Mary!", lookup));
+        assertArrayEquals(new int[0], factory.toIndexes("  ", lookup));
+
+        BufferedTokenizer tokenizer = new BufferedTokenizer();
+        tokenizer.setTokenPreProcessor(new CommonCharPreprocessor());
+        tokenizer.reset("a much longer sentence than the default buffer " + new String(new char[500]).replace('\0', 'x'));
+        assertEquals(9, tokenizer.countTokens());
+        tokenizer.reset("Lamb");
+        assertTrue(tokenizer.advance());
+        assertEquals(3, lookup.indexOf(tokenizer.buffer(), tokenizer.tokenOffset(), tokenizer.tokenLength()));
+        assertFalse(tokenizer.advance());
+        assertFalse(tokenizer.hasMoreTokens());
+    }
+}
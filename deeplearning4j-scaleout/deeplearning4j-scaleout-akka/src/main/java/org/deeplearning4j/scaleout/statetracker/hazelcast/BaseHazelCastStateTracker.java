@@ -32,6 +32,7 @@ import org.deeplearning4j.scaleout.api.statetracker.*;
 import org.deeplearning4j.scaleout.job.Job;
 import org.deeplearning4j.scaleout.statetracker.updatesaver.LocalFileUpdateSaver;
 import org.deeplearning4j.scaleout.statetracker.workretriever.LocalWorkRetriever;
+import org.nd4j.linalg.api.ndarray.INDArray;
 
 import org.nd4j.linalg.io.ClassPathResource;
 import org.slf4j.Logger;
@@ -109,8 +110,13 @@ public abstract class BaseHazelCastStateTracker  implements StateTracker {
     private StateTrackerDropWizardResource resource;
     protected JobAggregator jobAggregator;
     protected Serializable cachedCurrent;
+    private boolean deltaUpdates = false;
+    private float deltaThreshold = 0.0f;
+    private transient Serializable deltaReference;
     public final static String HAZELCAST_HOST = "hazelcast.host";
     private List<NewUpdateListener> listeners = new ArrayList<>();
+    private final transient Map<String,Job> pendingUpdates = new LinkedHashMap<>();
+    private final transient Object flushLock = new Object();
 
     public BaseHazelCastStateTracker() throws Exception {
         this(DEFAULT_HAZELCAST_PORT);
@@ -417,7 +423,12 @@ public abstract class BaseHazelCastStateTracker  implements StateTracker {
     }
 
     /**
-     * Adds an update to the current mini batch
+     * Adds an update to the current mini batch.
+     * Updates added concurrently (for example by several workers in this JVM finishing
+     * the same mini batch) are submitted together with {@link #addUpdates(Map)}:
+     * the first thread to flush submits every pending update, and the other threads
+     * return once their update has been submitted. An update added on its own
+     * is submitted right away.
      * @param id the id of the worker who did the update
      * @param update the update to add
      */
@@ -426,18 +437,113 @@ public abstract class BaseHazelCastStateTracker  implements StateTracker {
         if(update == null)
             return;
 
-        try {
+        synchronized (pendingUpdates) {
+            pendingUpdates.put(id,update);
+        }
 
-            updateSaver().save(id,update);
-            update.setWork(null);
-            update.setResult(null);
+        synchronized (flushLock) {
+            Map<String,Job> batch;
+            synchronized (pendingUpdates) {
+                //already submitted with the batch of another worker
+                if(pendingUpdates.get(id) != update)
+                    return;
+                batch = new LinkedHashMap<>(pendingUpdates);
+                pendingUpdates.clear();
+            }
+
+            try {
+                addUpdates(batch);
+            } catch (RuntimeException e) {
+                //updates of other workers are left for their own threads to submit
+                batch.remove(id);
+                synchronized (pendingUpdates) {
+                    for(Map.Entry<String,Job> entry : batch.entrySet()) {
+                        if(!pendingUpdates.containsKey(entry.getKey()))
+                            pendingUpdates.put(entry.getKey(),entry.getValue());
+                    }
+                }
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Adds a batch of updates to the current mini batch.
+     * The updates are persisted with one call to the update saver
+     * and announced with one call to the update list.
+     * @param updates the updates to add, keyed by the id of the worker who did the update
+     */
+    @Override
+    public void addUpdates(Map<String,Job> updates) {
+        Map<String,Job> batch = new LinkedHashMap<>();
+        for(Map.Entry<String,Job> entry : updates.entrySet()) {
+            if(entry.getValue() != null)
+                batch.put(entry.getKey(),entry.getValue());
+        }
+
+        if(batch.isEmpty())
+            return;
+
+        try {
+            //the reference is normally set by setCurrent, fetch it only if this tracker didn't see one yet
+            if(deltaUpdates && saver instanceof LocalFileUpdateSaver && deltaReference == null)
+                updateDeltaReference(getCurrent());
+            updateSaver().saveAll(batch);
+            for(Job update : batch.values()) {
+                update.setWork(null);
+                update.setResult(null);
+            }
 
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
 
-        updates.add(id);
+        this.updates.addAll(batch.keySet());
+    }
+
+    /**
+     * Whether updates are delta encoded against the current parameters.
+     * Only applies when the update saver is a {@link LocalFileUpdateSaver}
+     * @return true if updates are delta encoded
+     */
+    public boolean isDeltaUpdates() {
+        return deltaUpdates;
+    }
+
+    /**
+     * Delta encode updates against the current parameters.
+     * Updates computed against stale parameters are dropped by the master.
+     * @param deltaUpdates whether to delta encode updates
+     */
+    public void setDeltaUpdates(boolean deltaUpdates) {
+        this.deltaUpdates = deltaUpdates;
+    }
 
+    /**
+     * Threshold for delta encoded updates: parameter changes no larger than this are not sent.
+     * @return the delta threshold
+     */
+    public float getDeltaThreshold() {
+        return deltaThreshold;
+    }
+
+    /**
+     * Threshold for delta encoded updates: parameter changes no larger than this are not sent.
+     * The default of 0 is exact, but only saves space if most of the parameters didn't change.
+     * @param deltaThreshold the delta threshold
+     */
+    public void setDeltaThreshold(float deltaThreshold) {
+        this.deltaThreshold = deltaThreshold;
+    }
+
+    private void updateDeltaReference(Serializable current) {
+        if(!deltaUpdates || !(saver instanceof LocalFileUpdateSaver) || current == deltaReference)
+            return;
+        INDArray params = null;
+        if(current instanceof Job && ((Job) current).getResult() instanceof INDArray)
+            params = (INDArray) ((Job) current).getResult();
+        ((LocalFileUpdateSaver) saver).setReference(params, deltaThreshold);
+        deltaReference = current;
     }
 
     /**
@@ -826,6 +932,7 @@ public abstract class BaseHazelCastStateTracker  implements StateTracker {
             listener.onUpdate(e);
         }
 
+        updateDeltaReference(e);
         this.master.set(e);
     }
 
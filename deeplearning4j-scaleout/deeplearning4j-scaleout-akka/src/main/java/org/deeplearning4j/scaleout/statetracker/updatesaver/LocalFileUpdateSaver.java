@@ -19,13 +19,17 @@
 package org.deeplearning4j.scaleout.statetracker.updatesaver;
 
 import com.hazelcast.core.*;
+import org.apache.commons.io.FileUtils;
 import org.deeplearning4j.scaleout.job.Job;
 import org.deeplearning4j.scaleout.api.statetracker.UpdateSaver;
-import org.deeplearning4j.util.SerializationUtils;
+import org.deeplearning4j.scaleout.job.JobSerializer;
+import org.nd4j.linalg.api.ndarray.INDArray;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
@@ -34,12 +38,16 @@ import java.util.concurrent.ConcurrentHashMap;
  * Saves intermittent updates
  * in the directory where the base dir is specified.
  * The default is the tmp directory
+ *
+ * Updates are sent and stored in the binary format of {@link JobSerializer},
+ * optionally delta encoded against the last broadcast parameters (see {@link #setReference(INDArray)}).
  */
 public class LocalFileUpdateSaver implements UpdateSaver {
 
     private Map<String,String> paths;
-    private IMap<String,Job> updateableIMap;
+    private IMap<String,byte[]> updateableIMap;
     private String baseDir;
+    private volatile JobSerializer serializer = new JobSerializer();
     public final static String UPDATE_SAVER = "updatesaver";
     private static final Logger log = LoggerFactory.getLogger(LocalFileUpdateSaver.class);
 
@@ -52,9 +60,9 @@ public class LocalFileUpdateSaver implements UpdateSaver {
         paths = new ConcurrentHashMap<>();
         if(instance != null) {
             updateableIMap = instance.getMap(UPDATE_SAVER);
-            updateableIMap.addEntryListener(new EntryListener<String, Job>() {
+            updateableIMap.addEntryListener(new EntryListener<String, byte[]>() {
                 @Override
-                public void entryAdded(EntryEvent<String, Job> event) {
+                public void entryAdded(EntryEvent<String, byte[]> event) {
                     String fileName = event.getKey();
                     if(event.getKey().equals("."))
                         fileName = UUID.randomUUID().toString();
@@ -62,7 +70,11 @@ public class LocalFileUpdateSaver implements UpdateSaver {
                     if(saveFile.isDirectory()) {
                         saveFile = new File(LocalFileUpdateSaver.this.baseDir,UUID.randomUUID().toString());
                     }
-                    SerializationUtils.saveObject(event.getValue(),saveFile);
+                    try {
+                        FileUtils.writeByteArrayToFile(saveFile, event.getValue());
+                    } catch (IOException e) {
+                        throw new RuntimeException(e);
+                    }
 
                     paths.put(event.getKey(),saveFile.getAbsolutePath());
                     //no longer needed after persistence
@@ -70,16 +82,16 @@ public class LocalFileUpdateSaver implements UpdateSaver {
                 }
 
                 @Override
-                public void entryRemoved(EntryEvent<String, Job> event) {
+                public void entryRemoved(EntryEvent<String, byte[]> event) {
                 }
 
                 @Override
-                public void entryUpdated(EntryEvent<String, Job> event) {
+                public void entryUpdated(EntryEvent<String, byte[]> event) {
 
                 }
 
                 @Override
-                public void entryEvicted(EntryEvent<String, Job> event) {
+                public void entryEvicted(EntryEvent<String, byte[]> event) {
                 }
 
                 @Override
@@ -114,9 +126,14 @@ public class LocalFileUpdateSaver implements UpdateSaver {
             return null;
         }
         File load = new File(path);
-        Job u =  SerializationUtils.readObject(load);
+        byte[] bytes = FileUtils.readFileToByteArray(load);
         load.deleteOnExit();
-        return u;
+        try {
+            return serializer.fromBytes(bytes);
+        } catch (IllegalStateException e) {
+            log.warn("Dropping update " + id + ": " + e.getMessage());
+            return null;
+        }
     }
 
     /**
@@ -129,30 +146,62 @@ public class LocalFileUpdateSaver implements UpdateSaver {
             new File(s).delete();
     }
 
+    /**
+     * Sets the parameters updates are delta encoded against.
+     * Should be the same parameters on the workers and on the master, usually the last broadcast ones.
+     *
+     * @param reference the reference parameters, or null to disable delta encoding
+     */
+    public void setReference(INDArray reference) {
+        setReference(reference, 0.0f);
+    }
+
+    /**
+     * Sets the parameters updates are delta encoded against, see {@link JobSerializer} for the threshold.
+     *
+     * @param reference the reference parameters, or null to disable delta encoding
+     * @param threshold changes no larger than this are not sent
+     */
+    public void setReference(INDArray reference, float threshold) {
+        this.serializer = new JobSerializer(reference, threshold);
+    }
+
     @Override
     public void save(String id,Job save) throws Exception {
         if(save == null)
             throw new IllegalArgumentException("Saving null network not allowed");
 
+        byte[] bytes = serializer.toBytes(save);
         if(updateableIMap != null) {
-            updateableIMap.put(id,save);
+            updateableIMap.put(id,bytes);
         }
         else {
-            File saveFile = new File(baseDir,id);
-            SerializationUtils.saveObject(save,saveFile);
-            boolean loadedProperly = false;
-            while(!loadedProperly) {
-                try {
-                    SerializationUtils.readObject(saveFile);
-
-                }catch(Exception e) {
+            write(id,bytes);
+        }
+    }
 
-                }
-                loadedProperly = true;
-            }
-            paths.put(id,saveFile.getAbsolutePath());
+    @Override
+    public void saveAll(Map<String, Job> updates) throws Exception {
+        Map<String,byte[]> batch = new HashMap<>();
+        for(Map.Entry<String,Job> entry : updates.entrySet()) {
+            if(entry.getValue() == null)
+                throw new IllegalArgumentException("Saving null network not allowed");
+            batch.put(entry.getKey(),serializer.toBytes(entry.getValue()));
         }
 
+        if(updateableIMap != null) {
+            //single round trip for the whole batch
+            updateableIMap.putAll(batch);
+        }
+        else {
+            for(Map.Entry<String,byte[]> entry : batch.entrySet())
+                write(entry.getKey(),entry.getValue());
+        }
+    }
 
+    private void write(String id,byte[] bytes) throws IOException {
+        File saveFile = new File(baseDir,id);
+        FileUtils.writeByteArrayToFile(saveFile,bytes);
+        paths.put(id,saveFile.getAbsolutePath());
     }
 }
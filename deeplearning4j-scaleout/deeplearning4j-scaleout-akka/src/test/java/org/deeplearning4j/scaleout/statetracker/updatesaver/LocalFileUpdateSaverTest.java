@@ -0,0 +1,152 @@
+package org.deeplearning4j.scaleout.statetracker.updatesaver;
+
+import com.hazelcast.core.Hazelcast;
+import org.apache.commons.io.FileUtils;
+import org.deeplearning4j.scaleout.job.Job;
+import org.deeplearning4j.scaleout.statetracker.hazelcast.HazelCastStateTracker;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class LocalFileUpdateSaverTest {
+
+    private File dir;
+
+    @Before
+    public void before() throws Exception {
+        dir = Files.createTempDirectory("dl4jUpdateSaver").toFile();
+    }
+
+    @After
+    public void after() throws Exception {
+        FileUtils.deleteDirectory(dir);
+    }
+
+    @Test
+    public void testSaveAllRoundTrip() throws Exception {
+        LocalFileUpdateSaver saver = new LocalFileUpdateSaver(dir.getAbsolutePath());
+        Map<String,Job> batch = new LinkedHashMap<>();
+        for(int i = 0; i < 5; i++) {
+            Job job = new Job(null,"worker" + i);
+            job.setResult(Nd4j.rand(1,100));
+            batch.put("worker" + i,job);
+        }
+        saver.saveAll(batch);
+
+        for(Map.Entry<String,Job> entry : batch.entrySet()) {
+            Job loaded = saver.load(entry.getKey());
+            assertNotNull(loaded);
+            assertEquals(entry.getKey(),loaded.workerId());
+            assertEquals(entry.getValue().getResult(),loaded.getResult());
+            //each update is loaded once
+            assertNull(saver.load(entry.getKey()));
+        }
+    }
+
+    @Test
+    public void testSaveAllDelta() throws Exception {
+        INDArray reference = Nd4j.rand(1,1000);
+        LocalFileUpdateSaver saver = new LocalFileUpdateSaver(dir.getAbsolutePath());
+        saver.setReference(reference);
+
+        Map<String,Job> batch = new LinkedHashMap<>();
+        for(int i = 0; i < 3; i++) {
+            INDArray params = reference.dup();
+            params.putScalar(i,params.getFloat(i) + 1.0f);
+            Job job = new Job(null,"worker" + i);
+            job.setResult(params);
+            batch.put("worker" + i,job);
+        }
+        saver.saveAll(batch);
+
+        for(Map.Entry<String,Job> entry : batch.entrySet())
+            assertEquals(entry.getValue().getResult(),saver.load(entry.getKey()).getResult());
+    }
+
+    @Test
+    public void testConcurrentUpdatesBatched() throws Exception {
+        final CountingUpdateSaver saver = new CountingUpdateSaver(dir.getAbsolutePath());
+        final HazelCastStateTracker tracker = new HazelCastStateTracker();
+        try {
+            tracker.setUpdateSaver(saver);
+
+            int numWorkers = 8;
+            final Map<String,INDArray> expected = new HashMap<>();
+            for(int i = 0; i < numWorkers; i++)
+                expected.put("worker" + i,Nd4j.rand(1,100));
+
+            final CountDownLatch start = new CountDownLatch(1);
+            Thread[] threads = new Thread[numWorkers];
+            for(int i = 0; i < numWorkers; i++) {
+                final String id = "worker" + i;
+                threads[i] = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            start.await();
+                        } catch (InterruptedException e) {
+                            throw new RuntimeException(e);
+                        }
+                        Job job = new Job(null,id);
+                        job.setResult(expected.get(id).dup());
+                        tracker.addUpdate(id,job);
+                    }
+                });
+                threads[i].start();
+            }
+            start.countDown();
+            for(Thread t : threads)
+                t.join();
+
+            //every update is submitted via saveAll, possibly several per call
+            assertEquals(0,saver.saveCalls.get());
+            assertTrue(saver.saveAllCalls.get() >= 1 && saver.saveAllCalls.get() <= numWorkers);
+            assertEquals(numWorkers,saver.saved.get());
+            assertEquals(numWorkers,tracker.workerUpdates().size());
+            for(Map.Entry<String,INDArray> entry : expected.entrySet()) {
+                assertTrue(tracker.workerUpdates().contains(entry.getKey()));
+                assertEquals(entry.getValue(),saver.load(entry.getKey()).getResult());
+            }
+        } finally {
+            tracker.finish();
+            tracker.shutdown();
+            Hazelcast.shutdownAll();
+        }
+    }
+
+    private static class CountingUpdateSaver extends LocalFileUpdateSaver {
+        private final AtomicInteger saveCalls = new AtomicInteger();
+        private final AtomicInteger saveAllCalls = new AtomicInteger();
+        private final AtomicInteger saved = new AtomicInteger();
+
+        private CountingUpdateSaver(String baseDir) {
+            super(baseDir);
+        }
+
+        @Override
+        public void save(String id,Job save) throws Exception {
+            saveCalls.incrementAndGet();
+            saved.incrementAndGet();
+            super.save(id,save);
+        }
+
+        @Override
+        public void saveAll(Map<String,Job> updates) throws Exception {
+            saveAllCalls.incrementAndGet();
+            saved.addAndGet(updates.size());
+            super.saveAll(updates);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ *
+ *  * Copyright 2015 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+package org.deeplearning4j.scaleout.api.parameterserver;
+
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.io.IOException;
+
+/**
+ * Shard layout and whole vector push/pull on top of per shard operations
+ */
+public abstract class BaseParameterServer implements ParameterServer {
+
+    protected int length;
+    protected int numShards;
+    protected int shardSize;
+
+    protected BaseParameterServer(int length, int numShards) {
+        if (length < 1 || numShards < 1 || numShards > length)
+            throw new IllegalArgumentException("Illegal number of shards " + numShards + " for length " + length);
+        this.length = length;
+        this.numShards = numShards;
+        this.shardSize = (length + numShards - 1) / numShards;
+        // shards are sized evenly, so there may be less of them than requested
+        this.numShards = (length + shardSize - 1) / shardSize;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public int numShards() {
+        return numShards;
+    }
+
+    @Override
+    public int shardOffset(int shard) {
+        if (shard < 0 || shard >= numShards)
+            throw new IllegalArgumentException("Illegal shard " + shard);
+        return shard * shardSize;
+    }
+
+    @Override
+    public int shardLength(int shard) {
+        return Math.min(shardSize, length - shardOffset(shard));
+    }
+
+    @Override
+    public void push(INDArray update) throws IOException {
+        if (update.length() != length)
+            throw new IllegalArgumentException("Update length " + update.length() + " doesn't match parameters length " + length);
+        // dup gives contiguous buffer with zero offset, even if update is a view
+        float[] values = update.dup().data().asFloat();
+        for (int shard = 0; shard < numShards; shard++) {
+            float[] part = new float[shardLength(shard)];
+            System.arraycopy(values, shardOffset(shard), part, 0, part.length);
+            push(shard, part);
+        }
+    }
+
+    @Override
+    public INDArray pull() throws IOException {
+        float[] values = new float[length];
+        for (int shard = 0; shard < numShards; shard++) {
+            float[] part = pull(shard);
+            System.arraycopy(part, 0, values, shardOffset(shard), part.length);
+        }
+        return Nd4j.create(values);
+    }
+}
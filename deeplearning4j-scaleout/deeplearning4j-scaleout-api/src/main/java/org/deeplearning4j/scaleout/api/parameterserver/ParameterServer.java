@@ -0,0 +1,108 @@
+/*
+ *
+ *  * Copyright 2015 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+package org.deeplearning4j.scaleout.api.parameterserver;
+
+import org.nd4j.linalg.api.ndarray.INDArray;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * A parameter server holds the flattened parameters of a model,
+ * split in to contiguous key ranges (shards). Workers pull parameters,
+ * compute updates on their own pace and push updates back, without
+ * waiting for each other.
+ *
+ * Staleness is bounded via {@link #clock(int)}: a worker can't be more than
+ * {@link #staleness()} clocks ahead of the slowest worker.
+ * Staleness of 0 is equivalent to bulk synchronous training.
+ */
+public interface ParameterServer extends Closeable {
+
+    /**
+     * Total number of parameters
+     * @return the number of parameters
+     */
+    int length();
+
+    /**
+     * Number of shards parameters are split in to
+     * @return the number of shards
+     */
+    int numShards();
+
+    /**
+     * Offset of the first parameter of the given shard
+     * @param shard the shard
+     * @return the offset of the shard
+     */
+    int shardOffset(int shard);
+
+    /**
+     * Number of parameters in the given shard
+     * @param shard the shard
+     * @return the length of the shard
+     */
+    int shardLength(int shard);
+
+    /**
+     * Maximum number of clocks a worker can be ahead of the slowest worker
+     * @return the staleness bound
+     */
+    int staleness();
+
+    /**
+     * Add the given update to a shard
+     * @param shard the shard to update
+     * @param update the update, of length {@link #shardLength(int)}
+     */
+    void push(int shard, float[] update) throws IOException;
+
+    /**
+     * Retrieve a copy of a shard
+     * @param shard the shard to retrieve
+     * @return the current values of the shard
+     */
+    float[] pull(int shard) throws IOException;
+
+    /**
+     * Add the given update to all shards
+     * @param update the update for the whole parameter vector
+     */
+    void push(INDArray update) throws IOException;
+
+    /**
+     * Retrieve all parameters
+     * @return the current parameters as a row vector
+     */
+    INDArray pull() throws IOException;
+
+    /**
+     * Mark the end of an iteration for the given worker.
+     * Blocks while the worker is too far ahead of the slowest worker.
+     * @param worker the worker id
+     */
+    void clock(int worker) throws IOException, InterruptedException;
+
+    /**
+     * Mark the given worker as done: it won't hold back other workers any more
+     * @param worker the worker id
+     */
+    void finish(int worker) throws IOException;
+
+}
@@ -224,6 +224,12 @@ public interface StateTracker extends Serializable {
      */
     void addUpdate(String id, Job update);
 
+    /**
+     * Adds several updates to the current mini batch in one batch
+     * @param updates the updates to add, by id of the worker who did the update
+     */
+    void addUpdates(Map<String, Job> updates);
+
     /**
      * Updates  for mini batches
      * @return the current list of updates for mini batches
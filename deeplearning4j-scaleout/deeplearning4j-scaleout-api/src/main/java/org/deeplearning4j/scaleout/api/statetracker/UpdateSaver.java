@@ -21,6 +21,7 @@ package org.deeplearning4j.scaleout.api.statetracker;
 import org.deeplearning4j.scaleout.job.Job;
 
 import java.io.Serializable;
+import java.util.Map;
 
 /**
  * Saves an update and handles interfacing
@@ -45,6 +46,12 @@ public interface UpdateSaver extends Serializable {
      */
     void save(String id, Job save) throws Exception;
 
+    /**
+     * Saves several updates at once, as a single batch
+     * @param updates the objects to save, by id
+     */
+    void saveAll(Map<String, Job> updates) throws Exception;
+
     /**
      * Cleans up the persistence layer.
      * This will usually be used to clear up left over files from updates
@@ -0,0 +1,193 @@
+/*
+ *
+ *  * Copyright 2015 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+package org.deeplearning4j.scaleout.job;
+
+import org.deeplearning4j.util.RawModelFormat;
+import org.deeplearning4j.util.SerializationUtils;
+import org.nd4j.linalg.api.buffer.DataBuffer;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.io.*;
+import java.util.Arrays;
+
+/**
+ * Compact binary format for {@link Job}s, used instead of java serialization
+ * when jobs are sent to the state tracker or saved by an update saver.
+ *
+ * Work and result are written as a single type byte followed by the payload:
+ * arrays use the raw array format of {@link RawModelFormat} (small header + raw values),
+ * everything else falls back to java serialization.
+ *
+ * If a reference array is specified (usually the last broadcast parameters), array payloads
+ * of the same length are delta encoded: only the elements that differ from the reference by more than
+ * the threshold are written, as (index, value) pairs, if that is smaller than the dense array. The reference checksum
+ * is written too, so a delta can't be silently applied to the wrong parameters.
+ *
+ * With the default threshold of 0 the encoding is exact, but it only pays off when less than half of the
+ * elements changed at all (frozen layers, sparse updates such as embeddings). After a regular fit nearly every
+ * parameter changes, so a positive threshold is needed: elements that changed by less than the threshold
+ * are read back as the reference value, i.e. the encoding is lossy.
+ */
+public class JobSerializer implements Serializable {
+    private static final int JOB_MAGIC = 0x444C4A42;
+    private static final byte TYPE_NULL = 0;
+    private static final byte TYPE_ARRAY = 1;
+    private static final byte TYPE_DELTA = 2;
+    private static final byte TYPE_SERIALIZED = 3;
+
+    private float[] reference;
+    private long referenceChecksum;
+    private float threshold;
+
+    public JobSerializer() {
+    }
+
+    /**
+     * @param reference the array to delta encode against, may be null
+     */
+    public JobSerializer(INDArray reference) {
+        this(reference, 0.0f);
+    }
+
+    /**
+     * @param reference the array to delta encode against, may be null
+     * @param threshold elements that differ from the reference by no more than this are not written
+     */
+    public JobSerializer(INDArray reference, float threshold) {
+        if (threshold < 0)
+            throw new IllegalArgumentException("Threshold should not be negative");
+        this.threshold = threshold;
+        if (reference != null) {
+            this.reference = reference.dup().data().asFloat();
+            this.referenceChecksum = checksum(this.reference);
+        }
+    }
+
+    public byte[] toBytes(Job job) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        write(job, out);
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    public Job fromBytes(byte[] bytes) throws IOException {
+        return read(new DataInputStream(new ByteArrayInputStream(bytes)));
+    }
+
+    public void write(Job job, DataOutputStream out) throws IOException {
+        out.writeInt(JOB_MAGIC);
+        out.writeBoolean(job.workerId() != null);
+        if (job.workerId() != null)
+            out.writeUTF(job.workerId());
+        writePayload(job.getWork(), out);
+        writePayload(job.getResult(), out);
+    }
+
+    public Job read(DataInputStream in) throws IOException {
+        if (in.readInt() != JOB_MAGIC)
+            throw new IOException("Not a serialized job");
+        String workerId = in.readBoolean() ? in.readUTF() : null;
+        Job job = new Job(readPayload(in), workerId);
+        job.setResult(readPayload(in));
+        return job;
+    }
+
+    private void writePayload(Serializable payload, DataOutputStream out) throws IOException {
+        if (payload == null) {
+            out.writeByte(TYPE_NULL);
+        } else if (payload instanceof INDArray) {
+            INDArray arr = (INDArray) payload;
+            // delta encoding is done for float row vectors, i.e. flattened parameters
+            if (reference != null && arr.length() == reference.length && arr.rows() <= 1
+                    && arr.data().dataType() == DataBuffer.Type.FLOAT) {
+                float[] values = arr.dup().data().asFloat();
+                int changed = 0;
+                for (int i = 0; i < values.length; i++) {
+                    if (changed(values[i], reference[i])) changed++;
+                }
+
+                // (index, value) pairs take 8 bytes per element, dense values 4
+                if (changed * 2 < values.length) {
+                    out.writeByte(TYPE_DELTA);
+                    out.writeLong(referenceChecksum);
+                    out.writeInt(values.length);
+                    out.writeInt(changed);
+                    for (int i = 0; i < values.length; i++) {
+                        if (changed(values[i], reference[i])) {
+                            out.writeInt(i);
+                            out.writeFloat(values[i]);
+                        }
+                    }
+                    return;
+                }
+            }
+            out.writeByte(TYPE_ARRAY);
+            RawModelFormat.writeArray(arr, out);
+        } else {
+            byte[] bytes = SerializationUtils.toByteArray(payload);
+            out.writeByte(TYPE_SERIALIZED);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private Serializable readPayload(DataInputStream in) throws IOException {
+        byte type = in.readByte();
+        switch (type) {
+            case TYPE_NULL:
+                return null;
+            case TYPE_ARRAY:
+                return RawModelFormat.readArray(in);
+            case TYPE_DELTA: {
+                long checksum = in.readLong();
+                int length = in.readInt();
+                if (reference == null || reference.length != length || checksum != referenceChecksum)
+                    throw new IllegalStateException("Job was delta encoded against different reference parameters");
+                float[] values = Arrays.copyOf(reference, length);
+                int changed = in.readInt();
+                for (int i = 0; i < changed; i++) {
+                    int idx = in.readInt();
+                    values[idx] = in.readFloat();
+                }
+                return Nd4j.create(values);
+            }
+            case TYPE_SERIALIZED: {
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                return SerializationUtils.<Serializable>readObject(new ByteArrayInputStream(bytes));
+            }
+            default:
+                throw new IOException("Unknown payload type " + type);
+        }
+    }
+
+    private boolean changed(float value, float reference) {
+        //negated, so that NaN values are always written
+        return !(Math.abs(value - reference) <= threshold);
+    }
+
+    private static long checksum(float[] values) {
+        long hash = 1125899906842597L;
+        for (float value : values) {
+            hash = 31 * hash + Float.floatToIntBits(value);
+        }
+        return hash;
+    }
+}
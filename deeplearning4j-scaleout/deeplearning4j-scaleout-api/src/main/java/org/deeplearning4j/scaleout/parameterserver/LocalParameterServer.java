@@ -0,0 +1,166 @@
+/*
+ *
+ *  * Copyright 2015 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+package org.deeplearning4j.scaleout.parameterserver;
+
+import org.deeplearning4j.scaleout.api.parameterserver.BaseParameterServer;
+import org.nd4j.linalg.api.ndarray.INDArray;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process parameter server. Each shard is guarded by its own lock,
+ * so workers updating different shards never contend.
+ *
+ * Can be used directly by multi-threaded training, or served
+ * to other JVMs via {@link ParameterServerNode}.
+ */
+public class LocalParameterServer extends BaseParameterServer {
+
+    private final float[][] shards;
+    private final int staleness;
+    private final int[] clocks;
+    private final boolean[] finished;
+    private final Object clockLock = new Object();
+    private volatile boolean closed = false;
+
+    private final AtomicLong pushes = new AtomicLong(0);
+    private final AtomicLong pulls = new AtomicLong(0);
+    private final AtomicLong waitNanos = new AtomicLong(0);
+
+    /**
+     * @param params initial parameters
+     * @param numShards number of shards to split parameters in to
+     * @param numWorkers number of workers, used for staleness tracking
+     * @param staleness maximum number of clocks a worker can be ahead of the slowest one
+     */
+    public LocalParameterServer(INDArray params, int numShards, int numWorkers, int staleness) {
+        this(params.dup().data().asFloat(), numShards, numWorkers, staleness);
+    }
+
+    public LocalParameterServer(float[] params, int numShards, int numWorkers, int staleness) {
+        super(params.length, numShards);
+        if (numWorkers < 1)
+            throw new IllegalArgumentException("Number of workers should be positive");
+        if (staleness < 0)
+            throw new IllegalArgumentException("Staleness can't be negative");
+
+        this.staleness = staleness;
+        this.clocks = new int[numWorkers];
+        this.finished = new boolean[numWorkers];
+        this.shards = new float[this.numShards][];
+        for (int shard = 0; shard < this.numShards; shard++) {
+            shards[shard] = Arrays.copyOfRange(params, shardOffset(shard), shardOffset(shard) + shardLength(shard));
+        }
+    }
+
+    @Override
+    public int staleness() {
+        return staleness;
+    }
+
+    public int numWorkers() {
+        return clocks.length;
+    }
+
+    @Override
+    public void push(int shard, float[] update) {
+        float[] values = shards[shard];
+        if (update.length != values.length)
+            throw new IllegalArgumentException("Update length " + update.length + " doesn't match shard length " + values.length);
+
+        synchronized (values) {
+            for (int i = 0; i < values.length; i++) {
+                values[i] += update[i];
+            }
+        }
+        pushes.incrementAndGet();
+    }
+
+    @Override
+    public float[] pull(int shard) {
+        float[] values = shards[shard];
+        pulls.incrementAndGet();
+        synchronized (values) {
+            return values.clone();
+        }
+    }
+
+    @Override
+    public void clock(int worker) throws InterruptedException {
+        long time = System.nanoTime();
+        synchronized (clockLock) {
+            clocks[worker]++;
+            clockLock.notifyAll();
+            while (!closed && clocks[worker] - minClock() > staleness) {
+                clockLock.wait();
+            }
+        }
+        waitNanos.addAndGet(System.nanoTime() - time);
+    }
+
+    @Override
+    public void finish(int worker) {
+        synchronized (clockLock) {
+            finished[worker] = true;
+            clockLock.notifyAll();
+        }
+    }
+
+    /**
+     * Clock of the slowest worker that is still running
+     */
+    public int minClock() {
+        synchronized (clockLock) {
+            int min = Integer.MAX_VALUE;
+            for (int i = 0; i < clocks.length; i++) {
+                if (!finished[i] && clocks[i] < min) min = clocks[i];
+            }
+            return min;
+        }
+    }
+
+    /**
+     * Number of shard updates applied so far
+     */
+    public long getNumPushes() {
+        return pushes.get();
+    }
+
+    /**
+     * Number of shard retrievals so far
+     */
+    public long getNumPulls() {
+        return pulls.get();
+    }
+
+    /**
+     * Total time workers spent in {@link #clock(int)}, in milliseconds
+     */
+    public long getWaitTime() {
+        return waitNanos.get() / 1000000;
+    }
+
+    @Override
+    public void close() {
+        synchronized (clockLock) {
+            closed = true;
+            clockLock.notifyAll();
+        }
+    }
+}
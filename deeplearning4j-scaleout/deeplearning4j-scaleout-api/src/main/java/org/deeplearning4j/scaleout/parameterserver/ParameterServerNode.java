@@ -0,0 +1,163 @@
+/*
+ *
+ *  * Copyright 2015 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+package org.deeplearning4j.scaleout.parameterserver;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Serves a {@link LocalParameterServer} over TCP, so workers in other JVMs
+ * can use it via {@link RemoteParameterServer}. Each connection gets its own thread,
+ * so a worker blocked in clock() doesn't hold back the others.
+ *
+ * Wire format: single op byte followed by op arguments, all in big endian.
+ */
+public class ParameterServerNode implements Closeable {
+    public final static byte OP_INFO = 0;
+    public final static byte OP_PUSH = 1;
+    public final static byte OP_PULL = 2;
+    public final static byte OP_CLOCK = 3;
+    public final static byte OP_FINISH = 4;
+    public final static byte ACK = 1;
+
+    private static final Logger log = LoggerFactory.getLogger(ParameterServerNode.class);
+
+    private final LocalParameterServer server;
+    private final ServerSocket serverSocket;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private volatile boolean running = true;
+
+    /**
+     * @param server the parameter server to serve
+     * @param port the port to listen on, 0 for any free port
+     */
+    public ParameterServerNode(LocalParameterServer server, int port) throws IOException {
+        this.server = server;
+        this.serverSocket = new ServerSocket(port);
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                accept();
+            }
+        });
+        log.info("Parameter server listening on port {}", getPort());
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public LocalParameterServer getServer() {
+        return server;
+    }
+
+    private void accept() {
+        while (running) {
+            try {
+                final Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        serve(socket);
+                    }
+                });
+            } catch (IOException e) {
+                if (running) log.error("Unable to accept connection", e);
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))) {
+            while (running) {
+                byte op = in.readByte();
+                switch (op) {
+                    case OP_INFO:
+                        out.writeInt(server.length());
+                        out.writeInt(server.numShards());
+                        out.writeInt(server.staleness());
+                        break;
+                    case OP_PUSH: {
+                        int shard = in.readInt();
+                        float[] update = new float[in.readInt()];
+                        for (int i = 0; i < update.length; i++) {
+                            update[i] = in.readFloat();
+                        }
+                        server.push(shard, update);
+                        out.writeByte(ACK);
+                        break;
+                    }
+                    case OP_PULL: {
+                        float[] values = server.pull(in.readInt());
+                        out.writeInt(values.length);
+                        for (float value : values) {
+                            out.writeFloat(value);
+                        }
+                        break;
+                    }
+                    case OP_CLOCK:
+                        server.clock(in.readInt());
+                        out.writeByte(ACK);
+                        break;
+                    case OP_FINISH:
+                        server.finish(in.readInt());
+                        out.writeByte(ACK);
+                        break;
+                    default:
+                        throw new IllegalStateException("Unknown op " + op);
+                }
+                out.flush();
+            }
+        } catch (EOFException | SocketException e) {
+            // client disconnected
+        } catch (Exception e) {
+            log.error("Error serving parameter server connection", e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        server.close();
+        serverSocket.close();
+        executor.shutdownNow();
+    }
+
+    /**
+     * Starts standalone parameter server node with zero initialized parameters.
+     * Arguments: port length numShards numWorkers staleness
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length != 5) {
+            System.err.println("Usage: ParameterServerNode <port> <length> <numShards> <numWorkers> <staleness>");
+            System.exit(1);
+        }
+        LocalParameterServer server = new LocalParameterServer(new float[Integer.parseInt(args[1])],
+                Integer.parseInt(args[2]), Integer.parseInt(args[3]), Integer.parseInt(args[4]));
+        new ParameterServerNode(server, Integer.parseInt(args[0]));
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ *
+ *  * Copyright 2015 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+package org.deeplearning4j.scaleout.parameterserver;
+
+import org.deeplearning4j.datasets.iterator.DataSetIterator;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.deeplearning4j.scaleout.api.parameterserver.ParameterServer;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.dataset.DataSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Asynchronous training loop for a single worker:
+ * pull parameters, fit a minibatch, push the difference, clock.
+ *
+ * Every worker should have its own network instance and iterator.
+ */
+public class ParameterServerWorker implements Runnable {
+    private static final Logger log = LoggerFactory.getLogger(ParameterServerWorker.class);
+
+    private final MultiLayerNetwork network;
+    private final DataSetIterator iterator;
+    private final ParameterServer server;
+    private final int workerId;
+    private volatile int batches = 0;
+
+    /**
+     * @param network the network to train, its parameters will be replaced with the pulled ones
+     * @param iterator the data for this worker
+     * @param server the parameter server
+     * @param workerId the id of this worker, used for staleness tracking
+     */
+    public ParameterServerWorker(MultiLayerNetwork network, DataSetIterator iterator, ParameterServer server, int workerId) {
+        this.network = network;
+        this.iterator = iterator;
+        this.server = server;
+        this.workerId = workerId;
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (iterator.hasNext()) {
+                DataSet data = iterator.next();
+                INDArray params = server.pull();
+                network.setParameters(params);
+                network.fit(data);
+                server.push(network.params().sub(params));
+                server.clock(workerId);
+                batches++;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        } finally {
+            try {
+                server.finish(workerId);
+            } catch (Exception e) {
+                log.warn("Unable to finish worker " + workerId, e);
+            }
+        }
+    }
+
+    /**
+     * Number of minibatches processed by this worker so far
+     */
+    public int getBatches() {
+        return batches;
+    }
+}
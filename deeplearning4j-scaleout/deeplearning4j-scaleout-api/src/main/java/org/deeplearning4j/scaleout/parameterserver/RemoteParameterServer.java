@@ -0,0 +1,120 @@
+/*
+ *
+ *  * Copyright 2015 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+package org.deeplearning4j.scaleout.parameterserver;
+
+import org.deeplearning4j.scaleout.api.parameterserver.BaseParameterServer;
+
+import java.io.*;
+import java.net.Socket;
+
+/**
+ * Client side of {@link ParameterServerNode}.
+ *
+ * Operations are synchronous and this class isn't meant to be shared:
+ * every worker thread should open its own connection.
+ */
+public class RemoteParameterServer extends BaseParameterServer {
+
+    private final Socket socket;
+    private final DataInputStream in;
+    private final DataOutputStream out;
+    private final int staleness;
+
+    private RemoteParameterServer(Socket socket, DataInputStream in, DataOutputStream out, int length, int numShards, int staleness) {
+        super(length, numShards);
+        this.socket = socket;
+        this.in = in;
+        this.out = out;
+        this.staleness = staleness;
+    }
+
+    /**
+     * Connect to parameter server node
+     * @param host the host of the node
+     * @param port the port of the node
+     * @return the connected client
+     */
+    public static RemoteParameterServer connect(String host, int port) throws IOException {
+        Socket socket = new Socket(host, port);
+        socket.setTcpNoDelay(true);
+        DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+
+        out.writeByte(ParameterServerNode.OP_INFO);
+        out.flush();
+        int length = in.readInt();
+        int numShards = in.readInt();
+        int staleness = in.readInt();
+        return new RemoteParameterServer(socket, in, out, length, numShards, staleness);
+    }
+
+    @Override
+    public int staleness() {
+        return staleness;
+    }
+
+    @Override
+    public synchronized void push(int shard, float[] update) throws IOException {
+        out.writeByte(ParameterServerNode.OP_PUSH);
+        out.writeInt(shard);
+        out.writeInt(update.length);
+        for (float value : update) {
+            out.writeFloat(value);
+        }
+        out.flush();
+        readAck();
+    }
+
+    @Override
+    public synchronized float[] pull(int shard) throws IOException {
+        out.writeByte(ParameterServerNode.OP_PULL);
+        out.writeInt(shard);
+        out.flush();
+        float[] values = new float[in.readInt()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = in.readFloat();
+        }
+        return values;
+    }
+
+    @Override
+    public synchronized void clock(int worker) throws IOException {
+        out.writeByte(ParameterServerNode.OP_CLOCK);
+        out.writeInt(worker);
+        out.flush();
+        readAck();
+    }
+
+    @Override
+    public synchronized void finish(int worker) throws IOException {
+        out.writeByte(ParameterServerNode.OP_FINISH);
+        out.writeInt(worker);
+        out.flush();
+        readAck();
+    }
+
+    private void readAck() throws IOException {
+        if (in.readByte() != ParameterServerNode.ACK)
+            throw new IOException("Parameter server didn't acknowledge operation");
+    }
+
+    @Override
+    public void close() throws IOException {
+        socket.close();
+    }
+}
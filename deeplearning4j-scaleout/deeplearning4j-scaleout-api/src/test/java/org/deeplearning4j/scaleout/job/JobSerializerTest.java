@@ -0,0 +1,74 @@
+package org.deeplearning4j.scaleout.job;
+
+import org.junit.Test;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+
+import static org.junit.Assert.*;
+
+public class JobSerializerTest {
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        INDArray params = Nd4j.rand(1, 100);
+        Job job = new Job("work", "worker");
+        job.setResult(params);
+
+        JobSerializer serializer = new JobSerializer();
+        Job read = serializer.fromBytes(serializer.toBytes(job));
+        assertEquals("worker", read.workerId());
+        assertEquals("work", read.getWork());
+        assertEquals(params, read.getResult());
+
+        Job empty = serializer.fromBytes(serializer.toBytes(new Job(null, null)));
+        assertNull(empty.workerId());
+        assertNull(empty.getWork());
+        assertNull(empty.getResult());
+    }
+
+    @Test
+    public void testDelta() throws Exception {
+        INDArray reference = Nd4j.rand(1, 1000);
+        INDArray params = reference.dup();
+        for (int i = 0; i < 1000; i += 100)
+            params.putScalar(i, params.getFloat(i) + 1.0f);
+        Job job = new Job(null, "worker");
+        job.setResult(params);
+
+        JobSerializer serializer = new JobSerializer(reference);
+        byte[] delta = serializer.toBytes(job);
+        byte[] dense = new JobSerializer().toBytes(job);
+        assertTrue(delta.length < dense.length / 10);
+        assertEquals(params, serializer.fromBytes(delta).getResult());
+
+        try {
+            new JobSerializer(Nd4j.rand(1, 1000)).fromBytes(delta);
+            fail("Delta encoded against different parameters");
+        } catch (IllegalStateException e) {
+            //expected
+        }
+    }
+
+    @Test
+    public void testDeltaThreshold() throws Exception {
+        INDArray reference = Nd4j.rand(1, 1000);
+        INDArray params = reference.dup();
+        //every element changes a little, every 100th element a lot
+        for (int i = 0; i < 1000; i++)
+            params.putScalar(i, params.getFloat(i) + (i % 100 == 0 ? 1.0f : 1e-4f));
+        Job job = new Job(null, "worker");
+        job.setResult(params);
+
+        byte[] dense = new JobSerializer().toBytes(job);
+        assertEquals(dense.length, new JobSerializer(reference).toBytes(job).length);
+
+        JobSerializer serializer = new JobSerializer(reference, 1e-3f);
+        byte[] delta = serializer.toBytes(job);
+        assertTrue(delta.length < dense.length / 10);
+        INDArray read = (INDArray) serializer.fromBytes(delta).getResult();
+        for (int i = 0; i < 1000; i++) {
+            float expected = (i % 100 == 0 ? params.getFloat(i) : reference.getFloat(i));
+            assertEquals(expected, read.getFloat(i), 0.0f);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package org.deeplearning4j.scaleout.parameterserver;
+
+import org.deeplearning4j.datasets.iterator.impl.IrisDataSetIterator;
+import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
+import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
+import org.deeplearning4j.nn.conf.Updater;
+import org.deeplearning4j.nn.conf.layers.DenseLayer;
+import org.deeplearning4j.nn.conf.layers.OutputLayer;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.junit.Test;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.lossfunctions.LossFunctions;
+
+import static org.junit.Assert.*;
+
+public class ParameterServerTest {
+
+    @Test
+    public void testShards() throws Exception {
+        LocalParameterServer server = new LocalParameterServer(Nd4j.linspace(1, 10, 10), 3, 1, 0);
+        assertEquals(10, server.length());
+        assertEquals(3, server.numShards());
+        assertEquals(4, server.shardLength(0));
+        assertEquals(2, server.shardLength(2));
+        assertEquals(8, server.shardOffset(2));
+        assertArrayEquals(new float[]{9, 10}, server.pull(2), 1e-5f);
+
+        server.push(Nd4j.ones(10));
+        assertEquals(Nd4j.linspace(2, 11, 10), server.pull());
+        assertEquals(3, server.getNumPushes());
+    }
+
+    @Test
+    public void testStalenessBound() throws Exception {
+        final LocalParameterServer server = new LocalParameterServer(new float[4], 2, 2, 1);
+
+        Thread fast = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    server.clock(0);
+                    server.clock(0);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        fast.start();
+        fast.join(500);
+        // worker 0 is 2 clocks ahead of worker 1
+        assertTrue(fast.isAlive());
+
+        server.clock(1);
+        fast.join(5000);
+        assertFalse(fast.isAlive());
+        assertEquals(1, server.minClock());
+    }
+
+    @Test
+    public void testRemote() throws Exception {
+        LocalParameterServer local = new LocalParameterServer(new float[5], 2, 1, 0);
+        try (ParameterServerNode node = new ParameterServerNode(local, 0);
+             RemoteParameterServer remote = RemoteParameterServer.connect("localhost", node.getPort())) {
+            assertEquals(5, remote.length());
+            assertEquals(2, remote.numShards());
+
+            INDArray update = Nd4j.linspace(1, 5, 5);
+            remote.push(update);
+            remote.clock(0);
+            assertEquals(update, remote.pull());
+            assertEquals(update, local.pull());
+
+            remote.finish(0);
+        }
+    }
+
+    @Test
+    public void testAsyncTraining() throws Exception {
+        MultiLayerConfiguration conf = new NeuralNetConfiguration.Builder()
+                .seed(123)
+                .updater(Updater.SGD)
+                .learningRate(0.1)
+                .list()
+                .layer(0, new DenseLayer.Builder().nIn(4).nOut(10).activation("tanh").build())
+                .layer(1, new OutputLayer.Builder(LossFunctions.LossFunction.MCXENT).nIn(10).nOut(3).activation("softmax").build())
+                .backprop(true).pretrain(false)
+                .build();
+
+        MultiLayerNetwork network = new MultiLayerNetwork(conf);
+        network.init();
+        DataSet all = new IrisDataSetIterator(150, 150).next();
+        double initialScore = network.score(all);
+
+        int numWorkers = 4;
+        LocalParameterServer server = new LocalParameterServer(network.params(), 3, numWorkers, 2);
+        Thread[] threads = new Thread[numWorkers];
+        for (int i = 0; i < numWorkers; i++) {
+            MultiLayerNetwork copy = new MultiLayerNetwork(conf.clone());
+            copy.init();
+            threads[i] = new Thread(new ParameterServerWorker(copy, new IrisDataSetIterator(10, 150), server, i));
+            threads[i].start();
+        }
+        for (Thread thread : threads) thread.join();
+
+        network.setParameters(server.pull());
+        double score = network.score(all);
+        System.out.println("Initial score: " + initialScore + ", final score: " + score + ", time waited: " + server.getWaitTime() + " ms");
+
+        assertEquals(numWorkers * 15 * server.numShards(), server.getNumPushes());
+        assertTrue(score < initialScore);
+    }
+}
@@ -25,7 +25,7 @@ import java.util.concurrent.atomic.AtomicLong;
  * @author raver119@gmail.com
  */
 public class FirstIterationFunction
-        implements FlatMapFunction< Iterator<Tuple2<List<VocabWord>, Long>>, Entry<VocabWord, INDArray> > {
+        implements FlatMapFunction< Iterator<Tuple2<List<VocabWord>, Long>>, Tuple2<Integer, INDArray> > {
 
     private int ithIteration = 1;
     private int vectorLength;
@@ -40,14 +40,16 @@ public class FirstIterationFunction
     private int maxExp;
     private double[] expTable;
     private int iterations;
+    private int epoch;
+    private int numEpochs;
     private Map<VocabWord, INDArray> indexSyn0VecMap;
     private Map<Integer, INDArray> pointSyn1VecMap;
+    private Map<Integer, INDArray> syn1NegVecMap;
+    private Set<Integer> requiredRows;
     private AtomicLong nextRandom = new AtomicLong(5);
 
     private volatile VocabCache<VocabWord> vocab;
     private volatile NegativeHolder negativeHolder;
-    private AtomicLong cid = new AtomicLong(0);
-    private AtomicLong aff = new AtomicLong(0);
 
 
 
@@ -55,6 +57,21 @@ public class FirstIterationFunction
 
     public FirstIterationFunction(Broadcast<Map<String, Object>> word2vecVarMapBroadcast,
                                   Broadcast<double[]> expTableBroadcast, Broadcast<VocabCache<VocabWord>> vocabCacheBroadcast) {
+        this(word2vecVarMapBroadcast, expTableBroadcast, vocabCacheBroadcast, 0);
+    }
+
+    /**
+     * Creates function for specific epoch. Learning rate decays over all epochs. For epochs after the first one,
+     * rows averaged during previous epoch are passed via {@link #setInitialRows(Iterator)}
+     *
+     * @param word2vecVarMapBroadcast
+     * @param expTableBroadcast
+     * @param vocabCacheBroadcast
+     * @param epoch zero-based epoch number
+     */
+    public FirstIterationFunction(Broadcast<Map<String, Object>> word2vecVarMapBroadcast,
+                                  Broadcast<double[]> expTableBroadcast, Broadcast<VocabCache<VocabWord>> vocabCacheBroadcast,
+                                  int epoch) {
 
         Map<String, Object> word2vecVarMap = word2vecVarMapBroadcast.getValue();
         this.expTable = expTableBroadcast.getValue();
@@ -69,8 +86,11 @@ public class FirstIterationFunction
         this.maxExp = (int) word2vecVarMap.get("maxExp");
         this.iterations = (int) word2vecVarMap.get("iterations");
         this.batchSize = (int) word2vecVarMap.get("batchSize");
+        this.numEpochs = word2vecVarMap.containsKey("numEpochs") ? (int) word2vecVarMap.get("numEpochs") : 1;
+        this.epoch = epoch;
         this.indexSyn0VecMap = new HashMap<>();
         this.pointSyn1VecMap = new HashMap<>();
+        this.syn1NegVecMap = new HashMap<>();
         this.vocab = vocabCacheBroadcast.getValue();
 
         if (this.vocab == null) throw new RuntimeException("VocabCache is null");
@@ -83,8 +103,58 @@ public class FirstIterationFunction
 
 
 
+    /**
+     * Sets rows averaged during previous epoch as initial state of this partition, instead of random syn0 and zero syn1/syn1Neg.
+     * Only rows returned by {@link #requiredRows(Iterator)} for the same partition are needed.
+     *
+     * @param rows rows keyed by {@link WeightsUpdate#key(int, int, int)}
+     */
+    public void setInitialRows(Iterator<Tuple2<Integer, WeightsUpdate>> rows) {
+        int numWords = vocab.numWords();
+        while (rows.hasNext()) {
+            Tuple2<Integer, WeightsUpdate> row = rows.next();
+            int table = row._1() / numWords;
+            int index = row._1() % numWords;
+            INDArray vector = Nd4j.create(row._2().getSum());
+            if (table == WeightsUpdate.SYN0) indexSyn0VecMap.put(vocab.elementAtIndex(index), vector);
+            else if (table == WeightsUpdate.SYN1) pointSyn1VecMap.put(index, vector);
+            else syn1NegVecMap.put(index, vector);
+        }
+    }
+
+    /**
+     * Returns keys of all rows that training over this partition is going to read, without training.
+     * Random values are drawn exactly as in {@link #call(Iterator)}, so negative samples are the same as well.
+     *
+     * @param pairIter partition contents
+     * @return row keys, as defined by {@link WeightsUpdate#key(int, int, int)}
+     */
+    public Set<Integer> requiredRows(Iterator<Tuple2<List<VocabWord>, Long>> pairIter) {
+        requiredRows = new HashSet<>();
+        train(pairIter);
+        return requiredRows;
+    }
+
+    /**
+     * Trains over partition, and returns updated rows of syn0, syn1 and syn1Neg, keyed by {@link WeightsUpdate#key(int, int, int)}
+     */
     @Override
-    public Iterable<Entry<VocabWord, INDArray>> call(Iterator<Tuple2<List<VocabWord>, Long>> pairIter) {
+    public Iterable<Tuple2<Integer, INDArray>> call(Iterator<Tuple2<List<VocabWord>, Long>> pairIter) {
+        train(pairIter);
+
+        // Tuple2 instead of HashMap entries: output is serialized for reduceByKey
+        int numWords = vocab.numWords();
+        List<Tuple2<Integer, INDArray>> updates = new ArrayList<>(indexSyn0VecMap.size() + pointSyn1VecMap.size() + syn1NegVecMap.size());
+        for (Entry<VocabWord, INDArray> entry: indexSyn0VecMap.entrySet())
+            updates.add(new Tuple2<>(WeightsUpdate.key(WeightsUpdate.SYN0, entry.getKey().getIndex(), numWords), entry.getValue()));
+        for (Entry<Integer, INDArray> entry: pointSyn1VecMap.entrySet())
+            updates.add(new Tuple2<>(WeightsUpdate.key(WeightsUpdate.SYN1, entry.getKey(), numWords), entry.getValue()));
+        for (Entry<Integer, INDArray> entry: syn1NegVecMap.entrySet())
+            updates.add(new Tuple2<>(WeightsUpdate.key(WeightsUpdate.SYN1_NEG, entry.getKey(), numWords), entry.getValue()));
+        return updates;
+    }
+
+    private void train(Iterator<Tuple2<List<VocabWord>, Long>> pairIter) {
         while (pairIter.hasNext()) {
             List<Pair<List<VocabWord>, Long>> batch = new ArrayList<>();
             while (pairIter.hasNext() && batch.size() < batchSize) {
@@ -99,13 +169,13 @@ public class FirstIterationFunction
                 for (Pair<List<VocabWord>, Long> pair: batch) {
                     List<VocabWord> vocabWordsList = pair.getKey();
                     Long sentenceCumSumCount = pair.getValue();
+                    // learning rate decays over all epochs, not within each one
                     double currentSentenceAlpha = Math.max(minAlpha,
-                            alpha - (alpha - minAlpha) * (sentenceCumSumCount / (double) totalWordCount));
+                            alpha - (alpha - minAlpha) * ((epoch * (double) totalWordCount + sentenceCumSumCount) / ((double) totalWordCount * numEpochs)));
                     trainSentence(vocabWordsList, currentSentenceAlpha);
                 }
             }
         }
-        return indexSyn0VecMap.entrySet();
     }
 
 
@@ -148,10 +218,15 @@ public class FirstIterationFunction
             return;
         final int currentWordIndex = w2.getIndex();
 
+        if (requiredRows != null) {
+            requestRows(w1, currentWordIndex);
+            return;
+        }
+
         // error for current word and context
         INDArray neu1e = Nd4j.create(vectorLength);
 
-        // First iteration Syn0 is random numbers
+        // Syn0 is random numbers, unless row averaged after previous epoch was set
         INDArray l1 = null;
         if (indexSyn0VecMap.containsKey(vocab.elementAtIndex(currentWordIndex))) {
             l1 = indexSyn0VecMap.get(vocab.elementAtIndex(currentWordIndex));
@@ -170,7 +245,8 @@ public class FirstIterationFunction
             if (pointSyn1VecMap.containsKey(point)) {
                 syn1 = pointSyn1VecMap.get(point);
             } else {
-                syn1 = Nd4j.zeros(1, vectorLength); // 1 row of vector length of zeros
+                // 1 row of vector length of zeros
+                syn1 = Nd4j.zeros(1, vectorLength);
                 pointSyn1VecMap.put(point, syn1);
             }
 
@@ -202,22 +278,21 @@ public class FirstIterationFunction
                 if (d == 0)
                     label = 1;
                 else {
-                    nextRandom.set(Math.abs(nextRandom.get() * 25214903917L + 11));
-                    int idx = Math.abs((int) (nextRandom.get() >> 16) % negativeHolder.getTable().length());
-
-                    target = negativeHolder.getTable().getInt(idx);
-                    if (target <= 0)
-                        target = (int) nextRandom.get() % (vocab.numWords() - 1) + 1;
-
+                    target = nextNegativeTarget();
                     if (target == w1.getIndex())
                         continue;
                     label = 0;
                 }
 
-                if(target >= negativeHolder.getSyn1Neg().rows() || target < 0)
+                if(target >= vocab.numWords() || target < 0)
                     continue;
 
-                double f = Nd4j.getBlasWrapper().dot(l1,negativeHolder.getSyn1Neg().slice(target));
+                INDArray syn1Neg = syn1NegVecMap.get(target);
+                if (syn1Neg == null) {
+                    syn1Neg = Nd4j.zeros(1, vectorLength);
+                    syn1NegVecMap.put(target, syn1Neg);
+                }
+                double f = Nd4j.getBlasWrapper().dot(l1,syn1Neg);
                 double g;
                 if (f > maxExp)
                     g = useAdaGrad ? w1.getGradient(target, (label - 1), alpha) : (label - 1) *  alpha;
@@ -231,26 +306,48 @@ public class FirstIterationFunction
                     g = useAdaGrad ? w1.getGradient(target, label - expTable[idx], alpha) : (label - expTable[idx]) * alpha;
                 }
 
-                    Nd4j.getBlasWrapper().axpy((float) g,negativeHolder.getSyn1Neg().slice(target),neu1e);
+                    Nd4j.getBlasWrapper().axpy((float) g,syn1Neg,neu1e);
 
-                    Nd4j.getBlasWrapper().axpy((float) g,l1,negativeHolder.getSyn1Neg().slice(target));
+                    Nd4j.getBlasWrapper().axpy((float) g,l1,syn1Neg);
             }
 
 
         // Updated the Syn0 vector based on gradient. Syn0 is not random anymore.
         Nd4j.getBlasWrapper().level1().axpy(vectorLength, 1.0f, neu1e, l1);
 
-        if (aff.get() == 0) {
-            synchronized (this) {
-                cid.set(EnvironmentUtils.buildCId());
-                aff.set(EnvironmentUtils.buildEnvironment().getAvailableMemory());
+        indexSyn0VecMap.put(vocab.elementAtIndex(currentWordIndex), l1);
+    }
+
+    /**
+     * Records rows used by iterateSample(), drawing the same random values
+     */
+    private void requestRows(VocabWord w1, int currentWordIndex) {
+        int numWords = vocab.numWords();
+        requiredRows.add(WeightsUpdate.key(WeightsUpdate.SYN0, currentWordIndex, numWords));
+        for (int i = 0; i < w1.getCodeLength(); i++)
+            requiredRows.add(WeightsUpdate.key(WeightsUpdate.SYN1, w1.getPoints().get(i), numWords));
+
+        if (negative > 0)
+            for (int d = 0; d < negative + 1; d++) {
+                int target = w1.getIndex();
+                if (d > 0) {
+                    target = nextNegativeTarget();
+                    if (target == w1.getIndex())
+                        continue;
+                }
+                if (target < numWords && target >= 0)
+                    requiredRows.add(WeightsUpdate.key(WeightsUpdate.SYN1_NEG, target, numWords));
             }
-        }
+    }
+
+    private int nextNegativeTarget() {
+        nextRandom.set(Math.abs(nextRandom.get() * 25214903917L + 11));
+        int idx = Math.abs((int) (nextRandom.get() >> 16) % negativeHolder.getTable().length());
 
-        VocabWord word = vocab.elementAtIndex(currentWordIndex);
-        word.setVocabId(cid.get());
-        word.setAffinityId(aff.get());
-        indexSyn0VecMap.put(word, l1);
+        int target = negativeHolder.getTable().getInt(idx);
+        if (target <= 0)
+            target = (int) nextRandom.get() % (vocab.numWords() - 1) + 1;
+        return target;
     }
 
     private INDArray getRandomSyn0Vec(int vectorLength, long lseed) {
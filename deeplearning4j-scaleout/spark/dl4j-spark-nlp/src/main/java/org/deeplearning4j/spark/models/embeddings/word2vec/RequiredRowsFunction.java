@@ -0,0 +1,31 @@
+package org.deeplearning4j.spark.models.embeddings.word2vec;
+
+import org.apache.spark.api.java.function.Function2;
+import org.deeplearning4j.models.word2vec.VocabWord;
+import scala.Tuple2;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Returns (row key, partition index) pairs for all weights rows that training over the partition is going to read,
+ * so only those rows are sent to it
+ */
+public class RequiredRowsFunction implements Function2< Integer, Iterator<Tuple2<List<VocabWord>, Long>>, Iterator<Tuple2<Integer, Integer>> > {
+    private FirstIterationFunction function;
+
+    public RequiredRowsFunction(FirstIterationFunction function) {
+        this.function = function;
+    }
+
+    @Override
+    public Iterator<Tuple2<Integer, Integer>> call(Integer partition, Iterator<Tuple2<List<VocabWord>, Long>> pairIter) {
+        Set<Integer> rows = function.requiredRows(pairIter);
+        List<Tuple2<Integer, Integer>> requests = new ArrayList<>(rows.size());
+        for (Integer row: rows)
+            requests.add(new Tuple2<>(row, partition));
+        return requests.iterator();
+    }
+}
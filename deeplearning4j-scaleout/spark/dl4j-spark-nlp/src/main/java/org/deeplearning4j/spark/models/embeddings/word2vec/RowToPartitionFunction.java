@@ -0,0 +1,15 @@
+package org.deeplearning4j.spark.models.embeddings.word2vec;
+
+import org.apache.spark.api.java.function.PairFunction;
+import scala.Tuple2;
+
+/**
+ * Converts (row key, (partition index, row)) into (partition index, (row key, row))
+ */
+public class RowToPartitionFunction implements PairFunction< Tuple2<Integer, Tuple2<Integer, WeightsUpdate>>, Integer, Tuple2<Integer, WeightsUpdate> > {
+
+    @Override
+    public Tuple2<Integer, Tuple2<Integer, WeightsUpdate>> call(Tuple2<Integer, Tuple2<Integer, WeightsUpdate>> pair) {
+        return new Tuple2<>(pair._2()._1(), new Tuple2<>(pair._1(), pair._2()._2()));
+    }
+}
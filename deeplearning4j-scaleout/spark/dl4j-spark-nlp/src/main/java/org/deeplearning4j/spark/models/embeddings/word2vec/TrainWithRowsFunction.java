@@ -0,0 +1,26 @@
+package org.deeplearning4j.spark.models.embeddings.word2vec;
+
+import org.apache.spark.api.java.function.FlatMapFunction2;
+import org.deeplearning4j.models.word2vec.VocabWord;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import scala.Tuple2;
+
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Trains over partition, starting from the rows averaged during previous epoch that were sent to this partition
+ */
+public class TrainWithRowsFunction implements FlatMapFunction2< Iterator<Tuple2<List<VocabWord>, Long>>, Iterator<Tuple2<Integer, WeightsUpdate>>, Tuple2<Integer, INDArray> > {
+    private FirstIterationFunction function;
+
+    public TrainWithRowsFunction(FirstIterationFunction function) {
+        this.function = function;
+    }
+
+    @Override
+    public Iterable<Tuple2<Integer, INDArray>> call(Iterator<Tuple2<List<VocabWord>, Long>> pairIter, Iterator<Tuple2<Integer, WeightsUpdate>> rows) {
+        function.setInitialRows(rows);
+        return function.call(pairIter);
+    }
+}
@@ -0,0 +1,24 @@
+package org.deeplearning4j.spark.models.embeddings.word2vec;
+
+import org.apache.spark.api.java.function.PairFlatMapFunction;
+import org.deeplearning4j.models.word2vec.VocabWord;
+import org.nd4j.linalg.heartbeat.utils.EnvironmentUtils;
+import scala.Tuple2;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Returns (vocabId, affinityId) pair of the node processing the partition, used for heartbeat reporting only.
+ * Partition contents aren't consumed.
+ */
+public class VocabAffinityFunction implements PairFlatMapFunction< Iterator<Tuple2<List<VocabWord>, Long>>, Long, Long > {
+
+    @Override
+    public Iterable<Tuple2<Long, Long>> call(Iterator<Tuple2<List<VocabWord>, Long>> iterator) {
+        long vocabId = EnvironmentUtils.buildCId();
+        long affinityId = EnvironmentUtils.buildEnvironment().getAvailableMemory();
+        return Collections.singletonList(new Tuple2<>(vocabId, affinityId));
+    }
+}
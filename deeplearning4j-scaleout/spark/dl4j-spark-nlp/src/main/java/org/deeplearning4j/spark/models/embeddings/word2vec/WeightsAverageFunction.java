@@ -0,0 +1,14 @@
+package org.deeplearning4j.spark.models.embeddings.word2vec;
+
+import org.apache.spark.api.java.function.Function;
+
+/**
+ * Converts reduced partial sums into averaged rows
+ */
+public class WeightsAverageFunction implements Function<WeightsUpdate, WeightsUpdate> {
+
+    @Override
+    public WeightsUpdate call(WeightsUpdate update) {
+        return update.average();
+    }
+}
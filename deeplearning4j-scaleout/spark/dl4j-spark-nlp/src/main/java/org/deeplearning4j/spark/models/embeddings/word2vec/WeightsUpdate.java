@@ -0,0 +1,65 @@
+package org.deeplearning4j.spark.models.embeddings.word2vec;
+
+import lombok.Getter;
+
+import java.io.Serializable;
+
+/**
+ * Partial sum of weights row updates produced by different partitions for the same row.
+ * Plain float[] is used instead of INDArray, so reduction on executors stays cheap to serialize and merge.
+ *
+ * Rows of syn0, syn1 and syn1Neg are reduced together, keyed by {@link #key(int, int, int)}: table * numWords + row.
+ */
+public class WeightsUpdate implements Serializable {
+    public static final int SYN0 = 0;
+    public static final int SYN1 = 1;
+    public static final int SYN1_NEG = 2;
+
+    @Getter private float[] sum;
+    @Getter private int count;
+
+    public WeightsUpdate(float[] sum, int count) {
+        this.sum = sum;
+        this.count = count;
+    }
+
+    /**
+     * Returns reduction key for the given row of the given table
+     *
+     * @param table one of SYN0, SYN1, SYN1_NEG
+     * @param row row index within the table
+     * @param numWords number of words in vocabulary, which is also the number of rows in each table
+     * @return
+     */
+    public static int key(int table, int row, int numWords) {
+        return table * numWords + row;
+    }
+
+    /**
+     * Adds other partial sum into this one, and returns this instance
+     *
+     * @param other
+     * @return
+     */
+    public WeightsUpdate merge(WeightsUpdate other) {
+        for (int i = 0; i < sum.length; i++) {
+            sum[i] += other.sum[i];
+        }
+        count += other.count;
+        return this;
+    }
+
+    /**
+     * Converts accumulated sum into average. Number of merged updates is kept.
+     *
+     * @return
+     */
+    public WeightsUpdate average() {
+        if (count > 1) {
+            for (int i = 0; i < sum.length; i++) {
+                sum[i] /= count;
+            }
+        }
+        return this;
+    }
+}
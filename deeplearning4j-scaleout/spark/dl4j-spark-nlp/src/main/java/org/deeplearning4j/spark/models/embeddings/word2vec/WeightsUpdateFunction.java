@@ -0,0 +1,21 @@
+package org.deeplearning4j.spark.models.embeddings.word2vec;
+
+import org.apache.spark.api.java.function.PairFunction;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import scala.Tuple2;
+
+/**
+ * Converts weights row obtained from partition into (key, partial sum) pair suitable for reduceByKey
+ */
+public class WeightsUpdateFunction implements PairFunction< Tuple2<Integer, INDArray>, Integer, WeightsUpdate > {
+
+    @Override
+    public Tuple2<Integer, WeightsUpdate> call(Tuple2<Integer, INDArray> pair) {
+        INDArray row = pair._2();
+        float[] sum = new float[row.length()];
+        for (int i = 0; i < sum.length; i++) {
+            sum[i] = row.getFloat(i);
+        }
+        return new Tuple2<>(pair._1(), new WeightsUpdate(sum, 1));
+    }
+}
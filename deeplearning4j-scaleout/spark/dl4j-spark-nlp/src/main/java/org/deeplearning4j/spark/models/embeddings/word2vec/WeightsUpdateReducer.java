@@ -0,0 +1,14 @@
+package org.deeplearning4j.spark.models.embeddings.word2vec;
+
+import org.apache.spark.api.java.function.Function2;
+
+/**
+ * Sums partial weights row updates for the same row on executors
+ */
+public class WeightsUpdateReducer implements Function2<WeightsUpdate, WeightsUpdate, WeightsUpdate> {
+
+    @Override
+    public WeightsUpdate call(WeightsUpdate first, WeightsUpdate second) {
+        return first.merge(second);
+    }
+}
@@ -21,12 +21,13 @@ package org.deeplearning4j.spark.models.embeddings.word2vec;
 import lombok.Getter;
 import lombok.NonNull;
 import org.apache.commons.math3.util.FastMath;
+import org.apache.spark.HashPartitioner;
 import org.apache.spark.api.java.JavaPairRDD;
 import org.apache.spark.api.java.JavaRDD;
 import org.apache.spark.api.java.JavaSparkContext;
 import org.apache.spark.api.java.function.FlatMapFunction;
 import org.apache.spark.broadcast.Broadcast;
-import org.deeplearning4j.berkeley.Pair;
+import org.apache.spark.storage.StorageLevel;
 import org.deeplearning4j.models.embeddings.inmemory.InMemoryLookupTable;
 import org.deeplearning4j.models.embeddings.loader.VectorsConfiguration;
 import org.deeplearning4j.models.embeddings.reader.ModelUtils;
@@ -47,13 +48,14 @@ import org.nd4j.linalg.heartbeat.reports.Event;
 import org.nd4j.linalg.heartbeat.utils.EnvironmentUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import scala.Tuple2;
 
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
@@ -122,6 +124,7 @@ public class Word2Vec extends WordVectorsImpl<VocabWord> implements Serializable
             put("seed", seed);
             put("maxExp", MAX_EXP);
             put("batchSize", batchSize);
+            put("numEpochs", numEpochs);
         }};
     }
 
@@ -197,48 +200,87 @@ public class Word2Vec extends WordVectorsImpl<VocabWord> implements Serializable
 
         /////////////////////////////////////
         log.info("Training word2vec sentences ...");
-        FlatMapFunction firstIterFunc = new FirstIterationFunction(word2vecVarMapBroadcast, expTableBroadcast, vocabCacheBroadcast);
-        @SuppressWarnings("unchecked")
-        JavaRDD< Pair<VocabWord, INDArray> > indexSyn0UpdateEntryRDD =
-                vocabWordListSentenceCumSumRDD.mapPartitions(firstIterFunc).map(new MapToPairFunction());
-
-        // Get all the syn0 updates into a list in driver
-        List<Pair<VocabWord, INDArray>> syn0UpdateEntries = indexSyn0UpdateEntryRDD.collect();
-
-        // Instantiate syn0
-        INDArray syn0 = Nd4j.zeros(vocabCache.numWords(), layerSize);
-
-        // Updating syn0 first pass: just add vectors obtained from different nodes
-        Map<VocabWord, AtomicInteger> updates = new HashMap<>();
-        Map<Long, Long> updaters = new HashMap<>();
-        for (Pair<VocabWord, INDArray> syn0UpdateEntry : syn0UpdateEntries) {
-            syn0.getRow(syn0UpdateEntry.getFirst().getIndex()).addi(syn0UpdateEntry.getSecond());
-
-            // for proper averaging we need to divide resulting sums later, by the number of additions
-            if (updates.containsKey(syn0UpdateEntry.getFirst())) {
-                updates.get(syn0UpdateEntry.getFirst()).incrementAndGet();
-            } else updates.put(syn0UpdateEntry.getFirst(), new AtomicInteger(1));
-
-            if (!updaters.containsKey(syn0UpdateEntry.getFirst().getVocabId())) {
-                updaters.put(syn0UpdateEntry.getFirst().getVocabId(), syn0UpdateEntry.getFirst().getAffinityId());
+        int numPartitions = vocabWordListSentenceCumSumRDD.partitions().size();
+        int numWords = vocabCache.numWords();
+
+        // each node reports its own vocabId/affinityId, so this map is tiny
+        Map<Long, Long> updaters = new HashMap<>(vocabWordListSentenceCumSumRDD
+                .mapPartitionsToPair(new VocabAffinityFunction()).distinct().collectAsMap());
+
+        /*
+            Weights averaged over all partitions stay on executors between epochs, as RDD of rows keyed by
+            WeightsUpdate.key(). Each partition receives only the rows it's going to read, and the driver
+            collects the weights once, after the last epoch.
+         */
+        JavaPairRDD<Integer, WeightsUpdate> weightsRDD = null;
+        for (int epoch = 0; epoch < numEpochs; epoch++) {
+            FirstIterationFunction firstIterFunc = new FirstIterationFunction(word2vecVarMapBroadcast, expTableBroadcast, vocabCacheBroadcast, epoch);
+            JavaRDD<Tuple2<Integer, INDArray>> weightsUpdateRDD;
+            if (weightsRDD == null) {
+                weightsUpdateRDD = vocabWordListSentenceCumSumRDD.mapPartitions(firstIterFunc);
+            } else {
+                JavaPairRDD<Integer, Integer> requestsRDD = JavaPairRDD.fromJavaRDD(
+                        vocabWordListSentenceCumSumRDD.mapPartitionsWithIndex(new RequiredRowsFunction(firstIterFunc), true));
+
+                // keyed by partition index: HashPartitioner places key i into partition i, next to the same corpus partition
+                JavaRDD<Tuple2<Integer, WeightsUpdate>> rowsRDD = requestsRDD.join(weightsRDD)
+                        .mapToPair(new RowToPartitionFunction())
+                        .partitionBy(new HashPartitioner(numPartitions))
+                        .values();
+
+                weightsUpdateRDD = vocabWordListSentenceCumSumRDD.zipPartitions(rowsRDD, new TrainWithRowsFunction(firstIterFunc));
             }
-        }
 
-        // Updating syn0 second pass: average obtained vectors
-        for (Map.Entry<VocabWord, AtomicInteger> entry: updates.entrySet()) {
-            if (entry.getValue().get() > 1) {
-                if (entry.getValue().get() > maxRep) maxRep = entry.getValue().get();
-                syn0.getRow(entry.getKey().getIndex()).divi(entry.getValue().get());
+            // updates are summed on executors, partitioned by row
+            JavaPairRDD<Integer, WeightsUpdate> reducedRDD = weightsUpdateRDD
+                    .mapToPair(new WeightsUpdateFunction())
+                    .reduceByKey(new WeightsUpdateReducer(), numPartitions)
+                    .mapValues(new WeightsAverageFunction());
+
+            JavaPairRDD<Integer, WeightsUpdate> newWeightsRDD;
+            if (weightsRDD == null) {
+                newWeightsRDD = reducedRDD.setName("weightsRDD").persist(StorageLevel.MEMORY_AND_DISK_SER());
+                newWeightsRDD.count();
+            } else {
+                // rows not updated during this epoch keep their previous values. reducedRDD is used twice, so it's persisted
+                reducedRDD.persist(StorageLevel.MEMORY_AND_DISK_SER());
+                newWeightsRDD = reducedRDD.union(weightsRDD.subtractByKey(reducedRDD))
+                        .setName("weightsRDD").persist(StorageLevel.MEMORY_AND_DISK_SER());
+                newWeightsRDD.count();
+                reducedRDD.unpersist();
+                weightsRDD.unpersist();
             }
+            weightsRDD = newWeightsRDD;
+
+            log.info("Epoch [" + (epoch + 1) + "] finished");
+        }
+
+        // rows not updated during training are left zero
+        INDArray syn0 = Nd4j.zeros(numWords, layerSize);
+        INDArray syn1 = Nd4j.zeros(numWords, layerSize);
+        INDArray syn1Neg = negative > 0 ? Nd4j.zeros(numWords, layerSize) : null;
+
+        // rows are streamed partition by partition, instead of collecting everything at once
+        Iterator<Tuple2<Integer, WeightsUpdate>> iterator = weightsRDD.toLocalIterator();
+        while (iterator.hasNext()) {
+            Tuple2<Integer, WeightsUpdate> row = iterator.next();
+            int table = row._1() / numWords;
+            int index = row._1() % numWords;
+            INDArray average = Nd4j.create(row._2().getSum());
+            if (table == WeightsUpdate.SYN0) {
+                syn0.putRow(index, average);
+                if (row._2().getCount() > maxRep) maxRep = row._2().getCount();
+            } else if (table == WeightsUpdate.SYN1) {
+                syn1.putRow(index, average);
+            } else syn1Neg.putRow(index, average);
         }
+        weightsRDD.unpersist();
 
         long totals = 0;
         for (Long up: updaters.values()) {
             totals += up;
         }
 
-
-
         vocab = vocabCache;
         InMemoryLookupTable<VocabWord> inMemoryLookupTable = new InMemoryLookupTable<VocabWord>();
         Environment env = EnvironmentUtils.buildEnvironment();
@@ -248,6 +290,8 @@ public class Word2Vec extends WordVectorsImpl<VocabWord> implements Serializable
         inMemoryLookupTable.setVocab(vocabCache);
         inMemoryLookupTable.setVectorLength(layerSize);
         inMemoryLookupTable.setSyn0(syn0);
+        inMemoryLookupTable.setSyn1(syn1);
+        inMemoryLookupTable.setSyn1Neg(syn1Neg);
         lookupTable = inMemoryLookupTable;
         modelUtils.init(lookupTable);
     }
@@ -378,15 +422,13 @@ public class Word2Vec extends WordVectorsImpl<VocabWord> implements Serializable
         }
 
         /**
-         * This method specifies number of epochs done over whole corpus
-         *
-         * PLEASE NOTE: NOT IMPLEMENTED
+         * This method specifies number of epochs done over whole corpus.
+         * Each epoch starts from syn0, syn1 and syn1Neg averaged over all partitions after previous epoch.
          *
          * @param numEpochs
          * @return
          */
         public Builder epochs(int numEpochs) {
-            // TODO: implement epochs imitation for spark w2v
             this.numEpochs = numEpochs;
             return this;
         }
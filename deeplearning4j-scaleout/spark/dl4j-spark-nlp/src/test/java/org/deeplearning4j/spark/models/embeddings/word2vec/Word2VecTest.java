@@ -161,6 +161,53 @@ public class Word2VecTest {
         assertEquals(array1, array2);
     }
 
+    @Test
+    public void testMultipleEpochs() throws Exception {
+        SparkConf sparkConf = new SparkConf().setMaster("local[4]").setAppName("sparktest");
+        JavaSparkContext sc = new JavaSparkContext(sparkConf);
+
+        String dataPath = new ClassPathResource("/big/raw_sentences.txt").getFile().getAbsolutePath();
+        JavaRDD<String> corpus = sc.textFile(dataPath, 4);
+
+        TokenizerFactory t = new DefaultTokenizerFactory();
+        t.setTokenPreProcessor(new CommonPreprocessor());
+
+        Word2Vec word2Vec = new Word2Vec.Builder()
+                .tokenizerFactory(t)
+                .seed(42L)
+                .negative(5)
+                .layerSize(100)
+                .windowSize(5)
+                .learningRate(0.025)
+                .minLearningRate(0.0001)
+                .iterations(1)
+                .epochs(2)
+                .batchSize(100)
+                .minWordFrequency(5)
+                .build();
+
+        try {
+            word2Vec.train(corpus);
+        } finally {
+            sc.stop();
+        }
+
+        // all weights are reduced over partitions and carried between epochs, so none of them should be left empty
+        InMemoryLookupTable<VocabWord> table = (InMemoryLookupTable<VocabWord>) word2Vec.lookupTable();
+        int numWords = word2Vec.vocab().numWords();
+        assertArrayEquals(new int[]{numWords, 100}, table.getSyn0().shape());
+        assertArrayEquals(new int[]{numWords, 100}, table.getSyn1().shape());
+        assertArrayEquals(new int[]{numWords, 100}, table.getSyn1Neg().shape());
+        assertTrue(table.getSyn1().norm2Number().doubleValue() > 0);
+        assertTrue(table.getSyn1Neg().norm2Number().doubleValue() > 0);
+        for (int i = 0; i < numWords; i++)
+            assertTrue(table.getSyn0().getRow(i).norm2Number().doubleValue() > 0);
+
+        Collection<String> words = word2Vec.wordsNearest("day", 10);
+        printWords("day", words, word2Vec);
+        assertTrue(words.contains("night"));
+    }
+
     @Test
     @Ignore
     public void testPortugeseW2V() throws Exception {
@@ -29,7 +29,6 @@ import org.deeplearning4j.models.word2vec.Huffman;
 import org.deeplearning4j.models.word2vec.VocabWord;
 import org.deeplearning4j.models.word2vec.wordstore.VocabCache;
 import org.deeplearning4j.spark.models.embeddings.word2vec.FirstIterationFunction;
-import org.deeplearning4j.spark.models.embeddings.word2vec.MapToPairFunction;
 import org.deeplearning4j.spark.models.embeddings.word2vec.Word2Vec;
 import org.deeplearning4j.spark.text.functions.CountCumSum;
 import org.deeplearning4j.spark.text.functions.TextPipeline;
@@ -488,7 +487,7 @@ public class TextPipelineTest extends BaseSparkTest {
         FirstIterationFunction firstIterationFunction =
                 new FirstIterationFunction(word2vecVarMapBroadcast, expTableBroadcast, pipeline.getBroadCastVocabCache());
 
-        Iterable<Map.Entry<VocabWord, INDArray>> ret = firstIterationFunction.call(iterator);
+        Iterable<Tuple2<Integer, INDArray>> ret = firstIterationFunction.call(iterator);
         assertTrue(ret.iterator().hasNext());
     }
 
@@ -524,8 +523,8 @@ public class TextPipelineTest extends BaseSparkTest {
 
         FirstIterationFunction firstIterationFunction =
                 new FirstIterationFunction(word2vecVarMapBroadcast, expTableBroadcast,pipeline.getBroadCastVocabCache());
-        JavaRDD< Pair<VocabWord, INDArray> > pointSyn0Vec =
-                vocabWordListSentenceCumSumRDD.mapPartitions(firstIterationFunction).map(new MapToPairFunction());
+        JavaRDD< Tuple2<Integer, INDArray> > pointSyn0Vec =
+                vocabWordListSentenceCumSumRDD.mapPartitions(firstIterationFunction);
     }
 
 }
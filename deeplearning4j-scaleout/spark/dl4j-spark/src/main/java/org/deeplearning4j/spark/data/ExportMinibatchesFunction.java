@@ -0,0 +1,107 @@
+/*
+ *
+ *  * Copyright 2016 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+package org.deeplearning4j.spark.data;
+
+import org.apache.spark.api.java.function.Function2;
+import org.deeplearning4j.datasets.iterator.BinaryDataSetCache;
+import org.nd4j.linalg.dataset.DataSet;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Function to export one partition of a {@code JavaRDD<DataSet>} as binary minibatch files, split into a fixed number
+ * of slices (one slice per averaging round).<br>
+ * The DataSet objects of the partition are assigned to the slices in turn, merged into minibatches of (at least)
+ * {@code batchSize} examples, and written to one {@link BinaryDataSetCache} directory per slice:
+ * {@code exportDir/partition-<index>/slice-<slice>}. The function returns the slice directories of the partition,
+ * in slice order; {@link LoadSliceFunction} loads one slice of each partition from these paths.
+ *
+ * @see LoadSliceFunction
+ */
+public class ExportMinibatchesFunction implements Function2<Integer, Iterator<DataSet>, Iterator<String>> {
+
+    private final String exportDir;
+    private final int batchSize;
+    private final int numSlices;
+
+    /**
+     * @param exportDir directory to export to. Must be on a file system available to all workers, unless each partition
+     *                  is always processed on the worker that exported it
+     * @param batchSize minimum number of examples in each exported minibatch
+     * @param numSlices number of slices to split each partition in to
+     */
+    public ExportMinibatchesFunction(String exportDir, int batchSize, int numSlices) {
+        if (batchSize <= 0 || numSlices <= 0)
+            throw new IllegalArgumentException("Invalid batch size or number of slices: " + batchSize + ", " + numSlices);
+        this.exportDir = exportDir;
+        this.batchSize = batchSize;
+        this.numSlices = numSlices;
+    }
+
+    @Override
+    public Iterator<String> call(Integer partition, Iterator<DataSet> dataSetIterator) throws Exception {
+        File partitionDir = new File(exportDir, "partition-" + partition);
+        List<String> paths = new ArrayList<>(numSlices);
+        List<BinaryDataSetCache.Writer> writers = new ArrayList<>(numSlices);
+        List<List<DataSet>> pending = new ArrayList<>(numSlices);
+        int[] pendingExamples = new int[numSlices];
+        for (int i = 0; i < numSlices; i++) {
+            File sliceDir = new File(partitionDir, "slice-" + i);
+            paths.add(sliceDir.getAbsolutePath());
+            writers.add(new BinaryDataSetCache.Writer(sliceDir, BinaryDataSetCache.DEFAULT_MAX_SHARD_BYTES));
+            pending.add(new ArrayList<DataSet>());
+        }
+
+        try {
+            int slice = 0;
+            while (dataSetIterator.hasNext()) {
+                DataSet next = dataSetIterator.next();
+                pending.get(slice).add(next);
+                pendingExamples[slice] += next.numExamples();
+                if (pendingExamples[slice] >= batchSize) {
+                    write(writers.get(slice), pending.get(slice));
+                    pendingExamples[slice] = 0;
+                }
+                slice = (slice + 1) % numSlices;
+            }
+
+            //Leftover examples: written as a smaller minibatch
+            for (int i = 0; i < numSlices; i++) {
+                write(writers.get(i), pending.get(i));
+                writers.get(i).close();
+            }
+        } catch (Exception e) {
+            for (BinaryDataSetCache.Writer writer : writers)
+                writer.abort();
+            throw e;
+        }
+
+        return paths.iterator();
+    }
+
+    private static void write(BinaryDataSetCache.Writer writer, List<DataSet> batch) throws Exception {
+        if (batch.isEmpty())
+            return;
+        writer.write(batch.size() == 1 ? batch.get(0) : DataSet.merge(batch, false));
+        batch.clear();
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ *
+ *  * Copyright 2016 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+package org.deeplearning4j.spark.data;
+
+import org.apache.spark.api.java.function.FlatMapFunction;
+import org.deeplearning4j.datasets.iterator.BinaryDataSetCache;
+import org.nd4j.linalg.dataset.DataSet;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Function to load the minibatches of one {@link BinaryDataSetCache} shard file, given the path of the shard.<br>
+ * Used to train on a cache written by {@link org.deeplearning4j.datasets.iterator.CachingDataSetIterator} (or
+ * {@link BinaryDataSetCache.Writer}), where the cache directory is on a file system available to all workers:
+ * <pre>
+ * {@code
+ * List<String> shards = LoadDataSetShardFunction.listShards(cacheDir);
+ * JavaRDD<DataSet> data = sc.parallelize(shards, shards.size()).flatMap(new LoadDataSetShardFunction());
+ * sparkNetwork.fitDataSet(data);
+ * }
+ * </pre>
+ */
+public class LoadDataSetShardFunction implements FlatMapFunction<String, DataSet> {
+
+    @Override
+    public Iterable<DataSet> call(String path) throws Exception {
+        return BinaryDataSetCache.readShard(new File(path));
+    }
+
+    /**
+     * Paths of the shard files in the given cache directory
+     *
+     * @param cacheDir directory containing a complete cache
+     */
+    public static List<String> listShards(File cacheDir) {
+        if (!BinaryDataSetCache.isComplete(cacheDir))
+            throw new IllegalStateException("No complete DataSet cache in " + cacheDir.getAbsolutePath());
+        List<String> out = new ArrayList<>();
+        for (File f : BinaryDataSetCache.getShards(cacheDir))
+            out.add(f.getAbsolutePath());
+        return out;
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ *
+ *  * Copyright 2016 Skymind,Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ *
+ */
+
+package org.deeplearning4j.spark.data;
+
+import org.apache.spark.api.java.function.FlatMapFunction;
+import org.deeplearning4j.datasets.iterator.BinaryDataSetCache;
+import org.nd4j.linalg.dataset.DataSet;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Function to load one slice of each partition exported by {@link ExportMinibatchesFunction}.<br>
+ * Applied with {@code mapPartitions} to the (cached) RDD of slice paths, so each round reads the next slice of each
+ * partition from the exported files, without any shuffle of the data.
+ *
+ * @see ExportMinibatchesFunction
+ */
+public class LoadSliceFunction implements FlatMapFunction<Iterator<String>, DataSet> {
+
+    private final int slice;
+
+    /**
+     * @param slice index of the slice to load
+     */
+    public LoadSliceFunction(int slice) {
+        this.slice = slice;
+    }
+
+    @Override
+    public Iterable<DataSet> call(Iterator<String> paths) throws Exception {
+        int i = 0;
+        while (paths.hasNext()) {
+            String path = paths.next();
+            if (i++ != slice) continue;
+
+            File sliceDir = new File(path);
+            if (!BinaryDataSetCache.isComplete(sliceDir))
+                throw new IllegalStateException("No exported minibatches in " + path + ": export directory must be "
+                        + "on a file system available to all workers");
+            List<DataSet> out = new ArrayList<>();
+            for (File shard : BinaryDataSetCache.getShards(sliceDir))
+                out.addAll(BinaryDataSetCache.readShard(shard));
+            return out;
+        }
+        return Collections.emptyList();
+    }
+}
@@ -0,0 +1,23 @@
+package org.deeplearning4j.spark.impl.common.gradient;
+
+import org.apache.spark.api.java.function.VoidFunction;
+
+import java.util.Iterator;
+
+/**
+ * Removes executor-local gradient sharing state of a training session. Applied with {@code foreachPartition},
+ * partition contents aren't consumed.
+ */
+public class ClearSharedStateFunction<T> implements VoidFunction<Iterator<T>> {
+
+    private final String trainingId;
+
+    public ClearSharedStateFunction(String trainingId) {
+        this.trainingId = trainingId;
+    }
+
+    @Override
+    public void call(Iterator<T> iterator) throws Exception {
+        SharedWorkerState.remove(trainingId);
+    }
+}
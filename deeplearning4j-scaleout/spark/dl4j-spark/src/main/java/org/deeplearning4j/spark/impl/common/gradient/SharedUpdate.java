@@ -0,0 +1,21 @@
+package org.deeplearning4j.spark.impl.common.gradient;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * Result of single gradient sharing round on one partition: threshold encoded update, plus score report
+ */
+@Data
+public class SharedUpdate implements Serializable {
+    private int[] encoded;
+    private double score;
+    private long maxMemory;
+
+    public SharedUpdate(int[] encoded, double score, long maxMemory) {
+        this.encoded = encoded;
+        this.score = score;
+        this.maxMemory = maxMemory;
+    }
+}
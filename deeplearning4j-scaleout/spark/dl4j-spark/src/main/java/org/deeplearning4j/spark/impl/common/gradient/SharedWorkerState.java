@@ -0,0 +1,104 @@
+package org.deeplearning4j.spark.impl.common.gradient;
+
+import lombok.Data;
+import org.nd4j.linalg.api.ndarray.INDArray;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Executor-local state of gradient sharing worker: parameters in sync with driver, residual of the threshold
+ * encoding, and local updater state. Kept in static registry between rounds, keyed by training id and partition.
+ *
+ * If state isn't available (i.e. partition was moved to another executor), worker falls back to broadcasted
+ * parameters with empty residual.
+ *
+ * Registry is bounded: state is kept for the {@link #MAX_SESSIONS} most recently updated training sessions only,
+ * so state of finished trainings doesn't stay in executor memory. {@link #remove(String)} drops state of a session
+ * explicitly.
+ */
+@Data
+public class SharedWorkerState<U> {
+    /** Maximum number of training sessions with state kept per JVM */
+    public static final int MAX_SESSIONS = 4;
+
+    private static final Map<String, SharedWorkerState<?>> states = new ConcurrentHashMap<>();
+    // training ids in order of last update, least recent first
+    private static final Map<String, Boolean> sessions = new LinkedHashMap<>(16, 0.75f, true);
+
+    private int round;
+    private INDArray params;
+    private INDArray residual;
+    private U updater;
+
+    public SharedWorkerState(int round, INDArray params, INDArray residual, U updater) {
+        this.round = round;
+        this.params = params;
+        this.residual = residual;
+        this.updater = updater;
+    }
+
+    private static String key(String trainingId, int partition) {
+        return trainingId + "_" + partition;
+    }
+
+    /**
+     * Returns state stored during previous round, or null if there's no such state
+     *
+     * @param trainingId id of training session
+     * @param partition partition index
+     * @param round current round
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    public static <U> SharedWorkerState<U> get(String trainingId, int partition, int round) {
+        SharedWorkerState<?> state = states.get(key(trainingId, partition));
+        if (state == null || state.getRound() != round - 1)
+            return null;
+
+        return (SharedWorkerState<U>) state;
+    }
+
+    /**
+     * Stores state of the partition. If this makes more than {@link #MAX_SESSIONS} sessions, state of the least
+     * recently updated session is removed.
+     *
+     * @param trainingId id of training session
+     * @param partition partition index
+     * @param state state after current round
+     */
+    public static void put(String trainingId, int partition, SharedWorkerState<?> state) {
+        synchronized (sessions) {
+            sessions.put(trainingId, Boolean.TRUE);
+            Iterator<String> iterator = sessions.keySet().iterator();
+            while (sessions.size() > MAX_SESSIONS) {
+                String oldest = iterator.next();
+                iterator.remove();
+                removeStates(oldest);
+            }
+            states.put(key(trainingId, partition), state);
+        }
+    }
+
+    /**
+     * Removes state of all partitions of the given training session
+     *
+     * @param trainingId id of training session
+     */
+    public static void remove(String trainingId) {
+        synchronized (sessions) {
+            sessions.remove(trainingId);
+            removeStates(trainingId);
+        }
+    }
+
+    private static void removeStates(String trainingId) {
+        String prefix = trainingId + "_";
+        Iterator<String> iterator = states.keySet().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().startsWith(prefix)) iterator.remove();
+        }
+    }
+}
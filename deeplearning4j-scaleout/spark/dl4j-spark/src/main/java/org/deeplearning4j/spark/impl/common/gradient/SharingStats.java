@@ -0,0 +1,28 @@
+package org.deeplearning4j.spark.impl.common.gradient;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * Traffic stats for single gradient sharing round
+ */
+@Data
+public class SharingStats implements Serializable {
+    private int round;
+    private int workers;
+    // number of elements sent by all workers
+    private long elements;
+    // bytes sent from workers to driver
+    private long bytesSent;
+    // bytes parameter averaging would send from workers to driver for the same round
+    private long denseBytes;
+
+    public SharingStats(int round, int workers, long elements, long bytesSent, long denseBytes) {
+        this.round = round;
+        this.workers = workers;
+        this.elements = elements;
+        this.bytesSent = bytesSent;
+        this.denseBytes = denseBytes;
+    }
+}
@@ -0,0 +1,82 @@
+package org.deeplearning4j.spark.impl.common.gradient;
+
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.util.List;
+
+/**
+ * Threshold quantization of parameter updates, used for gradient sharing between spark workers.
+ *
+ * Every element with absolute value >= threshold is sent as a single int: (index + 1) with the sign of the element,
+ * and is then treated as exactly +threshold or -threshold. Whatever wasn't sent stays in the residual,
+ * and is added to the next update, so nothing is lost - only delayed.
+ */
+public class ThresholdEncoding {
+
+    private ThresholdEncoding() {
+    }
+
+    /**
+     * Encodes update, and replaces its content with the residual left after encoding
+     *
+     * @param update dense update, will be modified in place
+     * @param threshold quantization threshold
+     * @return encoded update
+     */
+    public static int[] encode(INDArray update, double threshold) {
+        double[] values = update.data().asDouble();
+        int cnt = 0;
+        for (int i = 0; i < values.length; i++) {
+            if (Math.abs(values[i]) >= threshold) cnt++;
+        }
+
+        int[] encoded = new int[cnt];
+        int pos = 0;
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] >= threshold) {
+                encoded[pos++] = i + 1;
+                update.putScalar(i, values[i] - threshold);
+            } else if (values[i] <= -threshold) {
+                encoded[pos++] = -(i + 1);
+                update.putScalar(i, values[i] + threshold);
+            }
+        }
+        return encoded;
+    }
+
+    /**
+     * Decodes and averages updates received from all workers.
+     *
+     * PLEASE NOTE: Driver and workers both use this method to apply the same updates, so the order of arithmetic
+     * must not depend on anything but the list of updates.
+     *
+     * @param updates encoded updates
+     * @param threshold quantization threshold used for encoding
+     * @param length number of parameters
+     * @return dense row vector with averaged update
+     */
+    public static INDArray decode(List<int[]> updates, double threshold, int length) {
+        double[] sum = new double[length];
+        for (int[] encoded : updates) {
+            for (int e : encoded) {
+                if (e > 0) sum[e - 1] += threshold;
+                else sum[-e - 1] -= threshold;
+            }
+        }
+
+        if (updates.size() > 1) {
+            for (int i = 0; i < length; i++) {
+                sum[i] /= updates.size();
+            }
+        }
+        return Nd4j.create(sum);
+    }
+
+    /**
+     * Number of bytes needed to send given encoded update
+     */
+    public static long bytes(int[] encoded) {
+        return 4L * encoded.length;
+    }
+}
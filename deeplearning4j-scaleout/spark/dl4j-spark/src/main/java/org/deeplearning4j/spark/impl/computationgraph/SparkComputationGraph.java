@@ -38,13 +38,19 @@ import org.deeplearning4j.nn.updater.graph.ComputationGraphUpdater;
 import org.deeplearning4j.optimize.api.IterationListener;
 import org.deeplearning4j.spark.canova.RecordReaderFunction;
 import org.deeplearning4j.spark.impl.common.Adder;
+import org.deeplearning4j.spark.impl.common.gradient.ClearSharedStateFunction;
 import org.deeplearning4j.spark.impl.common.gradient.GradientAdder;
+import org.deeplearning4j.spark.impl.common.gradient.SharedUpdate;
+import org.deeplearning4j.spark.impl.common.gradient.SharedWorkerState;
+import org.deeplearning4j.spark.impl.common.gradient.SharingStats;
+import org.deeplearning4j.spark.impl.common.gradient.ThresholdEncoding;
 import org.deeplearning4j.spark.impl.common.misc.*;
 import org.deeplearning4j.spark.impl.common.updater.UpdaterAggregatorCombinerCG;
 import org.deeplearning4j.spark.impl.common.updater.UpdaterElementCombinerCG;
 import org.deeplearning4j.spark.impl.computationgraph.dataset.DataSetToMultiDataSetFn;
 import org.deeplearning4j.spark.impl.computationgraph.dataset.PairDataSetToMultiDataSetFn;
 import org.deeplearning4j.spark.impl.computationgraph.gradientaccum.GradientAccumFlatMapCG;
+import org.deeplearning4j.spark.impl.computationgraph.gradientsharing.GradientSharingFunctionCG;
 import org.deeplearning4j.spark.impl.computationgraph.scoring.ScoreExamplesFunction;
 import org.deeplearning4j.spark.impl.computationgraph.scoring.ScoreExamplesWithKeyFunction;
 import org.deeplearning4j.util.ModelSerializer;
@@ -64,6 +70,7 @@ import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.UUID;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**Main class for training ComputationGraph networks using Spark
@@ -83,9 +90,19 @@ public class SparkComputationGraph implements Serializable {
     public final static String AVERAGE_EACH_ITERATION = "org.deeplearning4j.spark.iteration.average";
     public final static String ACCUM_GRADIENT = "org.deeplearning4j.spark.iteration.accumgrad";
     public final static String DIVIDE_ACCUM_GRADIENT = "org.deeplearning4j.spark.iteration.dividegrad";
+    public final static String SHARE_GRADIENTS = "org.deeplearning4j.spark.iteration.sharegrad";
+    public final static String SHARING_THRESHOLD = "org.deeplearning4j.spark.iteration.sharegrad.threshold";
+    public final static double DEFAULT_SHARING_THRESHOLD = 1e-3;
 
     private double lastScore;
 
+    private boolean shareGradients = false;
+    private double sharingThreshold = DEFAULT_SHARING_THRESHOLD;
+    private String trainingId = UUID.randomUUID().toString();
+    private int sharingRound = 0;
+    private List<int[]> lastUpdates = new ArrayList<>();
+    private List<SharingStats> sharingStats = new ArrayList<>();
+
     private static final Logger log = LoggerFactory.getLogger(SparkComputationGraph.class);
 
     private transient AtomicInteger iterationsCount = new AtomicInteger(0);
@@ -108,6 +125,8 @@ public class SparkComputationGraph implements Serializable {
         this.network.init();
         this.updater = sc.broadcast(network.getUpdater());
         this.averageEachIteration = sc.getConf().getBoolean(AVERAGE_EACH_ITERATION, false);
+        this.shareGradients = sc.getConf().getBoolean(SHARE_GRADIENTS, false);
+        this.sharingThreshold = sc.getConf().getDouble(SHARING_THRESHOLD, DEFAULT_SHARING_THRESHOLD);
     }
 
 
@@ -121,6 +140,8 @@ public class SparkComputationGraph implements Serializable {
         this.network = new ComputationGraph(conf);
         this.network.init();
         this.averageEachIteration = sparkContext.sc().conf().getBoolean(AVERAGE_EACH_ITERATION, false);
+        this.shareGradients = sparkContext.sc().conf().getBoolean(SHARE_GRADIENTS, false);
+        this.sharingThreshold = sparkContext.sc().conf().getDouble(SHARING_THRESHOLD, DEFAULT_SHARING_THRESHOLD);
         this.updater = sc.broadcast(network.getUpdater());
     }
 
@@ -270,7 +291,36 @@ public class SparkComputationGraph implements Serializable {
         int paramsLength = network.numParams(true);
         boolean accumGrad = sc.getConf().getBoolean(ACCUM_GRADIENT, false);
 
-        if(accumGrad) {
+        if(shareGradients) {
+            //Learning via sharing threshold encoded updates: only sparse updates are sent, dense parameters are fetched by workers without local state only
+            Broadcast<List<int[]>> lastUpdatesBroadcast = sc.broadcast(lastUpdates);
+            JavaRDD<SharedUpdate> results = rdd.mapPartitionsWithIndex(new GradientSharingFunctionCG(conf.toJson(), trainingId, ++sharingRound,
+                    sharingThreshold, this.params, this.updater, lastUpdatesBroadcast), true);
+            List<SharedUpdate> updates = results.collect();
+
+            lastUpdates = new ArrayList<>();
+            long elements = 0;
+            long bytesSent = 0;
+            double scoreSum = 0.0;
+            for (SharedUpdate update : updates) {
+                lastUpdates.add(update.getEncoded());
+                elements += update.getEncoded().length;
+                bytesSent += ThresholdEncoding.bytes(update.getEncoded());
+                scoreSum += update.getScore();
+                if (update.getMaxMemory() > maxSm) maxSm = update.getMaxMemory();
+            }
+            maxRep = updates.size();
+
+            // workers will apply exactly the same updates to their local copies during next round
+            network.setParams(network.params(false).addi(ThresholdEncoding.decode(lastUpdates, sharingThreshold, network.numParams(false))));
+            if (maxRep > 0) lastScore = scoreSum / maxRep;
+
+            SharingStats stats = new SharingStats(sharingRound, maxRep, elements, bytesSent, 4L * network.numParams(false) * maxRep);
+            sharingStats.add(stats);
+            log.info("Gradient sharing round {}: {} workers sent {} bytes, parameter averaging would send {} bytes",
+                    sharingRound, maxRep, stats.getBytesSent(), stats.getDenseBytes());
+        }
+        else if(accumGrad) {
             //Learning via averaging gradients
             JavaRDD<Tuple3<Gradient,ComputationGraphUpdater,ScoreReport>> results = rdd.mapPartitions(new GradientAccumFlatMapCG(conf.toJson(),
                     this.params, this.updater),true).cache();
@@ -382,6 +432,55 @@ public class SparkComputationGraph implements Serializable {
         }
     }
 
+    /**
+     * Enables training via sharing of threshold encoded updates, instead of parameter averaging.
+     * Can also be enabled via {@link #SHARE_GRADIENTS} spark configuration property.
+     * <p>
+     * PLEASE NOTE: only parameters are shared. Updater state (momentum, AdaGrad history etc) stays in the local state
+     * of each worker and isn't aggregated back, so updater of the driver network isn't changed by gradient sharing
+     * rounds. Workers that lose their local state (i.e. partition moved to another executor) restart from that
+     * broadcasted driver updater.
+     *
+     * @param shareGradients
+     */
+    public void setShareGradients(boolean shareGradients) {
+        this.shareGradients = shareGradients;
+    }
+
+    /**
+     * Specifies threshold for gradient sharing: only update elements with absolute value above threshold are sent,
+     * everything else is accumulated locally on workers until it reaches threshold.
+     * Can also be set via {@link #SHARING_THRESHOLD} spark configuration property.
+     *
+     * @param threshold
+     */
+    public void setSharingThreshold(double threshold) {
+        if (threshold <= 0)
+            throw new IllegalArgumentException("Sharing threshold should be positive");
+        this.sharingThreshold = threshold;
+    }
+
+    /**
+     * Removes executor-local gradient sharing state (parameters, residual and updater) of this network from the
+     * executors processing the given data, and from the driver. Call this once gradient sharing training is finished;
+     * further rounds, if any, start from broadcasted parameters with empty residual.<br>
+     * Executors keep state of a limited number of training sessions only (see {@link SharedWorkerState#MAX_SESSIONS}),
+     * so state not removed this way is dropped once other sessions are trained.
+     *
+     * @param rdd data used for training, so cleanup runs on the same executors
+     */
+    public <T> void clearSharedState(JavaRDD<T> rdd) {
+        rdd.foreachPartition(new ClearSharedStateFunction<T>(trainingId));
+        SharedWorkerState.remove(trainingId);
+    }
+
+    /**
+     * Returns traffic stats for every gradient sharing round done so far
+     */
+    public List<SharingStats> getSharingStats() {
+        return sharingStats;
+    }
+
     /** Gets the last (average) minibatch score from calling fit */
     public double getScore(){
         return lastScore;
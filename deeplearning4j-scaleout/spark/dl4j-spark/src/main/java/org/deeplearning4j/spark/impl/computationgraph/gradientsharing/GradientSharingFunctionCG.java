@@ -0,0 +1,105 @@
+package org.deeplearning4j.spark.impl.computationgraph.gradientsharing;
+
+import org.apache.spark.api.java.function.Function2;
+import org.apache.spark.broadcast.Broadcast;
+import org.deeplearning4j.nn.conf.ComputationGraphConfiguration;
+import org.deeplearning4j.nn.graph.ComputationGraph;
+import org.deeplearning4j.nn.updater.graph.ComputationGraphUpdater;
+import org.deeplearning4j.spark.impl.common.gradient.SharedUpdate;
+import org.deeplearning4j.spark.impl.common.gradient.SharedWorkerState;
+import org.deeplearning4j.spark.impl.common.gradient.ThresholdEncoding;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.dataset.api.MultiDataSet;
+import org.nd4j.linalg.factory.Nd4j;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Single round of gradient sharing on one partition, ComputationGraph version.
+ *
+ * Worker applies updates shared during previous round to its local copy of parameters, fits the partition,
+ * and returns only the threshold encoded difference between new and initial parameters.
+ * Broadcasted parameters and updater are used only if there's no local state for this partition yet.
+ */
+public class GradientSharingFunctionCG implements Function2<Integer, Iterator<MultiDataSet>, Iterator<SharedUpdate>> {
+    private static Logger log = LoggerFactory.getLogger(GradientSharingFunctionCG.class);
+
+    private String json;
+    private String trainingId;
+    private int round;
+    private double threshold;
+    private Broadcast<INDArray> params;
+    private Broadcast<ComputationGraphUpdater> updater;
+    private Broadcast<List<int[]>> lastUpdates;
+
+    /**
+     * @param json network configuration
+     * @param trainingId id of training session, used to find local state
+     * @param round current round
+     * @param threshold quantization threshold
+     * @param params current parameters, fetched only if local state is missing
+     * @param updater current updater, fetched only if local state is missing
+     * @param lastUpdates encoded updates shared during previous round
+     */
+    public GradientSharingFunctionCG(String json, String trainingId, int round, double threshold, Broadcast<INDArray> params,
+                                   Broadcast<ComputationGraphUpdater> updater, Broadcast<List<int[]>> lastUpdates) {
+        this.json = json;
+        this.trainingId = trainingId;
+        this.round = round;
+        this.threshold = threshold;
+        this.params = params;
+        this.updater = updater;
+        this.lastUpdates = lastUpdates;
+    }
+
+    @Override
+    public Iterator<SharedUpdate> call(Integer partition, Iterator<MultiDataSet> dataSetIterator) throws Exception {
+        if (!dataSetIterator.hasNext()) {
+            return Collections.<SharedUpdate>emptyList().iterator();
+        }
+
+        List<MultiDataSet> collect = new ArrayList<>();
+        while (dataSetIterator.hasNext()) {
+            collect.add(dataSetIterator.next());
+        }
+        MultiDataSet data = org.nd4j.linalg.dataset.MultiDataSet.merge(collect);
+
+        ComputationGraph network = new ComputationGraph(ComputationGraphConfiguration.fromJson(json));
+        network.init();
+
+        SharedWorkerState<ComputationGraphUpdater> state = SharedWorkerState.get(trainingId, partition, round);
+        INDArray initial;
+        INDArray residual;
+        ComputationGraphUpdater upd;
+        if (state == null) {
+            log.debug("No local state for partition {}, using broadcasted parameters", partition);
+            //Need to clone: parameters and updaters are mutable values -> .getValue() object will be shared by ALL executors on the same machine!
+            initial = params.getValue().dup();
+            residual = Nd4j.zeros(initial.shape());
+            upd = updater.getValue().clone();
+        } else {
+            initial = state.getParams();
+            initial.addi(ThresholdEncoding.decode(lastUpdates.getValue(), threshold, initial.length()));
+            residual = state.getResidual();
+            upd = state.getUpdater();
+        }
+
+        if (initial.length() != network.numParams(false))
+            throw new IllegalStateException("Network did not have same number of parameters as the broadcasted set parameters");
+        network.setParams(initial.dup());
+        network.setUpdater(upd);
+        network.fit(data);
+
+        // residual is accumulated with the new update, and after encoding holds whatever wasn't sent
+        residual.addi(network.params(false).sub(initial));
+        int[] encoded = ThresholdEncoding.encode(residual, threshold);
+        SharedWorkerState.put(trainingId, partition, new SharedWorkerState<>(round, initial, residual, network.getUpdater()));
+
+        return Collections.singletonList(new SharedUpdate(encoded, network.score(), Runtime.getRuntime().maxMemory())).iterator();
+    }
+}
@@ -19,6 +19,7 @@
 package org.deeplearning4j.spark.impl.multilayer;
 
 import lombok.NonNull;
+import org.apache.commons.io.FileUtils;
 import org.apache.spark.Accumulator;
 import org.apache.spark.SparkContext;
 import org.apache.spark.api.java.JavaDoubleRDD;
@@ -42,15 +43,23 @@ import org.deeplearning4j.nn.updater.UpdaterCreator;
 import org.deeplearning4j.nn.updater.aggregate.UpdaterAggregator;
 import org.deeplearning4j.optimize.api.IterationListener;
 import org.deeplearning4j.spark.canova.RecordReaderFunction;
+import org.deeplearning4j.spark.data.ExportMinibatchesFunction;
+import org.deeplearning4j.spark.data.LoadSliceFunction;
 import org.deeplearning4j.spark.impl.common.Adder;
 import org.deeplearning4j.spark.impl.common.BestScoreAccumulator;
+import org.deeplearning4j.spark.impl.common.gradient.ClearSharedStateFunction;
 import org.deeplearning4j.spark.impl.common.gradient.GradientAdder;
+import org.deeplearning4j.spark.impl.common.gradient.SharedUpdate;
+import org.deeplearning4j.spark.impl.common.gradient.SharedWorkerState;
+import org.deeplearning4j.spark.impl.common.gradient.SharingStats;
+import org.deeplearning4j.spark.impl.common.gradient.ThresholdEncoding;
 import org.deeplearning4j.spark.impl.common.misc.*;
 import org.deeplearning4j.spark.impl.common.updater.UpdaterAggregatorCombiner;
 import org.deeplearning4j.spark.impl.common.updater.UpdaterElementCombiner;
 import org.deeplearning4j.spark.impl.multilayer.evaluation.EvaluateFlatMapFunction;
 import org.deeplearning4j.spark.impl.multilayer.evaluation.EvaluationReduceFunction;
 import org.deeplearning4j.spark.impl.multilayer.gradientaccum.GradientAccumFlatMap;
+import org.deeplearning4j.spark.impl.multilayer.gradientsharing.GradientSharingFunction;
 import org.deeplearning4j.spark.impl.multilayer.scoring.ScoreExamplesFunction;
 import org.deeplearning4j.spark.impl.multilayer.scoring.ScoreExamplesWithKeyFunction;
 import org.deeplearning4j.spark.util.MLLibUtil;
@@ -67,10 +76,13 @@ import org.slf4j.LoggerFactory;
 import scala.Tuple2;
 import scala.Tuple3;
 
+import java.io.File;
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.UUID;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -92,9 +104,19 @@ public class SparkDl4jMultiLayer implements Serializable {
     public final static String AVERAGE_EACH_ITERATION = "org.deeplearning4j.spark.iteration.average";
     public final static String ACCUM_GRADIENT = "org.deeplearning4j.spark.iteration.accumgrad";
     public final static String DIVIDE_ACCUM_GRADIENT = "org.deeplearning4j.spark.iteration.dividegrad";
+    public final static String SHARE_GRADIENTS = "org.deeplearning4j.spark.iteration.sharegrad";
+    public final static String SHARING_THRESHOLD = "org.deeplearning4j.spark.iteration.sharegrad.threshold";
+    public final static double DEFAULT_SHARING_THRESHOLD = 1e-3;
 
     private Accumulator<Double> bestScoreAcc = null;
     private double lastScore;
+
+    private boolean shareGradients = false;
+    private double sharingThreshold = DEFAULT_SHARING_THRESHOLD;
+    private String trainingId = UUID.randomUUID().toString();
+    private int sharingRound = 0;
+    private List<int[]> lastUpdates = new ArrayList<>();
+    private List<SharingStats> sharingStats = new ArrayList<>();
     private transient boolean initDone = false;
     private transient AtomicInteger iterationsCount = new AtomicInteger(0);
 
@@ -121,6 +143,8 @@ public class SparkDl4jMultiLayer implements Serializable {
         this.network.init();
         this.updater = sc.broadcast(network.getUpdater());
         this.averageEachIteration = sparkContext.conf().getBoolean(AVERAGE_EACH_ITERATION,false);
+        this.shareGradients = sparkContext.conf().getBoolean(SHARE_GRADIENTS, false);
+        this.sharingThreshold = sparkContext.conf().getDouble(SHARING_THRESHOLD, DEFAULT_SHARING_THRESHOLD);
         this.bestScoreAcc = BestScoreAccumulator.create(sparkContext);
     }
 
@@ -136,6 +160,8 @@ public class SparkDl4jMultiLayer implements Serializable {
         this.network = new MultiLayerNetwork(conf);
         this.network.init();
         this.averageEachIteration = sparkContext.conf().getBoolean(AVERAGE_EACH_ITERATION, false);
+        this.shareGradients = sparkContext.conf().getBoolean(SHARE_GRADIENTS, false);
+        this.sharingThreshold = sparkContext.conf().getDouble(SHARING_THRESHOLD, DEFAULT_SHARING_THRESHOLD);
         this.bestScoreAcc = BestScoreAccumulator.create(sparkContext);
         this.updater = sc.broadcast(network.getUpdater());
     }
@@ -327,6 +353,84 @@ public class SparkDl4jMultiLayer implements Serializable {
         return network;
     }
 
+    /**Fit the data as for {@link #fitDataSet(JavaRDD, int, int, int)}, but without shuffling the data every averaging
+     * round: the data is repartitioned and batched once, and exported to binary minibatch files (one set of files per
+     * partition and round, see {@link #exportMinibatches(JavaRDD, String, int, int, int)}). Each round then trains on
+     * the next slice of each partition, read from the exported files.<br>
+     * The exported files are deleted once training is done (or fails). To fit the exported data again (for example,
+     * for multiple epochs), use {@link #exportMinibatches(JavaRDD, String, int, int, int)} and
+     * {@link #fitExported(JavaRDD, int)} instead, and delete the export when done.
+     *
+     * @param rdd Data to train on
+     * @param examplesPerFit Number of examples to learn on (between averaging) across all executors
+     * @param totalExamples total number of examples in the data RDD
+     * @param numPartitions number of partitions to divide the data in to. For best results, this should be equal to the
+     *                      number of executors
+     * @param batchSize minimum number of examples in each exported minibatch
+     * @param exportDir directory to export the minibatches to. Must be on a file system available to all workers
+     * @return Trained network
+     */
+    public MultiLayerNetwork fitDataSetPartitionLocal(JavaRDD<DataSet> rdd, int examplesPerFit, int totalExamples, int numPartitions,
+                                                      int batchSize, String exportDir){
+        int nSplits;
+        if(examplesPerFit == Integer.MAX_VALUE || examplesPerFit >= totalExamples ) nSplits = 1;
+        else nSplits = (totalExamples + examplesPerFit - 1) / examplesPerFit;
+
+        JavaRDD<String> slices = null;
+        try {
+            slices = exportMinibatches(rdd, exportDir, batchSize, nSplits, numPartitions);
+            fitExported(slices, nSplits);
+        } finally {
+            if (slices != null) slices.unpersist();
+            //Only the partition directories written by the export: exportDir itself may hold other files
+            for (int i = 0; i < numPartitions; i++) {
+                File partitionDir = new File(exportDir, "partition-" + i);
+                try {
+                    FileUtils.deleteDirectory(partitionDir);
+                } catch (IOException e) {
+                    log.warn("Unable to delete exported minibatches in {}", partitionDir, e);
+                }
+            }
+        }
+        return network;
+    }
+
+    /**
+     * Repartition the data once, and export each partition to binary minibatch files, split into {@code numSlices}
+     * slices (one per averaging round). The export is done before this method returns.
+     *
+     * @param rdd Data to export
+     * @param exportDir directory to export the minibatches to. Must be on a file system available to all workers
+     * @param batchSize minimum number of examples in each exported minibatch
+     * @param numSlices number of slices (averaging rounds) to split each partition in to
+     * @param numPartitions number of partitions to divide the data in to
+     * @return the (cached) paths of the slices of each partition, for use in {@link #fitExported(JavaRDD, int)}
+     */
+    public JavaRDD<String> exportMinibatches(JavaRDD<DataSet> rdd, String exportDir, int batchSize, int numSlices, int numPartitions){
+        log.info("Exporting minibatches to {}: {} partitions, {} slices per partition", exportDir, numPartitions, numSlices);
+        JavaRDD<String> slices = rdd.repartition(numPartitions)
+                .mapPartitionsWithIndex(new ExportMinibatchesFunction(exportDir, batchSize, numSlices), true);
+        slices.cache();
+        slices.count();
+        return slices;
+    }
+
+    /**
+     * Fit the data exported by {@link #exportMinibatches(JavaRDD, String, int, int, int)}: one averaging round per slice.
+     * Each round loads the next slice of each partition locally (no shuffle)
+     *
+     * @param slices the paths returned by {@link #exportMinibatches(JavaRDD, String, int, int, int)}
+     * @param numSlices number of slices per partition used for the export
+     * @return Trained network
+     */
+    public MultiLayerNetwork fitExported(JavaRDD<String> slices, int numSlices){
+        for( int i=0; i<numSlices; i++ ){
+            log.info("Initiating distributed training of slice {} of {}", (i + 1), numSlices);
+            fitDataSet(slices.mapPartitions(new LoadSliceFunction(i), true));
+        }
+        return network;
+    }
+
     /**
      * Fit the dataset rdd
      * @param rdd the rdd to fitDataSet
@@ -380,7 +484,36 @@ public class SparkDl4jMultiLayer implements Serializable {
         this.updater = sc.broadcast(updater);
 
         boolean accumGrad = sc.getConf().getBoolean(ACCUM_GRADIENT, false);
-        if(accumGrad) {
+        if(shareGradients) {
+            //Learning via sharing threshold encoded updates: only sparse updates are sent, dense parameters are fetched by workers without local state only
+            Broadcast<List<int[]>> lastUpdatesBroadcast = sc.broadcast(lastUpdates);
+            JavaRDD<SharedUpdate> results = rdd.mapPartitionsWithIndex(new GradientSharingFunction(conf.toJson(), trainingId, ++sharingRound,
+                    sharingThreshold, this.params, this.updater, lastUpdatesBroadcast), true);
+            List<SharedUpdate> updates = results.collect();
+
+            lastUpdates = new ArrayList<>();
+            long elements = 0;
+            long bytesSent = 0;
+            double scoreSum = 0.0;
+            for (SharedUpdate update : updates) {
+                lastUpdates.add(update.getEncoded());
+                elements += update.getEncoded().length;
+                bytesSent += ThresholdEncoding.bytes(update.getEncoded());
+                scoreSum += update.getScore();
+                if (update.getMaxMemory() > maxSm) maxSm = update.getMaxMemory();
+            }
+            maxRep = updates.size();
+
+            // workers will apply exactly the same updates to their local copies during next round
+            network.setParameters(network.params(false).addi(ThresholdEncoding.decode(lastUpdates, sharingThreshold, network.numParams(false))));
+            if (maxRep > 0) lastScore = scoreSum / maxRep;
+
+            SharingStats stats = new SharingStats(sharingRound, maxRep, elements, bytesSent, 4L * network.numParams(false) * maxRep);
+            sharingStats.add(stats);
+            log.info("Gradient sharing round {}: {} workers sent {} bytes, parameter averaging would send {} bytes",
+                    sharingRound, maxRep, stats.getBytesSent(), stats.getDenseBytes());
+        }
+        else if(accumGrad) {
             //Learning via averaging gradients
             JavaRDD<Tuple3<Gradient,Updater, ScoreReport>> results = rdd.mapPartitions(new GradientAccumFlatMap(conf.toJson(), this.params, this.updater),true).cache();
 
@@ -503,6 +636,55 @@ public class SparkDl4jMultiLayer implements Serializable {
         }
     }
 
+    /**
+     * Enables training via sharing of threshold encoded updates, instead of parameter averaging.
+     * Can also be enabled via {@link #SHARE_GRADIENTS} spark configuration property.
+     * <p>
+     * PLEASE NOTE: only parameters are shared. Updater state (momentum, AdaGrad history etc) stays in the local state
+     * of each worker and isn't aggregated back, so updater of the driver network isn't changed by gradient sharing
+     * rounds. Workers that lose their local state (i.e. partition moved to another executor) restart from that
+     * broadcasted driver updater.
+     *
+     * @param shareGradients
+     */
+    public void setShareGradients(boolean shareGradients) {
+        this.shareGradients = shareGradients;
+    }
+
+    /**
+     * Specifies threshold for gradient sharing: only update elements with absolute value above threshold are sent,
+     * everything else is accumulated locally on workers until it reaches threshold.
+     * Can also be set via {@link #SHARING_THRESHOLD} spark configuration property.
+     *
+     * @param threshold
+     */
+    public void setSharingThreshold(double threshold) {
+        if (threshold <= 0)
+            throw new IllegalArgumentException("Sharing threshold should be positive");
+        this.sharingThreshold = threshold;
+    }
+
+    /**
+     * Removes executor-local gradient sharing state (parameters, residual and updater) of this network from the
+     * executors processing the given data, and from the driver. Call this once gradient sharing training is finished;
+     * further rounds, if any, start from broadcasted parameters with empty residual.<br>
+     * Executors keep state of a limited number of training sessions only (see {@link SharedWorkerState#MAX_SESSIONS}),
+     * so state not removed this way is dropped once other sessions are trained.
+     *
+     * @param rdd data used for training, so cleanup runs on the same executors
+     */
+    public <T> void clearSharedState(JavaRDD<T> rdd) {
+        rdd.foreachPartition(new ClearSharedStateFunction<T>(trainingId));
+        SharedWorkerState.remove(trainingId);
+    }
+
+    /**
+     * Returns traffic stats for every gradient sharing round done so far
+     */
+    public List<SharingStats> getSharingStats() {
+        return sharingStats;
+    }
+
     /** Gets the last (average) minibatch score from calling fit */
     public double getScore(){
         return lastScore;
@@ -17,6 +17,7 @@ import org.deeplearning4j.nn.conf.layers.DenseLayer;
 import org.deeplearning4j.nn.conf.layers.OutputLayer;
 import org.deeplearning4j.nn.graph.ComputationGraph;
 import org.deeplearning4j.spark.BaseSparkTest;
+import org.deeplearning4j.spark.impl.common.gradient.SharingStats;
 import org.deeplearning4j.spark.impl.computationgraph.SparkComputationGraph;
 import org.junit.Test;
 import org.nd4j.linalg.api.ndarray.INDArray;
@@ -31,6 +32,7 @@ import scala.Tuple2;
 import java.util.*;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 public class TestSparkComputationGraph extends BaseSparkTest {
 
@@ -79,6 +81,39 @@ public class TestSparkComputationGraph extends BaseSparkTest {
     }
 
 
+    @Test
+    public void testGradientSharing() {
+        ComputationGraphConfiguration conf = new NeuralNetConfiguration.Builder()
+                .seed(123)
+                .updater(Updater.NESTEROVS)
+                .learningRate(0.1)
+                .momentum(0.9)
+                .graphBuilder()
+                .addInputs("in")
+                .addLayer("0", new DenseLayer.Builder().nIn(nIn).nOut(3).activation("tanh").build(), "in")
+                .addLayer("1", new OutputLayer.Builder(LossFunctions.LossFunction.MCXENT).nIn(3).nOut(nOut).activation("softmax").build(), "0")
+                .setOutputs("1")
+                .backprop(true)
+                .pretrain(false)
+                .build();
+
+        SparkComputationGraph sparkNet = new SparkComputationGraph(sc, conf);
+        sparkNet.setShareGradients(true);
+
+        double initialScore = sparkNet.getNetwork().score(data);
+        for (int i = 0; i < 10; i++) {
+            sparkNet.fitDataSet(sparkData, Integer.MAX_VALUE, nRows, 4);
+        }
+
+        sparkNet.clearSharedState(sparkData);
+
+        assertEquals(10, sparkNet.getSharingStats().size());
+        for (SharingStats stats : sparkNet.getSharingStats()) {
+            assertTrue(stats.getBytesSent() <= stats.getDenseBytes());
+        }
+        assertTrue(sparkNet.getNetwork().score(data) < initialScore);
+    }
+
     @Test
     public void testDistributedScoring(){
 
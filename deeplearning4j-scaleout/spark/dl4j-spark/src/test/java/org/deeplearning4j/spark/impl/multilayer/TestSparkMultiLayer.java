@@ -20,6 +20,7 @@ package org.deeplearning4j.spark.impl.multilayer;
 
 
 
+import org.apache.commons.io.FileUtils;
 import org.apache.spark.api.java.JavaPairRDD;
 import org.apache.spark.api.java.JavaRDD;
 import org.apache.spark.api.java.function.Function;
@@ -38,6 +39,9 @@ import org.deeplearning4j.nn.conf.layers.RBM;
 import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
 import org.deeplearning4j.nn.weights.WeightInit;
 import org.deeplearning4j.spark.BaseSparkTest;
+import org.deeplearning4j.spark.data.LoadSliceFunction;
+import org.deeplearning4j.spark.impl.common.gradient.SharedWorkerState;
+import org.deeplearning4j.spark.impl.common.gradient.SharingStats;
 import org.deeplearning4j.spark.util.MLLibUtil;
 import org.junit.Test;
 import org.nd4j.linalg.api.ndarray.INDArray;
@@ -49,9 +53,13 @@ import scala.Tuple2;
 
 import java.io.File;
 import java.io.FileInputStream;
+import java.nio.file.Files;
 import java.util.*;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 
 /**
@@ -341,6 +349,91 @@ public class TestSparkMultiLayer extends BaseSparkTest {
 
     }
 
+    @Test
+    public void testGradientSharing() {
+        SparkDl4jMultiLayer averaging = getBasicNetwork();
+        SparkDl4jMultiLayer sharing = getBasicNetwork();
+        sharing.setShareGradients(true);
+        sharing.setSharingThreshold(1e-2);
+
+        double initialScore = sharing.getNetwork().score(data);
+        for (int i = 0; i < 10; i++) {
+            averaging.fitDataSet(sparkData);
+            sharing.fitDataSet(sparkData);
+        }
+        sharing.clearSharedState(sparkData);
+        double averagingScore = averaging.getNetwork().score(data);
+        double sharingScore = sharing.getNetwork().score(data);
+
+        long bytesSent = 0;
+        long denseBytes = 0;
+        for (SharingStats stats : sharing.getSharingStats()) {
+            assertTrue(stats.getBytesSent() <= stats.getDenseBytes());
+            bytesSent += stats.getBytesSent();
+            denseBytes += stats.getDenseBytes();
+        }
+        System.out.println("Initial score: " + initialScore + ", averaging: " + averagingScore + ", sharing: " + sharingScore);
+        System.out.println("Bytes sent: " + bytesSent + ", parameter averaging: " + denseBytes);
+
+        assertEquals(10, sharing.getSharingStats().size());
+        assertTrue(sharingScore < initialScore);
+        assertEquals(averagingScore, sharingScore, 0.1 * averagingScore);
+        //Updates below the threshold are delayed, not sent
+        assertTrue(bytesSent < denseBytes);
+    }
+
+    @Test
+    public void testSharedWorkerStateBounded() {
+        INDArray params = Nd4j.zeros(1, 10);
+        for (int i = 0; i <= SharedWorkerState.MAX_SESSIONS; i++)
+            SharedWorkerState.put("session" + i, 0, new SharedWorkerState<>(1, params, params, null));
+
+        //Least recently updated session is dropped
+        assertNull(SharedWorkerState.get("session0", 0, 2));
+        for (int i = 1; i <= SharedWorkerState.MAX_SESSIONS; i++)
+            assertNotNull(SharedWorkerState.get("session" + i, 0, 2));
+
+        for (int i = 1; i <= SharedWorkerState.MAX_SESSIONS; i++) {
+            SharedWorkerState.remove("session" + i);
+            assertNull(SharedWorkerState.get("session" + i, 0, 2));
+        }
+    }
+
+    @Test
+    public void testPartitionLocalMinibatches() throws Exception {
+        SparkDl4jMultiLayer sparkNet = getBasicNetwork();
+        File exportDir = Files.createTempDirectory("dl4jSparkExport").toFile();
+        try {
+            int numSlices = 5;
+            JavaRDD<String> slices = sparkNet.exportMinibatches(sparkData, exportDir.getAbsolutePath(), 10, numSlices, 4);
+            assertEquals(4, slices.partitions().size());
+            assertEquals(4 * numSlices, slices.count());
+
+            //Every example is in exactly one slice
+            int numExamples = 0;
+            for (int i = 0; i < numSlices; i++) {
+                for (DataSet ds : slices.mapPartitions(new LoadSliceFunction(i), true).collect())
+                    numExamples += ds.numExamples();
+            }
+            assertEquals(nRows, numExamples);
+
+            double initialScore = sparkNet.getNetwork().score(data);
+            for (int i = 0; i < 5; i++)
+                sparkNet.fitExported(slices, numSlices);
+            double score = sparkNet.getNetwork().score(data);
+            System.out.println("Initial score: " + initialScore + ", after training: " + score);
+            assertTrue(score < initialScore);
+
+            //fitDataSetPartitionLocal deletes its export when done
+            File fitDir = new File(exportDir, "fit");
+            assertTrue(fitDir.mkdir());
+            sparkNet.fitDataSetPartitionLocal(sparkData, nRows / numSlices, nRows, 4, 10, fitDir.getAbsolutePath());
+            assertEquals(0, fitDir.list().length);
+        } finally {
+            FileUtils.deleteDirectory(exportDir);
+        }
+    }
+
     @Test
     public void testDistributedScoring(){
 